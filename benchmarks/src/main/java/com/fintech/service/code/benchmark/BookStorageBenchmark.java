@@ -0,0 +1,100 @@
+package com.fintech.service.code.benchmark;
+
+import com.fintech.service.code.config.EngineProperties;
+import com.fintech.service.code.engine.EpochClock;
+import com.fintech.service.code.engine.FillBuffer;
+import com.fintech.service.code.engine.IdGenerator;
+import com.fintech.service.code.engine.PriceTimeMatchingEngine;
+import com.fintech.service.code.engine.book.OffHeapOrderBook;
+import com.fintech.service.code.engine.book.OrderBook;
+import com.fintech.service.code.metrics.TradeMetricsService;
+import com.fintech.service.code.model.OrderKind;
+import com.fintech.service.code.model.OrderType;
+import com.fintech.service.code.service.OrderBookService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Heap against off-heap book storage on a very deep single-symbol book. Setup loads {@code depth} resting
+ * orders and prints the retained heap and the reserved direct memory, plus the time spent in the full
+ * collections that measure them. Each operation then rests an ask and sends a buy for the same quantity
+ * that sweeps from the best ask, so resting quantity and depth stay constant.
+ * <p>
+ * Run with {@code -prof gc} to compare collection counts and times between the two storages while the
+ * deep book is live.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms6g", "-Xmx6g", "-XX:MaxDirectMemorySize=4g"})
+public class BookStorageBenchmark {
+
+    private static final String SYMBOL = "ACME";
+    private static final int PRICE_LEVELS = 2_000;
+    private static final long MID = 100_000;
+
+    @Param({"HEAP", "OFF_HEAP"})
+    EngineProperties.BookStorage storage;
+
+    @Param({"1000000", "10000000"})
+    int depth;
+
+    private final FillBuffer fills = new FillBuffer();
+    private final SplittableRandom random = new SplittableRandom(42);
+    private PriceTimeMatchingEngine engine;
+    private long nextId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        long heapBefore = usedHeapAfterGc();
+        OrderBookService books = new OrderBookService(storage);
+        engine = new PriceTimeMatchingEngine(books, new TradeMetricsService(new SimpleMeterRegistry()),
+                new IdGenerator());
+        for (int i = 0; i < depth; i++) {
+            restAsk();
+        }
+        long gcBefore = collectionMillis();
+        long heapAfter = usedHeapAfterGc();
+        long fullGcMillis = collectionMillis() - gcBefore;
+        OrderBook book = books.getBook(SYMBOL);
+        long direct = book instanceof OffHeapOrderBook offHeap ? offHeap.getReservedBytes() : 0;
+        System.out.printf("%n%s book with %,d orders: %,d bytes retained on heap (%.1f per order), "
+                        + "%,d bytes direct, full GC %d ms%n", storage, book.size(), heapAfter - heapBefore,
+                (double) (heapAfter - heapBefore) / book.size(), direct, fullGcMillis);
+    }
+
+    @Benchmark
+    public int restAndTakeBest() {
+        int quantity = restAsk();
+        engine.match(SYMBOL, ++nextId, OrderType.BUY, OrderKind.LIMIT, MID + PRICE_LEVELS, quantity,
+                EpochClock.nanos(), fills);
+        return fills.size();
+    }
+
+    private int restAsk() {
+        int quantity = 1 + random.nextInt(100);
+        engine.match(SYMBOL, ++nextId, OrderType.SELL, OrderKind.LIMIT, MID + random.nextInt(PRICE_LEVELS),
+                quantity, EpochClock.nanos(), fills);
+        return quantity;
+    }
+
+    private static long usedHeapAfterGc() {
+        System.gc();
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    private static long collectionMillis() {
+        long millis = 0;
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            millis += Math.max(0, collector.getCollectionTime());
+        }
+        return millis;
+    }
+}
@@ -0,0 +1,99 @@
+package com.fintech.service.code.benchmark;
+
+import com.fintech.service.code.engine.pipeline.CommandType;
+import com.fintech.service.code.model.OrderKind;
+import com.fintech.service.code.model.OrderType;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One engine input of a recorded or synthetic order flow. Flow files hold one event per line, oldest first,
+ * with {@code #} comments:
+ * <pre>
+ * timeNanos NEW    orderId symbol BUY|SELL kind priceTicks quantity
+ * timeNanos CANCEL orderId symbol
+ * timeNanos AMEND  orderId symbol priceTicks|- quantity|-
+ * </pre>
+ * {@code timeNanos} is the epoch time the command reached the engine; replays use it both as the engine's
+ * clock and for pacing.
+ */
+public record FlowEvent(long timeNanos, CommandType type, long orderId, String symbol, OrderType side,
+                        OrderKind kind, long priceTicks, int quantity) {
+
+    static final long ABSENT = -1;
+
+    public static FlowEvent place(long timeNanos, long orderId, String symbol, OrderType side, OrderKind kind,
+                                  long priceTicks, int quantity) {
+        return new FlowEvent(timeNanos, CommandType.NEW, orderId, symbol, side, kind, priceTicks, quantity);
+    }
+
+    public static FlowEvent cancel(long timeNanos, long orderId, String symbol) {
+        return new FlowEvent(timeNanos, CommandType.CANCEL, orderId, symbol, null, null, ABSENT, (int) ABSENT);
+    }
+
+    public static FlowEvent amend(long timeNanos, long orderId, String symbol, long priceTicks, int quantity) {
+        return new FlowEvent(timeNanos, CommandType.AMEND, orderId, symbol, null, null, priceTicks, quantity);
+    }
+
+    public String format() {
+        return switch (type) {
+            case NEW -> timeNanos + " NEW " + orderId + " " + symbol + " " + side + " " + kind + " " + priceTicks
+                    + " " + quantity;
+            case CANCEL -> timeNanos + " CANCEL " + orderId + " " + symbol;
+            case AMEND -> timeNanos + " AMEND " + orderId + " " + symbol + " " + optional(priceTicks) + " "
+                    + optional(quantity);
+            default -> throw new IllegalStateException("Not an order flow command: " + type);
+        };
+    }
+
+    public static FlowEvent parse(String line) {
+        String[] fields = line.trim().split("\\s+");
+        long time = Long.parseLong(fields[0]);
+        long orderId = Long.parseLong(fields[2]);
+        return switch (CommandType.valueOf(fields[1])) {
+            case NEW -> place(time, orderId, fields[3], OrderType.valueOf(fields[4]), OrderKind.valueOf(fields[5]),
+                    Long.parseLong(fields[6]), Integer.parseInt(fields[7]));
+            case CANCEL -> cancel(time, orderId, fields[3]);
+            case AMEND -> amend(time, orderId, fields[3], parseOptional(fields[4]), (int) parseOptional(fields[5]));
+            default -> throw new IllegalArgumentException("Not an order flow command: " + line);
+        };
+    }
+
+    public static List<FlowEvent> read(Path file) throws IOException {
+        List<FlowEvent> events = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(file)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.isBlank() && !line.startsWith("#")) {
+                    events.add(parse(line));
+                }
+            }
+        }
+        return events;
+    }
+
+    public static void write(Path file, String header, List<FlowEvent> events) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(file)) {
+            writer.write("# " + header);
+            writer.newLine();
+            for (FlowEvent event : events) {
+                writer.write(event.format());
+                writer.newLine();
+            }
+        }
+    }
+
+    private static String optional(long value) {
+        return value < 0 ? "-" : String.valueOf(value);
+    }
+
+    private static long parseOptional(String field) {
+        return field.equals("-") ? ABSENT : Long.parseLong(field);
+    }
+}
@@ -0,0 +1,235 @@
+package com.fintech.service.code.benchmark;
+
+import com.fintech.service.code.config.EngineProperties;
+import com.fintech.service.code.engine.EpochClock;
+import com.fintech.service.code.engine.ExecutionReport;
+import com.fintech.service.code.engine.FillBuffer;
+import com.fintech.service.code.engine.IdGenerator;
+import com.fintech.service.code.engine.MatchEventLog;
+import com.fintech.service.code.engine.PriceTimeMatchingEngine;
+import com.fintech.service.code.engine.pipeline.CommandType;
+import com.fintech.service.code.engine.pipeline.OrderCommand;
+import com.fintech.service.code.journal.EventJournal;
+import com.fintech.service.code.journal.JournalListener;
+import com.fintech.service.code.metrics.TradeMetricsService;
+import com.fintech.service.code.model.Order;
+import com.fintech.service.code.model.Trade;
+import com.fintech.service.code.service.OrderBookService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Offline driver for the matching engine: builds order-flow files and replays them against a fresh engine
+ * on the calling thread, so engine changes can be capacity-planned and A/B tested without the service.
+ * <pre>
+ * java -cp target/benchmarks.jar com.fintech.service.code.benchmark.FlowReplay generate \
+ *     out.flow [events] [symbols] [zipfExponent] [priceSigmaTicks] [cancelRatio] [ratePerSecond] [seed]
+ * java -cp target/benchmarks.jar com.fintech.service.code.benchmark.FlowReplay capture journalDir out.flow
+ * java -cp target/benchmarks.jar com.fintech.service.code.benchmark.FlowReplay replay \
+ *     in.flow [runs] [max|paced] [HEAP|OFF_HEAP]
+ * </pre>
+ * The engine's clock returns the time recorded on the event being replayed, so trade ids, timestamps and
+ * fills depend on the flow alone. Every run hashes the full output; the replay exits non-zero if any run's
+ * digest differs from the first.
+ * <p>
+ * At {@code max} speed each event's latency is its own service time. {@code paced} replays at the recorded
+ * inter-arrival times and measures from each event's scheduled time, so time spent behind a slow event is
+ * counted against the events queued behind it.
+ */
+public class FlowReplay {
+
+    private static final long MID = 10_000;
+
+    public static void main(String[] args) throws Exception {
+        switch (args.length > 0 ? args[0] : "") {
+            case "generate" -> generate(args);
+            case "capture" -> capture(Path.of(args[1]), Path.of(args[2]));
+            case "replay" -> replay(args);
+            default -> {
+                System.err.println("usage: FlowReplay generate|capture|replay ...");
+                System.exit(2);
+            }
+        }
+    }
+
+    private static void generate(String[] args) throws Exception {
+        Path out = Path.of(args[1]);
+        int events = args.length > 2 ? Integer.parseInt(args[2]) : 1_000_000;
+        int symbols = args.length > 3 ? Integer.parseInt(args[3]) : 50;
+        double zipfExponent = args.length > 4 ? Double.parseDouble(args[4]) : 1.0;
+        double priceSigma = args.length > 5 ? Double.parseDouble(args[5]) : 20;
+        double cancelRatio = args.length > 6 ? Double.parseDouble(args[6]) : 0.3;
+        double rate = args.length > 7 ? Double.parseDouble(args[7]) : 100_000;
+        long seed = args.length > 8 ? Long.parseLong(args[8]) : 42;
+
+        SyntheticFlow flow = new SyntheticFlow(seed, symbols, zipfExponent, MID, priceSigma, 100, cancelRatio,
+                rate, EpochClock.nanos());
+        String header = String.format("synthetic events=%d symbols=%d zipf=%s sigma=%s cancels=%s rate=%s seed=%d",
+                events, symbols, zipfExponent, priceSigma, cancelRatio, rate, seed);
+        FlowEvent.write(out, header, flow.generate(events));
+        System.out.printf("wrote %d events to %s%n", events, out);
+    }
+
+    /**
+     * Converts the accepted commands in an engine journal into a flow file. New orders keep their kind, except
+     * stop orders, which the flow format has no stop price for and are left out; cancel records carry the
+     * resting order's time, so times are clamped to stay in arrival order.
+     */
+    private static void capture(Path journalDirectory, Path out) throws Exception {
+        EngineProperties properties = new EngineProperties();
+        properties.getJournal().setDirectory(journalDirectory.toString());
+        List<FlowEvent> events = new ArrayList<>();
+        new EventJournal(properties).replay(0, new JournalListener() {
+            private long lastNanos;
+
+            @Override
+            public void onCommand(long position, OrderCommand command) {
+                Order order = command.getOrder();
+                lastNanos = Math.max(lastNanos, EpochClock.toNanos(order.getTimestamp()));
+                switch (command.getType()) {
+                    case NEW -> {
+                        if (!order.getKind().isStop()) {
+                            events.add(FlowEvent.place(lastNanos, command.getOrderId(), command.getSymbol(),
+                                    order.getType(), order.getKind(), order.getPriceTicks(), order.getQuantity()));
+                        }
+                    }
+                    case CANCEL -> events.add(FlowEvent.cancel(lastNanos, command.getOrderId(),
+                            command.getSymbol()));
+                    case AMEND -> events.add(FlowEvent.amend(lastNanos, command.getOrderId(), command.getSymbol(),
+                            command.getPriceTicks() == null ? FlowEvent.ABSENT : command.getPriceTicks(),
+                            command.getQuantity() == null ? (int) FlowEvent.ABSENT : command.getQuantity()));
+                    default -> {
+                    }
+                }
+            }
+        });
+        FlowEvent.write(out, "captured from " + journalDirectory, events);
+        System.out.printf("captured %d commands to %s%n", events.size(), out);
+    }
+
+    private static void replay(String[] args) throws Exception {
+        List<FlowEvent> events = FlowEvent.read(Path.of(args[1]));
+        int runs = args.length > 2 ? Integer.parseInt(args[2]) : 3;
+        boolean paced = args.length > 3 && args[3].equals("paced");
+        EngineProperties.BookStorage storage = args.length > 4
+                ? EngineProperties.BookStorage.valueOf(args[4]) : EngineProperties.BookStorage.HEAP;
+
+        String expected = null;
+        for (int run = 1; run <= runs; run++) {
+            Run result = new Run(storage).replay(events, paced);
+            Arrays.sort(result.latencies);
+            String digest = HexFormat.of().formatHex(result.digest);
+            System.out.printf("run %d: %d events in %.2f s: %.0f events/s, %d trades, digest %s%n", run,
+                    events.size(), result.seconds, events.size() / result.seconds, result.trades, digest);
+            System.out.printf("latency us: p50=%.1f p99=%.1f p99.9=%.1f max=%.1f%n",
+                    GatewayLoadGenerator.percentile(result.latencies, 0.50),
+                    GatewayLoadGenerator.percentile(result.latencies, 0.99),
+                    GatewayLoadGenerator.percentile(result.latencies, 0.999),
+                    result.latencies[result.latencies.length - 1] / 1000.0);
+            if (expected == null) {
+                expected = digest;
+            } else if (!expected.equals(digest)) {
+                System.err.printf("run %d diverged from run 1%n", run);
+                System.exit(1);
+            }
+        }
+    }
+
+    /**
+     * One replay against a fresh engine. Every fill, rest, cancel and amend outcome is hashed in order, outside
+     * the timed section.
+     */
+    private static class Run {
+        private final PriceTimeMatchingEngine engine;
+        private final FillBuffer fills = new FillBuffer();
+        private final ByteBuffer scratch = ByteBuffer.allocate(64);
+        private final MessageDigest sha256;
+        private long now;
+        private long[] latencies;
+        private byte[] digest;
+        private double seconds;
+        private long trades;
+
+        Run(EngineProperties.BookStorage storage) throws Exception {
+            this.engine = new PriceTimeMatchingEngine(new OrderBookService(storage),
+                    new TradeMetricsService(new SimpleMeterRegistry()), new IdGenerator(), MatchEventLog.DISABLED,
+                    () -> now);
+            this.sha256 = MessageDigest.getInstance("SHA-256");
+        }
+
+        Run replay(List<FlowEvent> events, boolean paced) {
+            latencies = new long[events.size()];
+            long firstNanos = events.isEmpty() ? 0 : events.get(0).timeNanos();
+            long start = System.nanoTime();
+            for (int i = 0; i < events.size(); i++) {
+                FlowEvent event = events.get(i);
+                long began = System.nanoTime();
+                if (paced) {
+                    long scheduled = start + event.timeNanos() - firstNanos;
+                    while (began < scheduled) {
+                        LockSupport.parkNanos(scheduled - began);
+                        began = System.nanoTime();
+                    }
+                    began = scheduled;
+                }
+                now = event.timeNanos();
+                ExecutionReport report = execute(event);
+                latencies[i] = System.nanoTime() - began;
+                record(event, report);
+            }
+            seconds = (System.nanoTime() - start) / 1e9;
+            digest = sha256.digest();
+            return this;
+        }
+
+        private ExecutionReport execute(FlowEvent event) {
+            return switch (event.type()) {
+                case NEW -> {
+                    engine.match(event.symbol(), event.orderId(), event.side(), event.kind(), event.priceTicks(),
+                            event.quantity(), event.timeNanos(), fills);
+                    yield null;
+                }
+                case CANCEL -> engine.cancel(event.symbol(), event.orderId());
+                default -> engine.amend(event.symbol(), event.orderId(),
+                        event.priceTicks() < 0 ? null : event.priceTicks(),
+                        event.quantity() < 0 ? null : event.quantity());
+            };
+        }
+
+        private void record(FlowEvent event, ExecutionReport report) {
+            if (event.type() == CommandType.NEW) {
+                for (int fill = 0; fill < fills.size(); fill++) {
+                    hash(fills.getTradeId(fill), fills.getPrice(fill), fills.getQuantity(fill),
+                            fills.getRestingOrderId(fill), fills.getRestingRemaining(fill));
+                }
+                trades += fills.size();
+                hash(event.orderId(), fills.getRemaining(), fills.isRested() ? 1 : 0, fills.getTimestampNanos());
+            } else if (report == null) {
+                hash(event.orderId(), -1);
+            } else {
+                for (Trade trade : report.getTrades()) {
+                    hash(trade.getId(), trade.getPriceTicks(), trade.getQuantity(), trade.getBuyOrderId(),
+                            trade.getSellOrderId(), EpochClock.toNanos(trade.getTimestamp()));
+                }
+                trades += report.getTrades().size();
+                hash(event.orderId(), report.getOrder().getQuantity(), report.getOrder().isActive() ? 1 : 0);
+            }
+        }
+
+        private void hash(long... values) {
+            scratch.clear();
+            for (long value : values) {
+                scratch.putLong(value);
+            }
+            sha256.update(scratch.flip());
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package com.fintech.service.code.benchmark;
+
+import com.fintech.service.code.gateway.GatewayProtocol;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Drives the binary order entry gateway with pipelined random limit orders and reports throughput and
+ * submit-to-report latency percentiles.
+ * <pre>
+ * java -cp target/benchmarks.jar com.fintech.service.code.benchmark.GatewayLoadGenerator \
+ *     [host] [port] [connections] [ordersPerConnection] [maxInFlight]
+ * </pre>
+ */
+public class GatewayLoadGenerator {
+
+    private static final String[] SYMBOLS = {"ACME", "GLOBEX", "INITECH", "UMBRELLA"};
+    private static final int BATCH = 64;
+
+    public static void main(String[] args) throws Exception {
+        String host = args.length > 0 ? args[0] : "localhost";
+        int port = args.length > 1 ? Integer.parseInt(args[1]) : 9100;
+        int connections = args.length > 2 ? Integer.parseInt(args[2]) : 4;
+        int orders = args.length > 3 ? Integer.parseInt(args[3]) : 250_000;
+        int maxInFlight = args.length > 4 ? Integer.parseInt(args[4]) : 10_000;
+
+        Connection[] clients = new Connection[connections];
+        for (int i = 0; i < connections; i++) {
+            clients[i] = new Connection(new InetSocketAddress(host, port), orders, maxInFlight, i);
+        }
+        long start = System.nanoTime();
+        for (Connection client : clients) {
+            client.start();
+        }
+        for (Connection client : clients) {
+            client.join();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        long[] latencies = new long[connections * orders];
+        int filled = 0;
+        int rejected = 0;
+        for (int i = 0; i < connections; i++) {
+            System.arraycopy(clients[i].latencies, 0, latencies, i * orders, orders);
+            filled += clients[i].filled;
+            rejected += clients[i].rejected;
+        }
+        Arrays.sort(latencies);
+        System.out.printf("%d orders over %d connections in %.2f s: %.0f orders/s, %d filled, %d rejected%n",
+                latencies.length, connections, seconds, latencies.length / seconds, filled, rejected);
+        System.out.printf("latency us: p50=%.1f p99=%.1f p99.9=%.1f max=%.1f%n",
+                percentile(latencies, 0.50), percentile(latencies, 0.99), percentile(latencies, 0.999),
+                latencies[latencies.length - 1] / 1000.0);
+    }
+
+    static double percentile(long[] sorted, double quantile) {
+        return sorted[(int) Math.min(sorted.length - 1, Math.ceil(quantile * sorted.length) - 1)] / 1000.0;
+    }
+
+    private static class Connection {
+        private final SocketChannel channel;
+        private final int orders;
+        private final Semaphore window;
+        private final long[] sentAt;
+        private final long[] latencies;
+        private final SplittableRandom random;
+        private final Thread writer;
+        private final Thread reader;
+        private int filled;
+        private int rejected;
+
+        Connection(InetSocketAddress address, int orders, int maxInFlight, int seed) throws IOException {
+            this.channel = SocketChannel.open(address);
+            this.channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            this.orders = orders;
+            this.window = new Semaphore(maxInFlight);
+            this.sentAt = new long[orders];
+            this.latencies = new long[orders];
+            this.random = new SplittableRandom(seed);
+            this.writer = new Thread(this::write, "load-writer-" + seed);
+            this.reader = new Thread(this::read, "load-reader-" + seed);
+        }
+
+        void start() {
+            reader.start();
+            writer.start();
+        }
+
+        void join() throws InterruptedException, IOException {
+            writer.join();
+            reader.join();
+            channel.close();
+        }
+
+        private void write() {
+            ByteBuffer out = ByteBuffer.allocateDirect(BATCH * (GatewayProtocol.LENGTH_BYTES
+                    + GatewayProtocol.NEW_ORDER_BYTES));
+            try {
+                for (int i = 0; i < orders; ) {
+                    int batch = Math.min(BATCH, orders - i);
+                    window.acquire(batch);
+                    out.clear();
+                    long now = System.nanoTime();
+                    for (int j = 0; j < batch; j++, i++) {
+                        byte side = random.nextBoolean() ? GatewayProtocol.SIDE_BUY : GatewayProtocol.SIDE_SELL;
+                        long price = 10_000 + random.nextInt(-20, 21);
+                        sentAt[i] = now;
+                        GatewayProtocol.putNewOrder(out, i, side, SYMBOLS[random.nextInt(SYMBOLS.length)], price,
+                                1 + random.nextInt(100));
+                    }
+                    out.flip();
+                    while (out.hasRemaining()) {
+                        channel.write(out);
+                    }
+                }
+            } catch (IOException | InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        private void read() {
+            ByteBuffer in = ByteBuffer.allocateDirect(64 * 1024);
+            int acknowledged = 0;
+            try {
+                while (acknowledged < orders) {
+                    if (channel.read(in) < 0) {
+                        throw new IOException("Gateway closed the connection");
+                    }
+                    in.flip();
+                    int frame = GatewayProtocol.LENGTH_BYTES + GatewayProtocol.EXECUTION_REPORT_BYTES;
+                    while (in.remaining() >= frame) {
+                        int start = in.position();
+                        in.position(start + GatewayProtocol.LENGTH_BYTES + 1);
+                        long clientOrderId = in.getLong();
+                        in.getLong();
+                        byte status = in.get();
+                        in.position(start + frame);
+                        if (status == GatewayProtocol.STATUS_REJECTED) {
+                            rejected++;
+                        } else if (status == GatewayProtocol.STATUS_FILLED) {
+                            filled++;
+                        }
+                        if (latencies[(int) clientOrderId] == 0) {
+                            latencies[(int) clientOrderId] = System.nanoTime() - sentAt[(int) clientOrderId];
+                            acknowledged++;
+                            window.release();
+                        }
+                    }
+                    in.compact();
+                }
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+}
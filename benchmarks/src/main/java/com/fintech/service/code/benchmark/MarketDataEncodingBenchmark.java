@@ -0,0 +1,156 @@
+package com.fintech.service.code.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.fintech.service.code.dto.BookUpdateMessage;
+import com.fintech.service.code.dto.PriceLevelUpdate;
+import com.fintech.service.code.model.Trade;
+import com.fintech.service.code.websocket.BinaryStreamProtocol;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompEncoder;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.util.MimeTypeUtils;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of fanning one publication batch out to {@code subscribers} sessions, JSON over STOMP against
+ * {@link BinaryStreamProtocol}. The JSON path serializes every trade, or the book update, once and frames it
+ * as a STOMP MESSAGE per subscriber, as the simple broker does; the binary path encodes the batch once and
+ * hands every subscriber a view of the same buffer. A trade batch holds {@code batch} trades of one symbol a
+ * few microseconds apart; a book delta changes {@code batch} levels on each side.
+ * <p>
+ * Setup prints the bytes each path puts on the wire per trade and per book delta.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MarketDataEncodingBenchmark {
+
+    private static final String SYMBOL = "ACME";
+    private static final int SYMBOL_ID = 1;
+    private static final long MID = 10_000;
+    private static final BigDecimal TICK = new BigDecimal("0.01");
+
+    @Param({"1", "16", "256"})
+    int batch;
+
+    @Param({"1", "100"})
+    int subscribers;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    private final StompEncoder stompEncoder = new StompEncoder();
+    private final List<Trade> trades = new ArrayList<>();
+    private long[] bookPrices;
+    private long[] bookChanges;
+    private long messageId;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        SplittableRandom random = new SplittableRandom(42);
+        Instant time = Instant.parse("2026-01-05T10:00:00Z");
+        for (int i = 0; i < batch; i++) {
+            long priceTicks = MID + random.nextInt(-5, 6);
+            time = time.plusNanos(random.nextInt(1_000, 50_000));
+            BigDecimal price = TICK.multiply(BigDecimal.valueOf(priceTicks));
+            trades.add(Trade.builder().id(1_000_000L + i).symbol(SYMBOL).price(price).priceTicks(priceTicks)
+                    .quantity(random.nextInt(1, 500)).timestamp(time).buyOrderId(2_000_000L + 2 * i)
+                    .sellOrderId(2_000_001L + 2 * i).build());
+        }
+        bookPrices = new long[2 * batch];
+        bookChanges = new long[2 * batch];
+        for (int i = 0; i < batch; i++) {
+            bookPrices[i] = MID - 1 - i;
+            bookPrices[batch + i] = MID + 1 + i;
+            bookChanges[i] = random.nextInt(-500, 500);
+            bookChanges[batch + i] = random.nextInt(-500, 500);
+        }
+
+        int jsonTradeBytes = 0;
+        for (Trade trade : trades) {
+            jsonTradeBytes += stompFrame("/topic/trades/" + SYMBOL, objectMapper.writeValueAsBytes(trade), 0).length;
+        }
+        int jsonBookBytes = stompFrame("/topic/book/" + SYMBOL, objectMapper.writeValueAsBytes(bookUpdate()), 0)
+                .length;
+        System.out.printf("%nbatch of %d: JSON+STOMP %.1f bytes/trade, binary %.1f bytes/trade; "
+                        + "book delta JSON+STOMP %d bytes, binary %d bytes%n", batch,
+                (double) jsonTradeBytes / batch, (double) encodeTrades().remaining() / batch, jsonBookBytes,
+                encodeBook().remaining());
+    }
+
+    @Benchmark
+    public void jsonTrades(Blackhole blackhole) throws Exception {
+        for (Trade trade : trades) {
+            byte[] payload = objectMapper.writeValueAsBytes(trade);
+            for (int s = 0; s < subscribers; s++) {
+                blackhole.consume(stompFrame("/topic/trades/" + SYMBOL, payload, s));
+            }
+        }
+    }
+
+    @Benchmark
+    public void binaryTrades(Blackhole blackhole) {
+        ByteBuffer frame = encodeTrades();
+        for (int s = 0; s < subscribers; s++) {
+            blackhole.consume(frame.duplicate());
+        }
+    }
+
+    @Benchmark
+    public void jsonBook(Blackhole blackhole) throws Exception {
+        byte[] payload = objectMapper.writeValueAsBytes(bookUpdate());
+        for (int s = 0; s < subscribers; s++) {
+            blackhole.consume(stompFrame("/topic/book/" + SYMBOL, payload, s));
+        }
+    }
+
+    @Benchmark
+    public void binaryBook(Blackhole blackhole) {
+        ByteBuffer frame = encodeBook();
+        for (int s = 0; s < subscribers; s++) {
+            blackhole.consume(frame.duplicate());
+        }
+    }
+
+    private ByteBuffer encodeTrades() {
+        return BinaryStreamProtocol.encodeTrades(SYMBOL_ID, trades, 0, trades.size());
+    }
+
+    private ByteBuffer encodeBook() {
+        return BinaryStreamProtocol.encodeBook(SYMBOL_ID, 1, false, bookPrices, bookChanges, batch, batch);
+    }
+
+    private BookUpdateMessage bookUpdate() {
+        List<PriceLevelUpdate> bids = new ArrayList<>(batch);
+        List<PriceLevelUpdate> asks = new ArrayList<>(batch);
+        for (int i = 0; i < batch; i++) {
+            bids.add(new PriceLevelUpdate(TICK.multiply(BigDecimal.valueOf(bookPrices[i])), 500 + bookChanges[i]));
+            asks.add(new PriceLevelUpdate(TICK.multiply(BigDecimal.valueOf(bookPrices[batch + i])),
+                    500 + bookChanges[batch + i]));
+        }
+        return new BookUpdateMessage(SYMBOL, 1, false, bids, asks);
+    }
+
+    private byte[] stompFrame(String destination, byte[] payload, int subscriber) {
+        StompHeaderAccessor headers = StompHeaderAccessor.create(StompCommand.MESSAGE);
+        headers.setDestination(destination);
+        headers.setSubscriptionId("sub-" + subscriber);
+        headers.setMessageId(Long.toString(++messageId));
+        headers.setContentType(MimeTypeUtils.APPLICATION_JSON);
+        return stompEncoder.encode(MessageBuilder.createMessage(payload, headers.getMessageHeaders()));
+    }
+}
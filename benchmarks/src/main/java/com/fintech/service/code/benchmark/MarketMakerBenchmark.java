@@ -0,0 +1,75 @@
+package com.fintech.service.code.benchmark;
+
+import com.fintech.service.code.engine.ExecutionReport;
+import com.fintech.service.code.engine.IdGenerator;
+import com.fintech.service.code.engine.PriceTimeMatchingEngine;
+import com.fintech.service.code.metrics.TradeMetricsService;
+import com.fintech.service.code.model.Order;
+import com.fintech.service.code.model.OrderType;
+import com.fintech.service.code.service.OrderBookService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cancel-heavy market-maker flow: a maker keeps a ladder of quotes on both sides and mostly cancels,
+ * re-prices or resizes them, while an occasional taker order trades against the ladder.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MarketMakerBenchmark {
+
+    private static final String SYMBOL = "ACME";
+    private static final int QUOTES = 200;
+
+    @Param({"90"})
+    int cancelPercent;
+
+    private PriceTimeMatchingEngine engine;
+    private OrderFlowGenerator flow;
+    private final Order[] quotes = new Order[QUOTES];
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        engine = new PriceTimeMatchingEngine(new OrderBookService(),
+                new TradeMetricsService(new SimpleMeterRegistry()), new IdGenerator());
+        flow = new OrderFlowGenerator(42, new String[]{SYMBOL}, 10_000, 20, 100);
+        for (int i = 0; i < QUOTES; i++) {
+            quotes[i] = quote(i);
+        }
+    }
+
+    @Benchmark
+    public ExecutionReport quoteUpdate() {
+        int roll = flow.nextInt(100);
+        if (roll >= cancelPercent) {
+            return engine.match(flow.aggressive(SYMBOL, flow.nextInt(2) == 0 ? OrderType.BUY : OrderType.SELL,
+                    1 + flow.nextInt(50)));
+        }
+        int slot = flow.nextInt(QUOTES);
+        Order quote = quotes[slot];
+        ExecutionReport report;
+        if (roll % 3 == 0) {
+            report = engine.amend(SYMBOL, quote.getId(), null, 1 + flow.nextInt(100));
+        } else if (roll % 3 == 1) {
+            report = engine.amend(SYMBOL, quote.getId(), flow.passive(SYMBOL, quote.getType()).getPriceTicks(), null);
+        } else {
+            report = engine.cancel(SYMBOL, quote.getId());
+        }
+        if (report == null || !report.getOrder().isActive()) {
+            quotes[slot] = quote(slot);
+        }
+        return report;
+    }
+
+    private Order quote(int slot) {
+        Order quote = flow.passive(SYMBOL, slot % 2 == 0 ? OrderType.BUY : OrderType.SELL);
+        engine.match(quote);
+        return quote;
+    }
+}
@@ -0,0 +1,63 @@
+package com.fintech.service.code.benchmark;
+
+import com.fintech.service.code.engine.ExecutionReport;
+import com.fintech.service.code.engine.IdGenerator;
+import com.fintech.service.code.engine.PriceTimeMatchingEngine;
+import com.fintech.service.code.metrics.TradeMetricsService;
+import com.fintech.service.code.model.Order;
+import com.fintech.service.code.model.OrderType;
+import com.fintech.service.code.service.OrderBookService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Single-symbol insert and match cost of {@link PriceTimeMatchingEngine} at different book depths. Each
+ * operation leaves the depth unchanged: a passive insert is cancelled again, and an aggressive order that
+ * takes liquidity is followed by a passive order that puts it back.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MatchingEngineBenchmark {
+
+    private static final String SYMBOL = "ACME";
+
+    @Param({"1000", "100000"})
+    int depth;
+
+    private PriceTimeMatchingEngine engine;
+    private OrderFlowGenerator flow;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        engine = new PriceTimeMatchingEngine(new OrderBookService(),
+                new TradeMetricsService(new SimpleMeterRegistry()), new IdGenerator());
+        flow = new OrderFlowGenerator(42, new String[]{SYMBOL}, 10_000, 500, 100);
+        for (int i = 0; i < depth; i++) {
+            engine.match(flow.passive());
+        }
+    }
+
+    @Benchmark
+    public ExecutionReport insertAndCancel() {
+        Order order = flow.passive();
+        engine.match(order);
+        return engine.cancel(SYMBOL, order.getId());
+    }
+
+    @Benchmark
+    public ExecutionReport matchAndReplenish() {
+        Order aggressive = flow.aggressive();
+        ExecutionReport report = engine.match(aggressive);
+        if (aggressive.isActive()) {
+            engine.cancel(SYMBOL, aggressive.getId());
+        }
+        engine.match(flow.passive(SYMBOL, aggressive.getType() == OrderType.BUY ? OrderType.SELL : OrderType.BUY));
+        return report;
+    }
+}
@@ -0,0 +1,79 @@
+package com.fintech.service.code.benchmark;
+
+import com.fintech.service.code.engine.ExecutionReport;
+import com.fintech.service.code.engine.IdGenerator;
+import com.fintech.service.code.engine.PriceTimeMatchingEngine;
+import com.fintech.service.code.metrics.TradeMetricsService;
+import com.fintech.service.code.model.Order;
+import com.fintech.service.code.model.OrderType;
+import com.fintech.service.code.service.OrderBookService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.ThreadParams;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Several matching threads sharing one engine, book registry, id generator and metrics registry, each
+ * owning a disjoint set of symbols the way the pipeline shards do. Measures how much the shared state
+ * costs as threads are added.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class MultiSymbolBenchmark {
+
+    private static final int DEPTH_PER_SYMBOL = 1_000;
+
+    @Param({"1", "16"})
+    int symbolsPerThread;
+
+    private PriceTimeMatchingEngine engine;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        engine = new PriceTimeMatchingEngine(new OrderBookService(),
+                new TradeMetricsService(new SimpleMeterRegistry()), new IdGenerator());
+    }
+
+    @State(Scope.Thread)
+    public static class Shard {
+        private OrderFlowGenerator flow;
+
+        @Setup(Level.Trial)
+        public void setUp(MultiSymbolBenchmark benchmark, ThreadParams threadParams) {
+            int count = benchmark.symbolsPerThread;
+            int index = threadParams.getThreadIndex();
+            String[] symbols = new String[count];
+            System.arraycopy(OrderFlowGenerator.symbols(count * threadParams.getThreadCount()), index * count,
+                    symbols, 0, count);
+            flow = new OrderFlowGenerator(42 + index, symbols, 10_000, 100, 100, 1 + ((long) index << 40));
+            for (int i = 0; i < DEPTH_PER_SYMBOL * count; i++) {
+                benchmark.engine.match(flow.passive());
+            }
+        }
+    }
+
+    @Benchmark
+    public ExecutionReport insertAndCancel(Shard shard) {
+        Order order = shard.flow.passive();
+        engine.match(order);
+        return engine.cancel(order.getSymbol(), order.getId());
+    }
+
+    @Benchmark
+    public ExecutionReport matchAndReplenish(Shard shard) {
+        Order aggressive = shard.flow.aggressive();
+        ExecutionReport report = engine.match(aggressive);
+        if (aggressive.isActive()) {
+            engine.cancel(aggressive.getSymbol(), aggressive.getId());
+        }
+        engine.match(shard.flow.passive(aggressive.getSymbol(),
+                aggressive.getType() == OrderType.BUY ? OrderType.SELL : OrderType.BUY));
+        return report;
+    }
+}
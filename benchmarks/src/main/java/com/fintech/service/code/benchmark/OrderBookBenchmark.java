@@ -0,0 +1,92 @@
+package com.fintech.service.code.benchmark;
+
+import com.fintech.service.code.engine.book.BookSide;
+import com.fintech.service.code.engine.book.RestingOrder;
+import com.fintech.service.code.model.Order;
+import com.fintech.service.code.model.OrderType;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.SplittableRandom;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the price-level book side against the previous {@code PriorityBlockingQueue} book on a deep
+ * sell side: steady-state insert plus removal of the best order, and best-price lookup.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OrderBookBenchmark {
+
+    private static final int PRICE_LEVELS = 1_000;
+    private static final int SAMPLES = 1 << 16;
+
+    @Param({"100000", "1000000"})
+    int depth;
+
+    private PriorityBlockingQueue<Order> queue;
+    private BookSide levels;
+    private final long[] prices = new long[SAMPLES];
+    private final Instant now = Instant.now();
+    private int cursor;
+    private long nextId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(42);
+        for (int i = 0; i < SAMPLES; i++) {
+            prices[i] = 10_000 + random.nextInt(PRICE_LEVELS);
+        }
+        queue = new PriorityBlockingQueue<>(100,
+                Comparator.comparingLong(Order::getPriceTicks).thenComparing(Order::getTimestamp));
+        levels = new BookSide(OrderType.SELL);
+        for (int i = 0; i < depth; i++) {
+            queue.offer(order(nextPrice()));
+            levels.add(restingOrder(nextPrice()));
+        }
+    }
+
+    @Benchmark
+    public Order queueInsertAndPollBest() {
+        queue.offer(order(nextPrice()));
+        return queue.poll();
+    }
+
+    @Benchmark
+    public RestingOrder levelsInsertAndPollBest() {
+        levels.add(restingOrder(nextPrice()));
+        RestingOrder best = levels.bestLevel().getHead();
+        levels.remove(best);
+        return best;
+    }
+
+    @Benchmark
+    public long queueStreamBestPrice() {
+        return queue.stream().mapToLong(Order::getPriceTicks).min().orElse(0L);
+    }
+
+    @Benchmark
+    public long levelsBestPrice() {
+        return levels.getBestPrice();
+    }
+
+    private long nextPrice() {
+        return prices[cursor++ & (SAMPLES - 1)];
+    }
+
+    private Order order(long price) {
+        return Order.builder().id(nextId++).symbol("BENCH").type(OrderType.SELL).priceTicks(price).quantity(100)
+                .timestamp(now.plusNanos(nextId)).isActive(true).build();
+    }
+
+    private RestingOrder restingOrder(long price) {
+        nextId++;
+        return new RestingOrder(nextId, OrderType.SELL, price, 100, now.plusNanos(nextId));
+    }
+}
@@ -0,0 +1,92 @@
+package com.fintech.service.code.benchmark;
+
+import com.fintech.service.code.model.Order;
+import com.fintech.service.code.model.OrderType;
+
+import java.time.Instant;
+import java.util.SplittableRandom;
+
+/**
+ * Reproducible synthetic order flow around a fixed mid price. The same seed always yields the same sequence,
+ * so benchmark runs on different builds see identical books.
+ * <p>
+ * Passive orders rest between one and {@code levels} ticks away from the mid on their own side; aggressive
+ * orders are priced {@code levels} ticks through the mid so they cross whatever rests near the top.
+ */
+public class OrderFlowGenerator {
+
+    private final SplittableRandom random;
+    private final String[] symbols;
+    private final long midTicks;
+    private final int levels;
+    private final int maxQuantity;
+    private final Instant timestamp = Instant.now();
+    private long nextId;
+
+    public OrderFlowGenerator(long seed, String[] symbols, long midTicks, int levels, int maxQuantity) {
+        this(seed, symbols, midTicks, levels, maxQuantity, 1);
+    }
+
+    /**
+     * Generators feeding one engine from several threads need disjoint {@code firstId}s, since order ids
+     * are global across books.
+     */
+    public OrderFlowGenerator(long seed, String[] symbols, long midTicks, int levels, int maxQuantity,
+                              long firstId) {
+        this.random = new SplittableRandom(seed);
+        this.symbols = symbols;
+        this.midTicks = midTicks;
+        this.levels = levels;
+        this.maxQuantity = maxQuantity;
+        this.nextId = firstId;
+    }
+
+    public static String[] symbols(int count) {
+        String[] symbols = new String[count];
+        for (int i = 0; i < count; i++) {
+            symbols[i] = "SYM" + i;
+        }
+        return symbols;
+    }
+
+    public Order passive() {
+        OrderType side = random.nextBoolean() ? OrderType.BUY : OrderType.SELL;
+        return passive(symbol(), side);
+    }
+
+    public Order passive(String symbol, OrderType side) {
+        int distance = 1 + random.nextInt(levels);
+        long price = side == OrderType.BUY ? midTicks - distance : midTicks + distance;
+        return order(symbol, side, price, 1 + random.nextInt(maxQuantity));
+    }
+
+    public Order aggressive(String symbol, OrderType side, int quantity) {
+        long price = side == OrderType.BUY ? midTicks + levels : midTicks - levels;
+        return order(symbol, side, price, quantity);
+    }
+
+    public Order aggressive() {
+        OrderType side = random.nextBoolean() ? OrderType.BUY : OrderType.SELL;
+        return aggressive(symbol(), side, 1 + random.nextInt(maxQuantity));
+    }
+
+    public String symbol() {
+        return symbols[random.nextInt(symbols.length)];
+    }
+
+    public int nextInt(int bound) {
+        return random.nextInt(bound);
+    }
+
+    public Order order(String symbol, OrderType side, long priceTicks, int quantity) {
+        return Order.builder()
+                .id(nextId++)
+                .symbol(symbol)
+                .type(side)
+                .priceTicks(priceTicks)
+                .quantity(quantity)
+                .timestamp(timestamp)
+                .isActive(true)
+                .build();
+    }
+}
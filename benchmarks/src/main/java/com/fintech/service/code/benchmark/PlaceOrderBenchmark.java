@@ -0,0 +1,126 @@
+package com.fintech.service.code.benchmark;
+
+import com.fintech.service.code.OrderMatchingEngineApplication;
+import com.fintech.service.code.dto.BatchOrderResult;
+import com.fintech.service.code.dto.OrderRequest;
+import com.fintech.service.code.engine.PriceScale;
+import com.fintech.service.code.model.Order;
+import com.fintech.service.code.model.Trade;
+import com.fintech.service.code.repository.EngineStateRepository;
+import com.fintech.service.code.service.OrderService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput and latency distribution of {@link OrderService#placeOrder} through the whole application:
+ * Spring context, matching shards, journal and write-behind persistence into an in-memory H2 database.
+ * {@link #placeOrders} sends the same flow through {@link OrderService#placeOrders} in batches of
+ * {@value #BATCH}; its scores are per order, so the two compare directly.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PlaceOrderBenchmark {
+
+    private static final int SYMBOLS = 8;
+    private static final int BATCH = 100;
+    private static final String CLIENT = "benchmark";
+
+    private ConfigurableApplicationContext context;
+    private OrderService orderService;
+    private PriceScale priceScale;
+    private Path journalDirectory;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        journalDirectory = Files.createTempDirectory("bench-journal");
+        context = new SpringApplicationBuilder(OrderMatchingEngineApplication.class, EmbeddedDatabase.class)
+                .properties(
+                        "spring.datasource.url=jdbc:h2:mem:bench;DB_CLOSE_DELAY=-1",
+                        "spring.datasource.driver-class-name=org.h2.Driver",
+                        "spring.jpa.hibernate.ddl-auto=create-drop",
+                        "server.port=0",
+                        "logging.level.com.fintech=WARN",
+                        "engine.gateway.enabled=false",
+                        "engine.journal.directory=" + journalDirectory)
+                .run();
+        orderService = context.getBean(OrderService.class);
+        priceScale = context.getBean(PriceScale.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        context.close();
+        FileSystemUtils.deleteRecursively(journalDirectory);
+    }
+
+    @State(Scope.Thread)
+    public static class Flow {
+        private final OrderFlowGenerator generator =
+                new OrderFlowGenerator(42, OrderFlowGenerator.symbols(SYMBOLS), 10_000, 20, 100);
+    }
+
+    @Benchmark
+    public List<Trade> placeOrder(Flow flow) {
+        return orderService.placeOrder(CLIENT, request(flow));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public List<BatchOrderResult> placeOrders(Flow flow) {
+        List<OrderRequest> requests = new ArrayList<>(BATCH);
+        for (int i = 0; i < BATCH; i++) {
+            requests.add(request(flow));
+        }
+        return orderService.placeOrders(CLIENT, requests);
+    }
+
+    private OrderRequest request(Flow flow) {
+        Order order = flow.generator.nextInt(4) == 0 ? flow.generator.aggressive() : flow.generator.passive();
+        return OrderRequest.builder()
+                .symbol(order.getSymbol())
+                .type(order.getType())
+                .price(priceScale.toPrice(order.getSymbol(), order.getPriceTicks()))
+                .quantity(order.getQuantity())
+                .build();
+    }
+
+    /**
+     * Swaps the PostgreSQL upserts for H2 {@code MERGE} statements. Registered explicitly rather than
+     * scanned so it never leaks into a regular application context.
+     */
+    static class EmbeddedDatabase {
+
+        @Bean
+        @Primary
+        EngineStateRepository embeddedEngineStateRepository(JdbcTemplate jdbcTemplate, PriceScale priceScale) {
+            return new H2EngineStateRepository(jdbcTemplate, priceScale);
+        }
+    }
+
+    static class H2EngineStateRepository extends EngineStateRepository {
+
+        H2EngineStateRepository(JdbcTemplate jdbcTemplate, PriceScale priceScale) {
+            super(jdbcTemplate, priceScale,
+                    "MERGE INTO orders (id, symbol, type, price, quantity, timestamp, is_active, kind, stop_price, " +
+                            "account_id) KEY (id) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)",
+                    "MERGE INTO trades (id, symbol, price, quantity, timestamp, buy_order_id, sell_order_id) " +
+                            "KEY (id) VALUES (?, ?, ?, ?, ?, ?, ?)");
+        }
+    }
+}
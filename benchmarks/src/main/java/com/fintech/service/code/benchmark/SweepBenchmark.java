@@ -0,0 +1,51 @@
+package com.fintech.service.code.benchmark;
+
+import com.fintech.service.code.engine.ExecutionReport;
+import com.fintech.service.code.engine.IdGenerator;
+import com.fintech.service.code.engine.PriceTimeMatchingEngine;
+import com.fintech.service.code.metrics.TradeMetricsService;
+import com.fintech.service.code.model.OrderType;
+import com.fintech.service.code.service.OrderBookService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One aggressive order sweeping every level of the opposite side, each holding a few orders.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SweepBenchmark {
+
+    private static final String SYMBOL = "ACME";
+    private static final int ORDERS_PER_LEVEL = 4;
+    private static final int QUANTITY = 10;
+
+    @Param({"10", "100", "1000"})
+    int levels;
+
+    private PriceTimeMatchingEngine engine;
+    private OrderFlowGenerator flow;
+
+    @Setup(Level.Invocation)
+    public void setUp() {
+        engine = new PriceTimeMatchingEngine(new OrderBookService(),
+                new TradeMetricsService(new SimpleMeterRegistry()), new IdGenerator());
+        flow = new OrderFlowGenerator(42, new String[]{SYMBOL}, 10_000, levels, QUANTITY);
+        for (int level = 1; level <= levels; level++) {
+            for (int i = 0; i < ORDERS_PER_LEVEL; i++) {
+                engine.match(flow.order(SYMBOL, OrderType.SELL, 10_000 + level, QUANTITY));
+            }
+        }
+    }
+
+    @Benchmark
+    public ExecutionReport sweepAllLevels() {
+        return engine.match(flow.order(SYMBOL, OrderType.BUY, 10_000 + levels, levels * ORDERS_PER_LEVEL * QUANTITY));
+    }
+}
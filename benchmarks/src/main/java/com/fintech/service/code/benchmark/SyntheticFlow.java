@@ -0,0 +1,103 @@
+package com.fintech.service.code.benchmark;
+
+import com.fintech.service.code.model.OrderKind;
+import com.fintech.service.code.model.OrderType;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Seeded synthetic order flow shaped like a production profile rather than {@link OrderFlowGenerator}'s
+ * uniform one:
+ * <ul>
+ *     <li>symbols are drawn from a Zipf distribution, so a few names carry most of the flow;</li>
+ *     <li>limit prices are normally distributed around the mid, so most orders rest near the top and the
+ *     tails cross;</li>
+ *     <li>a configurable share of events cancel a random earlier order, which may already have filled;</li>
+ *     <li>arrivals are a Poisson process at the given rate.</li>
+ * </ul>
+ * The same parameters always yield the same flow.
+ */
+public class SyntheticFlow {
+
+    private final SplittableRandom random;
+    private final String[] symbols;
+    private final double[] cumulativeWeights;
+    private final long midTicks;
+    private final double priceSigmaTicks;
+    private final int maxQuantity;
+    private final double cancelRatio;
+    private final double meanGapNanos;
+    private final List<Long> liveIds = new ArrayList<>();
+    private final List<String> liveSymbols = new ArrayList<>();
+    private long nextId = 1;
+    private long timeNanos;
+
+    /**
+     * @param zipfExponent symbol skew; 0 is uniform, around 1 is typical of equity flow
+     * @param cancelRatio share of events that are cancels
+     * @param ratePerSecond mean arrival rate, which sets the recorded pacing
+     */
+    public SyntheticFlow(long seed, int symbolCount, double zipfExponent, long midTicks, double priceSigmaTicks,
+                         int maxQuantity, double cancelRatio, double ratePerSecond, long startNanos) {
+        this.random = new SplittableRandom(seed);
+        this.symbols = OrderFlowGenerator.symbols(symbolCount);
+        this.cumulativeWeights = new double[symbolCount];
+        double total = 0;
+        for (int rank = 0; rank < symbolCount; rank++) {
+            total += 1 / Math.pow(rank + 1, zipfExponent);
+            cumulativeWeights[rank] = total;
+        }
+        for (int rank = 0; rank < symbolCount; rank++) {
+            cumulativeWeights[rank] /= total;
+        }
+        this.midTicks = midTicks;
+        this.priceSigmaTicks = priceSigmaTicks;
+        this.maxQuantity = maxQuantity;
+        this.cancelRatio = cancelRatio;
+        this.meanGapNanos = 1e9 / ratePerSecond;
+        this.timeNanos = startNanos;
+    }
+
+    public List<FlowEvent> generate(int events) {
+        List<FlowEvent> flow = new ArrayList<>(events);
+        for (int i = 0; i < events; i++) {
+            flow.add(next());
+        }
+        return flow;
+    }
+
+    public FlowEvent next() {
+        timeNanos += (long) (-Math.log(1 - random.nextDouble()) * meanGapNanos);
+        if (!liveIds.isEmpty() && random.nextDouble() < cancelRatio) {
+            int victim = random.nextInt(liveIds.size());
+            long orderId = liveIds.get(victim);
+            String symbol = liveSymbols.get(victim);
+            removeLive(victim);
+            return FlowEvent.cancel(timeNanos, orderId, symbol);
+        }
+        String symbol = symbol();
+        OrderType side = random.nextBoolean() ? OrderType.BUY : OrderType.SELL;
+        long price = Math.max(1, midTicks + Math.round(random.nextGaussian() * priceSigmaTicks));
+        long orderId = nextId++;
+        liveIds.add(orderId);
+        liveSymbols.add(symbol);
+        return FlowEvent.place(timeNanos, orderId, symbol, side, OrderKind.LIMIT, price,
+                1 + random.nextInt(maxQuantity));
+    }
+
+    private String symbol() {
+        int rank = Arrays.binarySearch(cumulativeWeights, random.nextDouble());
+        return symbols[Math.min(rank < 0 ? -rank - 1 : rank, symbols.length - 1)];
+    }
+
+    private void removeLive(int index) {
+        int last = liveIds.size() - 1;
+        liveIds.set(index, liveIds.get(last));
+        liveSymbols.set(index, liveSymbols.get(last));
+        liveIds.remove(last);
+        liveSymbols.remove(last);
+    }
+}
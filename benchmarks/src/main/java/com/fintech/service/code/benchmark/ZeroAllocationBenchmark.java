@@ -0,0 +1,90 @@
+package com.fintech.service.code.benchmark;
+
+import com.fintech.service.code.engine.EpochClock;
+import com.fintech.service.code.engine.FillBuffer;
+import com.fintech.service.code.engine.IdGenerator;
+import com.fintech.service.code.engine.MatchEventLog;
+import com.fintech.service.code.engine.PriceTimeMatchingEngine;
+import com.fintech.service.code.metrics.TradeMetricsService;
+import com.fintech.service.code.model.OrderKind;
+import com.fintech.service.code.model.OrderType;
+import com.fintech.service.code.service.OrderBookService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.IterationParams;
+import org.openjdk.jmh.runner.IterationType;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Primitive matching path of {@link PriceTimeMatchingEngine} with the sampled event log on. Each operation
+ * rests a sell at a new best price and fills it completely with a buy, so every call creates and retires a
+ * book entry, a price level, a locator entry and a fill. The bytes the benchmark thread allocates are read
+ * around every measurement iteration, which fails unless a matched order allocates nothing.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ZeroAllocationBenchmark {
+
+    private static final String SYMBOL = "ACME";
+    private static final int DEPTH = 1000;
+    private static final long MID = 10_000;
+
+    private final com.sun.management.ThreadMXBean threads =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    private final FillBuffer fills = new FillBuffer();
+    private MatchEventLog eventLog;
+    private PriceTimeMatchingEngine engine;
+    private long nextId;
+    private long operations;
+    private long allocatedBefore;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        eventLog = new MatchEventLog(1024, 4096);
+        eventLog.start();
+        engine = new PriceTimeMatchingEngine(new OrderBookService(),
+                new TradeMetricsService(new SimpleMeterRegistry()), new IdGenerator(), eventLog);
+        for (int i = 0; i < DEPTH; i++) {
+            engine.match(SYMBOL, ++nextId, OrderType.BUY, OrderKind.LIMIT, MID - 10 - i % 100, 100,
+                    EpochClock.nanos(), fills);
+            engine.match(SYMBOL, ++nextId, OrderType.SELL, OrderKind.LIMIT, MID + 10 + i % 100, 100,
+                    EpochClock.nanos(), fills);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws InterruptedException {
+        eventLog.stop();
+    }
+
+    @Setup(Level.Iteration)
+    public void startCounting() {
+        operations = 0;
+        allocatedBefore = threads.getCurrentThreadAllocatedBytes();
+    }
+
+    @TearDown(Level.Iteration)
+    public void checkAllocations(IterationParams iteration) {
+        long allocated = threads.getCurrentThreadAllocatedBytes() - allocatedBefore;
+        if (iteration.getType() == IterationType.MEASUREMENT && operations > 0
+                && Math.round((double) allocated / operations) > 0) {
+            throw new IllegalStateException(allocated + " bytes allocated over " + operations
+                    + " matched orders");
+        }
+    }
+
+    @Benchmark
+    public int restAndMatch() {
+        long price = MID + (nextId & 7);
+        engine.match(SYMBOL, ++nextId, OrderType.SELL, OrderKind.LIMIT, price, 10, EpochClock.nanos(), fills);
+        engine.match(SYMBOL, ++nextId, OrderType.BUY, OrderKind.LIMIT, price, 10, EpochClock.nanos(), fills);
+        operations++;
+        return fills.size();
+    }
+}
@@ -2,8 +2,10 @@ package com.fintech.service.code;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.properties.ConfigurationPropertiesScan;
 
 @SpringBootApplication
+@ConfigurationPropertiesScan
 public class OrderMatchingEngineApplication {
 
     public static void main(String[] args) {
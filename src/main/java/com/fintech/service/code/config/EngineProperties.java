@@ -0,0 +1,150 @@
+package com.fintech.service.code.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "engine")
+public class EngineProperties {
+    private int shards = 2;
+    private int ringSize = 8192;
+    private int outputRingSize = 65536;
+    private BigDecimal defaultTickSize = new BigDecimal("0.01");
+    private Map<String, BigDecimal> tickSizes = new HashMap<>();
+    private Map<String, Integer> symbolShards = new HashMap<>();
+    private BookStorage bookStorage = BookStorage.HEAP;
+    private Journal journal = new Journal();
+    private Persistence persistence = new Persistence();
+    private Gateway gateway = new Gateway();
+    private MarketData marketData = new MarketData();
+    private EventLog eventLog = new EventLog();
+    private Admission admission = new Admission();
+    private Risk risk = new Risk();
+    private Replication replication = new Replication();
+    private Warmup warmup = new Warmup();
+
+    /**
+     * Where resting orders are kept: as heap objects, or in off-heap slots for books too deep for the
+     * collector to trace comfortably.
+     */
+    public enum BookStorage {
+        HEAP,
+        OFF_HEAP
+    }
+
+    @Getter
+    @Setter
+    public static class Journal {
+        private String directory = "data/journal";
+        private long segmentSize = 64L * 1024 * 1024;
+        private Duration snapshotInterval = Duration.ofMinutes(1);
+    }
+
+    @Getter
+    @Setter
+    public static class Persistence {
+        private int batchSize = 1000;
+        private Duration flushInterval = Duration.ofMillis(20);
+    }
+
+    @Getter
+    @Setter
+    public static class Gateway {
+        private boolean enabled;
+        private int port = 9100;
+        private int outboxSize = 1024 * 1024;
+    }
+
+    /**
+     * {@code sock-js} serves the {@code /ws} endpoint through SockJS, with its HTTP fallbacks; turned off, it is
+     * a plain WebSocket endpoint.
+     */
+    @Getter
+    @Setter
+    public static class MarketData {
+        private boolean sockJs = true;
+        private Duration publishInterval = Duration.ofMillis(50);
+        private Duration snapshotInterval = Duration.ofSeconds(5);
+        private int statisticsTrades = 100;
+        private Duration statisticsWindow = Duration.ofMinutes(5);
+        private Duration barInterval = Duration.ofMinutes(1);
+        private int bars = 60;
+    }
+
+    @Getter
+    @Setter
+    public static class EventLog {
+        private int sampleRate = 1024;
+        private int bufferSize = 4096;
+    }
+
+    /**
+     * Intake limits applied before an order reaches a shard. Clients are told apart by remote address, which
+     * is also the key of {@code client-rates}. A client rate of zero or less is unlimited.
+     */
+    @Getter
+    @Setter
+    public static class Admission {
+        private int maxInFlightPerSymbol = 2048;
+        private double shardQueueHighWater = 0.9;
+        private double defaultClientRate;
+        private Map<String, Double> clientRates = new HashMap<>();
+        private int clientBurst = 100;
+    }
+
+    /**
+     * Pre-trade limits checked on the matching threads against in-memory exposure. A limit of zero or less is
+     * off. {@code price-collar} is the largest distance of a limit price from the last trade, as a fraction of
+     * it; the open order, notional and position limits apply per account.
+     */
+    @Getter
+    @Setter
+    public static class Risk {
+        private int maxOrderQuantity;
+        private double priceCollar;
+        private int maxOpenOrders;
+        private BigDecimal maxOpenNotional = BigDecimal.ZERO;
+        private long maxPosition;
+    }
+
+    /**
+     * Hot standby. A primary serves its journal on {@code port}; a standby mirrors it from {@code primary-host}
+     * and keeps its books current without matching until promoted.
+     */
+    @Getter
+    @Setter
+    public static class Replication {
+        private Role role = Role.NONE;
+        private int port = 9200;
+        private String primaryHost = "localhost";
+        private Duration heartbeatInterval = Duration.ofMillis(100);
+        private Duration reconnectDelay = Duration.ofSeconds(1);
+
+        public enum Role {
+            NONE,
+            PRIMARY,
+            STANDBY
+        }
+    }
+
+    /**
+     * Synthetic order flow run through a scratch engine before the service reports ready, at most
+     * {@code orders} commands and {@code timeout} long. For {@code latency-window} after startup, match latency
+     * is also recorded as {@code engine.startup.match.latency}.
+     */
+    @Getter
+    @Setter
+    public static class Warmup {
+        private boolean enabled;
+        private int orders = 200_000;
+        private Duration timeout = Duration.ofSeconds(30);
+        private Duration latencyWindow = Duration.ofMinutes(1);
+    }
+}
@@ -1,13 +1,21 @@
 package com.fintech.service.code.config;
 
+import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
 import org.springframework.web.socket.config.annotation.*;
 
+/**
+ * STOMP over {@code /ws}. Clients may negotiate the binary market data protocol on the same endpoint instead;
+ * with SockJS on, native WebSocket clients connect to {@code /ws/websocket}.
+ */
 @Configuration
 @EnableWebSocketMessageBroker
+@RequiredArgsConstructor
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
+    private final EngineProperties properties;
+
     @Override
     public void configureMessageBroker(MessageBrokerRegistry config) {
         config.enableSimpleBroker("/topic");
@@ -16,7 +24,10 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
     @Override
     public void registerStompEndpoints(StompEndpointRegistry registry) {
-        registry.addEndpoint("/ws").setAllowedOriginPatterns("*").withSockJS();
+        StompWebSocketEndpointRegistration endpoint = registry.addEndpoint("/ws").setAllowedOriginPatterns("*");
+        if (properties.getMarketData().isSockJs()) {
+            endpoint.withSockJS();
+        }
     }
 
 
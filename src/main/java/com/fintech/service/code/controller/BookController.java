@@ -0,0 +1,72 @@
+package com.fintech.service.code.controller;
+
+import com.fintech.service.code.dto.BookSnapshotResponse;
+import com.fintech.service.code.dto.PriceLevelUpdate;
+import com.fintech.service.code.dto.TopOfBookResponse;
+import com.fintech.service.code.engine.PriceScale;
+import com.fintech.service.code.marketdata.BookView;
+import com.fintech.service.code.marketdata.MarketDataPublisher;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Book reads served from the {@link BookView}s the market data publisher replaces every slice, so they lag the
+ * engine by at most {@code engine.market-data.publish-interval} and never reach the matching shards.
+ */
+@RestController
+@RequestMapping("/api/book")
+@RequiredArgsConstructor
+public class BookController {
+
+    private final MarketDataPublisher marketDataPublisher;
+    private final PriceScale priceScale;
+
+    @GetMapping("/{symbol}")
+    public ResponseEntity<BookSnapshotResponse> getBook(@PathVariable String symbol,
+                                                        @RequestParam(defaultValue = "10") int depth) {
+        if (depth < 1) {
+            throw new IllegalArgumentException("Depth must be positive");
+        }
+        BookView view = marketDataPublisher.view(symbol);
+        if (view == null) {
+            return ResponseEntity.notFound().build();
+        }
+        List<PriceLevelUpdate> bids = new ArrayList<>(Math.min(depth, view.getBidLevels()));
+        for (int i = 0; i < view.getBidLevels() && i < depth; i++) {
+            bids.add(new PriceLevelUpdate(priceScale.toPrice(symbol, view.getBidPrice(i)), view.getBidQuantity(i)));
+        }
+        List<PriceLevelUpdate> asks = new ArrayList<>(Math.min(depth, view.getAskLevels()));
+        for (int i = 0; i < view.getAskLevels() && i < depth; i++) {
+            asks.add(new PriceLevelUpdate(priceScale.toPrice(symbol, view.getAskPrice(i)), view.getAskQuantity(i)));
+        }
+        return ResponseEntity.ok(new BookSnapshotResponse(symbol, view.getSequence(), view.getPublishedAt(), bids,
+                asks));
+    }
+
+    @GetMapping("/top")
+    public ResponseEntity<List<TopOfBookResponse>> getTopOfBook() {
+        return ResponseEntity.ok(marketDataPublisher.views().stream()
+                .sorted(Comparator.comparing(BookView::getSymbol))
+                .map(this::toTopOfBook)
+                .toList());
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<String> handleInvalidRequest(IllegalArgumentException e) {
+        return ResponseEntity.badRequest().body(e.getMessage());
+    }
+
+    private TopOfBookResponse toTopOfBook(BookView view) {
+        String symbol = view.getSymbol();
+        boolean bids = view.getBidLevels() > 0;
+        boolean asks = view.getAskLevels() > 0;
+        return new TopOfBookResponse(symbol, view.getSequence(), view.getPublishedAt(),
+                bids ? priceScale.toPrice(symbol, view.getBestBid()) : null, bids ? view.getBidQuantity(0) : null,
+                asks ? priceScale.toPrice(symbol, view.getBestAsk()) : null, asks ? view.getAskQuantity(0) : null);
+    }
+}
@@ -0,0 +1,66 @@
+package com.fintech.service.code.controller;
+
+import com.fintech.service.code.dto.ShardResponse;
+import com.fintech.service.code.engine.MatchingPipeline;
+import com.fintech.service.code.replication.StandbyReplica;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/engine")
+@RequiredArgsConstructor
+public class EngineController {
+
+    private final MatchingPipeline matchingPipeline;
+    private final ObjectProvider<StandbyReplica> standbyReplica;
+
+    @GetMapping("/shards")
+    public ResponseEntity<List<ShardResponse>> getShards() {
+        return ResponseEntity.ok(Arrays.stream(matchingPipeline.getShards())
+                .map(shard -> new ShardResponse(shard.getId(), shard.getQueueDepth(), shard.getBusyNanos() / 1e9,
+                        shard.getProcessed()))
+                .toList());
+    }
+
+    @GetMapping("/symbols/{symbol}/shard")
+    public ResponseEntity<Map<String, Integer>> getShard(@PathVariable String symbol) {
+        return ResponseEntity.ok(Map.of("shard", matchingPipeline.shardOf(symbol)));
+    }
+
+    @PutMapping("/symbols/{symbol}/shard/{shard}")
+    public ResponseEntity<Map<String, Integer>> moveSymbol(@PathVariable String symbol, @PathVariable int shard) {
+        matchingPipeline.moveSymbol(symbol, shard);
+        return ResponseEntity.ok(Map.of("shard", shard));
+    }
+
+    /**
+     * Fails this standby over to primary. Only call it once the old primary is down.
+     */
+    @PostMapping("/promote")
+    public ResponseEntity<Map<String, String>> promote() throws IOException, InterruptedException {
+        StandbyReplica replica = standbyReplica.getIfAvailable();
+        if (replica == null) {
+            throw new IllegalStateException("Engine is not a standby");
+        }
+        replica.promote();
+        return ResponseEntity.ok(Map.of("role", "primary"));
+    }
+
+    @ExceptionHandler(IllegalStateException.class)
+    public ResponseEntity<String> handleWrongRole(IllegalStateException e) {
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<String> handleInvalidRequest(IllegalArgumentException e) {
+        return ResponseEntity.badRequest().body(e.getMessage());
+    }
+}
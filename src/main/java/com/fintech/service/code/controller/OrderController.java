@@ -1,15 +1,39 @@
 package com.fintech.service.code.controller;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fintech.service.code.dto.AmendOrderRequest;
+import com.fintech.service.code.dto.BatchOrderResult;
+import com.fintech.service.code.dto.MarketStatisticsResponse;
 import com.fintech.service.code.dto.OrderRequest;
+import com.fintech.service.code.dto.OrderResponse;
 import com.fintech.service.code.dto.PriceRecommendationResponse;
+import com.fintech.service.code.dto.TradeHistoryResponse;
 import com.fintech.service.code.dto.TradeResponse;
+import com.fintech.service.code.engine.OrderNotFoundException;
+import com.fintech.service.code.engine.PriceScale;
+import com.fintech.service.code.engine.risk.RiskRejectedException;
+import com.fintech.service.code.model.Order;
 import com.fintech.service.code.model.Trade;
+import com.fintech.service.code.service.OrderRejectedException;
 import com.fintech.service.code.service.OrderService;
 import com.fintech.service.code.service.PriceRecommendationService;
+import com.fintech.service.code.service.TradeService;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -18,10 +42,18 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class OrderController {
 
+    private static final int NDJSON_BATCH_SIZE = 512;
+
     private final OrderService orderService;
 
     private final PriceRecommendationService priceRecommendationService;
 
+    private final TradeService tradeService;
+
+    private final PriceScale priceScale;
+
+    private final ObjectMapper objectMapper;
+
     @GetMapping("/recommend/sell-price")
     public ResponseEntity<PriceRecommendationResponse> recommendSellPrice(@RequestParam String symbol) {
         return ResponseEntity.ok(priceRecommendationService.recommendSellPrice(symbol));
@@ -32,14 +64,125 @@ public class OrderController {
         return ResponseEntity.ok(priceRecommendationService.recommendBuyerAction(symbol));
     }
 
+    @GetMapping("/statistics")
+    public ResponseEntity<MarketStatisticsResponse> getStatistics(@RequestParam String symbol) {
+        return ResponseEntity.ok(tradeService.getStatistics(symbol));
+    }
+
     @PostMapping
-    public ResponseEntity<List<TradeResponse>> placeOrder(@RequestBody OrderRequest request) {
-        System.out.println(request.getSymbol());
-        List<Trade> trades = orderService.placeOrder(request);
+    public ResponseEntity<List<TradeResponse>> placeOrder(@RequestBody OrderRequest request,
+                                                          HttpServletRequest http) {
+        List<Trade> trades = orderService.placeOrder(clientId(http), request);
         List<TradeResponse> response = trades.stream()
-                .map(t -> new TradeResponse(t.getId(), t.getSymbol(), t.getPrice(), t.getQuantity()))
+                .map(t -> new TradeResponse(t.getId(), t.getSymbol(),
+                        priceScale.toPrice(t.getSymbol(), t.getPriceTicks()), t.getQuantity()))
                 .collect(Collectors.toList());
         return ResponseEntity.ok(response);
     }
 
+    @PostMapping(value = "/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<List<BatchOrderResult>> placeOrders(@RequestBody List<OrderRequest> requests,
+                                                              HttpServletRequest http) {
+        return ResponseEntity.ok(orderService.placeOrders(clientId(http), requests));
+    }
+
+    /**
+     * One order per line in, one result per line out. Lines are submitted in batches of whatever has arrived,
+     * up to {@link #NDJSON_BATCH_SIZE}, so a fast client gets batching and a slow one gets no added delay.
+     */
+    @PostMapping(value = "/batch", consumes = MediaType.APPLICATION_NDJSON_VALUE,
+            produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamOrders(InputStream body, HttpServletRequest http) {
+        String clientId = clientId(http);
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(out -> {
+            BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+            List<OrderRequest> batch = new ArrayList<>(NDJSON_BATCH_SIZE);
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.isBlank()) {
+                    try {
+                        batch.add(objectMapper.readValue(line, OrderRequest.class));
+                    } catch (JsonProcessingException e) {
+                        placeAndWrite(out, clientId, batch);
+                        writeResults(out, List.of(BatchOrderResult.rejected(e.getOriginalMessage())));
+                    }
+                }
+                if (batch.size() == NDJSON_BATCH_SIZE || !reader.ready()) {
+                    placeAndWrite(out, clientId, batch);
+                }
+            }
+            placeAndWrite(out, clientId, batch);
+        });
+    }
+
+    @GetMapping("/{id}/fills")
+    public ResponseEntity<List<TradeHistoryResponse>> getFills(@PathVariable Long id) {
+        return ResponseEntity.ok(tradeService.getFills(id));
+    }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<OrderResponse> cancelOrder(@PathVariable Long id) {
+        return ResponseEntity.ok(toResponse(orderService.cancelOrder(id)));
+    }
+
+    @PatchMapping("/{id}")
+    public ResponseEntity<OrderResponse> amendOrder(@PathVariable Long id, @RequestBody AmendOrderRequest request,
+                                                    HttpServletRequest http) {
+        return ResponseEntity.ok(toResponse(orderService.amendOrder(clientId(http), id, request)));
+    }
+
+    @ExceptionHandler(OrderNotFoundException.class)
+    public ResponseEntity<String> handleOrderNotFound(OrderNotFoundException e) {
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
+    }
+
+    @ExceptionHandler(OrderRejectedException.class)
+    public ResponseEntity<String> handleRejected(OrderRejectedException e) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).body(e.getMessage());
+    }
+
+    @ExceptionHandler(RiskRejectedException.class)
+    public ResponseEntity<String> handleRiskRejected(RiskRejectedException e) {
+        return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY).body(e.getMessage());
+    }
+
+    @ExceptionHandler(IllegalStateException.class)
+    public ResponseEntity<String> handleUnavailable(IllegalStateException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(e.getMessage());
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<String> handleInvalidRequest(IllegalArgumentException e) {
+        return ResponseEntity.badRequest().body(e.getMessage());
+    }
+
+    /**
+     * Clients are rate limited by remote address, which unlike a self-declared id a client cannot rotate to
+     * get a fresh token bucket.
+     */
+    private static String clientId(HttpServletRequest http) {
+        return http.getRemoteAddr();
+    }
+
+    private void placeAndWrite(OutputStream out, String clientId, List<OrderRequest> batch) throws IOException {
+        if (!batch.isEmpty()) {
+            writeResults(out, orderService.placeOrders(clientId, batch));
+            batch.clear();
+        }
+    }
+
+    private void writeResults(OutputStream out, List<BatchOrderResult> results) throws IOException {
+        for (BatchOrderResult result : results) {
+            out.write(objectMapper.writeValueAsBytes(result));
+            out.write('\n');
+        }
+        out.flush();
+    }
+
+    private OrderResponse toResponse(Order order) {
+        return new OrderResponse(order.getId(), order.getSymbol(), order.getType(),
+                priceScale.toPrice(order.getSymbol(), order.getPriceTicks()),
+                order.getQuantity(), order.isActive());
+    }
+
 }
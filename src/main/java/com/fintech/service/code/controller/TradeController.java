@@ -0,0 +1,69 @@
+package com.fintech.service.code.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fintech.service.code.dto.TradeHistoryResponse;
+import com.fintech.service.code.dto.TradePageResponse;
+import com.fintech.service.code.service.TradeService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.time.Instant;
+
+/**
+ * Trade history from the database, paged by keyset. Ranges default to everything up to the time of the
+ * request, so a client paging through with a fixed {@code to} sees a stable result.
+ */
+@RestController
+@RequestMapping("/api/trades")
+@RequiredArgsConstructor
+public class TradeController {
+
+    private final TradeService tradeService;
+
+    private final ObjectMapper objectMapper;
+
+    @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<TradePageResponse> getTrades(
+            @RequestParam String symbol,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "100") int limit) {
+        return ResponseEntity.ok(tradeService.getTrades(symbol, from != null ? from : Instant.EPOCH,
+                to != null ? to : Instant.now(), cursor, limit));
+    }
+
+    /**
+     * The whole range as one trade per line, fetched and written a page at a time so an export of any size
+     * holds a single page in memory.
+     */
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportTrades(
+            @RequestParam String symbol,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to) {
+        Instant start = from != null ? from : Instant.EPOCH;
+        Instant end = to != null ? to : Instant.now();
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(out -> {
+            String cursor = null;
+            do {
+                TradePageResponse page = tradeService.getTrades(symbol, start, end, cursor, TradeService.MAX_PAGE_SIZE);
+                for (TradeHistoryResponse trade : page.getTrades()) {
+                    out.write(objectMapper.writeValueAsBytes(trade));
+                    out.write('\n');
+                }
+                out.flush();
+                cursor = page.getNextCursor();
+            } while (cursor != null);
+        });
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<String> handleInvalidRequest(IllegalArgumentException e) {
+        return ResponseEntity.badRequest().body(e.getMessage());
+    }
+}
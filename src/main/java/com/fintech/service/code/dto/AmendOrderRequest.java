@@ -0,0 +1,15 @@
+package com.fintech.service.code.dto;
+
+import lombok.*;
+
+import java.math.BigDecimal;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class AmendOrderRequest {
+    private BigDecimal price;
+    private Integer quantity;
+}
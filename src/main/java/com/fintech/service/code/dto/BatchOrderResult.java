@@ -0,0 +1,25 @@
+package com.fintech.service.code.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Outcome of one order of a batch, in the position it was submitted. {@code error} is set instead of the
+ * other fields when the order was rejected.
+ */
+@Data
+@AllArgsConstructor
+public class BatchOrderResult {
+    private Long orderId;
+    private String symbol;
+    private int remainingQuantity;
+    private boolean active;
+    private List<TradeResponse> trades;
+    private String error;
+
+    public static BatchOrderResult rejected(String error) {
+        return new BatchOrderResult(null, null, 0, false, List.of(), error);
+    }
+}
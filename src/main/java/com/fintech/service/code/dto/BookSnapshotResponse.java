@@ -0,0 +1,20 @@
+package com.fintech.service.code.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Aggregated levels of one symbol, best first, as of the last market data publish.
+ */
+@Data
+@AllArgsConstructor
+public class BookSnapshotResponse {
+    private String symbol;
+    private long sequence;
+    private Instant timestamp;
+    private List<PriceLevelUpdate> bids;
+    private List<PriceLevelUpdate> asks;
+}
@@ -0,0 +1,20 @@
+package com.fintech.service.code.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * L2 book update published on {@code /topic/book/{symbol}}. A snapshot lists every level; otherwise only
+ * changed levels are listed, a quantity of zero meaning the level is gone. Levels are ordered best first.
+ */
+@Data
+@AllArgsConstructor
+public class BookUpdateMessage {
+    private String symbol;
+    private long sequence;
+    private boolean snapshot;
+    private List<PriceLevelUpdate> bids;
+    private List<PriceLevelUpdate> asks;
+}
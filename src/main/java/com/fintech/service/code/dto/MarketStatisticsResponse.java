@@ -0,0 +1,35 @@
+package com.fintech.service.code.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class MarketStatisticsResponse {
+    private String symbol;
+    private BigDecimal lastPrice;
+    private BigDecimal high;
+    private BigDecimal low;
+    private long volume;
+    private long tradeCount;
+    private BigDecimal recentAverage;
+    private BigDecimal recentVwap;
+    private BigDecimal windowAverage;
+    private BigDecimal windowVwap;
+    private long windowVolume;
+    private List<BarResponse> bars;
+
+    @Data
+    @AllArgsConstructor
+    public static class BarResponse {
+        private long startMillis;
+        private BigDecimal open;
+        private BigDecimal high;
+        private BigDecimal low;
+        private BigDecimal close;
+        private long volume;
+    }
+}
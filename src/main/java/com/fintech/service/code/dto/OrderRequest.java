@@ -1,8 +1,11 @@
 package com.fintech.service.code.dto;
 
+import com.fintech.service.code.model.OrderKind;
 import com.fintech.service.code.model.OrderType;
 import lombok.*;
 
+import java.math.BigDecimal;
+
 @Getter
 @Setter
 @NoArgsConstructor
@@ -10,7 +13,20 @@ import lombok.*;
 @Builder
 public class OrderRequest {
     private String symbol;
+    /**
+     * Account the order is placed for. Orders without one are only checked against the order size and price
+     * collar limits.
+     */
+    private Long accountId;
     private OrderType type;
-    private double price;
+    /**
+     * Defaults to {@link OrderKind#LIMIT}. The price is ignored for market and stop orders and required otherwise.
+     */
+    private OrderKind kind;
+    private BigDecimal price;
+    /**
+     * Trade price that triggers a stop or stop-limit order; ignored for other kinds.
+     */
+    private BigDecimal stopPrice;
     private int quantity;
 }
@@ -0,0 +1,20 @@
+package com.fintech.service.code.dto;
+
+import com.fintech.service.code.model.OrderType;
+import lombok.*;
+
+import java.math.BigDecimal;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class OrderResponse {
+    private Long orderId;
+    private String symbol;
+    private OrderType type;
+    private BigDecimal price;
+    private int quantity;
+    private boolean active;
+}
@@ -0,0 +1,13 @@
+package com.fintech.service.code.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.math.BigDecimal;
+
+@Data
+@AllArgsConstructor
+public class PriceLevelUpdate {
+    private BigDecimal price;
+    private long quantity;
+}
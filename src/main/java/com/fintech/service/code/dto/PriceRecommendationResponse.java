@@ -3,11 +3,13 @@ package com.fintech.service.code.dto;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 
+import java.math.BigDecimal;
+
 @Data
 @AllArgsConstructor
 public class PriceRecommendationResponse {
     private String symbol;
     private String recommendationType;
     private String message;
-    private Double recommendedPrice;
+    private BigDecimal recommendedPrice;
 }
@@ -0,0 +1,13 @@
+package com.fintech.service.code.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class ShardResponse {
+    private int shard;
+    private long queueDepth;
+    private double busySeconds;
+    private long commands;
+}
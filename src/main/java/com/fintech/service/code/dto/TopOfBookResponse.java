@@ -0,0 +1,22 @@
+package com.fintech.service.code.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * Best bid and offer of one symbol; price and quantity are {@code null} for an empty side.
+ */
+@Data
+@AllArgsConstructor
+public class TopOfBookResponse {
+    private String symbol;
+    private long sequence;
+    private Instant timestamp;
+    private BigDecimal bidPrice;
+    private Long bidQuantity;
+    private BigDecimal askPrice;
+    private Long askQuantity;
+}
@@ -0,0 +1,19 @@
+package com.fintech.service.code.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+@Data
+@AllArgsConstructor
+public class TradeHistoryResponse {
+    private Long tradeId;
+    private String symbol;
+    private BigDecimal price;
+    private int quantity;
+    private Instant timestamp;
+    private Long buyOrderId;
+    private Long sellOrderId;
+}
@@ -0,0 +1,17 @@
+package com.fintech.service.code.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * One page of trade history. Pass {@code nextCursor} back as {@code cursor} for the following page; it is
+ * {@code null} on the last page.
+ */
+@Data
+@AllArgsConstructor
+public class TradePageResponse {
+    private List<TradeHistoryResponse> trades;
+    private String nextCursor;
+}
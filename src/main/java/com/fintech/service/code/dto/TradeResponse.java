@@ -2,6 +2,8 @@ package com.fintech.service.code.dto;
 
 import lombok.*;
 
+import java.math.BigDecimal;
+
 @Getter
 @Setter
 @NoArgsConstructor
@@ -10,6 +12,6 @@ import lombok.*;
 public class TradeResponse {
     private Long tradeId;
     private String symbol;
-    private double price;
+    private BigDecimal price;
     private int quantity;
 }
@@ -0,0 +1,23 @@
+package com.fintech.service.code.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * Trade published on {@code /topic/trades/{symbol}}, with the price in display units. Built on the publication
+ * thread, so the engine's {@code Trade}, which other stages read at the same time, is never written to.
+ */
+@Data
+@AllArgsConstructor
+public class TradeUpdateMessage {
+    private Long id;
+    private String symbol;
+    private BigDecimal price;
+    private int quantity;
+    private Instant timestamp;
+    private Long buyOrderId;
+    private Long sellOrderId;
+}
@@ -0,0 +1,184 @@
+package com.fintech.service.code.engine;
+
+import com.fintech.service.code.config.EngineProperties;
+import com.fintech.service.code.engine.risk.PreTradeRisk;
+import com.fintech.service.code.engine.risk.RiskRejectedException;
+import com.fintech.service.code.metrics.StageLatencyMetrics;
+import com.fintech.service.code.metrics.TradeMetricsService;
+import com.fintech.service.code.model.Order;
+import com.fintech.service.code.model.OrderKind;
+import com.fintech.service.code.model.OrderType;
+import com.fintech.service.code.repository.EngineStateRepository;
+import com.fintech.service.code.service.OrderBookService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs synthetic order flow through a scratch {@link PriceTimeMatchingEngine}, order book and
+ * {@link PreTradeRisk} before the service reports ready, so the matching path is compiled by the time the
+ * first real order arrives instead of running interpreted. Spring Boot only turns readiness to accepting
+ * traffic once application runners have returned. The scratch components share the live ones' classes and
+ * book storage but none of their state, and record their metrics into a registry that is thrown away.
+ * <p>
+ * Once ready, the time since JVM start is logged, and at the end of {@code engine.warmup.latency-window} the
+ * match latency of the live orders seen so far.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class EngineWarmup implements ApplicationRunner {
+
+    private static final String[] SYMBOLS = {"WARMUP-A", "WARMUP-B", "WARMUP-C", "WARMUP-D"};
+    private static final long MID = 10_000;
+    private static final int SPREAD = 20;
+    private static final int RESTING = 1024;
+    private static final int ACCOUNTS = 16;
+
+    private final EngineProperties properties;
+    private final PriceScale priceScale;
+    private final EngineStateRepository repository;
+    private final StageLatencyMetrics stageLatency;
+
+    private volatile long warmupMillis;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        EngineProperties.Warmup warmup = properties.getWarmup();
+        if (!warmup.isEnabled()) {
+            return;
+        }
+        long started = System.nanoTime();
+        try {
+            int commands = warmUp(warmup.getOrders(), warmup.getTimeout());
+            warmupMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+            log.info("Warmed up matching with {} synthetic commands in {} ms", commands, warmupMillis);
+        } catch (RuntimeException e) {
+            log.warn("Warm-up failed, starting without it", e);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void ready() {
+        log.info("Ready {} ms after JVM start, {} ms of it warming up",
+                ManagementFactory.getRuntimeMXBean().getUptime(), warmupMillis);
+        Duration window = properties.getWarmup().getLatencyWindow();
+        CompletableFuture.delayedExecutor(window.toMillis(), TimeUnit.MILLISECONDS)
+                .execute(() -> reportStartupLatency(window));
+    }
+
+    /**
+     * Matches up to {@code orders} commands of synthetic flow on scratch books: limit orders of random side
+     * around a fixed mid, some immediate, market, post-only and stop-limit orders, and cancels and amends of
+     * earlier ones, over a few symbols and accounts. Returns the number of commands run, fewer than
+     * {@code orders} when {@code timeout} runs out first.
+     */
+    public int warmUp(int orders, Duration timeout) {
+        OrderBookService books = new OrderBookService(properties.getBookStorage());
+        MeterRegistry scratchRegistry = new SimpleMeterRegistry();
+        PriceTimeMatchingEngine engine =
+                new PriceTimeMatchingEngine(books, new TradeMetricsService(scratchRegistry), new IdGenerator());
+        PreTradeRisk risk = new PreTradeRisk(properties, books, priceScale, repository, scratchRegistry);
+        SplittableRandom random = new SplittableRandom(42);
+        long[] resting = new long[RESTING];
+        long deadline = System.nanoTime() + timeout.toNanos();
+        long nextId = 0;
+        int commands = 0;
+        for (; commands < orders && System.nanoTime() < deadline; commands++) {
+            int roll = random.nextInt(100);
+            int slot = random.nextInt(RESTING);
+            long restingId = resting[slot];
+            try {
+                if (roll < 10 && restingId != 0) {
+                    String symbol = symbol(restingId);
+                    long priceTicks = price(random);
+                    int quantity = random.nextInt(1, 100);
+                    risk.checkAmend(symbol, restingId, priceTicks, quantity);
+                    apply(risk, engine.amend(symbol, restingId, priceTicks, quantity));
+                } else if (roll < 20 && restingId != 0) {
+                    resting[slot] = 0;
+                    apply(risk, engine.cancel(symbol(restingId), restingId));
+                } else {
+                    Order order = order(++nextId, random, kind(roll));
+                    risk.check(order);
+                    apply(risk, engine.match(order));
+                    if (order.getKind().rests()) {
+                        if (restingId != 0) {
+                            apply(risk, engine.cancel(symbol(restingId), restingId));
+                        }
+                        resting[slot] = order.getId();
+                    }
+                }
+            } catch (RiskRejectedException e) {
+                // Rejections are part of the flow
+            }
+        }
+        return commands;
+    }
+
+    private void reportStartupLatency(Duration window) {
+        HistogramSnapshot snapshot = stageLatency.endStartupWindow();
+        ValueAtPercentile[] percentiles = snapshot.percentileValues();
+        log.info("Match latency over the first {} s: {} orders, p50 {} us, p99 {} us, p99.9 {} us, max {} us",
+                window.toSeconds(), snapshot.count(), micros(percentiles[0]), micros(percentiles[1]),
+                micros(percentiles[2]), (long) snapshot.max(TimeUnit.MICROSECONDS));
+    }
+
+    private static long micros(ValueAtPercentile percentile) {
+        return (long) percentile.value(TimeUnit.MICROSECONDS);
+    }
+
+    private static void apply(PreTradeRisk risk, ExecutionReport report) {
+        if (report != null) {
+            risk.onExecution(report);
+        }
+    }
+
+    private static OrderKind kind(int roll) {
+        if (roll < 80) {
+            return OrderKind.LIMIT;
+        } else if (roll < 88) {
+            return OrderKind.IOC;
+        } else if (roll < 93) {
+            return OrderKind.MARKET;
+        } else if (roll < 97) {
+            return OrderKind.POST_ONLY;
+        }
+        return OrderKind.STOP_LIMIT;
+    }
+
+    private static Order order(long id, SplittableRandom random, OrderKind kind) {
+        OrderType side = random.nextBoolean() ? OrderType.BUY : OrderType.SELL;
+        Order order = Order.builder().id(id).symbol(symbol(id)).accountId(1L + random.nextInt(ACCOUNTS))
+                .type(side).kind(kind).priceTicks(kind == OrderKind.MARKET ? 0 : price(random))
+                .quantity(random.nextInt(1, 100)).timestamp(Instant.now()).isActive(true).build();
+        if (kind.isStop()) {
+            int offset = random.nextInt(1, SPREAD);
+            order.setStopPriceTicks(side == OrderType.BUY ? MID + offset : MID - offset);
+        }
+        return order;
+    }
+
+    private static long price(SplittableRandom random) {
+        return MID + random.nextInt(-SPREAD, SPREAD + 1);
+    }
+
+    private static String symbol(long orderId) {
+        return SYMBOLS[(int) (orderId % SYMBOLS.length)];
+    }
+}
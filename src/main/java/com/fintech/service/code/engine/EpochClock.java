@@ -0,0 +1,35 @@
+package com.fintech.service.code.engine;
+
+import java.time.Instant;
+
+/**
+ * Wall-clock time as primitive epoch nanoseconds for the matching path, where {@link Instant#now()} would
+ * allocate. Anchored to the system clock once and advanced with {@link System#nanoTime()}, so it is
+ * monotonic within a process.
+ */
+public final class EpochClock {
+
+    private static final long EPOCH_NANOS_AT_START;
+    private static final long NANO_TIME_AT_START;
+
+    static {
+        Instant now = Instant.now();
+        NANO_TIME_AT_START = System.nanoTime();
+        EPOCH_NANOS_AT_START = toNanos(now);
+    }
+
+    private EpochClock() {
+    }
+
+    public static long nanos() {
+        return EPOCH_NANOS_AT_START + (System.nanoTime() - NANO_TIME_AT_START);
+    }
+
+    public static long toNanos(Instant instant) {
+        return instant.getEpochSecond() * 1_000_000_000L + instant.getNano();
+    }
+
+    public static Instant toInstant(long epochNanos) {
+        return Instant.ofEpochSecond(0, epochNanos);
+    }
+}
@@ -0,0 +1,37 @@
+package com.fintech.service.code.engine;
+
+import com.fintech.service.code.model.Order;
+import com.fintech.service.code.model.Trade;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * State of an order after the engine processed a command for it, with the trades the command produced and
+ * the resulting state of every resting order those trades filled. Stop orders the trades triggered are part of
+ * the same command: their trades follow, and their states are listed with the resting orders in the order they
+ * changed.
+ */
+@Getter
+@AllArgsConstructor
+public class ExecutionReport {
+    private final Order order;
+    private final List<Trade> trades;
+    private final List<Order> restingOrders;
+
+    /**
+     * Trades the order itself took part in, leaving out those of stop orders it triggered.
+     */
+    public List<Trade> getOrderTrades() {
+        long orderId = order.getId();
+        List<Trade> own = new ArrayList<>(trades.size());
+        for (Trade trade : trades) {
+            if (trade.getBuyOrderId() == orderId || trade.getSellOrderId() == orderId) {
+                own.add(trade);
+            }
+        }
+        return own;
+    }
+}
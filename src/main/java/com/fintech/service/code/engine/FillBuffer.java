@@ -0,0 +1,126 @@
+package com.fintech.service.code.engine;
+
+import com.fintech.service.code.engine.book.OrderBook;
+import com.fintech.service.code.model.OrderKind;
+
+import java.util.Arrays;
+
+/**
+ * Reusable result of one match: a column per fill field instead of a list of trade objects. Cleared at the
+ * start of every match and grown only when a match produces more fills than any before it, so a buffer
+ * kept per matching thread makes the result allocation-free. Only valid until the next match into it.
+ */
+public final class FillBuffer implements OrderBook.FillSink {
+
+    private static final int INITIAL_FILLS = 64;
+
+    private long[] tradeIds = new long[INITIAL_FILLS];
+    private long[] prices = new long[INITIAL_FILLS];
+    private int[] quantities = new int[INITIAL_FILLS];
+    private long[] restingOrderIds = new long[INITIAL_FILLS];
+    private OrderKind[] restingKinds = new OrderKind[INITIAL_FILLS];
+    private int[] restingRemaining = new int[INITIAL_FILLS];
+    private long[] restingTimestamps = new long[INITIAL_FILLS];
+    private int count;
+    private int remaining;
+    private boolean rested;
+    private long timestampNanos;
+
+    public int size() {
+        return count;
+    }
+
+    public long getTradeId(int fill) {
+        return tradeIds[fill];
+    }
+
+    public long getPrice(int fill) {
+        return prices[fill];
+    }
+
+    public int getQuantity(int fill) {
+        return quantities[fill];
+    }
+
+    public long getRestingOrderId(int fill) {
+        return restingOrderIds[fill];
+    }
+
+    public OrderKind getRestingKind(int fill) {
+        return restingKinds[fill];
+    }
+
+    /**
+     * Quantity the resting order has left after the fill; zero once it left the book.
+     */
+    public int getRestingRemaining(int fill) {
+        return restingRemaining[fill];
+    }
+
+    public long getRestingTimestamp(int fill) {
+        return restingTimestamps[fill];
+    }
+
+    /**
+     * Unfilled quantity of the incoming order.
+     */
+    public int getRemaining() {
+        return remaining;
+    }
+
+    /**
+     * Whether the unfilled quantity rests in the book; otherwise it was cancelled, killed or rejected.
+     */
+    public boolean isRested() {
+        return rested;
+    }
+
+    /**
+     * Execution time of every fill of the match, in epoch nanoseconds.
+     */
+    public long getTimestampNanos() {
+        return timestampNanos;
+    }
+
+    void clear(long timestampNanos) {
+        this.count = 0;
+        this.remaining = 0;
+        this.rested = false;
+        this.timestampNanos = timestampNanos;
+    }
+
+    @Override
+    public void onFill(long price, int quantity, long restingOrderId, OrderKind restingKind, int restingLeft,
+                       long restingTimestamp) {
+        if (count == tradeIds.length) {
+            grow();
+        }
+        prices[count] = price;
+        quantities[count] = quantity;
+        restingOrderIds[count] = restingOrderId;
+        restingKinds[count] = restingKind;
+        restingRemaining[count] = restingLeft;
+        restingTimestamps[count] = restingTimestamp;
+        count++;
+    }
+
+    void setTradeId(int fill, long tradeId) {
+        tradeIds[fill] = tradeId;
+    }
+
+    void setRemaining(int remaining, boolean rested) {
+        this.remaining = remaining;
+        this.rested = rested;
+    }
+
+    private void grow() {
+        int capacity = tradeIds.length * 2;
+        tradeIds = Arrays.copyOf(tradeIds, capacity);
+        prices = Arrays.copyOf(prices, capacity);
+        quantities = Arrays.copyOf(quantities, capacity);
+        restingOrderIds = Arrays.copyOf(restingOrderIds, capacity);
+        restingKinds = Arrays.copyOf(restingKinds, capacity);
+        restingRemaining = Arrays.copyOf(restingRemaining, capacity);
+        restingTimestamps = Arrays.copyOf(restingTimestamps, capacity);
+    }
+}
@@ -0,0 +1,29 @@
+package com.fintech.service.code.engine;
+
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hands out order and trade ids in the engine so nothing on the matching path waits for a database sequence.
+ * Seeded at startup from the highest ids already stored.
+ */
+@Component
+public class IdGenerator {
+
+    private final AtomicLong orderIds = new AtomicLong();
+    private final AtomicLong tradeIds = new AtomicLong();
+
+    public void seed(long maxOrderId, long maxTradeId) {
+        orderIds.accumulateAndGet(maxOrderId, Math::max);
+        tradeIds.accumulateAndGet(maxTradeId, Math::max);
+    }
+
+    public long nextOrderId() {
+        return orderIds.incrementAndGet();
+    }
+
+    public long nextTradeId() {
+        return tradeIds.incrementAndGet();
+    }
+}
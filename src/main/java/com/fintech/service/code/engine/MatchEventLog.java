@@ -0,0 +1,115 @@
+package com.fintech.service.code.engine;
+
+import com.fintech.service.code.config.EngineProperties;
+import com.fintech.service.code.engine.pipeline.EventHandler;
+import com.fintech.service.code.engine.pipeline.EventProcessor;
+import com.fintech.service.code.engine.pipeline.RingBuffer;
+import com.fintech.service.code.model.OrderType;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Sampled log of matches that keeps formatting off the matching threads. Every {@code sampleRate}-th match
+ * is copied as primitives into a preallocated ring entry and formatted by a background thread; when the
+ * ring is full the record is dropped and counted rather than blocking the matching thread. Recording
+ * therefore never allocates.
+ */
+@Slf4j
+@Component
+public class MatchEventLog implements EventHandler<MatchEventLog.MatchEvent> {
+
+    public static final MatchEventLog DISABLED = new MatchEventLog(0, 0);
+
+    private final int sampleRate;
+    private final RingBuffer<MatchEvent> ringBuffer;
+    private final EventProcessor<MatchEvent> processor;
+    private final AtomicLong matches = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private Thread thread;
+
+    @Autowired
+    public MatchEventLog(EngineProperties properties) {
+        this(properties.getEventLog().getSampleRate(), properties.getEventLog().getBufferSize());
+    }
+
+    /**
+     * @param sampleRate records one match in this many; {@code 0} disables the log
+     */
+    public MatchEventLog(int sampleRate, int bufferSize) {
+        this.sampleRate = sampleRate;
+        if (sampleRate > 0) {
+            this.ringBuffer = new RingBuffer<>(bufferSize, MatchEvent::new);
+            this.processor = new EventProcessor<>(ringBuffer, this);
+            this.ringBuffer.addGatingSequences(processor.getSequence());
+        } else {
+            this.ringBuffer = null;
+            this.processor = null;
+        }
+    }
+
+    @PostConstruct
+    public void start() {
+        if (processor != null) {
+            thread = new Thread(processor, "match-event-log");
+            thread.setDaemon(true);
+            thread.start();
+        }
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (thread != null) {
+            PipelineSupport.drain(ringBuffer, processor);
+            processor.halt();
+            thread.join();
+        }
+    }
+
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    public void record(String symbol, long orderId, OrderType side, long priceTicks, int quantity, int fills,
+                       int remaining) {
+        if (sampleRate == 0 || matches.incrementAndGet() % sampleRate != 0) {
+            return;
+        }
+        long sequence = ringBuffer.tryNext();
+        if (sequence < 0) {
+            dropped.incrementAndGet();
+            return;
+        }
+        MatchEvent event = ringBuffer.get(sequence);
+        event.symbol = symbol;
+        event.orderId = orderId;
+        event.side = side;
+        event.priceTicks = priceTicks;
+        event.quantity = quantity;
+        event.fills = fills;
+        event.remaining = remaining;
+        ringBuffer.publish(sequence);
+    }
+
+    @Override
+    public void onEvent(MatchEvent event, long sequence, boolean endOfBatch) {
+        log.info("Matched {} order {} {} {}@{}: {} fills, {} resting (1 in {} logged, {} dropped)", event.symbol,
+                event.orderId, event.side, event.quantity, event.priceTicks, event.fills, event.remaining,
+                sampleRate, dropped.get());
+        event.symbol = null;
+    }
+
+    static final class MatchEvent {
+        private String symbol;
+        private long orderId;
+        private OrderType side;
+        private long priceTicks;
+        private int quantity;
+        private int fills;
+        private int remaining;
+    }
+}
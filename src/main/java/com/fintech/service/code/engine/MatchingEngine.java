@@ -2,10 +2,34 @@ package com.fintech.service.code.engine;
 
 
 import com.fintech.service.code.model.Order;
-import com.fintech.service.code.model.Trade;
-
-import java.util.List;
+import com.fintech.service.code.model.OrderKind;
+import com.fintech.service.code.model.OrderType;
 
 public interface MatchingEngine {
-    List<Trade> match(Order incomingOrder);
-}
\ No newline at end of file
+    ExecutionReport match(Order incomingOrder);
+
+    /**
+     * Matches an incoming order given as primitives, writing its fills and unfilled remainder into
+     * {@code fills} instead of building a report. The remainder rests in the book only for kinds that rest;
+     * {@code priceTicks} is ignored for market orders. Stop orders are not accepted here, and the fills fire no
+     * waiting stops.
+     */
+    void match(String symbol, long orderId, OrderType side, OrderKind kind, long priceTicks, int quantity,
+               long timestampNanos, FillBuffer fills);
+
+    /**
+     * @return the cancelled order, or {@code null} if it is neither resting in the book nor waiting for its stop
+     * price
+     */
+    ExecutionReport cancel(String symbol, long orderId);
+
+    /**
+     * Changes the price (in ticks) and/or remaining quantity of a resting order. A quantity reduction at the
+     * same price keeps time priority; any other change re-enters the order as if newly placed. A waiting stop
+     * order keeps its stop price and can only change its quantity and, for a stop-limit order, its limit price.
+     *
+     * @return the amended order, or {@code null} if it is neither resting in the book nor waiting for its stop
+     * price
+     */
+    ExecutionReport amend(String symbol, long orderId, Long priceTicks, Integer quantity);
+}
@@ -0,0 +1,312 @@
+package com.fintech.service.code.engine;
+
+import com.fintech.service.code.config.EngineProperties;
+import com.fintech.service.code.engine.pipeline.EngineEvent;
+import com.fintech.service.code.engine.pipeline.EventProcessor;
+import com.fintech.service.code.engine.pipeline.JournalHandler;
+import com.fintech.service.code.engine.pipeline.PersistenceHandler;
+import com.fintech.service.code.engine.pipeline.PublicationHandler;
+import com.fintech.service.code.engine.pipeline.RingBuffer;
+import com.fintech.service.code.engine.risk.PreTradeRisk;
+import com.fintech.service.code.journal.EventJournal;
+import com.fintech.service.code.journal.JournalRecovery;
+import com.fintech.service.code.journal.SnapshotStore;
+import com.fintech.service.code.metrics.StageLatencyMetrics;
+import com.fintech.service.code.model.Order;
+import com.fintech.service.code.service.OrderBookService;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Routes orders to the matching shard that owns their symbol. Matching results flow through a shared output
+ * ring to the journal stage, which acknowledges them, and then in parallel to the write-behind persistence
+ * stage and the publication stage, each on its own thread.
+ * <p>
+ * On startup the books and database are recovered from the latest snapshots and the journal, and the
+ * pre-trade risk counters seeded from the database, before any shard starts. Each shard then snapshots its
+ * books periodically, and once more on shutdown, so replay stays short.
+ * <p>
+ * Symbols are routed by hash unless pinned to a shard in {@code engine.symbol-shards} or moved at runtime with
+ * {@link #moveSymbol}, which hands the book over between the two shard threads without dropping commands.
+ * Queue depth, busy time and command counts of every shard are exported as metrics, along with the latency
+ * of each stage in {@link StageLatencyMetrics}.
+ * <p>
+ * On a standby nothing starts: the replica keeps the books current from the primary's journal and calls
+ * {@link #promote} on failover, which brings the database up to date and starts matching where the primary
+ * stopped.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class MatchingPipeline {
+
+    private final EngineProperties properties;
+    private final MatchingEngine matchingEngine;
+    private final OrderBookService orderBookService;
+    private final EventJournal journal;
+    private final JournalRecovery journalRecovery;
+    private final SnapshotStore snapshotStore;
+    private final JournalHandler journalHandler;
+    private final PersistenceHandler persistenceHandler;
+    private final PublicationHandler publicationHandler;
+    private final PreTradeRisk preTradeRisk;
+    private final MeterRegistry meterRegistry;
+    private final StageLatencyMetrics stageLatency;
+
+    private final Map<String, Integer> assignments = new ConcurrentHashMap<>();
+    private final List<Thread> stageThreads = new ArrayList<>();
+    private volatile MatchingShard[] shards;
+    private RingBuffer<EngineEvent> outbound;
+    private EventProcessor<EngineEvent> journalProcessor;
+    private EventProcessor<EngineEvent> persistenceProcessor;
+    private EventProcessor<EngineEvent> publicationProcessor;
+    private ScheduledExecutorService snapshotScheduler;
+
+    @PostConstruct
+    public void start() throws IOException {
+        if (properties.getReplication().getRole() == EngineProperties.Replication.Role.STANDBY) {
+            log.info("Matching pipeline is on standby");
+            return;
+        }
+        persistenceHandler.recovered(journalRecovery.recover());
+        launch();
+    }
+
+    /**
+     * Starts matching on a standby whose books are already current, and snapshots them straight away so the
+     * new primary's journal can be released independently of the old one's.
+     */
+    public synchronized void promote() throws IOException {
+        if (shards != null) {
+            throw new IllegalStateException("Matching pipeline is already running");
+        }
+        persistenceHandler.recovered(journalRecovery.catchUp());
+        launch();
+        snapshot();
+    }
+
+    private void launch() throws IOException {
+        publicationHandler.recovered(orderBookService.getBooks());
+        preTradeRisk.recovered();
+        journal.open();
+
+        journalHandler.addFailureListener(this::fence);
+        outbound = new RingBuffer<>(properties.getOutputRingSize(), EngineEvent::new);
+        journalProcessor = new EventProcessor<>(outbound, journalHandler);
+        persistenceProcessor = new EventProcessor<>(outbound, persistenceHandler, journalProcessor.getSequence());
+        publicationProcessor = new EventProcessor<>(outbound, publicationHandler, journalProcessor.getSequence());
+        outbound.addGatingSequences(persistenceProcessor.getSequence(), publicationProcessor.getSequence());
+        startStage(journalProcessor, "engine-journal");
+        startStage(persistenceProcessor, "engine-persistence");
+        startStage(publicationProcessor, "engine-publication");
+
+        MatchingShard[] started = new MatchingShard[properties.getShards()];
+        properties.getSymbolShards().forEach((symbol, shard) -> assignments.put(symbol, checkShard(shard)));
+        for (int i = 0; i < started.length; i++) {
+            int shardId = i;
+            started[i] = new MatchingShard(i, properties.getRingSize(), matchingEngine, orderBookService,
+                    preTradeRisk, symbol -> shardFor(symbol).getId() == shardId, outbound, stageLatency);
+        }
+        shards = started;
+        for (MatchingShard shard : started) {
+            shard.start();
+            registerMetrics(shard);
+        }
+
+        long interval = properties.getJournal().getSnapshotInterval().toMillis();
+        snapshotScheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "engine-snapshot");
+            thread.setDaemon(true);
+            return thread;
+        });
+        snapshotScheduler.scheduleAtFixedRate(this::snapshot, interval, interval, TimeUnit.MILLISECONDS);
+        log.info("Started matching pipeline with {} shards", shards.length);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException, IOException {
+        if (shards == null) {
+            return;
+        }
+        snapshotScheduler.shutdownNow();
+        snapshot();
+        for (MatchingShard shard : shards) {
+            shard.stop();
+        }
+        PipelineSupport.drain(outbound, persistenceProcessor);
+        PipelineSupport.drain(outbound, publicationProcessor);
+        journalProcessor.halt();
+        persistenceProcessor.halt();
+        publicationProcessor.halt();
+        for (Thread thread : stageThreads) {
+            thread.join();
+        }
+        persistenceHandler.flushPending();
+        snapshotStore.close();
+        journal.close();
+    }
+
+    public CompletableFuture<ExecutionReport> submit(Order order) {
+        CompletableFuture<ExecutionReport> result;
+        while ((result = shardFor(order.getSymbol()).submit(order)) == null) {
+            Thread.onSpinWait();
+        }
+        return result;
+    }
+
+    /**
+     * Submits a batch of orders, one ring claim per owning shard, and returns their results in submission
+     * order. Orders of one symbol keep their relative order.
+     */
+    public List<CompletableFuture<ExecutionReport>> submit(List<Order> orders) {
+        Map<MatchingShard, List<Integer>> byShard = new LinkedHashMap<>();
+        for (int i = 0; i < orders.size(); i++) {
+            byShard.computeIfAbsent(shardFor(orders.get(i).getSymbol()), shard -> new ArrayList<>()).add(i);
+        }
+        List<CompletableFuture<ExecutionReport>> results = new ArrayList<>(Collections.nCopies(orders.size(), null));
+        byShard.forEach((shard, indexes) -> {
+            for (int from = 0; from < indexes.size(); from += shard.getRingSize()) {
+                List<Integer> chunk = indexes.subList(from, Math.min(from + shard.getRingSize(), indexes.size()));
+                List<Order> batch = new ArrayList<>(chunk.size());
+                chunk.forEach(index -> batch.add(orders.get(index)));
+                List<CompletableFuture<ExecutionReport>> submitted = shard.submit(batch);
+                for (int i = 0; i < chunk.size(); i++) {
+                    results.set(chunk.get(i), submitted.get(i));
+                }
+            }
+        });
+        for (int i = 0; i < results.size(); i++) {
+            if (results.get(i) == null) {
+                results.set(i, submit(orders.get(i)));
+            }
+        }
+        return results;
+    }
+
+    public CompletableFuture<ExecutionReport> cancel(String symbol, long orderId) {
+        CompletableFuture<ExecutionReport> result;
+        while ((result = shardFor(symbol).cancel(symbol, orderId)) == null) {
+            Thread.onSpinWait();
+        }
+        return result;
+    }
+
+    public CompletableFuture<ExecutionReport> amend(String symbol, long orderId, Long priceTicks, Integer quantity) {
+        CompletableFuture<ExecutionReport> result;
+        while ((result = shardFor(symbol).amend(symbol, orderId, priceTicks, quantity)) == null) {
+            Thread.onSpinWait();
+        }
+        return result;
+    }
+
+    /**
+     * Moves a symbol to another shard and returns once the target owns it. Commands already queued on the
+     * source are matched there first; the target holds back until they are done and snapshots the book
+     * before either shard continues.
+     */
+    public synchronized void moveSymbol(String symbol, int target) {
+        checkShard(target);
+        MatchingShard source = shardFor(symbol);
+        if (source.getId() == target) {
+            return;
+        }
+        SymbolHandoff handoff = new SymbolHandoff(symbol);
+        shards[target].acquire(handoff);
+        source.beginRelease(symbol);
+        assignments.put(symbol, target);
+        source.release(handoff);
+        SymbolHandoff.await(handoff.getAcquired());
+        log.info("Moved symbol {} from shard {} to shard {}", symbol, source.getId(), target);
+    }
+
+    public int shardOf(String symbol) {
+        return shardFor(symbol).getId();
+    }
+
+    /**
+     * Share of the owning shard's inbound ring taken by queued commands, from 0 to 1.
+     */
+    public double queueFill(String symbol) {
+        MatchingShard shard = shardFor(symbol);
+        return (double) shard.getQueueDepth() / shard.getRingSize();
+    }
+
+    public MatchingShard[] getShards() {
+        MatchingShard[] running = shards;
+        return running == null ? new MatchingShard[0] : running.clone();
+    }
+
+    private MatchingShard shardFor(String symbol) {
+        MatchingShard[] running = shards;
+        if (running == null) {
+            throw new IllegalStateException("Engine is a standby and does not accept orders until promoted");
+        }
+        Integer assigned = assignments.get(symbol);
+        return running[assigned != null ? assigned : Math.floorMod(symbol.hashCode(), running.length)];
+    }
+
+    private int checkShard(int shard) {
+        if (shard < 0 || shard >= properties.getShards()) {
+            throw new IllegalArgumentException("No shard " + shard + ", engine has " + properties.getShards());
+        }
+        return shard;
+    }
+
+    private void registerMetrics(MatchingShard shard) {
+        Tags tags = Tags.of("shard", String.valueOf(shard.getId()));
+        Gauge.builder("engine.shard.queue.depth", shard, MatchingShard::getQueueDepth)
+                .description("Commands queued on the shard's inbound ring")
+                .tags(tags)
+                .register(meterRegistry);
+        FunctionCounter.builder("engine.shard.busy", shard, s -> s.getBusyNanos() / 1e9)
+                .description("Time the shard thread spent matching; its rate is the shard's utilisation")
+                .baseUnit("seconds")
+                .tags(tags)
+                .register(meterRegistry);
+        FunctionCounter.builder("engine.shard.commands", shard, MatchingShard::getProcessed)
+                .description("Commands processed by the shard")
+                .tags(tags)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Fences every shard, since they all write to the journal that failed.
+     */
+    private void fence() {
+        for (MatchingShard shard : shards) {
+            shard.fence();
+        }
+    }
+
+    private void snapshot() {
+        for (MatchingShard shard : shards) {
+            shard.snapshot();
+        }
+    }
+
+    private void startStage(EventProcessor<EngineEvent> processor, String name) {
+        Thread thread = new Thread(processor, name);
+        thread.setDaemon(true);
+        thread.start();
+        stageThreads.add(thread);
+    }
+}
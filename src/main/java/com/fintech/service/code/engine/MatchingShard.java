@@ -0,0 +1,331 @@
+package com.fintech.service.code.engine;
+
+import com.fintech.service.code.engine.pipeline.CommandType;
+import com.fintech.service.code.engine.pipeline.EngineEvent;
+import com.fintech.service.code.engine.pipeline.EventHandler;
+import com.fintech.service.code.engine.pipeline.EventProcessor;
+import com.fintech.service.code.engine.pipeline.OrderCommand;
+import com.fintech.service.code.engine.pipeline.RingBuffer;
+import com.fintech.service.code.engine.book.OrderBook;
+import com.fintech.service.code.engine.risk.PreTradeRisk;
+import com.fintech.service.code.journal.SnapshotStore;
+import com.fintech.service.code.metrics.StageLatencyMetrics;
+import com.fintech.service.code.metrics.StageLatencyMetrics.Stage;
+import com.fintech.service.code.model.Order;
+import com.fintech.service.code.service.OrderBookService;
+import lombok.Getter;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+/**
+ * Owns the books of the symbols routed to it: every command for those symbols is matched on this shard's
+ * single thread, so the book needs no locking. Results are handed to the shared output ring.
+ * <p>
+ * New orders and amends pass the pre-trade risk checks on this thread before they reach the book, and every
+ * result updates the risk counters before it is handed on. Commands are acknowledged by the journal stage once
+ * their outcome is on disk; only rejected commands are completed here. A snapshot command encodes the shard's
+ * books between two commands and sends them down the same ring, so the snapshot matches the journal position
+ * it lands at.
+ * <p>
+ * Symbols can move between shards at runtime. A producer re-checks ownership after claiming a slot and, if
+ * the symbol moved in the meantime, fills the slot with a SKIP and returns {@code null} so the caller routes
+ * again; a symbol being handed off stays in this shard's snapshots until the new owner has one of its own.
+ */
+public class MatchingShard implements EventHandler<OrderCommand> {
+
+    @Getter
+    private final int id;
+    private final MatchingEngine matchingEngine;
+    private final OrderBookService orderBookService;
+    private final PreTradeRisk preTradeRisk;
+    private final Predicate<String> ownsSymbol;
+    private final RingBuffer<OrderCommand> inbound;
+    private final RingBuffer<EngineEvent> outbound;
+    private final EventProcessor<OrderCommand> processor;
+    private final Set<String> releasing = ConcurrentHashMap.newKeySet();
+    private final StageLatencyMetrics stageLatency;
+    private volatile boolean fenced;
+    private Thread thread;
+    private long commandStarted;
+
+    public MatchingShard(int id, int ringSize, MatchingEngine matchingEngine, OrderBookService orderBookService,
+                         PreTradeRisk preTradeRisk, Predicate<String> ownsSymbol, RingBuffer<EngineEvent> outbound,
+                         StageLatencyMetrics stageLatency) {
+        this.id = id;
+        this.matchingEngine = matchingEngine;
+        this.orderBookService = orderBookService;
+        this.preTradeRisk = preTradeRisk;
+        this.ownsSymbol = ownsSymbol;
+        this.outbound = outbound;
+        this.stageLatency = stageLatency;
+        this.inbound = new RingBuffer<>(ringSize, OrderCommand::new);
+        this.processor = new EventProcessor<>(inbound, this);
+        this.inbound.addGatingSequences(processor.getSequence());
+    }
+
+    public void start() {
+        thread = new Thread(processor, "matching-shard-" + id);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    public void stop() throws InterruptedException {
+        PipelineSupport.drain(inbound, processor);
+        processor.halt();
+        thread.join();
+    }
+
+    /**
+     * Returns {@code null} if the order's symbol moved to another shard and the caller must route it again.
+     */
+    public CompletableFuture<ExecutionReport> submit(Order order) {
+        CompletableFuture<ExecutionReport> result = new CompletableFuture<>();
+        long sequence = inbound.next();
+        try {
+            OrderCommand command = inbound.get(sequence);
+            if (!ownsSymbol.test(order.getSymbol())) {
+                command.setType(CommandType.SKIP);
+                return null;
+            }
+            command.setType(CommandType.NEW);
+            command.setSubmittedNanos(System.nanoTime());
+            command.setOrder(order);
+            command.setSymbol(order.getSymbol());
+            command.setResult(result);
+        } finally {
+            inbound.publish(sequence);
+        }
+        return result;
+    }
+
+    /**
+     * Submits orders as one consecutive run of the inbound ring, so they are matched back to back and reach
+     * the journal and the database in the same batch. At most {@link #getRingSize()} orders at a time. An
+     * element is {@code null} where the order's symbol moved to another shard.
+     */
+    public List<CompletableFuture<ExecutionReport>> submit(List<Order> orders) {
+        List<CompletableFuture<ExecutionReport>> results = new ArrayList<>(orders.size());
+        long high = inbound.next(orders.size());
+        long low = high - orders.size() + 1;
+        long submitted = System.nanoTime();
+        try {
+            for (Order order : orders) {
+                OrderCommand command = inbound.get(low + results.size());
+                if (!ownsSymbol.test(order.getSymbol())) {
+                    command.setType(CommandType.SKIP);
+                    results.add(null);
+                    continue;
+                }
+                CompletableFuture<ExecutionReport> result = new CompletableFuture<>();
+                command.setType(CommandType.NEW);
+                command.setSubmittedNanos(submitted);
+                command.setOrder(order);
+                command.setSymbol(order.getSymbol());
+                command.setResult(result);
+                results.add(result);
+            }
+        } finally {
+            inbound.publish(low, high);
+        }
+        return results;
+    }
+
+    public CompletableFuture<ExecutionReport> cancel(String symbol, long orderId) {
+        return submit(CommandType.CANCEL, symbol, orderId, null, null);
+    }
+
+    public CompletableFuture<ExecutionReport> amend(String symbol, long orderId, Long priceTicks, Integer quantity) {
+        return submit(CommandType.AMEND, symbol, orderId, priceTicks, quantity);
+    }
+
+    public void snapshot() {
+        submit(CommandType.SNAPSHOT, null, 0, null, null);
+    }
+
+    /**
+     * Queues the hand-off of a symbol this shard owns. Must be called before the route changes, so snapshots
+     * taken in between still include the symbol.
+     */
+    public void beginRelease(String symbol) {
+        releasing.add(symbol);
+    }
+
+    public void release(SymbolHandoff handoff) {
+        publishHandoff(CommandType.RELEASE, handoff);
+    }
+
+    public void acquire(SymbolHandoff handoff) {
+        publishHandoff(CommandType.ACQUIRE, handoff);
+    }
+
+    /**
+     * Stops matching for good: every later order command is failed without touching the books. Used when the
+     * journal can no longer record what the shard does.
+     */
+    public void fence() {
+        fenced = true;
+    }
+
+    public boolean isFenced() {
+        return fenced;
+    }
+
+    public int getRingSize() {
+        return inbound.getBufferSize();
+    }
+
+    public long getQueueDepth() {
+        return inbound.size();
+    }
+
+    public long getBusyNanos() {
+        return processor.getBusyNanos();
+    }
+
+    public long getProcessed() {
+        return processor.getProcessed();
+    }
+
+    private void publishHandoff(CommandType type, SymbolHandoff handoff) {
+        long sequence = inbound.next();
+        try {
+            OrderCommand command = inbound.get(sequence);
+            command.setType(type);
+            command.setSymbol(handoff.getSymbol());
+            command.setHandoff(handoff);
+        } finally {
+            inbound.publish(sequence);
+        }
+    }
+
+    private CompletableFuture<ExecutionReport> submit(CommandType type, String symbol, long orderId,
+                                                      Long priceTicks, Integer quantity) {
+        CompletableFuture<ExecutionReport> result = new CompletableFuture<>();
+        long sequence = inbound.next();
+        try {
+            OrderCommand command = inbound.get(sequence);
+            if (symbol != null && !ownsSymbol.test(symbol)) {
+                command.setType(CommandType.SKIP);
+                return null;
+            }
+            command.setType(type);
+            command.setSubmittedNanos(System.nanoTime());
+            command.setSymbol(symbol);
+            command.setOrderId(orderId);
+            command.setPriceTicks(priceTicks);
+            command.setQuantity(quantity);
+            command.setResult(result);
+        } finally {
+            inbound.publish(sequence);
+        }
+        return result;
+    }
+
+    @Override
+    public void onEvent(OrderCommand command, long sequence, boolean endOfBatch) {
+        CompletableFuture<ExecutionReport> result = command.getResult();
+        commandStarted = System.nanoTime();
+        try {
+            if (fenced && command.getType() != CommandType.RELEASE && command.getType() != CommandType.ACQUIRE) {
+                throw new IllegalStateException("Shard " + id + " is fenced after a journal failure");
+            }
+            switch (command.getType()) {
+                case NEW -> {
+                    Order order = command.getOrder();
+                    preTradeRisk.check(order);
+                    int quantity = order.getQuantity();
+                    publish(command, matchingEngine.match(order), order.getPriceTicks(), quantity);
+                }
+                case CANCEL -> publishIfFound(command,
+                        matchingEngine.cancel(command.getSymbol(), command.getOrderId()));
+                case AMEND -> {
+                    preTradeRisk.checkAmend(command.getSymbol(), command.getOrderId(), command.getPriceTicks(),
+                            command.getQuantity());
+                    publishIfFound(command, matchingEngine.amend(command.getSymbol(), command.getOrderId(),
+                            command.getPriceTicks(), command.getQuantity()));
+                }
+                case SNAPSHOT -> publishSnapshot();
+                case SKIP -> {
+                }
+                case RELEASE -> {
+                    SymbolHandoff handoff = command.getHandoff();
+                    handoff.getReleased().countDown();
+                    SymbolHandoff.await(handoff.getAcquired());
+                    releasing.remove(handoff.getSymbol());
+                }
+                case ACQUIRE -> {
+                    SymbolHandoff handoff = command.getHandoff();
+                    SymbolHandoff.await(handoff.getReleased());
+                    publishSnapshot();
+                    handoff.getAcquired().countDown();
+                }
+            }
+        } catch (RuntimeException e) {
+            if (result != null) {
+                result.completeExceptionally(e);
+            }
+        } finally {
+            command.clear();
+        }
+    }
+
+    private void publishIfFound(OrderCommand command, ExecutionReport report) {
+        if (report == null) {
+            command.getResult().completeExceptionally(new OrderNotFoundException(command.getOrderId()));
+            return;
+        }
+        publish(command, report, command.getPriceTicks() == null ? -1 : command.getPriceTicks(),
+                command.getQuantity() == null ? -1 : command.getQuantity());
+    }
+
+    private void publishSnapshot() {
+        List<OrderBook> books = orderBookService.getBooks().stream()
+                .filter(book -> ownsSymbol.test(book.getSymbol()) || releasing.contains(book.getSymbol()))
+                .toList();
+        ByteBuffer snapshot = SnapshotStore.encode(books, orderBookService);
+        long outSequence = outbound.next();
+        try {
+            EngineEvent event = outbound.get(outSequence);
+            event.setCommandType(CommandType.SNAPSHOT);
+            event.setOrder(null);
+            event.setTrades(List.of());
+            event.setRestingOrders(List.of());
+            event.setFailure(null);
+            event.setResult(null);
+            event.setShardId(id);
+            event.setSnapshot(snapshot);
+        } finally {
+            outbound.publish(outSequence);
+        }
+    }
+
+    private void publish(OrderCommand command, ExecutionReport report, long priceTicks, int quantity) {
+        preTradeRisk.onExecution(report);
+        long matched = System.nanoTime();
+        long outSequence = outbound.next();
+        try {
+            EngineEvent event = outbound.get(outSequence);
+            event.setCommandType(command.getType());
+            event.setCommandPriceTicks(priceTicks);
+            event.setCommandQuantity(quantity);
+            event.setOrder(report.getOrder());
+            event.setTrades(report.getTrades());
+            event.setRestingOrders(report.getRestingOrders());
+            event.setFailure(null);
+            event.setResult(command.getResult());
+            event.setShardId(id);
+            event.setMatchedNanos(matched);
+            event.setSnapshot(null);
+        } finally {
+            outbound.publish(outSequence);
+        }
+        stageLatency.record(Stage.QUEUE_WAIT, id, commandStarted - command.getSubmittedNanos());
+        stageLatency.record(Stage.MATCH, id, matched - commandStarted);
+    }
+}
@@ -0,0 +1,8 @@
+package com.fintech.service.code.engine;
+
+public class OrderNotFoundException extends RuntimeException {
+
+    public OrderNotFoundException(long orderId) {
+        super("No resting order with id " + orderId);
+    }
+}
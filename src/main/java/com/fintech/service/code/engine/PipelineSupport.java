@@ -0,0 +1,19 @@
+package com.fintech.service.code.engine;
+
+import com.fintech.service.code.engine.pipeline.EventProcessor;
+import com.fintech.service.code.engine.pipeline.RingBuffer;
+
+final class PipelineSupport {
+
+    private static final long DRAIN_TIMEOUT_NANOS = 5_000_000_000L;
+
+    private PipelineSupport() {
+    }
+
+    static void drain(RingBuffer<?> ringBuffer, EventProcessor<?> processor) throws InterruptedException {
+        long deadline = System.nanoTime() + DRAIN_TIMEOUT_NANOS;
+        while (processor.getSequence().get() < ringBuffer.getCursor() && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.fintech.service.code.engine;
+
+import com.fintech.service.code.config.EngineProperties;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+
+/**
+ * Converts between decimal prices, used on the REST and persistence edges, and the whole number of ticks
+ * the engine matches on. Tick sizes are configured per symbol under {@code engine.tick-sizes}.
+ */
+@Component
+public class PriceScale {
+
+    private final EngineProperties properties;
+
+    public PriceScale(EngineProperties properties) {
+        this.properties = properties;
+    }
+
+    public BigDecimal tickSize(String symbol) {
+        return properties.getTickSizes().getOrDefault(symbol, properties.getDefaultTickSize());
+    }
+
+    public long toTicks(String symbol, BigDecimal price) {
+        if (price == null || price.signum() <= 0) {
+            throw new IllegalArgumentException("Price must be positive");
+        }
+        BigDecimal tickSize = tickSize(symbol);
+        BigDecimal[] ticks = price.divideAndRemainder(tickSize);
+        if (ticks[1].signum() != 0) {
+            throw new IllegalArgumentException(
+                    "Price " + price + " is not a multiple of the " + symbol + " tick size " + tickSize);
+        }
+        return ticks[0].longValueExact();
+    }
+
+    public BigDecimal toPrice(String symbol, long ticks) {
+        return tickSize(symbol).multiply(BigDecimal.valueOf(ticks));
+    }
+}
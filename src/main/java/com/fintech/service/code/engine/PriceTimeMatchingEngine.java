@@ -1,100 +1,305 @@
 package com.fintech.service.code.engine;
 
+import com.fintech.service.code.engine.book.OrderBook;
+import com.fintech.service.code.engine.book.RestingOrder;
+import com.fintech.service.code.engine.book.StopBook;
+import com.fintech.service.code.engine.book.StopOrder;
 import com.fintech.service.code.metrics.TradeMetricsService;
 import com.fintech.service.code.model.Order;
+import com.fintech.service.code.model.OrderKind;
 import com.fintech.service.code.model.OrderType;
 import com.fintech.service.code.model.Trade;
-import com.fintech.service.code.repository.OrderRepository;
 import com.fintech.service.code.service.OrderBookService;
-import com.fintech.service.code.service.TradeService;
-import com.fintech.service.code.websocket.TradeWebSocketController;
-import lombok.RequiredArgsConstructor;
-import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import java.time.Instant;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
-import java.util.concurrent.PriorityBlockingQueue;
+import java.util.function.LongSupplier;
 
-@Slf4j
+/**
+ * Matches purely in memory. Not thread-safe per symbol: callers must route every order of a symbol through
+ * the same thread, which {@link MatchingPipeline} guarantees.
+ * <p>
+ * The primitive {@link #match(String, long, OrderType, OrderKind, long, int, long, FillBuffer)} path
+ * allocates nothing in steady state: the book recycles its storage, ids stay primitive, fills go into a
+ * reusable buffer and matches are logged through the sampled {@link MatchEventLog}. {@link #match(Order)}
+ * runs the same path on a per-thread buffer and only then materialises the trades and resting order states
+ * the downstream stages consume.
+ * <p>
+ * Order kinds are decided before the book is touched: market orders match at any price, a fill-or-kill
+ * order is killed unless {@link OrderBook#liquidity} finds enough crossing quantity, and a post-only order is
+ * rejected if it would cross. Only limit and post-only remainders rest; the rest of an IOC or market order
+ * is cancelled.
+ * <p>
+ * Stop and stop-limit orders wait in the symbol's {@link StopBook} until a trade reaches their stop price, or
+ * execute at once if the last trade already has. After every order's fills the stops they crossed are taken
+ * off the index and matched as market or limit orders in firing order within the same command, their own
+ * fills possibly triggering more; their trades and resulting states are reported with the command's.
+ */
 @Component
-@RequiredArgsConstructor
 public class PriceTimeMatchingEngine implements MatchingEngine {
 
     private final OrderBookService orderBookService;
-    private final TradeService tradeService;
     private final TradeMetricsService metricsService;
-    private final TradeWebSocketController webSocketController;
-    private final OrderRepository orderRepository;
+    private final IdGenerator idGenerator;
+    private final MatchEventLog eventLog;
+    private final LongSupplier clock;
+    private final ThreadLocal<FillBuffer> fillBuffers = ThreadLocal.withInitial(FillBuffer::new);
+    private final ThreadLocal<ArrayDeque<StopOrder>> triggeredStops = ThreadLocal.withInitial(ArrayDeque::new);
 
-    @Override
-    public List<Trade> match(Order incomingOrder) {
-        long start = System.currentTimeMillis();
-
-        List<Trade> trades = new ArrayList<>();
-        String symbol = incomingOrder.getSymbol();
-        OrderType incomingType = incomingOrder.getType();
-        PriorityBlockingQueue<Order> oppositeQueue = (incomingType == OrderType.BUY)
-                ? orderBookService.getSellOrders(symbol)
-                : orderBookService.getBuyOrders(symbol);
+    public PriceTimeMatchingEngine(OrderBookService orderBookService, TradeMetricsService metricsService,
+                                   IdGenerator idGenerator) {
+        this(orderBookService, metricsService, idGenerator, MatchEventLog.DISABLED);
+    }
 
-        synchronized (oppositeQueue) {
-            log.info("Incoming Order: {}", incomingOrder);
-            log.info("Order Type: {}", incomingOrder.getType());
-            log.info("Looking for Opposite Orders: {}", oppositeQueue.size());
-            oppositeQueue.forEach(order -> log.info(" → Opposite Order: {}", order));
+    @Autowired
+    public PriceTimeMatchingEngine(OrderBookService orderBookService, TradeMetricsService metricsService,
+                                   IdGenerator idGenerator, MatchEventLog eventLog) {
+        this(orderBookService, metricsService, idGenerator, eventLog, EpochClock::nanos);
+    }
 
-            while (incomingOrder.getQuantity() > 0 && !oppositeQueue.isEmpty()) {
-                Order topOrder = oppositeQueue.peek();
-                if (topOrder == null) break;
+    /**
+     * @param clock epoch nanoseconds stamped on fills and amend replacements; replays pass the recorded time
+     *              so runs produce identical trades
+     */
+    public PriceTimeMatchingEngine(OrderBookService orderBookService, TradeMetricsService metricsService,
+                                   IdGenerator idGenerator, MatchEventLog eventLog, LongSupplier clock) {
+        this.orderBookService = orderBookService;
+        this.metricsService = metricsService;
+        this.idGenerator = idGenerator;
+        this.eventLog = eventLog;
+        this.clock = clock;
+    }
 
-                boolean priceMatch = (incomingType == OrderType.BUY)
-                        ? incomingOrder.getPrice() >= topOrder.getPrice()
-                        : incomingOrder.getPrice() <= topOrder.getPrice();
+    @Override
+    public ExecutionReport match(Order incomingOrder) {
+        String symbol = incomingOrder.getSymbol();
+        OrderKind kind = incomingOrder.getKind() == null ? OrderKind.LIMIT : incomingOrder.getKind();
+        StopBook stops = orderBookService.getStops(symbol);
+        if (kind.isStop()) {
+            long stopPrice = incomingOrder.getStopPriceTicks();
+            if (stopPrice <= 0) {
+                throw new IllegalArgumentException("Stop price must be positive");
+            }
+            if (!stops.crossed(incomingOrder.getType(), stopPrice)) {
+                stops.add(new StopOrder(incomingOrder.getId(), incomingOrder.getType(), kind,
+                        incomingOrder.getPriceTicks(), stopPrice, incomingOrder.getQuantity(),
+                        EpochClock.toNanos(incomingOrder.getTimestamp())));
+                return new ExecutionReport(incomingOrder, List.of(), List.of());
+            }
+            kind = kind.triggered();
+            incomingOrder.setKind(kind);
+        }
 
-                if (!priceMatch) break;
+        List<Trade> trades = new ArrayList<>();
+        List<Order> restingOrders = new ArrayList<>();
+        ArrayDeque<StopOrder> triggered = triggeredStops.get();
+        triggered.clear();
+        execute(incomingOrder, kind, stops, triggered, trades, restingOrders);
+        while (!triggered.isEmpty()) {
+            StopOrder stop = triggered.poll();
+            Order order = Order.builder()
+                    .id(stop.getOrderId())
+                    .symbol(symbol)
+                    .type(stop.getSide())
+                    .kind(stop.getKind().triggered())
+                    .priceTicks(stop.getPrice())
+                    .stopPriceTicks(stop.getStopPrice())
+                    .quantity(stop.getQuantity())
+                    .timestamp(EpochClock.toInstant(clock.getAsLong()))
+                    .isActive(true)
+                    .build();
+            execute(order, order.getKind(), stops, triggered, trades, restingOrders);
+            restingOrders.add(order);
+        }
+        return new ExecutionReport(incomingOrder, trades, restingOrders);
+    }
 
-                int tradedQuantity = Math.min(incomingOrder.getQuantity(), topOrder.getQuantity());
+    /**
+     * Matches {@code order} as {@code kind}, appending its trades and the states of the resting orders they
+     * filled, and moves the stops those trades crossed to the back of {@code triggered}.
+     */
+    private void execute(Order order, OrderKind kind, StopBook stops, Collection<StopOrder> triggered,
+                         List<Trade> trades, List<Order> restingOrders) {
+        FillBuffer fills = fillBuffers.get();
+        String symbol = order.getSymbol();
+        OrderType side = order.getType();
+        match(symbol, order.getId(), side, kind, order.getPriceTicks(), order.getQuantity(),
+                EpochClock.toNanos(order.getTimestamp()), fills);
 
-                Trade trade = tradeService.recordTrade(
-                        symbol,
-                        topOrder.getPrice(),
-                        tradedQuantity,
-                        incomingType == OrderType.BUY ? incomingOrder.getId() : topOrder.getId(),
-                        incomingType == OrderType.SELL ? incomingOrder.getId() : topOrder.getId()
-                );
+        OrderType restingType = side == OrderType.BUY ? OrderType.SELL : OrderType.BUY;
+        Instant executed = EpochClock.toInstant(fills.getTimestampNanos());
+        long low = Long.MAX_VALUE;
+        long high = Long.MIN_VALUE;
+        for (int i = 0; i < fills.size(); i++) {
+            long restingId = fills.getRestingOrderId(i);
+            long price = fills.getPrice(i);
+            trades.add(Trade.builder()
+                    .id(fills.getTradeId(i))
+                    .symbol(symbol)
+                    .priceTicks(price)
+                    .quantity(fills.getQuantity(i))
+                    .buyOrderId(side == OrderType.BUY ? order.getId() : restingId)
+                    .sellOrderId(side == OrderType.SELL ? order.getId() : restingId)
+                    .timestamp(executed)
+                    .build());
+            restingOrders.add(Order.builder()
+                    .id(restingId)
+                    .symbol(symbol)
+                    .type(restingType)
+                    .kind(fills.getRestingKind(i))
+                    .priceTicks(price)
+                    .quantity(fills.getRestingRemaining(i))
+                    .timestamp(EpochClock.toInstant(fills.getRestingTimestamp(i)))
+                    .isActive(fills.getRestingRemaining(i) > 0)
+                    .build());
+            low = Math.min(low, price);
+            high = Math.max(high, price);
+        }
 
-                trades.add(trade);
+        order.setQuantity(fills.getRemaining());
+        order.setActive(fills.isRested());
+        if (fills.size() > 0) {
+            stops.trade(low, high, fills.getPrice(fills.size() - 1), triggered);
+        }
+    }
 
-                metricsService.incrementTradeCount();
+    @Override
+    public void match(String symbol, long orderId, OrderType side, OrderKind kind, long priceTicks, int quantity,
+                      long timestampNanos, FillBuffer fills) {
+        if (kind.isStop()) {
+            throw new IllegalArgumentException("Stop orders are held until triggered and only match as orders");
+        }
+        fills.clear(clock.getAsLong());
+        OrderBook book = orderBookService.getBook(symbol);
 
-                webSocketController.sendTradeUpdate(trade);
+        long limit = kind != OrderKind.MARKET ? priceTicks : side == OrderType.BUY ? Long.MAX_VALUE : Long.MIN_VALUE;
+        boolean accepted = switch (kind) {
+            case FOK -> book.liquidity(side, limit, quantity) >= quantity;
+            case POST_ONLY -> book.liquidity(side, limit, 1) == 0;
+            default -> true;
+        };
+        int remaining = quantity;
+        if (accepted && kind != OrderKind.POST_ONLY) {
+            remaining = book.match(side, limit, quantity, fills);
+        }
+        for (int i = 0; i < fills.size(); i++) {
+            fills.setTradeId(i, idGenerator.nextTradeId());
+        }
+        boolean rested = accepted && remaining > 0 && kind.rests();
+        if (rested) {
+            book.add(orderId, side, kind, priceTicks, remaining, timestampNanos);
+        }
+        fills.setRemaining(remaining, rested);
 
-                incomingOrder.setQuantity(incomingOrder.getQuantity() - tradedQuantity);
-                topOrder.setQuantity(topOrder.getQuantity() - tradedQuantity);
+        if (fills.size() > 0) {
+            metricsService.incrementTradeCount(fills.size());
+        }
+        eventLog.record(symbol, orderId, side, priceTicks, quantity, fills.size(), remaining);
+    }
 
-                if (topOrder.getQuantity() == 0) {
-                    oppositeQueue.poll();
-                    topOrder.setActive(false);
-                }
+    @Override
+    public ExecutionReport cancel(String symbol, long orderId) {
+        OrderBook book = orderBookService.getBook(symbol);
+        RestingOrder resting = book.get(orderId);
+        if (resting == null) {
+            StopOrder stop = orderBookService.getStops(symbol).remove(orderId);
+            return stop == null ? null : new ExecutionReport(toOrder(symbol, stop, false), List.of(), List.of());
+        }
+        Order cancelled = toOrder(symbol, resting, false);
+        book.remove(orderId);
+        return new ExecutionReport(cancelled, List.of(), List.of());
+    }
 
-                orderRepository.save(topOrder);
-                orderRepository.save(incomingOrder);
-            }
+    @Override
+    public ExecutionReport amend(String symbol, long orderId, Long priceTicks, Integer quantity) {
+        OrderBook book = orderBookService.getBook(symbol);
+        RestingOrder resting = book.get(orderId);
+        if (resting == null) {
+            return amendStop(symbol, orderId, priceTicks, quantity);
+        }
+        long newPrice = priceTicks != null ? priceTicks : resting.getPrice();
+        int newQuantity = quantity != null ? quantity : resting.getQuantity();
+        if (newQuantity <= 0) {
+            throw new IllegalArgumentException("Amended quantity must be positive");
         }
 
-        if (incomingOrder.getQuantity() > 0) {
-            orderBookService.addOrder(incomingOrder);
-        } else {
-            incomingOrder.setActive(false);
+        if (newPrice == resting.getPrice() && newQuantity <= resting.getQuantity()) {
+            book.reduce(orderId, resting.getQuantity() - newQuantity);
+            return new ExecutionReport(toOrder(symbol, book.get(orderId), true), List.of(), List.of());
         }
 
-        long duration = System.currentTimeMillis() - start;
-        metricsService.recordTradeLatency(duration);
+        // The replacement keeps the order's kind, except that a post-only order amended into a crossing price
+        // matches like any other aggressive limit instead of being rejected.
+        OrderType side = resting.getSide();
+        OrderKind kind = resting.getKind() == OrderKind.POST_ONLY && book.liquidity(side, newPrice, 1) > 0
+                ? OrderKind.LIMIT : resting.getKind();
+        book.remove(orderId);
+        Order replacement = Order.builder()
+                .id(orderId)
+                .symbol(symbol)
+                .type(side)
+                .kind(kind)
+                .priceTicks(newPrice)
+                .quantity(newQuantity)
+                .timestamp(EpochClock.toInstant(clock.getAsLong()))
+                .isActive(true)
+                .build();
+        return match(replacement);
+    }
 
-        return trades;
+    /**
+     * Changes the limit price and/or quantity of a waiting stop, which keeps its stop price and moves behind the
+     * other stops at it.
+     */
+    private ExecutionReport amendStop(String symbol, long orderId, Long priceTicks, Integer quantity) {
+        StopBook stops = orderBookService.getStops(symbol);
+        StopOrder stop = stops.get(orderId);
+        if (stop == null) {
+            return null;
+        }
+        if (priceTicks != null && stop.getKind() != OrderKind.STOP_LIMIT) {
+            throw new IllegalArgumentException("Stop order " + orderId + " has no limit price to amend");
+        }
+        int newQuantity = quantity != null ? quantity : stop.getQuantity();
+        if (newQuantity <= 0) {
+            throw new IllegalArgumentException("Amended quantity must be positive");
+        }
+        StopOrder amended = new StopOrder(orderId, stop.getSide(), stop.getKind(),
+                priceTicks != null ? priceTicks : stop.getPrice(), stop.getStopPrice(), newQuantity, clock.getAsLong());
+        stops.remove(orderId);
+        stops.add(amended);
+        return new ExecutionReport(toOrder(symbol, amended, true), List.of(), List.of());
     }
 
+    private static Order toOrder(String symbol, StopOrder stop, boolean active) {
+        return Order.builder()
+                .id(stop.getOrderId())
+                .symbol(symbol)
+                .type(stop.getSide())
+                .kind(stop.getKind())
+                .priceTicks(stop.getPrice())
+                .stopPriceTicks(stop.getStopPrice())
+                .quantity(stop.getQuantity())
+                .timestamp(EpochClock.toInstant(stop.getTimestampNanos()))
+                .isActive(active)
+                .build();
+    }
 
+    private static Order toOrder(String symbol, RestingOrder resting, boolean active) {
+        return Order.builder()
+                .id(resting.getOrderId())
+                .symbol(symbol)
+                .type(resting.getSide())
+                .kind(resting.getKind())
+                .priceTicks(resting.getPrice())
+                .quantity(resting.getQuantity())
+                .timestamp(resting.getTimestamp())
+                .isActive(active)
+                .build();
+    }
 }
-
@@ -0,0 +1,34 @@
+package com.fintech.service.code.engine;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Moves one symbol between two matching shards. The target blocks on an ACQUIRE command until the source has
+ * processed every command routed to it before the move, then snapshots its books, including the new symbol,
+ * before the source carries on. That keeps the symbol in some shard's snapshot file at all times.
+ */
+@Getter
+@RequiredArgsConstructor
+public class SymbolHandoff {
+    private final String symbol;
+    private final CountDownLatch released = new CountDownLatch(1);
+    private final CountDownLatch acquired = new CountDownLatch(1);
+
+    static void await(CountDownLatch latch) {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                latch.await();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,222 @@
+package com.fintech.service.code.engine.book;
+
+import com.fintech.service.code.model.OrderType;
+import lombok.Getter;
+
+import java.util.Arrays;
+
+/**
+ * One side of a book as an array of price levels sorted from worst to best, so the best level is always the
+ * last element: reading, filling and removing the top of book are O(1), and inserting a level near the top
+ * (the common case) only shifts a few references. Level prices are mirrored in a {@code long[]} so the
+ * binary search walks one contiguous array instead of chasing level references.
+ * <p>
+ * Levels that empty out are parked on a free list and reset for the next new price, so a book whose prices
+ * come and go stops allocating levels once it has seen its widest spread.
+ * <p>
+ * The best price and the quantity at it are published under a sequence number that is odd while they are
+ * being written, so readers on other threads retry instead of pairing a price with another level's quantity.
+ */
+public class BookSide {
+
+    public static final long NO_PRICE = Long.MIN_VALUE;
+
+    private static final int INITIAL_LEVELS = 64;
+
+    @Getter
+    private final OrderType side;
+    private PriceLevel[] levels = new PriceLevel[INITIAL_LEVELS];
+    private long[] prices = new long[INITIAL_LEVELS];
+    private int levelCount;
+    private PriceLevel[] freeLevels = new PriceLevel[INITIAL_LEVELS];
+    private int freeCount;
+    @Getter
+    private int orderCount;
+    private volatile long bestSequence;
+    private volatile long bestPrice = NO_PRICE;
+    private volatile long bestQuantity;
+
+    public BookSide(OrderType side) {
+        this.side = side;
+    }
+
+    public PriceLevel bestLevel() {
+        return levelCount == 0 ? null : levels[levelCount - 1];
+    }
+
+    /**
+     * Best price in ticks published for readers on other threads; {@link #NO_PRICE} when the side is empty.
+     */
+    public long getBestPrice() {
+        return bestPrice;
+    }
+
+    /**
+     * Total quantity at the best level, read together with the best price: 0 unless {@code price} is still
+     * the best price, so it never belongs to another level. Safe to read from any thread.
+     */
+    public long getBestQuantity(long price) {
+        while (true) {
+            long sequence = bestSequence;
+            if ((sequence & 1) == 0) {
+                long publishedPrice = bestPrice;
+                long quantity = bestQuantity;
+                if (bestSequence == sequence) {
+                    return publishedPrice == price ? quantity : 0;
+                }
+            }
+            Thread.onSpinWait();
+        }
+    }
+
+    public int getLevelCount() {
+        return levelCount;
+    }
+
+    /**
+     * Level at {@code depth} from the top of book, 0 being the best.
+     */
+    public PriceLevel levelAt(int depth) {
+        return levels[levelCount - 1 - depth];
+    }
+
+    public boolean crosses(long incomingPrice) {
+        PriceLevel best = bestLevel();
+        if (best == null) {
+            return false;
+        }
+        return side == OrderType.SELL ? incomingPrice >= best.getPrice() : incomingPrice <= best.getPrice();
+    }
+
+    /**
+     * Quantity an incoming order at {@code incomingPrice} could take from this side, counted level by level
+     * from the best and stopping as soon as {@code wanted} is reached.
+     */
+    public long liquidity(long incomingPrice, long wanted) {
+        long available = 0;
+        for (int index = levelCount - 1; index >= 0 && available < wanted; index--) {
+            long levelPrice = prices[index];
+            if (side == OrderType.SELL ? incomingPrice < levelPrice : incomingPrice > levelPrice) {
+                break;
+            }
+            available += levels[index].getTotalQuantity();
+        }
+        return available;
+    }
+
+    public void add(RestingOrder order) {
+        int index = search(order.getPrice());
+        PriceLevel level;
+        if (index >= 0) {
+            level = levels[index];
+        } else {
+            level = newLevel(order.getPrice());
+            insertLevel(-index - 1, level);
+        }
+        level.append(order);
+        orderCount++;
+        publishBest();
+    }
+
+    public void remove(RestingOrder order) {
+        PriceLevel level = order.level;
+        level.unlink(order);
+        orderCount--;
+        if (level.isEmpty()) {
+            removeLevel(level);
+        }
+        publishBest();
+    }
+
+    /**
+     * Fills {@code quantity} of a resting order, removing it from the book once fully filled.
+     */
+    public void fill(RestingOrder order, int quantity) {
+        order.level.reduce(order, quantity);
+        if (order.getQuantity() == 0) {
+            remove(order);
+        } else {
+            publishBest();
+        }
+    }
+
+    /**
+     * Reduces a resting order without touching its position in the level.
+     */
+    public void reduce(RestingOrder order, int quantity) {
+        order.level.reduce(order, quantity);
+        publishBest();
+    }
+
+    private void insertLevel(int index, PriceLevel level) {
+        if (levelCount == levels.length) {
+            levels = Arrays.copyOf(levels, levels.length * 2);
+            prices = Arrays.copyOf(prices, prices.length * 2);
+        }
+        System.arraycopy(levels, index, levels, index + 1, levelCount - index);
+        System.arraycopy(prices, index, prices, index + 1, levelCount - index);
+        levels[index] = level;
+        prices[index] = level.getPrice();
+        levelCount++;
+    }
+
+    private void removeLevel(PriceLevel level) {
+        int index = levelCount - 1;
+        if (levels[index] != level) {
+            index = search(level.getPrice());
+        }
+        System.arraycopy(levels, index + 1, levels, index, levelCount - index - 1);
+        System.arraycopy(prices, index + 1, prices, index, levelCount - index - 1);
+        levels[--levelCount] = null;
+        if (freeCount == freeLevels.length) {
+            freeLevels = Arrays.copyOf(freeLevels, freeLevels.length * 2);
+        }
+        freeLevels[freeCount++] = level;
+    }
+
+    private PriceLevel newLevel(long price) {
+        if (freeCount == 0) {
+            return new PriceLevel(price);
+        }
+        PriceLevel level = freeLevels[--freeCount];
+        freeLevels[freeCount] = null;
+        level.reset(price);
+        return level;
+    }
+
+    /**
+     * Binary search in worst-to-best order, same contract as {@link Arrays#binarySearch}.
+     */
+    private int search(long price) {
+        int low = 0;
+        int high = levelCount - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            long midPrice = prices[mid];
+            if (midPrice == price) {
+                return mid;
+            }
+            boolean midIsWorse = side == OrderType.BUY ? midPrice < price : midPrice > price;
+            if (midIsWorse) {
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return -(low + 1);
+    }
+
+    private void publishBest() {
+        PriceLevel best = bestLevel();
+        long sequence = bestSequence;
+        bestSequence = sequence + 1;
+        if (best == null) {
+            bestQuantity = 0;
+            bestPrice = NO_PRICE;
+        } else {
+            bestQuantity = best.getTotalQuantity();
+            bestPrice = best.getPrice();
+        }
+        bestSequence = sequence + 2;
+    }
+}
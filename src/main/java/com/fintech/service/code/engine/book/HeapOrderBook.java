@@ -0,0 +1,152 @@
+package com.fintech.service.code.engine.book;
+
+import com.fintech.service.code.model.OrderKind;
+import com.fintech.service.code.model.OrderType;
+import lombok.Getter;
+
+/**
+ * {@link OrderBook} keeping each resting order as a {@link RestingOrder} node in its price level's intrusive
+ * list. The default storage, and the fastest while the book fits comfortably in the heap.
+ * <p>
+ * Resting orders are indexed by id so cancels and amends unlink in O(1). Order ids are also registered in a
+ * shared locator so callers that only know the id can route the request to the owning thread.
+ * <p>
+ * Entries leaving the book go back to a free list that {@link #add(long, OrderType, OrderKind, long, int, long)} draws
+ * from, so once the book has reached its working size, resting and removing orders allocates nothing.
+ */
+@Getter
+public class HeapOrderBook implements OrderBook {
+    private final String symbol;
+    private final BookSide bids = new BookSide(OrderType.BUY);
+    private final BookSide asks = new BookSide(OrderType.SELL);
+    private final LongObjectMap<RestingOrder> orders = new LongObjectMap<>();
+    private final OrderLocator orderLocator;
+    private RestingOrder free;
+
+    public HeapOrderBook(String symbol) {
+        this(symbol, new OrderLocator());
+    }
+
+    public HeapOrderBook(String symbol, OrderLocator orderLocator) {
+        this.symbol = symbol;
+        this.orderLocator = orderLocator;
+    }
+
+    public BookSide side(OrderType type) {
+        return type == OrderType.BUY ? bids : asks;
+    }
+
+    public BookSide opposite(OrderType type) {
+        return type == OrderType.BUY ? asks : bids;
+    }
+
+    @Override
+    public long getBestPrice(OrderType side) {
+        return side(side).getBestPrice();
+    }
+
+    @Override
+    public int size() {
+        return orders.size();
+    }
+
+    @Override
+    public int match(OrderType incomingSide, long limitPrice, int quantity, FillSink fills) {
+        BookSide oppositeSide = opposite(incomingSide);
+        int remaining = quantity;
+        while (remaining > 0 && oppositeSide.crosses(limitPrice)) {
+            RestingOrder topOrder = oppositeSide.bestLevel().getHead();
+            int tradedQuantity = Math.min(remaining, topOrder.getQuantity());
+            long restingId = topOrder.getOrderId();
+            long restingPrice = topOrder.getPrice();
+            long restingTimestamp = topOrder.getTimestampNanos();
+
+            remaining -= tradedQuantity;
+            fill(topOrder, tradedQuantity);
+            fills.onFill(restingPrice, tradedQuantity, restingId, topOrder.getKind(), topOrder.getQuantity(),
+                    restingTimestamp);
+        }
+        return remaining;
+    }
+
+    @Override
+    public long liquidity(OrderType incomingSide, long limitPrice, long wanted) {
+        return opposite(incomingSide).liquidity(limitPrice, wanted);
+    }
+
+    @Override
+    public RestingOrder get(long orderId) {
+        return orders.get(orderId);
+    }
+
+    /**
+     * Rests an order using a recycled entry when one is available.
+     */
+    @Override
+    public void add(long orderId, OrderType side, OrderKind kind, long price, int quantity, long timestampNanos) {
+        RestingOrder order = free;
+        if (order == null) {
+            order = new RestingOrder();
+        } else {
+            free = order.next;
+            order.next = null;
+        }
+        order.init(orderId, side, kind, price, quantity, timestampNanos);
+        add(order);
+    }
+
+    public void add(RestingOrder order) {
+        side(order.getSide()).add(order);
+        orders.put(order.getOrderId(), order);
+        orderLocator.put(order.getOrderId(), symbol);
+    }
+
+    @Override
+    public boolean remove(long orderId) {
+        RestingOrder order = orders.get(orderId);
+        if (order == null) {
+            return false;
+        }
+        remove(order);
+        return true;
+    }
+
+    public void remove(RestingOrder order) {
+        side(order.getSide()).remove(order);
+        unregister(order);
+    }
+
+    /**
+     * Fills {@code quantity} of a resting order, removing it from the book once fully filled.
+     */
+    public void fill(RestingOrder order, int quantity) {
+        side(order.getSide()).fill(order, quantity);
+        if (order.getQuantity() == 0) {
+            unregister(order);
+        }
+    }
+
+    @Override
+    public void reduce(long orderId, int quantity) {
+        RestingOrder order = orders.get(orderId);
+        side(order.getSide()).reduce(order, quantity);
+    }
+
+    @Override
+    public void forEach(OrderType side, OrderVisitor visitor) {
+        BookSide bookSide = side(side);
+        for (int depth = 0; depth < bookSide.getLevelCount(); depth++) {
+            for (RestingOrder order = bookSide.levelAt(depth).getHead(); order != null; order = order.getNext()) {
+                visitor.visit(order.getOrderId(), order.getSide(), order.getKind(), order.getPrice(),
+                        order.getQuantity(), order.getTimestampNanos());
+            }
+        }
+    }
+
+    private void unregister(RestingOrder order) {
+        orders.remove(order.getOrderId());
+        orderLocator.remove(order.getOrderId());
+        order.next = free;
+        free = order;
+    }
+}
@@ -0,0 +1,114 @@
+package com.fintech.service.code.engine.book;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing map from {@code long} keys to non-negative {@code int} values, held in two primitive
+ * arrays. Same probing and deletion scheme as {@link LongObjectMap}; the garbage collector never scans the
+ * contents of either array, however many entries they hold. Not thread-safe.
+ */
+public class LongIntMap {
+
+    public static final int MISSING = -1;
+
+    private long[] keys;
+    private int[] values;
+    private int mask;
+    private int size;
+
+    public LongIntMap(int capacity) {
+        int tableSize = Integer.highestOneBit(Math.max(capacity, 2) * 2 - 1);
+        this.keys = new long[tableSize];
+        this.values = new int[tableSize];
+        Arrays.fill(values, MISSING);
+        this.mask = tableSize - 1;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return the value, or {@link #MISSING}
+     */
+    public int get(long key) {
+        for (int index = index(key); values[index] != MISSING; index = (index + 1) & mask) {
+            if (keys[index] == key) {
+                return values[index];
+            }
+        }
+        return MISSING;
+    }
+
+    public void put(long key, int value) {
+        int index = index(key);
+        for (; values[index] != MISSING; index = (index + 1) & mask) {
+            if (keys[index] == key) {
+                values[index] = value;
+                return;
+            }
+        }
+        keys[index] = key;
+        values[index] = value;
+        if (++size > (mask + 1) >> 1) {
+            resize();
+        }
+    }
+
+    /**
+     * @return the removed value, or {@link #MISSING}
+     */
+    public int remove(long key) {
+        for (int index = index(key); values[index] != MISSING; index = (index + 1) & mask) {
+            if (keys[index] == key) {
+                int previous = values[index];
+                shiftBack(index);
+                size--;
+                return previous;
+            }
+        }
+        return MISSING;
+    }
+
+    private void shiftBack(int gap) {
+        int index = gap;
+        while (true) {
+            index = (index + 1) & mask;
+            if (values[index] == MISSING) {
+                break;
+            }
+            int home = index(keys[index]);
+            boolean reachable = gap <= index ? gap < home && home <= index : gap < home || home <= index;
+            if (!reachable) {
+                keys[gap] = keys[index];
+                values[gap] = values[index];
+                gap = index;
+            }
+        }
+        values[gap] = MISSING;
+    }
+
+    private void resize() {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new long[oldKeys.length * 2];
+        values = new int[oldValues.length * 2];
+        Arrays.fill(values, MISSING);
+        mask = keys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldValues[i] != MISSING) {
+                int index = index(oldKeys[i]);
+                while (values[index] != MISSING) {
+                    index = (index + 1) & mask;
+                }
+                keys[index] = oldKeys[i];
+                values[index] = oldValues[i];
+            }
+        }
+    }
+
+    private int index(long key) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+}
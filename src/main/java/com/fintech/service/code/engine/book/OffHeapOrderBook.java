@@ -0,0 +1,281 @@
+package com.fintech.service.code.engine.book;
+
+import com.fintech.service.code.model.OrderKind;
+import com.fintech.service.code.model.OrderType;
+import lombok.Getter;
+
+import java.util.Arrays;
+
+/**
+ * {@link OrderBook} for very deep books that keeps resting orders out of the heap. Orders live in fixed-size
+ * {@link OrderSlots} of direct memory and each level queue is linked through slot indexes; the id index and
+ * the per-side level arrays are primitive arrays. The heap therefore holds a handful of arrays per book
+ * instead of an object per order, and tens of millions of resting orders add nothing for the collector to
+ * trace.
+ * <p>
+ * Level bookkeeping mirrors {@link BookSide}: levels sorted worst to best so the top of book is the last
+ * element, with the best price published through a volatile field. Entries returned by {@link #get} are
+ * detached copies.
+ */
+public class OffHeapOrderBook implements OrderBook {
+
+    private static final int INITIAL_LEVELS = 64;
+
+    @Getter
+    private final String symbol;
+    private final OrderLocator orderLocator;
+    private final OrderSlots slots = new OrderSlots();
+    private final LongIntMap index = new LongIntMap(1024);
+    private final SlotSide bids = new SlotSide(OrderType.BUY);
+    private final SlotSide asks = new SlotSide(OrderType.SELL);
+
+    public OffHeapOrderBook(String symbol) {
+        this(symbol, new OrderLocator());
+    }
+
+    public OffHeapOrderBook(String symbol, OrderLocator orderLocator) {
+        this.symbol = symbol;
+        this.orderLocator = orderLocator;
+    }
+
+    /**
+     * Direct memory reserved for order slots, in bytes.
+     */
+    public long getReservedBytes() {
+        return slots.reservedBytes();
+    }
+
+    @Override
+    public long getBestPrice(OrderType side) {
+        return side(side).bestPrice;
+    }
+
+    @Override
+    public int size() {
+        return index.size();
+    }
+
+    @Override
+    public int match(OrderType incomingSide, long limitPrice, int quantity, FillSink fills) {
+        SlotSide oppositeSide = incomingSide == OrderType.BUY ? asks : bids;
+        int remaining = quantity;
+        while (remaining > 0 && oppositeSide.crosses(limitPrice)) {
+            int level = oppositeSide.levelCount - 1;
+            int slot = oppositeSide.heads[level];
+            int restingQuantity = slots.quantity(slot);
+            int tradedQuantity = Math.min(remaining, restingQuantity);
+            long restingId = slots.orderId(slot);
+            long restingPrice = oppositeSide.prices[level];
+            long restingTimestamp = slots.timestamp(slot);
+            OrderKind restingKind = slots.kind(slot);
+
+            remaining -= tradedQuantity;
+            int left = restingQuantity - tradedQuantity;
+            if (left == 0) {
+                oppositeSide.unlink(slot, level);
+                release(slot, restingId);
+            } else {
+                slots.quantity(slot, left);
+                oppositeSide.totals[level] -= tradedQuantity;
+                oppositeSide.publishBest();
+            }
+            fills.onFill(restingPrice, tradedQuantity, restingId, restingKind, left, restingTimestamp);
+        }
+        return remaining;
+    }
+
+    @Override
+    public long liquidity(OrderType incomingSide, long limitPrice, long wanted) {
+        SlotSide oppositeSide = incomingSide == OrderType.BUY ? asks : bids;
+        long available = 0;
+        for (int level = oppositeSide.levelCount - 1; level >= 0 && available < wanted; level--) {
+            long levelPrice = oppositeSide.prices[level];
+            if (incomingSide == OrderType.BUY ? limitPrice < levelPrice : limitPrice > levelPrice) {
+                break;
+            }
+            available += oppositeSide.totals[level];
+        }
+        return available;
+    }
+
+    @Override
+    public void add(long orderId, OrderType side, OrderKind kind, long price, int quantity, long timestampNanos) {
+        int slot = slots.allocate();
+        slots.init(slot, orderId, side, kind, price, quantity, timestampNanos);
+        side(side).append(slot, price, quantity);
+        index.put(orderId, slot);
+        orderLocator.put(orderId, symbol);
+    }
+
+    @Override
+    public RestingOrder get(long orderId) {
+        int slot = index.get(orderId);
+        if (slot == LongIntMap.MISSING) {
+            return null;
+        }
+        RestingOrder order = new RestingOrder();
+        order.init(orderId, slots.side(slot), slots.kind(slot), slots.price(slot), slots.quantity(slot),
+                slots.timestamp(slot));
+        return order;
+    }
+
+    @Override
+    public boolean remove(long orderId) {
+        int slot = index.get(orderId);
+        if (slot == LongIntMap.MISSING) {
+            return false;
+        }
+        SlotSide side = side(slots.side(slot));
+        side.unlink(slot, side.search(slots.price(slot)));
+        release(slot, orderId);
+        return true;
+    }
+
+    @Override
+    public void reduce(long orderId, int quantity) {
+        int slot = index.get(orderId);
+        SlotSide side = side(slots.side(slot));
+        slots.quantity(slot, slots.quantity(slot) - quantity);
+        side.totals[side.search(slots.price(slot))] -= quantity;
+        side.publishBest();
+    }
+
+    @Override
+    public void forEach(OrderType side, OrderVisitor visitor) {
+        SlotSide slotSide = side(side);
+        for (int level = slotSide.levelCount - 1; level >= 0; level--) {
+            for (int slot = slotSide.heads[level]; slot != OrderSlots.NONE; slot = slots.next(slot)) {
+                visitor.visit(slots.orderId(slot), side, slots.kind(slot), slotSide.prices[level],
+                        slots.quantity(slot), slots.timestamp(slot));
+            }
+        }
+    }
+
+    private SlotSide side(OrderType type) {
+        return type == OrderType.BUY ? bids : asks;
+    }
+
+    private void release(int slot, long orderId) {
+        index.remove(orderId);
+        orderLocator.remove(orderId);
+        slots.free(slot);
+    }
+
+    /**
+     * Levels of one side as parallel arrays: price, first and last slot of the queue, and total quantity.
+     */
+    private final class SlotSide {
+        private final OrderType side;
+        private long[] prices = new long[INITIAL_LEVELS];
+        private int[] heads = new int[INITIAL_LEVELS];
+        private int[] tails = new int[INITIAL_LEVELS];
+        private long[] totals = new long[INITIAL_LEVELS];
+        private int levelCount;
+        private volatile long bestPrice = NO_PRICE;
+
+        private SlotSide(OrderType side) {
+            this.side = side;
+        }
+
+        boolean crosses(long incomingPrice) {
+            if (levelCount == 0) {
+                return false;
+            }
+            long best = prices[levelCount - 1];
+            return side == OrderType.SELL ? incomingPrice >= best : incomingPrice <= best;
+        }
+
+        void append(int slot, long price, int quantity) {
+            int level = search(price);
+            if (level < 0) {
+                level = -level - 1;
+                insertLevel(level, price);
+            }
+            int tail = tails[level];
+            slots.prev(slot, tail);
+            if (tail == OrderSlots.NONE) {
+                heads[level] = slot;
+            } else {
+                slots.next(tail, slot);
+            }
+            tails[level] = slot;
+            totals[level] += quantity;
+            publishBest();
+        }
+
+        void unlink(int slot, int level) {
+            int prev = slots.prev(slot);
+            int next = slots.next(slot);
+            if (prev == OrderSlots.NONE) {
+                heads[level] = next;
+            } else {
+                slots.next(prev, next);
+            }
+            if (next == OrderSlots.NONE) {
+                tails[level] = prev;
+            } else {
+                slots.prev(next, prev);
+            }
+            totals[level] -= slots.quantity(slot);
+            if (heads[level] == OrderSlots.NONE) {
+                removeLevel(level);
+            }
+            publishBest();
+        }
+
+        /**
+         * Binary search in worst-to-best order, same contract as {@link Arrays#binarySearch}.
+         */
+        int search(long price) {
+            int low = 0;
+            int high = levelCount - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                long midPrice = prices[mid];
+                if (midPrice == price) {
+                    return mid;
+                }
+                boolean midIsWorse = side == OrderType.BUY ? midPrice < price : midPrice > price;
+                if (midIsWorse) {
+                    low = mid + 1;
+                } else {
+                    high = mid - 1;
+                }
+            }
+            return -(low + 1);
+        }
+
+        void publishBest() {
+            bestPrice = levelCount == 0 ? NO_PRICE : prices[levelCount - 1];
+        }
+
+        private void insertLevel(int level, long price) {
+            if (levelCount == prices.length) {
+                int capacity = prices.length * 2;
+                prices = Arrays.copyOf(prices, capacity);
+                heads = Arrays.copyOf(heads, capacity);
+                tails = Arrays.copyOf(tails, capacity);
+                totals = Arrays.copyOf(totals, capacity);
+            }
+            int moved = levelCount - level;
+            System.arraycopy(prices, level, prices, level + 1, moved);
+            System.arraycopy(heads, level, heads, level + 1, moved);
+            System.arraycopy(tails, level, tails, level + 1, moved);
+            System.arraycopy(totals, level, totals, level + 1, moved);
+            prices[level] = price;
+            heads[level] = OrderSlots.NONE;
+            tails[level] = OrderSlots.NONE;
+            totals[level] = 0;
+            levelCount++;
+        }
+
+        private void removeLevel(int level) {
+            int moved = levelCount - level - 1;
+            System.arraycopy(prices, level + 1, prices, level, moved);
+            System.arraycopy(heads, level + 1, heads, level, moved);
+            System.arraycopy(tails, level + 1, tails, level, moved);
+            System.arraycopy(totals, level + 1, totals, level, moved);
+            levelCount--;
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.fintech.service.code.engine.book;
+
+import com.fintech.service.code.model.OrderKind;
+import com.fintech.service.code.model.OrderType;
+
+/**
+ * Price-time book of one symbol. Mutated only by the matching thread that owns the symbol; best prices are
+ * published for readers on other threads. Orders are addressed by id and exchanged as primitives, so an
+ * implementation is free to keep resting orders as objects ({@link HeapOrderBook}) or in fixed-size
+ * off-heap slots ({@link OffHeapOrderBook}).
+ */
+public interface OrderBook {
+
+    long NO_PRICE = BookSide.NO_PRICE;
+
+    String getSymbol();
+
+    /**
+     * Best price of a side in ticks; {@link #NO_PRICE} when the side is empty. Safe to read from any thread.
+     */
+    long getBestPrice(OrderType side);
+
+    /**
+     * Number of resting orders.
+     */
+    int size();
+
+    /**
+     * Fills an incoming order against the opposite side for as long as it crosses {@code limitPrice},
+     * reporting every fill to {@code fills} in execution order. Filled resting orders leave the book.
+     *
+     * @return the unfilled quantity, which the caller may rest with {@link #add}
+     */
+    int match(OrderType incomingSide, long limitPrice, int quantity, FillSink fills);
+
+    /**
+     * Quantity on the opposite side that an incoming order limited to {@code limitPrice} could take, summed
+     * over levels from the best and stopping once {@code wanted} is reached. O(levels), without touching
+     * individual orders.
+     */
+    long liquidity(OrderType incomingSide, long limitPrice, long wanted);
+
+    /**
+     * Rests an order at the back of its price level. The kind is kept with it so the states reported for the
+     * order later, on fills, amends and cancels, keep saying what it is.
+     */
+    void add(long orderId, OrderType side, OrderKind kind, long price, int quantity, long timestampNanos);
+
+    /**
+     * Current state of a resting order, or {@code null} if it is not in the book. The returned entry is only
+     * valid until the book is next mutated.
+     */
+    RestingOrder get(long orderId);
+
+    /**
+     * @return {@code false} if the order is not in the book
+     */
+    boolean remove(long orderId);
+
+    /**
+     * Reduces a resting order in place, keeping its time priority.
+     */
+    void reduce(long orderId, int quantity);
+
+    /**
+     * Visits the orders of one side best price first, in time priority within a level.
+     */
+    void forEach(OrderType side, OrderVisitor visitor);
+
+    @FunctionalInterface
+    interface FillSink {
+        void onFill(long price, int quantity, long restingOrderId, OrderKind restingKind, int restingRemaining,
+                    long restingTimestamp);
+    }
+
+    @FunctionalInterface
+    interface OrderVisitor {
+        void visit(long orderId, OrderType side, OrderKind kind, long price, int quantity, long timestampNanos);
+    }
+}
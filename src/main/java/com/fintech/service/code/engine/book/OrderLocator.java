@@ -0,0 +1,48 @@
+package com.fintech.service.code.engine.book;
+
+import java.util.Optional;
+
+/**
+ * Order id to symbol index shared by every book. Written by the matching threads and read by request threads
+ * routing cancels and amends, so it is split into independently locked stripes of primitive maps: ids are
+ * never boxed and a registration allocates nothing once the stripes have grown to the resting order count.
+ */
+public class OrderLocator {
+
+    private static final int STRIPES = 64;
+
+    private final LongObjectMap<String>[] stripes;
+
+    @SuppressWarnings("unchecked")
+    public OrderLocator() {
+        stripes = new LongObjectMap[STRIPES];
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new LongObjectMap<>(256);
+        }
+    }
+
+    public void put(long orderId, String symbol) {
+        LongObjectMap<String> stripe = stripe(orderId);
+        synchronized (stripe) {
+            stripe.put(orderId, symbol);
+        }
+    }
+
+    public void remove(long orderId) {
+        LongObjectMap<String> stripe = stripe(orderId);
+        synchronized (stripe) {
+            stripe.remove(orderId);
+        }
+    }
+
+    public Optional<String> find(long orderId) {
+        LongObjectMap<String> stripe = stripe(orderId);
+        synchronized (stripe) {
+            return Optional.ofNullable(stripe.get(orderId));
+        }
+    }
+
+    private LongObjectMap<String> stripe(long orderId) {
+        return stripes[(int) (orderId ^ (orderId >>> 32)) & (STRIPES - 1)];
+    }
+}
@@ -0,0 +1,134 @@
+package com.fintech.service.code.engine.book;
+
+import com.fintech.service.code.model.OrderKind;
+import com.fintech.service.code.model.OrderType;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+/**
+ * Resting orders of an {@link OffHeapOrderBook} in fixed-size slots of direct memory, addressed by slot
+ * index. A slot holds the order fields and the prev/next slot indexes of its level queue, so a resting order
+ * costs {@value #SLOT_BYTES} bytes outside the heap and no object. Memory is reserved in chunks of
+ * {@value #CHUNK_SLOTS} slots as the book grows; freed slots are chained through their next field and reused
+ * first.
+ */
+final class OrderSlots {
+
+    static final int NONE = -1;
+
+    static final int SLOT_BYTES = 40;
+    private static final int ORDER_ID = 0;
+    private static final int PRICE = 8;
+    private static final int TIMESTAMP = 16;
+    private static final int QUANTITY = 24;
+    private static final int PREV = 28;
+    private static final int NEXT = 32;
+    private static final int SIDE = 36;
+    private static final int KIND = 37;
+
+    private static final int CHUNK_SHIFT = 12;
+    static final int CHUNK_SLOTS = 1 << CHUNK_SHIFT;
+    private static final int CHUNK_MASK = CHUNK_SLOTS - 1;
+
+    private static final OrderType[] SIDES = OrderType.values();
+    private static final OrderKind[] KINDS = OrderKind.values();
+
+    private ByteBuffer[] chunks = new ByteBuffer[16];
+    private int chunkCount;
+    private int highWater;
+    private int freeHead = NONE;
+
+    int allocate() {
+        if (freeHead != NONE) {
+            int slot = freeHead;
+            freeHead = next(slot);
+            return slot;
+        }
+        if (highWater == chunkCount << CHUNK_SHIFT) {
+            if (chunkCount == chunks.length) {
+                chunks = Arrays.copyOf(chunks, chunks.length * 2);
+            }
+            chunks[chunkCount++] = ByteBuffer.allocateDirect(CHUNK_SLOTS * SLOT_BYTES).order(ByteOrder.nativeOrder());
+        }
+        return highWater++;
+    }
+
+    void free(int slot) {
+        next(slot, freeHead);
+        freeHead = slot;
+    }
+
+    /**
+     * Direct memory reserved so far, in bytes.
+     */
+    long reservedBytes() {
+        return (long) chunkCount * CHUNK_SLOTS * SLOT_BYTES;
+    }
+
+    void init(int slot, long orderId, OrderType side, OrderKind kind, long price, int quantity, long timestampNanos) {
+        ByteBuffer chunk = chunk(slot);
+        int offset = offset(slot);
+        chunk.putLong(offset + ORDER_ID, orderId);
+        chunk.putLong(offset + PRICE, price);
+        chunk.putLong(offset + TIMESTAMP, timestampNanos);
+        chunk.putInt(offset + QUANTITY, quantity);
+        chunk.putInt(offset + PREV, NONE);
+        chunk.putInt(offset + NEXT, NONE);
+        chunk.put(offset + SIDE, (byte) side.ordinal());
+        chunk.put(offset + KIND, (byte) kind.ordinal());
+    }
+
+    long orderId(int slot) {
+        return chunk(slot).getLong(offset(slot) + ORDER_ID);
+    }
+
+    long price(int slot) {
+        return chunk(slot).getLong(offset(slot) + PRICE);
+    }
+
+    long timestamp(int slot) {
+        return chunk(slot).getLong(offset(slot) + TIMESTAMP);
+    }
+
+    int quantity(int slot) {
+        return chunk(slot).getInt(offset(slot) + QUANTITY);
+    }
+
+    void quantity(int slot, int quantity) {
+        chunk(slot).putInt(offset(slot) + QUANTITY, quantity);
+    }
+
+    OrderType side(int slot) {
+        return SIDES[chunk(slot).get(offset(slot) + SIDE)];
+    }
+
+    OrderKind kind(int slot) {
+        return KINDS[chunk(slot).get(offset(slot) + KIND)];
+    }
+
+    int prev(int slot) {
+        return chunk(slot).getInt(offset(slot) + PREV);
+    }
+
+    void prev(int slot, int prev) {
+        chunk(slot).putInt(offset(slot) + PREV, prev);
+    }
+
+    int next(int slot) {
+        return chunk(slot).getInt(offset(slot) + NEXT);
+    }
+
+    void next(int slot, int next) {
+        chunk(slot).putInt(offset(slot) + NEXT, next);
+    }
+
+    private ByteBuffer chunk(int slot) {
+        return chunks[slot >>> CHUNK_SHIFT];
+    }
+
+    private static int offset(int slot) {
+        return (slot & CHUNK_MASK) * SLOT_BYTES;
+    }
+}
@@ -0,0 +1,70 @@
+package com.fintech.service.code.engine.book;
+
+import lombok.Getter;
+
+/**
+ * All orders resting at one price, in time priority. Orders are linked through their own prev/next fields so
+ * appending, unlinking and popping the head never allocate. Emptied levels are kept by their
+ * {@link BookSide} and reused for the next new price.
+ */
+@Getter
+public class PriceLevel {
+    private long price;
+    private long totalQuantity;
+    private int orderCount;
+    private RestingOrder head;
+    private RestingOrder tail;
+
+    PriceLevel(long price) {
+        this.price = price;
+    }
+
+    void reset(long price) {
+        this.price = price;
+        this.totalQuantity = 0;
+        this.orderCount = 0;
+        this.head = null;
+        this.tail = null;
+    }
+
+    public boolean isEmpty() {
+        return head == null;
+    }
+
+    void append(RestingOrder order) {
+        order.level = this;
+        order.prev = tail;
+        order.next = null;
+        if (tail == null) {
+            head = order;
+        } else {
+            tail.next = order;
+        }
+        tail = order;
+        totalQuantity += order.getQuantity();
+        orderCount++;
+    }
+
+    void unlink(RestingOrder order) {
+        if (order.prev == null) {
+            head = order.next;
+        } else {
+            order.prev.next = order.next;
+        }
+        if (order.next == null) {
+            tail = order.prev;
+        } else {
+            order.next.prev = order.prev;
+        }
+        totalQuantity -= order.getQuantity();
+        orderCount--;
+        order.prev = null;
+        order.next = null;
+        order.level = null;
+    }
+
+    void reduce(RestingOrder order, int quantity) {
+        order.quantity -= quantity;
+        totalQuantity -= quantity;
+    }
+}
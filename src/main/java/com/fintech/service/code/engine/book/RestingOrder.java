@@ -0,0 +1,50 @@
+package com.fintech.service.code.engine.book;
+
+import com.fintech.service.code.model.OrderKind;
+import com.fintech.service.code.model.OrderType;
+import lombok.Getter;
+
+import java.time.Instant;
+
+/**
+ * Book entry for an order resting at a price level. Doubles as the node of the level's intrusive FIFO list.
+ * <p>
+ * Entries are recycled by their {@link HeapOrderBook} once the order leaves the book, so nothing may hold on
+ * to one after removing or fully filling it beyond reading its fields before the next order is added. The
+ * timestamp is kept as epoch nanoseconds for the same reason. {@link OffHeapOrderBook} hands out detached
+ * copies instead.
+ */
+@Getter
+public class RestingOrder {
+    private long orderId;
+    private OrderType side;
+    private OrderKind kind;
+    private long price;
+    private long timestampNanos;
+    int quantity;
+
+    RestingOrder prev;
+    RestingOrder next;
+    PriceLevel level;
+
+    RestingOrder() {
+    }
+
+    public RestingOrder(long orderId, OrderType side, OrderKind kind, long price, int quantity, Instant timestamp) {
+        init(orderId, side, kind, price, quantity,
+                timestamp.getEpochSecond() * 1_000_000_000L + timestamp.getNano());
+    }
+
+    public Instant getTimestamp() {
+        return Instant.ofEpochSecond(0, timestampNanos);
+    }
+
+    void init(long orderId, OrderType side, OrderKind kind, long price, int quantity, long timestampNanos) {
+        this.orderId = orderId;
+        this.side = side;
+        this.kind = kind;
+        this.price = price;
+        this.quantity = quantity;
+        this.timestampNanos = timestampNanos;
+    }
+}
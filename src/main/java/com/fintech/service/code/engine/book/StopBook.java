@@ -0,0 +1,184 @@
+package com.fintech.service.code.engine.book;
+
+import com.fintech.service.code.model.OrderType;
+import lombok.Getter;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.function.Consumer;
+
+/**
+ * Trigger index of one symbol: the stop and stop-limit orders waiting for a trade at their stop price, next to
+ * the symbol's {@link OrderBook} and owned by the same matching thread.
+ * <p>
+ * Each side keeps its stop prices in a sorted array with the next stop to fire last, like {@link BookSide}: buy
+ * stops fire from the lowest price up, sell stops from the highest down. A trade range therefore fires exactly
+ * the stops it crossed by popping levels off the end, O(k) for k stops after the O(log n) insert that filed
+ * them, without looking at any stop that stays. Stops at the same price fire in arrival order.
+ * <p>
+ * Order ids are registered in the shared locator, so cancels reach a waiting stop the same way as a resting
+ * order.
+ */
+public class StopBook {
+
+    private static final int INITIAL_LEVELS = 16;
+
+    @Getter
+    private final String symbol;
+    private final Side buys = new Side();
+    private final Side sells = new Side();
+    private final LongObjectMap<StopOrder> orders = new LongObjectMap<>();
+    private final OrderLocator orderLocator;
+    /**
+     * Price of the symbol's latest trade, {@link OrderBook#NO_PRICE} before the first.
+     */
+    @Getter
+    private long lastPrice = OrderBook.NO_PRICE;
+
+    public StopBook(String symbol) {
+        this(symbol, new OrderLocator());
+    }
+
+    public StopBook(String symbol, OrderLocator orderLocator) {
+        this.symbol = symbol;
+        this.orderLocator = orderLocator;
+    }
+
+    public int size() {
+        return orders.size();
+    }
+
+    public StopOrder get(long orderId) {
+        return orders.get(orderId);
+    }
+
+    /**
+     * Whether the last trade has already reached {@code stopPrice}, so a new stop on {@code side} would fire
+     * straight away.
+     */
+    public boolean crossed(OrderType side, long stopPrice) {
+        if (lastPrice == OrderBook.NO_PRICE) {
+            return false;
+        }
+        return side == OrderType.BUY ? lastPrice >= stopPrice : lastPrice <= stopPrice;
+    }
+
+    public void add(StopOrder stop) {
+        if (orders.put(stop.getOrderId(), stop) != null) {
+            throw new IllegalArgumentException("Order " + stop.getOrderId() + " is already waiting in " + symbol);
+        }
+        side(stop.getSide()).add(key(stop.getSide(), stop.getStopPrice()), stop);
+        orderLocator.put(stop.getOrderId(), symbol);
+    }
+
+    /**
+     * @return the removed stop, or {@code null} if it is not waiting here
+     */
+    public StopOrder remove(long orderId) {
+        StopOrder stop = orders.remove(orderId);
+        if (stop != null) {
+            side(stop.getSide()).remove(key(stop.getSide(), stop.getStopPrice()), stop);
+            orderLocator.remove(orderId);
+        }
+        return stop;
+    }
+
+    /**
+     * Records trades between {@code low} and {@code high}, the last at {@code last}, and moves every stop they
+     * crossed into {@code triggered}: buy stops at or below {@code high} from the lowest, then sell stops at or
+     * above {@code low} from the highest.
+     */
+    public void trade(long low, long high, long last, Collection<StopOrder> triggered) {
+        lastPrice = last;
+        if (orders.isEmpty()) {
+            return;
+        }
+        Consumer<StopOrder> fire = stop -> {
+            orders.remove(stop.getOrderId());
+            orderLocator.remove(stop.getOrderId());
+            triggered.add(stop);
+        };
+        buys.fire(-high, fire);
+        sells.fire(low, fire);
+    }
+
+    /**
+     * Sets the last trade price while the book is being restored.
+     */
+    public void restoreLastPrice(long lastPrice) {
+        this.lastPrice = lastPrice;
+    }
+
+    /**
+     * Visits waiting stops per side in firing order, so adding them back in the same order rebuilds the same
+     * queues.
+     */
+    public void forEach(Consumer<StopOrder> visitor) {
+        buys.forEach(visitor);
+        sells.forEach(visitor);
+    }
+
+    private Side side(OrderType type) {
+        return type == OrderType.BUY ? buys : sells;
+    }
+
+    /**
+     * Sort key under which the next stop to fire is the largest: buy stops are keyed by their negated price.
+     */
+    private static long key(OrderType side, long stopPrice) {
+        return side == OrderType.BUY ? -stopPrice : stopPrice;
+    }
+
+    private static final class Side {
+        private long[] keys = new long[INITIAL_LEVELS];
+        @SuppressWarnings("unchecked")
+        private ArrayDeque<StopOrder>[] levels = new ArrayDeque[INITIAL_LEVELS];
+        private int levelCount;
+
+        void add(long key, StopOrder stop) {
+            int index = Arrays.binarySearch(keys, 0, levelCount, key);
+            if (index < 0) {
+                index = -index - 1;
+                if (levelCount == keys.length) {
+                    keys = Arrays.copyOf(keys, keys.length * 2);
+                    levels = Arrays.copyOf(levels, levels.length * 2);
+                }
+                System.arraycopy(keys, index, keys, index + 1, levelCount - index);
+                System.arraycopy(levels, index, levels, index + 1, levelCount - index);
+                keys[index] = key;
+                levels[index] = new ArrayDeque<>();
+                levelCount++;
+            }
+            levels[index].addLast(stop);
+        }
+
+        void remove(long key, StopOrder stop) {
+            int index = Arrays.binarySearch(keys, 0, levelCount, key);
+            ArrayDeque<StopOrder> level = levels[index];
+            level.remove(stop);
+            if (level.isEmpty()) {
+                System.arraycopy(keys, index + 1, keys, index, levelCount - index - 1);
+                System.arraycopy(levels, index + 1, levels, index, levelCount - index - 1);
+                levels[--levelCount] = null;
+            }
+        }
+
+        /**
+         * Pops every level keyed at or above {@code threshold}, next to fire first.
+         */
+        void fire(long threshold, Consumer<StopOrder> fire) {
+            while (levelCount > 0 && keys[levelCount - 1] >= threshold) {
+                ArrayDeque<StopOrder> level = levels[--levelCount];
+                levels[levelCount] = null;
+                level.forEach(fire);
+            }
+        }
+
+        void forEach(Consumer<StopOrder> visitor) {
+            for (int index = levelCount - 1; index >= 0; index--) {
+                levels[index].forEach(visitor);
+            }
+        }
+    }
+}
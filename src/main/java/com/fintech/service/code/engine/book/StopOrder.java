@@ -0,0 +1,25 @@
+package com.fintech.service.code.engine.book;
+
+import com.fintech.service.code.model.OrderKind;
+import com.fintech.service.code.model.OrderType;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Stop or stop-limit order waiting in a {@link StopBook}. Detached from the order the engine acknowledged,
+ * so the downstream stages can keep reading that one while this entry is triggered.
+ */
+@Getter
+@RequiredArgsConstructor
+public class StopOrder {
+    private final long orderId;
+    private final OrderType side;
+    private final OrderKind kind;
+    /**
+     * Limit price a stop-limit order enters at; unused for a stop order.
+     */
+    private final long price;
+    private final long stopPrice;
+    private final int quantity;
+    private final long timestampNanos;
+}
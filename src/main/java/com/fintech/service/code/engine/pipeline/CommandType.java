@@ -0,0 +1,14 @@
+package com.fintech.service.code.engine.pipeline;
+
+public enum CommandType {
+    NEW,
+    CANCEL,
+    AMEND,
+    SNAPSHOT,
+    /**
+     * Claimed by a producer that lost a race with a symbol moving to another shard; resubmitted there.
+     */
+    SKIP,
+    RELEASE,
+    ACQUIRE
+}
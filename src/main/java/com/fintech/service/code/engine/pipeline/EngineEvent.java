@@ -0,0 +1,46 @@
+package com.fintech.service.code.engine.pipeline;
+
+import com.fintech.service.code.engine.ExecutionReport;
+import com.fintech.service.code.model.Order;
+import com.fintech.service.code.model.Trade;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Outcome of one command, carried from the matching thread to the journal, persistence and publication
+ * stages. The orders are snapshots of state after the command and are not shared with the book.
+ * <p>
+ * A book snapshot travels through the same ring as a separate event so it lands at an exact journal position.
+ */
+@Getter
+@Setter
+public class EngineEvent {
+    /**
+     * {@link #getJournalPosition()} of an event the journal stage failed to write.
+     */
+    public static final long UNJOURNALED = -1;
+
+    private CommandType commandType;
+    private long commandPriceTicks;
+    private int commandQuantity;
+    private Order order;
+    private List<Trade> trades;
+    private List<Order> restingOrders;
+    private Throwable failure;
+    private CompletableFuture<ExecutionReport> result;
+    private long journalPosition;
+    private int shardId;
+    /**
+     * {@link System#nanoTime()} when the shard handed the event to the output ring.
+     */
+    private long matchedNanos;
+    private ByteBuffer snapshot;
+
+    public boolean isSnapshot() {
+        return snapshot != null;
+    }
+}
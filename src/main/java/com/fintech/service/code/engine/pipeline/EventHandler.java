@@ -0,0 +1,11 @@
+package com.fintech.service.code.engine.pipeline;
+
+public interface EventHandler<E> {
+    void onEvent(E event, long sequence, boolean endOfBatch);
+
+    /**
+     * Called by the processor thread while it waits for new events.
+     */
+    default void onIdle() {
+    }
+}
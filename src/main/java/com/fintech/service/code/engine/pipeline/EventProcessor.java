@@ -0,0 +1,101 @@
+package com.fintech.service.code.engine.pipeline;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Single consumer thread body for a {@link RingBuffer}. Processes entries in batches, optionally behind the
+ * sequences of upstream processors so stages of a pipeline see each entry in order.
+ * <p>
+ * Time spent handling batches and the number of entries handled are accumulated for utilisation metrics.
+ * Both are written only by the processor thread.
+ */
+@Slf4j
+public final class EventProcessor<E> implements Runnable {
+
+    private static final int SPIN_TRIES = 100;
+    private static final int YIELD_TRIES = 200;
+    private static final long PARK_NANOS = 50_000L;
+
+    private final RingBuffer<E> ringBuffer;
+    private final EventHandler<E> handler;
+    private final AtomicLong[] dependencies;
+    private final AtomicLong sequence = new AtomicLong(-1);
+    private volatile boolean running = true;
+    private volatile long busyNanos;
+    private volatile long processed;
+
+    public EventProcessor(RingBuffer<E> ringBuffer, EventHandler<E> handler, AtomicLong... dependencies) {
+        this.ringBuffer = ringBuffer;
+        this.handler = handler;
+        this.dependencies = dependencies;
+    }
+
+    public AtomicLong getSequence() {
+        return sequence;
+    }
+
+    public long getBusyNanos() {
+        return busyNanos;
+    }
+
+    public long getProcessed() {
+        return processed;
+    }
+
+    public void halt() {
+        running = false;
+    }
+
+    @Override
+    public void run() {
+        long nextSequence = sequence.get() + 1;
+        int idleCount = 0;
+        while (running) {
+            long availableSequence = availableSequence(nextSequence);
+            if (availableSequence < nextSequence) {
+                handler.onIdle();
+                idleCount = idle(idleCount);
+                continue;
+            }
+            idleCount = 0;
+            long batchStart = System.nanoTime();
+            for (long current = nextSequence; current <= availableSequence; current++) {
+                try {
+                    handler.onEvent(ringBuffer.get(current), current, current == availableSequence);
+                } catch (RuntimeException e) {
+                    log.error("Unhandled exception processing sequence {}", current, e);
+                }
+            }
+            sequence.set(availableSequence);
+            busyNanos += System.nanoTime() - batchStart;
+            processed += availableSequence - nextSequence + 1;
+            nextSequence = availableSequence + 1;
+        }
+    }
+
+    private long availableSequence(long nextSequence) {
+        if (dependencies.length == 0) {
+            return ringBuffer.getHighestPublishedSequence(nextSequence, ringBuffer.getCursor());
+        }
+        long minimum = Long.MAX_VALUE;
+        for (AtomicLong dependency : dependencies) {
+            minimum = Math.min(minimum, dependency.get());
+        }
+        return minimum;
+    }
+
+    private static int idle(int idleCount) {
+        if (idleCount < SPIN_TRIES) {
+            Thread.onSpinWait();
+        } else if (idleCount < YIELD_TRIES) {
+            Thread.yield();
+        } else {
+            LockSupport.parkNanos(PARK_NANOS);
+            return idleCount;
+        }
+        return idleCount + 1;
+    }
+}
@@ -0,0 +1,14 @@
+package com.fintech.service.code.engine.pipeline;
+
+import com.fintech.service.code.model.Order;
+import com.fintech.service.code.model.Trade;
+
+import java.util.List;
+
+/**
+ * Notified on the publication thread of every journaled command outcome.
+ */
+public interface ExecutionListener {
+
+    void onExecution(Order order, List<Trade> trades, List<Order> restingOrders);
+}
@@ -0,0 +1,129 @@
+package com.fintech.service.code.engine.pipeline;
+
+import com.fintech.service.code.config.EngineProperties;
+import com.fintech.service.code.engine.ExecutionReport;
+import com.fintech.service.code.journal.EventJournal;
+import com.fintech.service.code.journal.SnapshotStore;
+import com.fintech.service.code.metrics.StageLatencyMetrics;
+import com.fintech.service.code.metrics.StageLatencyMetrics.Stage;
+import com.fintech.service.code.model.Order;
+import com.fintech.service.code.model.Trade;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * First stage behind the matching shards. Appends each command and its outcome to the journal and, once a
+ * batch has been forced to disk, acknowledges the commands in it and hands book snapshots to the store.
+ * Market, IOC and fill-or-kill orders get no order record, so recovery never puts them back in the book.
+ * Waiting stop orders get a stop record instead; once triggered, their states are journaled with the resting
+ * orders.
+ * <p>
+ * A journal failure is fatal: the shards have already applied the command to their books, so the journal and
+ * the books have diverged. The failed event and every event after it are marked {@link EngineEvent#UNJOURNALED}
+ * and failed, so persistence never checkpoints past them, and the failure listeners are told so the shards
+ * stop taking commands until a restart recovers from the journal.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class JournalHandler implements EventHandler<EngineEvent> {
+
+    private final EventJournal journal;
+    private final SnapshotStore snapshotStore;
+    private final PersistenceHandler persistenceHandler;
+    private final EngineProperties properties;
+    private final StageLatencyMetrics stageLatency;
+    private final List<EngineEvent> pending = new ArrayList<>();
+    private final List<Runnable> failureListeners = new CopyOnWriteArrayList<>();
+    private RuntimeException journalFailure;
+
+    /**
+     * Runs {@code listener} on the journal thread once, when the first journal write fails.
+     */
+    public void addFailureListener(Runnable listener) {
+        failureListeners.add(listener);
+    }
+
+    @Override
+    public void onEvent(EngineEvent event, long sequence, boolean endOfBatch) {
+        if (journalFailure != null) {
+            fail(event, new IllegalStateException("Journal failed earlier", journalFailure));
+            return;
+        }
+        try {
+            if (!event.isSnapshot()) {
+                journal.appendCommand(event.getCommandType(), event.getOrder(), event.getCommandPriceTicks(),
+                        event.getCommandQuantity());
+                if (event.getOrder().getKind().isStop()) {
+                    journal.appendStop(event.getOrder());
+                } else if (event.getOrder().getKind().rests()) {
+                    journal.appendOrder(event.getOrder());
+                }
+                for (Order resting : event.getRestingOrders()) {
+                    journal.appendOrder(resting);
+                }
+                for (Trade trade : event.getTrades()) {
+                    journal.appendTrade(trade);
+                }
+            }
+            event.setJournalPosition(journal.position());
+            pending.add(event);
+        } catch (RuntimeException e) {
+            fail(event, e);
+            pending.forEach(journaled -> fail(journaled, e));
+            pending.clear();
+            halt(e);
+            return;
+        }
+
+        if (endOfBatch) {
+            try {
+                journal.flush();
+                long flushed = System.nanoTime();
+                for (EngineEvent journaled : pending) {
+                    if (journaled.isSnapshot()) {
+                        snapshotStore.store(journaled.getShardId(), journaled.getJournalPosition(),
+                                journaled.getSnapshot());
+                    } else if (journaled.getResult() != null) {
+                        journaled.getResult().complete(new ExecutionReport(
+                                journaled.getOrder(), journaled.getTrades(), journaled.getRestingOrders()));
+                        stageLatency.record(Stage.JOURNAL, journaled.getShardId(),
+                                flushed - journaled.getMatchedNanos());
+                    }
+                }
+                journal.release(Math.min(persistenceHandler.getPersistedPosition().get(),
+                        snapshotStore.floor(properties.getShards())));
+            } catch (RuntimeException e) {
+                pending.forEach(journaled -> fail(journaled, e));
+                halt(e);
+            }
+            pending.clear();
+        }
+    }
+
+    private void halt(RuntimeException e) {
+        if (journalFailure == null) {
+            journalFailure = e;
+            log.error("Journal failed, fencing the matching shards until restart", e);
+            failureListeners.forEach(Runnable::run);
+        }
+    }
+
+    private static void fail(EngineEvent event, RuntimeException e) {
+        if (event.isSnapshot()) {
+            log.error("Failed to journal book snapshot of shard {}", event.getShardId(), e);
+        } else {
+            log.error("Failed to journal state of order {}", event.getOrder().getId(), e);
+        }
+        event.setFailure(e);
+        event.setJournalPosition(EngineEvent.UNJOURNALED);
+        if (event.getResult() != null) {
+            event.getResult().completeExceptionally(e);
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.fintech.service.code.engine.pipeline;
+
+import com.fintech.service.code.engine.ExecutionReport;
+import com.fintech.service.code.engine.SymbolHandoff;
+import com.fintech.service.code.model.Order;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.concurrent.CompletableFuture;
+
+@Getter
+@Setter
+public class OrderCommand {
+    private CommandType type;
+    private Order order;
+    private String symbol;
+    private long orderId;
+    private Long priceTicks;
+    private Integer quantity;
+    private CompletableFuture<ExecutionReport> result;
+    private SymbolHandoff handoff;
+    private long submittedNanos;
+
+    public void clear() {
+        order = null;
+        symbol = null;
+        priceTicks = null;
+        quantity = null;
+        result = null;
+        handoff = null;
+    }
+}
@@ -0,0 +1,142 @@
+package com.fintech.service.code.engine.pipeline;
+
+import com.fintech.service.code.config.EngineProperties;
+import com.fintech.service.code.journal.PersistedCheckpoint;
+import com.fintech.service.code.metrics.StageLatencyMetrics;
+import com.fintech.service.code.metrics.StageLatencyMetrics.Stage;
+import com.fintech.service.code.model.Order;
+import com.fintech.service.code.model.Trade;
+import com.fintech.service.code.repository.EngineStateRepository;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Writes journaled events to the database behind the engine. Order states are coalesced by id so an order
+ * touched many times between flushes is written once, and everything is flushed in JDBC batches when the
+ * batch size or the flush interval is reached. A failed flush is retried on the next interval; the journal
+ * keeps the data until {@link #getPersistedPosition()} moves past it.
+ * <p>
+ * Incoming orders of a kind that never rests are not written to the {@code orders} table; their trades and
+ * the resting orders they filled are. Events the journal failed to write are neither written nor counted
+ * towards the checkpoint.
+ */
+@Slf4j
+@Component
+public class PersistenceHandler implements EventHandler<EngineEvent> {
+
+    private final EngineStateRepository engineStateRepository;
+    private final PersistedCheckpoint checkpoint;
+    private final int batchSize;
+    private final long flushIntervalNanos;
+    private final StageLatencyMetrics stageLatency;
+
+    private final Map<Long, Order> pendingOrders = new LinkedHashMap<>();
+    private final List<Trade> pendingTrades = new ArrayList<>();
+    @Getter
+    private final AtomicLong persistedPosition = new AtomicLong();
+    private long persistedSequence = -1;
+    private long pendingSequence = -1;
+    private long pendingPosition;
+    private long pendingSince;
+    private long[] pendingMatchedNanos = new long[64];
+    private int[] pendingShards = new int[64];
+    private int pendingEvents;
+
+    public PersistenceHandler(EngineStateRepository engineStateRepository, PersistedCheckpoint checkpoint,
+                              EngineProperties properties, StageLatencyMetrics stageLatency) {
+        this.engineStateRepository = engineStateRepository;
+        this.checkpoint = checkpoint;
+        this.batchSize = properties.getPersistence().getBatchSize();
+        this.flushIntervalNanos = properties.getPersistence().getFlushInterval().toNanos();
+        this.stageLatency = stageLatency;
+    }
+
+    @Override
+    public void onEvent(EngineEvent event, long sequence, boolean endOfBatch) {
+        if (event.getFailure() == null && !event.isSnapshot()) {
+            if (pendingEvents == 0) {
+                pendingSince = System.nanoTime();
+            }
+            if (event.getOrder().getKind().rests() || event.getOrder().getKind().isStop()) {
+                pendingOrders.put(event.getOrder().getId(), event.getOrder());
+            }
+            for (Order resting : event.getRestingOrders()) {
+                pendingOrders.put(resting.getId(), resting);
+            }
+            pendingTrades.addAll(event.getTrades());
+            track(event);
+        }
+        pendingSequence = sequence;
+        if (event.getJournalPosition() != EngineEvent.UNJOURNALED) {
+            pendingPosition = event.getJournalPosition();
+        }
+
+        if (pendingOrders.size() + pendingTrades.size() >= batchSize || (endOfBatch && flushDue())) {
+            flush();
+        }
+    }
+
+    @Override
+    public void onIdle() {
+        if (pendingSequence != persistedSequence && flushDue()) {
+            flush();
+        }
+    }
+
+    /**
+     * Marks everything replayed on recovery as persisted.
+     */
+    public void recovered(long position) {
+        persistedPosition.set(position);
+    }
+
+    /**
+     * Flushes whatever is still buffered. Only call once the processor thread has stopped.
+     */
+    public void flushPending() {
+        if (pendingSequence != persistedSequence) {
+            flush();
+        }
+    }
+
+    private boolean flushDue() {
+        return System.nanoTime() - pendingSince >= flushIntervalNanos;
+    }
+
+    private void flush() {
+        try {
+            engineStateRepository.write(pendingOrders.values(), pendingTrades);
+            pendingOrders.clear();
+            pendingTrades.clear();
+            persistedSequence = pendingSequence;
+            checkpoint.write(pendingPosition);
+            persistedPosition.set(pendingPosition);
+            long persisted = System.nanoTime();
+            for (int i = 0; i < pendingEvents; i++) {
+                stageLatency.record(Stage.PERSISTENCE, pendingShards[i], persisted - pendingMatchedNanos[i]);
+            }
+            pendingEvents = 0;
+        } catch (RuntimeException e) {
+            log.error("Failed to flush {} orders and {} trades, retrying", pendingOrders.size(), pendingTrades.size(), e);
+            pendingSince = System.nanoTime();
+        }
+    }
+
+    private void track(EngineEvent event) {
+        if (pendingEvents == pendingShards.length) {
+            pendingMatchedNanos = Arrays.copyOf(pendingMatchedNanos, pendingEvents * 2);
+            pendingShards = Arrays.copyOf(pendingShards, pendingEvents * 2);
+        }
+        pendingMatchedNanos[pendingEvents] = event.getMatchedNanos();
+        pendingShards[pendingEvents] = event.getShardId();
+        pendingEvents++;
+    }
+}
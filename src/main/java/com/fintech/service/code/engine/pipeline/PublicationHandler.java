@@ -0,0 +1,52 @@
+package com.fintech.service.code.engine.pipeline;
+
+import com.fintech.service.code.engine.PriceScale;
+import com.fintech.service.code.engine.book.OrderBook;
+import com.fintech.service.code.marketdata.MarketDataPublisher;
+import com.fintech.service.code.metrics.StageLatencyMetrics;
+import com.fintech.service.code.metrics.StageLatencyMetrics.Stage;
+import com.fintech.service.code.model.Trade;
+import com.fintech.service.code.websocket.TradeWebSocketController;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+@Component
+@RequiredArgsConstructor
+public class PublicationHandler implements EventHandler<EngineEvent> {
+
+    private final TradeWebSocketController webSocketController;
+    private final MarketDataPublisher marketDataPublisher;
+    private final PriceScale priceScale;
+    private final StageLatencyMetrics stageLatency;
+    private final List<ExecutionListener> listeners = new CopyOnWriteArrayList<>();
+
+    public void addListener(ExecutionListener listener) {
+        listeners.add(listener);
+    }
+
+    public void recovered(Collection<OrderBook> books) {
+        marketDataPublisher.recovered(books);
+    }
+
+    @Override
+    public void onEvent(EngineEvent event, long sequence, boolean endOfBatch) {
+        if (event.getFailure() == null && !event.isSnapshot()) {
+            for (Trade trade : event.getTrades()) {
+                webSocketController.sendTradeUpdate(trade,
+                        priceScale.toPrice(trade.getSymbol(), trade.getPriceTicks()));
+            }
+            marketDataPublisher.onExecution(event.getOrder(), event.getRestingOrders());
+            for (ExecutionListener listener : listeners) {
+                listener.onExecution(event.getOrder(), event.getTrades(), event.getRestingOrders());
+            }
+            stageLatency.record(Stage.PUBLISH, event.getShardId(), System.nanoTime() - event.getMatchedNanos());
+        }
+        if (endOfBatch) {
+            webSocketController.flush();
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package com.fintech.service.code.engine.pipeline;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+/**
+ * Bounded multi-producer ring of preallocated entries. Producers claim a sequence with {@link #next()},
+ * fill the entry in place and {@link #publish(long)} it; consumers track their own sequences and gate the
+ * producers so an entry is never overwritten before every consumer has seen it.
+ */
+public final class RingBuffer<E> {
+
+    private final Object[] entries;
+    private final int bufferSize;
+    private final int mask;
+    private final int indexShift;
+    private final AtomicIntegerArray availableBuffer;
+    private final AtomicLong cursor = new AtomicLong(-1);
+    private final AtomicLong gatingSequenceCache = new AtomicLong(-1);
+    private volatile AtomicLong[] gatingSequences = new AtomicLong[0];
+
+    public RingBuffer(int bufferSize, Supplier<E> factory) {
+        if (bufferSize < 1 || Integer.bitCount(bufferSize) != 1) {
+            throw new IllegalArgumentException("Ring buffer size must be a power of 2, got " + bufferSize);
+        }
+        this.bufferSize = bufferSize;
+        this.mask = bufferSize - 1;
+        this.indexShift = Integer.numberOfTrailingZeros(bufferSize);
+        this.entries = new Object[bufferSize];
+        this.availableBuffer = new AtomicIntegerArray(bufferSize);
+        for (int i = 0; i < bufferSize; i++) {
+            entries[i] = factory.get();
+            availableBuffer.set(i, -1);
+        }
+    }
+
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
+    public long getCursor() {
+        return cursor.get();
+    }
+
+    @SuppressWarnings("unchecked")
+    public E get(long sequence) {
+        return (E) entries[(int) sequence & mask];
+    }
+
+    public synchronized void addGatingSequences(AtomicLong... sequences) {
+        AtomicLong[] current = gatingSequences;
+        AtomicLong[] updated = new AtomicLong[current.length + sequences.length];
+        System.arraycopy(current, 0, updated, 0, current.length);
+        System.arraycopy(sequences, 0, updated, current.length, sequences.length);
+        gatingSequences = updated;
+    }
+
+    /**
+     * Claims the next sequence, parking while the ring is full.
+     */
+    public long next() {
+        return next(1);
+    }
+
+    /**
+     * Claims {@code n} consecutive sequences, parking while the ring lacks room, and returns the highest. No
+     * other producer's entries are interleaved, so the range reaches consumers in one piece and order.
+     */
+    public long next(int n) {
+        if (n < 1 || n > bufferSize) {
+            throw new IllegalArgumentException("Can only claim between 1 and " + bufferSize + " entries, got " + n);
+        }
+        long next;
+        while ((next = tryClaim(n)) < 0) {
+            LockSupport.parkNanos(1_000L);
+        }
+        return next;
+    }
+
+    /**
+     * Claims the next sequence, or returns {@code -1} when the ring is full.
+     */
+    public long tryNext() {
+        return tryClaim(1);
+    }
+
+    private long tryClaim(int n) {
+        while (true) {
+            long current = cursor.get();
+            long next = current + n;
+            long wrapPoint = next - bufferSize;
+            long cachedGatingSequence = gatingSequenceCache.get();
+
+            if (wrapPoint > cachedGatingSequence || cachedGatingSequence > current) {
+                long gatingSequence = minimumGatingSequence(current);
+                if (wrapPoint > gatingSequence) {
+                    return -1;
+                }
+                gatingSequenceCache.set(gatingSequence);
+            } else if (cursor.compareAndSet(current, next)) {
+                return next;
+            }
+        }
+    }
+
+    public void publish(long sequence) {
+        availableBuffer.set((int) sequence & mask, (int) (sequence >>> indexShift));
+    }
+
+    /**
+     * Publishes a claimed range. The lowest sequence goes last so consumers pick the range up as one batch.
+     */
+    public void publish(long low, long high) {
+        for (long sequence = high; sequence >= low; sequence--) {
+            publish(sequence);
+        }
+    }
+
+    public boolean isAvailable(long sequence) {
+        return availableBuffer.get((int) sequence & mask) == (int) (sequence >>> indexShift);
+    }
+
+    public long getHighestPublishedSequence(long lowerBound, long availableSequence) {
+        for (long sequence = lowerBound; sequence <= availableSequence; sequence++) {
+            if (!isAvailable(sequence)) {
+                return sequence - 1;
+            }
+        }
+        return availableSequence;
+    }
+
+    /**
+     * Number of claimed entries not yet released by the slowest consumer.
+     */
+    public long size() {
+        long current = cursor.get();
+        return current - minimumGatingSequence(current);
+    }
+
+    private long minimumGatingSequence(long defaultValue) {
+        long minimum = defaultValue;
+        for (AtomicLong sequence : gatingSequences) {
+            minimum = Math.min(minimum, sequence.get());
+        }
+        return minimum;
+    }
+}
@@ -0,0 +1,34 @@
+package com.fintech.service.code.engine.risk;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Exposure counters of one account. Guarded by the {@link PreTradeRisk} stripe the account hashes to.
+ */
+final class AccountExposure {
+    int openOrders;
+    /**
+     * Sum of price times quantity of the account's open orders, in units of 10^-{@value PreTradeRisk#NOTIONAL_SCALE}.
+     */
+    long openNotional;
+    private final Map<String, Position> positions = new HashMap<>();
+
+    long position(String symbol) {
+        Position position = positions.get(symbol);
+        return position == null ? 0 : position.quantity;
+    }
+
+    void trade(String symbol, long quantity) {
+        Position position = positions.get(symbol);
+        if (position == null) {
+            position = new Position();
+            positions.put(symbol, position);
+        }
+        position.quantity += quantity;
+    }
+
+    private static final class Position {
+        private long quantity;
+    }
+}
@@ -0,0 +1,388 @@
+package com.fintech.service.code.engine.risk;
+
+import com.fintech.service.code.config.EngineProperties;
+import com.fintech.service.code.engine.ExecutionReport;
+import com.fintech.service.code.engine.PriceScale;
+import com.fintech.service.code.engine.book.LongObjectMap;
+import com.fintech.service.code.engine.book.OrderBook;
+import com.fintech.service.code.model.Order;
+import com.fintech.service.code.model.OrderKind;
+import com.fintech.service.code.model.OrderType;
+import com.fintech.service.code.model.Trade;
+import com.fintech.service.code.repository.EngineStateRepository;
+import com.fintech.service.code.service.OrderBookService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Pre-trade risk checks, run by each matching shard on its own thread right before a new order or an amend
+ * reaches the engine. An order is rejected if
+ * <ul>
+ *     <li>its quantity is above {@code max-order-quantity};</li>
+ *     <li>its limit price is further from the symbol's last trade than {@code price-collar} allows;</li>
+ *     <li>resting or waiting, it would take its account past {@code max-open-orders} or
+ *     {@code max-open-notional};</li>
+ *     <li>filled in full, it would take its account's position in the symbol past {@code max-position} either
+ *     way. Orders that shrink the position always pass.</li>
+ * </ul>
+ * A check reads in-memory counters only. They are seeded from the database when matching starts and kept
+ * current from every execution report, which is also how fills of a resting order get its account back for
+ * persistence. Accounts trade on every shard, so the counters sit in independently locked stripes of
+ * primitive maps, like {@link com.fintech.service.code.engine.book.OrderLocator}; an account checked on two
+ * shards at the same moment can overshoot a limit by the order in flight on the other one.
+ */
+@Slf4j
+@Component
+public class PreTradeRisk {
+
+    /**
+     * Scale of the open notional counters: prices times quantities in units of 10^-8.
+     */
+    static final int NOTIONAL_SCALE = 8;
+    private static final int STRIPES = 64;
+    private static final long NO_ACCOUNT = Long.MIN_VALUE;
+
+    public enum Reason {
+        ORDER_SIZE,
+        PRICE_COLLAR,
+        OPEN_ORDERS,
+        OPEN_NOTIONAL,
+        POSITION
+    }
+
+    private final EngineProperties.Risk limits;
+    private final long maxOpenNotional;
+    private final OrderBookService orderBookService;
+    private final PriceScale priceScale;
+    private final EngineStateRepository engineStateRepository;
+    private final LongObjectMap<AccountExposure>[] accounts;
+    private final LongObjectMap<OpenOrder>[] openOrders;
+    private final Map<String, Long> unitsPerTick = new ConcurrentHashMap<>();
+    private final Map<Reason, Counter> rejected = new EnumMap<>(Reason.class);
+
+    @SuppressWarnings("unchecked")
+    public PreTradeRisk(EngineProperties properties, OrderBookService orderBookService, PriceScale priceScale,
+                        EngineStateRepository engineStateRepository, MeterRegistry meterRegistry) {
+        this.limits = properties.getRisk();
+        this.maxOpenNotional = limits.getMaxOpenNotional().movePointRight(NOTIONAL_SCALE).longValue();
+        this.orderBookService = orderBookService;
+        this.priceScale = priceScale;
+        this.engineStateRepository = engineStateRepository;
+        this.accounts = new LongObjectMap[STRIPES];
+        this.openOrders = new LongObjectMap[STRIPES];
+        for (int i = 0; i < STRIPES; i++) {
+            accounts[i] = new LongObjectMap<>(256);
+            openOrders[i] = new LongObjectMap<>(256);
+        }
+        for (Reason reason : Reason.values()) {
+            rejected.put(reason, Counter.builder("engine.risk.rejected")
+                    .description("Orders and amends rejected by a pre-trade risk limit")
+                    .tag("reason", reason.name().toLowerCase())
+                    .register(meterRegistry));
+        }
+    }
+
+    /**
+     * Seeds the counters from the orders and trades in the database. Called once the books are recovered and
+     * before the shards start.
+     */
+    public void recovered() {
+        List<Order> open = engineStateRepository.findOpenAccountOrders();
+        for (Order order : open) {
+            update(order, order.getAccountId());
+        }
+        engineStateRepository.forEachAccountPosition(this::trade);
+        log.info("Pre-trade risk tracking {} open orders", open.size());
+    }
+
+    /**
+     * @throws RiskRejectedException if the order breaches a limit
+     */
+    public void check(Order order) {
+        String symbol = order.getSymbol();
+        OrderKind kind = order.getKind();
+        checkSize(order.getQuantity());
+        if (kind != OrderKind.MARKET && kind != OrderKind.STOP) {
+            checkCollar(symbol, order.getPriceTicks());
+        }
+        Long accountId = order.getAccountId();
+        if (accountId == null) {
+            return;
+        }
+        boolean opens = kind.rests() || kind.isStop();
+        long notional = opens ? notional(symbol, exposurePrice(order), order.getQuantity()) : 0;
+        long signed = order.getType() == OrderType.BUY ? order.getQuantity() : -order.getQuantity();
+        LongObjectMap<AccountExposure> stripe = stripe(accounts, accountId);
+        synchronized (stripe) {
+            AccountExposure exposure = stripe.get(accountId);
+            if (opens) {
+                checkOpen(exposure, accountId, 1, notional);
+            }
+            checkPosition(exposure, accountId, symbol, signed);
+        }
+    }
+
+    /**
+     * Checks an amend of an open order; {@code null} leaves the price or quantity unchanged.
+     *
+     * @throws RiskRejectedException if the amended order would breach a limit
+     */
+    public void checkAmend(String symbol, long orderId, Long priceTicks, Integer quantity) {
+        if (quantity != null) {
+            checkSize(quantity);
+        }
+        if (priceTicks != null) {
+            checkCollar(symbol, priceTicks);
+        }
+        long accountId;
+        long oldNotional;
+        long newNotional;
+        int oldQuantity;
+        int newQuantity;
+        OrderType side;
+        LongObjectMap<OpenOrder> orders = stripe(openOrders, orderId);
+        synchronized (orders) {
+            OpenOrder open = orders.get(orderId);
+            if (open == null) {
+                return;
+            }
+            long newPrice = priceTicks == null || open.kind == OrderKind.STOP ? open.price : priceTicks;
+            accountId = open.accountId;
+            side = open.side;
+            oldQuantity = open.quantity;
+            oldNotional = open.notional;
+            newQuantity = quantity == null ? open.quantity : quantity;
+            newNotional = notional(symbol, newPrice, newQuantity);
+        }
+        LongObjectMap<AccountExposure> stripe = stripe(accounts, accountId);
+        synchronized (stripe) {
+            AccountExposure exposure = stripe.get(accountId);
+            checkOpen(exposure, accountId, 0, newNotional - oldNotional);
+            if (newQuantity > oldQuantity) {
+                checkPosition(exposure, accountId, symbol, side == OrderType.BUY ? newQuantity : -newQuantity);
+            }
+        }
+    }
+
+    /**
+     * Applies a report's trades to the positions and its order states to the open order counters, and sets
+     * the account on every state of an order the account is known for.
+     */
+    public void onExecution(ExecutionReport report) {
+        Order order = report.getOrder();
+        for (Trade trade : report.getTrades()) {
+            trade(accountOf(trade.getBuyOrderId(), order), trade.getSymbol(), trade.getQuantity());
+            trade(accountOf(trade.getSellOrderId(), order), trade.getSymbol(), -trade.getQuantity());
+        }
+        update(order, order.getAccountId());
+        for (Order state : report.getRestingOrders()) {
+            update(state, null);
+        }
+    }
+
+    public int getOpenOrders(long accountId) {
+        LongObjectMap<AccountExposure> stripe = stripe(accounts, accountId);
+        synchronized (stripe) {
+            AccountExposure exposure = stripe.get(accountId);
+            return exposure == null ? 0 : exposure.openOrders;
+        }
+    }
+
+    public BigDecimal getOpenNotional(long accountId) {
+        LongObjectMap<AccountExposure> stripe = stripe(accounts, accountId);
+        synchronized (stripe) {
+            AccountExposure exposure = stripe.get(accountId);
+            return BigDecimal.valueOf(exposure == null ? 0 : exposure.openNotional, NOTIONAL_SCALE);
+        }
+    }
+
+    public long getPosition(long accountId, String symbol) {
+        LongObjectMap<AccountExposure> stripe = stripe(accounts, accountId);
+        synchronized (stripe) {
+            AccountExposure exposure = stripe.get(accountId);
+            return exposure == null ? 0 : exposure.position(symbol);
+        }
+    }
+
+    private void checkSize(int quantity) {
+        int max = limits.getMaxOrderQuantity();
+        if (max > 0 && quantity > max) {
+            throw reject(Reason.ORDER_SIZE, "Quantity " + quantity + " is above the limit of " + max);
+        }
+    }
+
+    private void checkCollar(String symbol, long priceTicks) {
+        double collar = limits.getPriceCollar();
+        if (collar <= 0) {
+            return;
+        }
+        long last = orderBookService.getLastPrice(symbol);
+        if (last != OrderBook.NO_PRICE && Math.abs(priceTicks - last) > last * collar) {
+            throw reject(Reason.PRICE_COLLAR, "Price " + priceScale.toPrice(symbol, priceTicks)
+                    + " is too far from the last " + symbol + " trade at " + priceScale.toPrice(symbol, last));
+        }
+    }
+
+    private void checkOpen(AccountExposure exposure, long accountId, int addedOrders, long addedNotional) {
+        int orders = exposure == null ? 0 : exposure.openOrders;
+        long notional = exposure == null ? 0 : exposure.openNotional;
+        int maxOrders = limits.getMaxOpenOrders();
+        if (maxOrders > 0 && addedOrders > 0 && orders + addedOrders > maxOrders) {
+            throw reject(Reason.OPEN_ORDERS, "Account " + accountId + " already has " + orders + " open orders");
+        }
+        if (maxOpenNotional > 0 && addedNotional > 0 && addedNotional > maxOpenNotional - notional) {
+            throw reject(Reason.OPEN_NOTIONAL, "Account " + accountId + " would have more than "
+                    + limits.getMaxOpenNotional() + " in open orders");
+        }
+    }
+
+    private void checkPosition(AccountExposure exposure, long accountId, String symbol, long signedQuantity) {
+        long max = limits.getMaxPosition();
+        if (max <= 0) {
+            return;
+        }
+        long position = exposure == null ? 0 : exposure.position(symbol);
+        long after = position + signedQuantity;
+        if (Math.abs(after) > max && Math.abs(after) > Math.abs(position)) {
+            throw reject(Reason.POSITION, "Account " + accountId + " would hold " + after + " " + symbol
+                    + ", beyond the limit of " + max);
+        }
+    }
+
+    private RiskRejectedException reject(Reason reason, String message) {
+        rejected.get(reason).increment();
+        return new RiskRejectedException(reason, message);
+    }
+
+    private long accountOf(long orderId, Order order) {
+        LongObjectMap<OpenOrder> orders = stripe(openOrders, orderId);
+        synchronized (orders) {
+            OpenOrder open = orders.get(orderId);
+            if (open != null) {
+                return open.accountId;
+            }
+        }
+        return orderId == order.getId() && order.getAccountId() != null ? order.getAccountId() : NO_ACCOUNT;
+    }
+
+    private void trade(long accountId, String symbol, long quantity) {
+        if (accountId == NO_ACCOUNT) {
+            return;
+        }
+        LongObjectMap<AccountExposure> stripe = stripe(accounts, accountId);
+        synchronized (stripe) {
+            exposure(stripe, accountId).trade(symbol, quantity);
+        }
+    }
+
+    /**
+     * Tracks the latest state of an order: adds it when it opens under a known account, moves the account's
+     * notional when its price or quantity changes, and drops it once it is filled or cancelled.
+     */
+    private void update(Order state, Long accountHint) {
+        long orderId = state.getId();
+        boolean open = state.isActive() && state.getQuantity() > 0;
+        long accountId;
+        int addedOrders;
+        long addedNotional;
+        LongObjectMap<OpenOrder> orders = stripe(openOrders, orderId);
+        synchronized (orders) {
+            OpenOrder tracked = orders.get(orderId);
+            if (tracked == null) {
+                if (accountHint == null || !open) {
+                    return;
+                }
+                tracked = new OpenOrder(accountHint, state.getType());
+                orders.put(orderId, tracked);
+                addedOrders = 1;
+                addedNotional = tracked.set(state, notional(state.getSymbol(), exposurePrice(state),
+                        state.getQuantity()));
+            } else if (open) {
+                addedOrders = 0;
+                addedNotional = tracked.set(state, notional(state.getSymbol(), exposurePrice(state),
+                        state.getQuantity()));
+            } else {
+                orders.remove(orderId);
+                addedOrders = -1;
+                addedNotional = -tracked.notional;
+            }
+            accountId = tracked.accountId;
+        }
+        state.setAccountId(accountId);
+        LongObjectMap<AccountExposure> stripe = stripe(accounts, accountId);
+        synchronized (stripe) {
+            AccountExposure exposure = exposure(stripe, accountId);
+            exposure.openOrders += addedOrders;
+            exposure.openNotional += addedNotional;
+        }
+    }
+
+    /**
+     * Price an order is exposed at while open: its stop price until a stop order triggers, its limit price
+     * otherwise.
+     */
+    private static long exposurePrice(Order order) {
+        return order.getKind() == OrderKind.STOP ? order.getStopPriceTicks() : order.getPriceTicks();
+    }
+
+    /**
+     * @throws RiskRejectedException if the notional does not fit a {@code long}, which no limit could bound
+     */
+    private long notional(String symbol, long priceTicks, int quantity) {
+        long units = unitsPerTick.computeIfAbsent(symbol,
+                s -> priceScale.tickSize(s).movePointRight(NOTIONAL_SCALE).longValueExact());
+        try {
+            return Math.multiplyExact(Math.multiplyExact(priceTicks, units), quantity);
+        } catch (ArithmeticException e) {
+            throw reject(Reason.OPEN_NOTIONAL, "Notional of " + quantity + " " + symbol + " at "
+                    + priceScale.toPrice(symbol, priceTicks) + " is out of range");
+        }
+    }
+
+    private static AccountExposure exposure(LongObjectMap<AccountExposure> stripe, long accountId) {
+        AccountExposure exposure = stripe.get(accountId);
+        if (exposure == null) {
+            exposure = new AccountExposure();
+            stripe.put(accountId, exposure);
+        }
+        return exposure;
+    }
+
+    private static <V> LongObjectMap<V> stripe(LongObjectMap<V>[] stripes, long key) {
+        return stripes[(int) (key ^ (key >>> 32)) & (STRIPES - 1)];
+    }
+
+    private static final class OpenOrder {
+        private final long accountId;
+        private final OrderType side;
+        private OrderKind kind;
+        private long price;
+        private int quantity;
+        private long notional;
+
+        OpenOrder(long accountId, OrderType side) {
+            this.accountId = accountId;
+            this.side = side;
+        }
+
+        /**
+         * @return the change in notional
+         */
+        long set(Order state, long notional) {
+            long added = notional - this.notional;
+            this.kind = state.getKind();
+            this.price = kind == OrderKind.STOP ? state.getStopPriceTicks() : state.getPriceTicks();
+            this.quantity = state.getQuantity();
+            this.notional = notional;
+            return added;
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.fintech.service.code.engine.risk;
+
+import lombok.Getter;
+
+/**
+ * An order or amend that would breach a pre-trade risk limit. Nothing reached the book or the journal.
+ */
+@Getter
+public class RiskRejectedException extends RuntimeException {
+
+    private final PreTradeRisk.Reason reason;
+
+    public RiskRejectedException(PreTradeRisk.Reason reason, String message) {
+        super(message);
+        this.reason = reason;
+    }
+}
@@ -0,0 +1,101 @@
+package com.fintech.service.code.gateway;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Fixed-layout binary order entry protocol. Every frame is a big-endian {@code short} body length followed by
+ * the body, whose first byte is the message type:
+ * <pre>
+ * NEW_ORDER         type, long clientOrderId, byte side, char[8] symbol, long priceTicks, int quantity
+ * CANCEL            type, long clientOrderId, long orderId
+ * EXECUTION_REPORT  type, long clientOrderId, long orderId, byte status, byte reason,
+ *                   int filledQuantity, int leavesQuantity, long lastPriceTicks
+ * </pre>
+ * Symbols are ASCII, right-padded with spaces. Prices are in ticks of the symbol's tick size. Clients may send
+ * any number of frames without waiting; reports carry the client order id for correlation.
+ */
+public final class GatewayProtocol {
+
+    public static final int LENGTH_BYTES = Short.BYTES;
+    public static final int SYMBOL_BYTES = 8;
+
+    public static final byte NEW_ORDER = 1;
+    public static final byte CANCEL = 2;
+    public static final byte EXECUTION_REPORT = 3;
+
+    public static final int NEW_ORDER_BYTES = 1 + Long.BYTES + 1 + SYMBOL_BYTES + Long.BYTES + Integer.BYTES;
+    public static final int CANCEL_BYTES = 1 + Long.BYTES + Long.BYTES;
+    public static final int EXECUTION_REPORT_BYTES = 1 + Long.BYTES + Long.BYTES + 1 + 1 + Integer.BYTES
+            + Integer.BYTES + Long.BYTES;
+
+    public static final byte SIDE_BUY = 0;
+    public static final byte SIDE_SELL = 1;
+
+    public static final byte STATUS_ACCEPTED = 0;
+    public static final byte STATUS_PARTIALLY_FILLED = 1;
+    public static final byte STATUS_FILLED = 2;
+    public static final byte STATUS_CANCELLED = 3;
+    public static final byte STATUS_REJECTED = 4;
+
+    public static final byte REASON_NONE = 0;
+    public static final byte REASON_INVALID = 1;
+    public static final byte REASON_UNKNOWN_ORDER = 2;
+    public static final byte REASON_INTERNAL = 3;
+    public static final byte REASON_RISK = 4;
+
+    private GatewayProtocol() {
+    }
+
+    public static void putNewOrder(ByteBuffer out, long clientOrderId, byte side, String symbol, long priceTicks,
+                                   int quantity) {
+        out.putShort((short) NEW_ORDER_BYTES);
+        out.put(NEW_ORDER);
+        out.putLong(clientOrderId);
+        out.put(side);
+        putSymbol(out, symbol);
+        out.putLong(priceTicks);
+        out.putInt(quantity);
+    }
+
+    public static void putCancel(ByteBuffer out, long clientOrderId, long orderId) {
+        out.putShort((short) CANCEL_BYTES);
+        out.put(CANCEL);
+        out.putLong(clientOrderId);
+        out.putLong(orderId);
+    }
+
+    public static void putExecutionReport(ByteBuffer out, long clientOrderId, long orderId, byte status,
+                                          byte reason, int filledQuantity, int leavesQuantity, long lastPriceTicks) {
+        out.putShort((short) EXECUTION_REPORT_BYTES);
+        out.put(EXECUTION_REPORT);
+        out.putLong(clientOrderId);
+        out.putLong(orderId);
+        out.put(status);
+        out.put(reason);
+        out.putInt(filledQuantity);
+        out.putInt(leavesQuantity);
+        out.putLong(lastPriceTicks);
+    }
+
+    public static void putSymbol(ByteBuffer out, String symbol) {
+        byte[] bytes = symbol.getBytes(StandardCharsets.US_ASCII);
+        if (bytes.length > SYMBOL_BYTES) {
+            throw new IllegalArgumentException("Symbol longer than " + SYMBOL_BYTES + " characters: " + symbol);
+        }
+        out.put(bytes);
+        for (int i = bytes.length; i < SYMBOL_BYTES; i++) {
+            out.put((byte) ' ');
+        }
+    }
+
+    public static String getSymbol(ByteBuffer in) {
+        byte[] bytes = new byte[SYMBOL_BYTES];
+        in.get(bytes);
+        int length = SYMBOL_BYTES;
+        while (length > 0 && bytes[length - 1] == ' ') {
+            length--;
+        }
+        return new String(bytes, 0, length, StandardCharsets.US_ASCII);
+    }
+}
@@ -0,0 +1,61 @@
+package com.fintech.service.code.gateway;
+
+import lombok.Getter;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * One client connection. Frames are read and decoded on the gateway thread; execution reports are encoded
+ * into the outbox by whichever pipeline thread produces them and written out by the gateway thread.
+ */
+@Getter
+class GatewaySession {
+    private final SocketChannel channel;
+    private final ByteBuffer inbox;
+    private final ByteBuffer outbox;
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+    private volatile boolean closed;
+
+    GatewaySession(SocketChannel channel, int inboxSize, int outboxSize) {
+        this.channel = channel;
+        this.inbox = ByteBuffer.allocateDirect(inboxSize);
+        this.outbox = ByteBuffer.allocateDirect(outboxSize);
+    }
+
+    /**
+     * Encodes a report into the outbox. Returns false if the client has fallen so far behind that the outbox
+     * is full.
+     */
+    synchronized boolean offer(long clientOrderId, long orderId, byte status, byte reason, int filledQuantity,
+                               int leavesQuantity, long lastPriceTicks) {
+        if (closed) {
+            return true;
+        }
+        if (outbox.remaining() < GatewayProtocol.LENGTH_BYTES + GatewayProtocol.EXECUTION_REPORT_BYTES) {
+            return false;
+        }
+        GatewayProtocol.putExecutionReport(outbox, clientOrderId, orderId, status, reason, filledQuantity,
+                leavesQuantity, lastPriceTicks);
+        return true;
+    }
+
+    /**
+     * Writes as much of the outbox as the socket accepts and returns whether anything is left.
+     */
+    synchronized boolean flush() throws IOException {
+        outbox.flip();
+        try {
+            channel.write(outbox);
+            return outbox.hasRemaining();
+        } finally {
+            outbox.compact();
+        }
+    }
+
+    void close() {
+        closed = true;
+    }
+}
@@ -0,0 +1,338 @@
+package com.fintech.service.code.gateway;
+
+import com.fintech.service.code.config.EngineProperties;
+import com.fintech.service.code.engine.ExecutionReport;
+import com.fintech.service.code.engine.IdGenerator;
+import com.fintech.service.code.engine.MatchingPipeline;
+import com.fintech.service.code.engine.OrderNotFoundException;
+import com.fintech.service.code.engine.pipeline.ExecutionListener;
+import com.fintech.service.code.engine.pipeline.PublicationHandler;
+import com.fintech.service.code.engine.risk.RiskRejectedException;
+import com.fintech.service.code.metrics.StageLatencyMetrics;
+import com.fintech.service.code.metrics.StageLatencyMetrics.Stage;
+import com.fintech.service.code.model.Order;
+import com.fintech.service.code.model.OrderType;
+import com.fintech.service.code.model.Trade;
+import com.fintech.service.code.service.OrderBookService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.time.Instant;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * TCP order entry for algorithmic clients, next to the REST endpoint. A single NIO thread accepts connections
+ * and decodes {@link GatewayProtocol} frames straight into engine commands, so a client can pipeline many
+ * orders per connection. Acknowledgements are encoded when the journal completes a command, and fills of
+ * orders resting on behalf of a session are reported from the publication stage.
+ * <p>
+ * When the shard rings are full, submitting blocks the gateway thread, which stops reading and lets TCP flow
+ * control push back on clients.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "engine.gateway", name = "enabled", havingValue = "true")
+public class OrderEntryGateway implements ExecutionListener, Runnable {
+
+    private static final int INBOX_BYTES = 64 * 1024;
+
+    private final EngineProperties properties;
+    private final MatchingPipeline matchingPipeline;
+    private final OrderBookService orderBookService;
+    private final IdGenerator idGenerator;
+    private final PublicationHandler publicationHandler;
+    private final StageLatencyMetrics stageLatency;
+
+    private final Map<Long, RestingOwner> owners = new ConcurrentHashMap<>();
+    private final Queue<GatewaySession> pendingFlushes = new ConcurrentLinkedQueue<>();
+    private Selector selector;
+    private ServerSocketChannel server;
+    private Thread thread;
+    private volatile boolean running;
+
+    @PostConstruct
+    public void start() throws IOException {
+        selector = Selector.open();
+        server = ServerSocketChannel.open();
+        server.bind(new InetSocketAddress(properties.getGateway().getPort()));
+        server.configureBlocking(false);
+        server.register(selector, SelectionKey.OP_ACCEPT);
+        publicationHandler.addListener(this);
+        running = true;
+        thread = new Thread(this, "order-gateway");
+        thread.setDaemon(true);
+        thread.start();
+        log.info("Order entry gateway listening on port {}", properties.getGateway().getPort());
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException, IOException {
+        running = false;
+        selector.wakeup();
+        thread.join();
+        for (SelectionKey key : selector.keys()) {
+            key.channel().close();
+        }
+        selector.close();
+    }
+
+    public int getLocalPort() throws IOException {
+        return ((InetSocketAddress) server.getLocalAddress()).getPort();
+    }
+
+    @Override
+    public void run() {
+        while (running) {
+            try {
+                selector.select();
+                GatewaySession session;
+                while ((session = pendingFlushes.poll()) != null) {
+                    session.getFlushScheduled().set(false);
+                    flush(session);
+                }
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    if (!key.isValid()) {
+                        continue;
+                    }
+                    if (key.isAcceptable()) {
+                        accept();
+                    } else {
+                        session = (GatewaySession) key.attachment();
+                        if (key.isWritable()) {
+                            flush(session);
+                        }
+                        if (key.isValid() && key.isReadable()) {
+                            read(session);
+                        }
+                    }
+                }
+            } catch (IOException e) {
+                log.error("Order entry gateway loop failed", e);
+            }
+        }
+    }
+
+    @Override
+    public void onExecution(Order order, List<Trade> trades, List<Order> restingOrders) {
+        for (Order resting : restingOrders) {
+            RestingOwner owner = owners.get(resting.getId());
+            if (owner == null) {
+                continue;
+            }
+            int filled = 0;
+            long lastPrice = 0;
+            for (Trade trade : trades) {
+                if (trade.getBuyOrderId() == resting.getId() || trade.getSellOrderId() == resting.getId()) {
+                    filled += trade.getQuantity();
+                    lastPrice = trade.getPriceTicks();
+                }
+            }
+            if (!resting.isActive()) {
+                owners.remove(resting.getId());
+            }
+            send(owner.session(), owner.clientOrderId(), resting.getId(),
+                    resting.isActive() ? GatewayProtocol.STATUS_PARTIALLY_FILLED : GatewayProtocol.STATUS_FILLED,
+                    GatewayProtocol.REASON_NONE, filled, resting.isActive() ? resting.getQuantity() : 0, lastPrice);
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel = server.accept();
+        if (channel == null) {
+            return;
+        }
+        channel.configureBlocking(false);
+        channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+        GatewaySession session = new GatewaySession(channel, INBOX_BYTES, properties.getGateway().getOutboxSize());
+        channel.register(selector, SelectionKey.OP_READ, session);
+        log.info("Order entry session opened from {}", channel.getRemoteAddress());
+    }
+
+    private void read(GatewaySession session) {
+        ByteBuffer in = session.getInbox();
+        try {
+            if (session.getChannel().read(in) < 0) {
+                close(session);
+                return;
+            }
+        } catch (IOException e) {
+            close(session);
+            return;
+        }
+        in.flip();
+        while (in.remaining() >= GatewayProtocol.LENGTH_BYTES + 1) {
+            int length = Short.toUnsignedInt(in.getShort(in.position()));
+            int bodyStart = in.position() + GatewayProtocol.LENGTH_BYTES;
+            byte type = in.get(bodyStart);
+            if (!(type == GatewayProtocol.NEW_ORDER && length == GatewayProtocol.NEW_ORDER_BYTES)
+                    && !(type == GatewayProtocol.CANCEL && length == GatewayProtocol.CANCEL_BYTES)) {
+                log.warn("Closing order entry session after malformed frame of type {} and length {}", type, length);
+                close(session);
+                return;
+            }
+            if (in.remaining() < GatewayProtocol.LENGTH_BYTES + length) {
+                break;
+            }
+            in.position(bodyStart + 1);
+            if (type == GatewayProtocol.NEW_ORDER) {
+                onNewOrder(session, in);
+            } else {
+                onCancel(session, in);
+            }
+            in.position(bodyStart + length);
+        }
+        in.compact();
+    }
+
+    private void onNewOrder(GatewaySession session, ByteBuffer in) {
+        long decodeStart = System.nanoTime();
+        long clientOrderId = in.getLong();
+        byte side = in.get();
+        String symbol = GatewayProtocol.getSymbol(in);
+        long priceTicks = in.getLong();
+        int quantity = in.getInt();
+        if (symbol.isEmpty() || priceTicks <= 0 || quantity <= 0
+                || (side != GatewayProtocol.SIDE_BUY && side != GatewayProtocol.SIDE_SELL)) {
+            send(session, clientOrderId, 0, GatewayProtocol.STATUS_REJECTED, GatewayProtocol.REASON_INVALID, 0, 0, 0);
+            return;
+        }
+        Order order = Order.builder()
+                .id(idGenerator.nextOrderId())
+                .symbol(symbol)
+                .type(side == GatewayProtocol.SIDE_BUY ? OrderType.BUY : OrderType.SELL)
+                .priceTicks(priceTicks)
+                .quantity(quantity)
+                .timestamp(Instant.now())
+                .isActive(true)
+                .build();
+        stageLatency.record(Stage.DECODE, matchingPipeline.shardOf(symbol), System.nanoTime() - decodeStart);
+        owners.put(order.getId(), new RestingOwner(session, clientOrderId));
+        CompletableFuture<ExecutionReport> result = matchingPipeline.submit(order);
+        result.whenComplete((report, error) -> {
+            if (error != null) {
+                owners.remove(order.getId());
+                reject(session, clientOrderId, order.getId(), error);
+                return;
+            }
+            Order state = report.getOrder();
+            int filled = 0;
+            long lastPrice = 0;
+            for (Trade trade : report.getTrades()) {
+                if (trade.getBuyOrderId() == state.getId() || trade.getSellOrderId() == state.getId()) {
+                    filled += trade.getQuantity();
+                    lastPrice = trade.getPriceTicks();
+                }
+            }
+            byte status;
+            if (!state.isActive()) {
+                owners.remove(state.getId());
+                status = GatewayProtocol.STATUS_FILLED;
+            } else {
+                status = filled > 0 ? GatewayProtocol.STATUS_PARTIALLY_FILLED : GatewayProtocol.STATUS_ACCEPTED;
+            }
+            send(session, clientOrderId, state.getId(), status, GatewayProtocol.REASON_NONE, filled,
+                    state.isActive() ? state.getQuantity() : 0, lastPrice);
+        });
+    }
+
+    private void onCancel(GatewaySession session, ByteBuffer in) {
+        long clientOrderId = in.getLong();
+        long orderId = in.getLong();
+        String symbol = orderBookService.locate(orderId).orElse(null);
+        if (symbol == null) {
+            send(session, clientOrderId, orderId, GatewayProtocol.STATUS_REJECTED,
+                    GatewayProtocol.REASON_UNKNOWN_ORDER, 0, 0, 0);
+            return;
+        }
+        matchingPipeline.cancel(symbol, orderId).whenComplete((report, error) -> {
+            if (error != null) {
+                reject(session, clientOrderId, orderId, error);
+                return;
+            }
+            owners.remove(orderId);
+            send(session, clientOrderId, orderId, GatewayProtocol.STATUS_CANCELLED, GatewayProtocol.REASON_NONE,
+                    0, 0, 0);
+        });
+    }
+
+    private void reject(GatewaySession session, long clientOrderId, long orderId, Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        byte reason;
+        if (cause instanceof OrderNotFoundException) {
+            reason = GatewayProtocol.REASON_UNKNOWN_ORDER;
+        } else if (cause instanceof RiskRejectedException) {
+            reason = GatewayProtocol.REASON_RISK;
+        } else if (cause instanceof IllegalArgumentException) {
+            reason = GatewayProtocol.REASON_INVALID;
+        } else {
+            log.error("Order entry command {} failed", clientOrderId, cause);
+            reason = GatewayProtocol.REASON_INTERNAL;
+        }
+        send(session, clientOrderId, orderId, GatewayProtocol.STATUS_REJECTED, reason, 0, 0, 0);
+    }
+
+    private void send(GatewaySession session, long clientOrderId, long orderId, byte status, byte reason,
+                      int filledQuantity, int leavesQuantity, long lastPriceTicks) {
+        if (!session.offer(clientOrderId, orderId, status, reason, filledQuantity, leavesQuantity, lastPriceTicks)) {
+            log.warn("Order entry session {} is not reading its reports, closing it", session.getChannel());
+            session.close();
+        }
+        if (session.getFlushScheduled().compareAndSet(false, true)) {
+            pendingFlushes.add(session);
+            selector.wakeup();
+        }
+    }
+
+    private void flush(GatewaySession session) {
+        SelectionKey key = session.getChannel().keyFor(selector);
+        if (key == null || !key.isValid()) {
+            return;
+        }
+        if (session.isClosed()) {
+            close(session);
+            return;
+        }
+        try {
+            boolean pending = session.flush();
+            key.interestOps(pending ? SelectionKey.OP_READ | SelectionKey.OP_WRITE : SelectionKey.OP_READ);
+        } catch (IOException e) {
+            close(session);
+        }
+    }
+
+    private void close(GatewaySession session) {
+        session.close();
+        owners.values().removeIf(owner -> owner.session() == session);
+        try {
+            session.getChannel().close();
+        } catch (IOException e) {
+            log.debug("Failed to close order entry session", e);
+        }
+    }
+
+    private record RestingOwner(GatewaySession session, long clientOrderId) {
+    }
+}
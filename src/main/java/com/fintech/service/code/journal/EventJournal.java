@@ -0,0 +1,634 @@
+package com.fintech.service.code.journal;
+
+import com.fintech.service.code.config.EngineProperties;
+import com.fintech.service.code.engine.pipeline.CommandType;
+import com.fintech.service.code.engine.pipeline.OrderCommand;
+import com.fintech.service.code.model.Order;
+import com.fintech.service.code.model.OrderKind;
+import com.fintech.service.code.model.OrderType;
+import com.fintech.service.code.model.Trade;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.LongSupplier;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only, memory-mapped log of every accepted command and the order states and trades it produced.
+ * Records are {@code [length][type][payload][crc32c]} written straight into a preallocated mapped segment and
+ * forced to disk before commands are acknowledged. Unwritten space is zero, so replay stops at the first
+ * zero length, and a torn record fails its checksum.
+ * <p>
+ * Every segment starts with a header record holding a magic number and {@link #FORMAT_VERSION}, the layout of
+ * the records after it. Replay refuses a segment written in another layout, or without a header, rather than
+ * misreading records whose checksums are intact; such a journal has to be recovered with the build that wrote
+ * it and released before upgrading.
+ * <p>
+ * A journal position packs the segment index in the high 32 bits and the offset just after a record in the
+ * low 32 bits, so positions order records across segments. Segments are released once both the database and
+ * the book snapshots are past them, and any connected standby has read them. Only the journal stage thread
+ * appends, flushes and releases.
+ * <p>
+ * A primary ships flushed records to its standbys through {@link Cursor}s; a standby writes them back with
+ * {@link #mirror}, so its segments are byte-identical and positions mean the same on both.
+ */
+@Slf4j
+@Component
+public class EventJournal {
+
+    private static final byte COMMAND_RECORD = 1;
+    private static final byte ORDER_RECORD = 2;
+    private static final byte TRADE_RECORD = 3;
+    private static final byte STOP_RECORD = 4;
+    private static final byte HEADER_RECORD = 5;
+    private static final int MAGIC = 0x4F4D454A;
+    /**
+     * Layout of the records in a segment, raised whenever a record type changes.
+     */
+    public static final short FORMAT_VERSION = 3;
+    private static final int MAX_RECORD_BYTES = 4096;
+    /**
+     * Largest whole record a {@link Cursor} hands out, length and checksum included.
+     */
+    public static final int MAX_FRAME_BYTES = Integer.BYTES + MAX_RECORD_BYTES + Integer.BYTES;
+    private static final String SEGMENT_PREFIX = "journal-";
+    private static final String SEGMENT_SUFFIX = ".log";
+
+    private final Path directory;
+    private final int segmentSize;
+    private final CRC32C crc = new CRC32C();
+    private final Deque<Integer> segmentIndexes = new ArrayDeque<>();
+    private final List<Runnable> flushListeners = new CopyOnWriteArrayList<>();
+    private final List<LongSupplier> retainedPositions = new CopyOnWriteArrayList<>();
+
+    private FileChannel channel;
+    private MappedByteBuffer mapped;
+    private int segmentIndex;
+    private int forcedOffset;
+    private volatile long flushedPosition;
+
+    public EventJournal(EngineProperties properties) {
+        this.directory = Path.of(properties.getJournal().getDirectory());
+        this.segmentSize = (int) Math.min(properties.getJournal().getSegmentSize(), Integer.MAX_VALUE);
+    }
+
+    public static int segmentOf(long position) {
+        return (int) (position >>> 32);
+    }
+
+    public static long position(int segmentIndex, int offset) {
+        return ((long) segmentIndex << 32) | offset;
+    }
+
+    /**
+     * Hands a whole framed record, as read by a {@link Cursor}, to {@code listener}.
+     */
+    public static void decode(long position, ByteBuffer record, JournalListener listener) {
+        dispatch(position, record.slice(Integer.BYTES, record.getInt(0)), listener);
+    }
+
+    /**
+     * Reads every record after {@code fromPosition}, oldest first, and returns the position after the last one.
+     */
+    public long replay(long fromPosition, JournalListener listener) throws IOException {
+        long lastPosition = fromPosition;
+        for (int index : existingSegments()) {
+            if (index < segmentOf(fromPosition)) {
+                continue;
+            }
+            try (FileChannel in = FileChannel.open(segmentPath(index), StandardOpenOption.READ)) {
+                MappedByteBuffer data = in.map(FileChannel.MapMode.READ_ONLY, 0, in.size());
+                skipHeader(index, data);
+                if (index == segmentOf(fromPosition)) {
+                    data.position(Math.max((int) fromPosition, data.position()));
+                }
+                while (data.remaining() > Integer.BYTES) {
+                    int start = data.position();
+                    int length = data.getInt();
+                    if (length < 1 || length > MAX_RECORD_BYTES || data.remaining() < length + Integer.BYTES) {
+                        break;
+                    }
+                    ByteBuffer body = data.slice(start + Integer.BYTES, length);
+                    crc.reset();
+                    crc.update(body.duplicate());
+                    data.position(start + Integer.BYTES + length);
+                    if ((int) crc.getValue() != data.getInt()) {
+                        log.warn("Checksum mismatch in journal segment {} at offset {}, ignoring the rest", index, start);
+                        break;
+                    }
+                    lastPosition = position(index, data.position());
+                    dispatch(lastPosition, body, listener);
+                }
+            }
+        }
+        return lastPosition;
+    }
+
+    /**
+     * Starts appending to a new segment after the ones left by previous runs.
+     */
+    public void open() throws IOException {
+        Files.createDirectories(directory);
+        segmentIndexes.clear();
+        segmentIndexes.addAll(existingSegments());
+        segmentIndex = segmentIndexes.isEmpty() ? 0 : segmentIndexes.peekLast() + 1;
+        openSegment();
+        flushedPosition = position();
+    }
+
+    public long position() {
+        return position(segmentIndex, mapped.position());
+    }
+
+    /**
+     * Position up to which records are on disk and may be read by a {@link Cursor}.
+     */
+    public long getFlushedPosition() {
+        return flushedPosition;
+    }
+
+    /**
+     * Whether there are no segments on disk, as on a fresh standby.
+     */
+    public boolean isEmpty() throws IOException {
+        return existingSegments().isEmpty();
+    }
+
+    /**
+     * Position of the oldest record still on disk.
+     */
+    public long firstPosition() throws IOException {
+        List<Integer> segments = existingSegments();
+        return segments.isEmpty() ? 0 : position(segments.get(0), 0);
+    }
+
+    /**
+     * Runs {@code listener} on the journal thread after every flush.
+     */
+    public void addFlushListener(Runnable listener) {
+        flushListeners.add(listener);
+    }
+
+    /**
+     * Keeps segments from being released while {@code position} still needs them.
+     */
+    public void retain(LongSupplier position) {
+        retainedPositions.add(position);
+    }
+
+    /**
+     * Reads framed records from {@code fromPosition} on, across segments.
+     */
+    public Cursor cursor(long fromPosition) {
+        return new Cursor(fromPosition);
+    }
+
+    /**
+     * Writes a record read from another journal by a {@link Cursor} so that it ends at the same
+     * {@code position}, opening that segment if needed. Used instead of the append methods on a standby.
+     */
+    public void mirror(long position, ByteBuffer record) throws IOException {
+        int segment = segmentOf(position);
+        if (channel == null || segment != segmentIndex) {
+            if (channel != null) {
+                flush();
+                channel.close();
+            } else {
+                segmentIndexes.clear();
+                segmentIndexes.addAll(existingSegments());
+            }
+            Files.createDirectories(directory);
+            segmentIndex = segment;
+            channel = FileChannel.open(segmentPath(segment), StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE);
+            mapped = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+            forcedOffset = 0;
+            if (segmentIndexes.isEmpty() || segmentIndexes.peekLast() < segment) {
+                segmentIndexes.addLast(segment);
+            }
+        }
+        mapped.position((int) position - record.remaining());
+        mapped.put(record);
+    }
+
+    /**
+     * Appends an accepted command. {@code order} supplies the id, symbol, side, kind and time; {@code priceTicks}
+     * and {@code quantity} are the ones the command arrived with, since matching has changed the order's by
+     * now. Absent amend fields are written as -1.
+     */
+    public void appendCommand(CommandType type, Order order, long priceTicks, int quantity) {
+        ByteBuffer out = beginRecord(COMMAND_RECORD);
+        out.put((byte) type.ordinal());
+        out.putLong(order.getId());
+        putString(out, order.getSymbol());
+        out.put((byte) order.getType().ordinal());
+        out.put((byte) order.getKind().ordinal());
+        out.putLong(priceTicks);
+        out.putInt(quantity);
+        putInstant(out, order.getTimestamp());
+        endRecord();
+    }
+
+    /**
+     * Appends an order state, with the account it belongs to, or -1 for none, so recovery restores the account
+     * columns the pre-trade risk counters are seeded from.
+     */
+    public void appendOrder(Order order) {
+        ByteBuffer out = beginRecord(ORDER_RECORD);
+        out.putLong(order.getId());
+        putString(out, order.getSymbol());
+        out.putLong(order.getAccountId() == null ? -1 : order.getAccountId());
+        out.put((byte) order.getType().ordinal());
+        out.put((byte) order.getKind().ordinal());
+        out.putLong(order.getPriceTicks());
+        out.putInt(order.getQuantity());
+        putInstant(out, order.getTimestamp());
+        out.put((byte) (order.isActive() ? 1 : 0));
+        endRecord();
+    }
+
+    /**
+     * Appends the state of a stop order that is waiting for its stop price or was cancelled while waiting, with
+     * its account like {@link #appendOrder}. Replay hands it to {@link JournalListener#onOrder} like any order
+     * state, with its stop kind.
+     */
+    public void appendStop(Order order) {
+        ByteBuffer out = beginRecord(STOP_RECORD);
+        out.putLong(order.getId());
+        putString(out, order.getSymbol());
+        out.putLong(order.getAccountId() == null ? -1 : order.getAccountId());
+        out.put((byte) order.getType().ordinal());
+        out.put((byte) order.getKind().ordinal());
+        out.putLong(order.getPriceTicks());
+        out.putLong(order.getStopPriceTicks());
+        out.putInt(order.getQuantity());
+        putInstant(out, order.getTimestamp());
+        out.put((byte) (order.isActive() ? 1 : 0));
+        endRecord();
+    }
+
+    public void appendTrade(Trade trade) {
+        ByteBuffer out = beginRecord(TRADE_RECORD);
+        out.putLong(trade.getId());
+        putString(out, trade.getSymbol());
+        out.putLong(trade.getPriceTicks());
+        out.putInt(trade.getQuantity());
+        putInstant(out, trade.getTimestamp());
+        out.putLong(trade.getBuyOrderId());
+        out.putLong(trade.getSellOrderId());
+        endRecord();
+    }
+
+    /**
+     * Forces everything appended so far to disk.
+     */
+    public void flush() {
+        int offset = mapped.position();
+        if (offset > forcedOffset) {
+            mapped.force(forcedOffset, offset - forcedOffset);
+            forcedOffset = offset;
+        }
+        flushedPosition = position(segmentIndex, offset);
+        for (Runnable listener : flushListeners) {
+            listener.run();
+        }
+    }
+
+    /**
+     * Deletes segments that end before {@code position}.
+     */
+    public void release(long position) {
+        for (LongSupplier retained : retainedPositions) {
+            position = Math.min(position, retained.getAsLong());
+        }
+        int firstNeeded = segmentOf(position);
+        while (!segmentIndexes.isEmpty() && segmentIndexes.peekFirst() < Math.min(firstNeeded, segmentIndex)) {
+            Path segment = segmentPath(segmentIndexes.pollFirst());
+            try {
+                Files.deleteIfExists(segment);
+            } catch (IOException e) {
+                log.warn("Could not delete journal segment {}", segment, e);
+            }
+        }
+    }
+
+    public void close() throws IOException {
+        if (channel != null) {
+            flush();
+            channel.close();
+        }
+    }
+
+    private void roll() {
+        try {
+            flush();
+            channel.close();
+            segmentIndex++;
+            openSegment();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void openSegment() throws IOException {
+        channel = FileChannel.open(segmentPath(segmentIndex), StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        mapped = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+        forcedOffset = 0;
+        segmentIndexes.addLast(segmentIndex);
+        ByteBuffer out = beginRecord(HEADER_RECORD);
+        out.putInt(MAGIC);
+        out.putShort(FORMAT_VERSION);
+        endRecord();
+    }
+
+    /**
+     * Moves {@code data} past the header record at the start of a segment, leaving it at zero if the segment
+     * is empty.
+     *
+     * @throws IllegalStateException if the segment was written in another format
+     */
+    private static void skipHeader(int segment, ByteBuffer data) {
+        int length = data.remaining() > Integer.BYTES ? data.getInt(0) : 0;
+        if (length == 0) {
+            return;
+        }
+        if (length < 1 || length > MAX_RECORD_BYTES || data.limit() < length + 2 * Integer.BYTES
+                || data.get(Integer.BYTES) != HEADER_RECORD) {
+            throw new IllegalStateException("Journal segment " + segment + " has no format header; it predates "
+                    + "format " + FORMAT_VERSION + " and must be replayed by the build that wrote it");
+        }
+        checkFormat(data.slice(Integer.BYTES + 1, length - 1));
+        data.position(Integer.BYTES + length + Integer.BYTES);
+    }
+
+    private static void checkFormat(ByteBuffer in) {
+        int magic = in.getInt();
+        short version = in.getShort();
+        if (magic != MAGIC || version != FORMAT_VERSION) {
+            throw new IllegalStateException("Journal is in format " + version + ", this build reads format "
+                    + FORMAT_VERSION);
+        }
+    }
+
+    private Path segmentPath(int index) {
+        return directory.resolve(String.format("%s%08d%s", SEGMENT_PREFIX, index, SEGMENT_SUFFIX));
+    }
+
+    private List<Integer> existingSegments() throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            return files
+                    .map(p -> p.getFileName().toString())
+                    .filter(name -> name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX))
+                    .map(name -> Integer.parseInt(name.substring(SEGMENT_PREFIX.length(),
+                            name.length() - SEGMENT_SUFFIX.length())))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private ByteBuffer beginRecord(byte type) {
+        if (mapped.remaining() < MAX_RECORD_BYTES) {
+            roll();
+        }
+        mapped.mark();
+        mapped.putInt(0);
+        mapped.put(type);
+        return mapped;
+    }
+
+    private void endRecord() {
+        int end = mapped.position();
+        mapped.reset();
+        int start = mapped.position();
+        int length = end - start - Integer.BYTES;
+        mapped.putInt(start, length);
+        crc.reset();
+        crc.update(mapped.slice(start + Integer.BYTES, length));
+        mapped.position(end);
+        mapped.putInt((int) crc.getValue());
+    }
+
+    private static void putString(ByteBuffer out, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.putShort((short) bytes.length);
+        out.put(bytes);
+    }
+
+    private static void putInstant(ByteBuffer out, Instant instant) {
+        out.putLong(instant.getEpochSecond());
+        out.putInt(instant.getNano());
+    }
+
+    private static Long getAccountId(ByteBuffer in) {
+        long accountId = in.getLong();
+        return accountId < 0 ? null : accountId;
+    }
+
+    private static String getString(ByteBuffer in) {
+        byte[] bytes = new byte[in.getShort()];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static Instant getInstant(ByteBuffer in) {
+        return Instant.ofEpochSecond(in.getLong(), in.getInt());
+    }
+
+    private static void dispatch(long position, ByteBuffer body, JournalListener listener) {
+        switch (body.get()) {
+            case COMMAND_RECORD -> listener.onCommand(position, readCommand(body));
+            case ORDER_RECORD -> listener.onOrder(position, readOrder(body));
+            case TRADE_RECORD -> listener.onTrade(position, readTrade(body));
+            case STOP_RECORD -> listener.onOrder(position, readStop(body));
+            case HEADER_RECORD -> checkFormat(body);
+            default -> log.warn("Unknown journal record type before position {}", position);
+        }
+    }
+
+    private static OrderCommand readCommand(ByteBuffer in) {
+        OrderCommand command = new OrderCommand();
+        command.setType(CommandType.values()[in.get()]);
+        command.setOrderId(in.getLong());
+        command.setSymbol(getString(in));
+        OrderType side = OrderType.values()[in.get()];
+        OrderKind kind = OrderKind.values()[in.get()];
+        long priceTicks = in.getLong();
+        int quantity = in.getInt();
+        Instant timestamp = getInstant(in);
+        command.setPriceTicks(priceTicks < 0 ? null : priceTicks);
+        command.setQuantity(quantity < 0 ? null : quantity);
+        command.setOrder(Order.builder()
+                .id(command.getOrderId())
+                .symbol(command.getSymbol())
+                .type(side)
+                .kind(kind)
+                .priceTicks(priceTicks)
+                .quantity(quantity)
+                .timestamp(timestamp)
+                .isActive(true)
+                .build());
+        return command;
+    }
+
+    private static Order readOrder(ByteBuffer in) {
+        return Order.builder()
+                .id(in.getLong())
+                .symbol(getString(in))
+                .accountId(getAccountId(in))
+                .type(OrderType.values()[in.get()])
+                .kind(OrderKind.values()[in.get()])
+                .priceTicks(in.getLong())
+                .quantity(in.getInt())
+                .timestamp(getInstant(in))
+                .isActive(in.get() == 1)
+                .build();
+    }
+
+    private static Order readStop(ByteBuffer in) {
+        return Order.builder()
+                .id(in.getLong())
+                .symbol(getString(in))
+                .accountId(getAccountId(in))
+                .type(OrderType.values()[in.get()])
+                .kind(OrderKind.values()[in.get()])
+                .priceTicks(in.getLong())
+                .stopPriceTicks(in.getLong())
+                .quantity(in.getInt())
+                .timestamp(getInstant(in))
+                .isActive(in.get() == 1)
+                .build();
+    }
+
+    private static Trade readTrade(ByteBuffer in) {
+        return Trade.builder()
+                .id(in.getLong())
+                .symbol(getString(in))
+                .priceTicks(in.getLong())
+                .quantity(in.getInt())
+                .timestamp(getInstant(in))
+                .buyOrderId(in.getLong())
+                .sellOrderId(in.getLong())
+                .build();
+    }
+
+    /**
+     * Receives records read by a {@link Cursor}. {@code previousPosition} is the position after the record
+     * before, which differs from where this one starts when the journal rolled in between. {@code record} holds
+     * the whole frame, length and checksum included, and is only valid during the call.
+     */
+    @FunctionalInterface
+    public interface RecordSink {
+        void accept(long previousPosition, long position, ByteBuffer record) throws IOException;
+    }
+
+    /**
+     * Reads framed records in order from a starting position, following the journal across segments.
+     * Independent of the appending thread, so a replication sender can read while the engine writes.
+     */
+    public final class Cursor implements AutoCloseable {
+
+        private final CRC32C checksum = new CRC32C();
+        private long position;
+        private long readAt;
+        private FileChannel in;
+        private MappedByteBuffer data;
+
+        private Cursor(long position) {
+            this.position = position;
+            this.readAt = position;
+        }
+
+        /**
+         * Position just after the last record read.
+         */
+        public long position() {
+            return position;
+        }
+
+        /**
+         * Hands every record ending at or before {@code limit} to {@code sink} and returns how many there were.
+         *
+         * @throws IOException if a segment the cursor needs has already been released
+         */
+        public int read(long limit, RecordSink sink) throws IOException {
+            int records = 0;
+            while (readAt < limit) {
+                int segment = segmentOf(readAt);
+                if (data == null) {
+                    map(segment);
+                }
+                int start = (int) readAt;
+                int length = start + Integer.BYTES <= data.limit() ? data.getInt(start) : 0;
+                if (!intact(start, length)) {
+                    if (segmentOf(limit) == segment) {
+                        return records;
+                    }
+                    unmap();
+                    readAt = EventJournal.position(segment + 1, 0);
+                    continue;
+                }
+                int end = start + Integer.BYTES + length + Integer.BYTES;
+                long next = EventJournal.position(segment, end);
+                if (next > limit) {
+                    return records;
+                }
+                sink.accept(position, next, data.slice(start, end - start));
+                position = next;
+                readAt = next;
+                records++;
+            }
+            return records;
+        }
+
+        @Override
+        public void close() throws IOException {
+            unmap();
+        }
+
+        private boolean intact(int start, int length) {
+            if (length < 1 || length > MAX_RECORD_BYTES
+                    || start + Integer.BYTES + length + Integer.BYTES > data.limit()) {
+                return false;
+            }
+            checksum.reset();
+            checksum.update(data.slice(start + Integer.BYTES, length));
+            return (int) checksum.getValue() == data.getInt(start + Integer.BYTES + length);
+        }
+
+        private void map(int segment) throws IOException {
+            Path path = segmentPath(segment);
+            if (!Files.exists(path)) {
+                throw new IOException("Journal segment " + segment + " is no longer available");
+            }
+            in = FileChannel.open(path, StandardOpenOption.READ);
+            data = in.map(FileChannel.MapMode.READ_ONLY, 0, in.size());
+        }
+
+        private void unmap() throws IOException {
+            if (in != null) {
+                in.close();
+            }
+            in = null;
+            data = null;
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.fintech.service.code.journal;
+
+import com.fintech.service.code.engine.pipeline.OrderCommand;
+import com.fintech.service.code.model.Order;
+import com.fintech.service.code.model.Trade;
+
+/**
+ * Receives journal records during replay. {@code position} is the journal position just after the record, as
+ * returned by {@link EventJournal#position()} when it was written.
+ */
+public interface JournalListener {
+
+    default void onCommand(long position, OrderCommand command) {
+    }
+
+    /**
+     * Order states carry their account and kind; those of stop orders waiting for their stop price or
+     * cancelled while waiting also carry the stop price.
+     */
+    default void onOrder(long position, Order order) {
+    }
+
+    default void onTrade(long position, Trade trade) {
+    }
+}
@@ -0,0 +1,187 @@
+package com.fintech.service.code.journal;
+
+import com.fintech.service.code.engine.EpochClock;
+import com.fintech.service.code.engine.IdGenerator;
+import com.fintech.service.code.engine.book.OrderBook;
+import com.fintech.service.code.engine.book.RestingOrder;
+import com.fintech.service.code.engine.book.StopBook;
+import com.fintech.service.code.engine.book.StopOrder;
+import com.fintech.service.code.engine.pipeline.OrderCommand;
+import com.fintech.service.code.model.Order;
+import com.fintech.service.code.model.Trade;
+import com.fintech.service.code.repository.EngineStateRepository;
+import com.fintech.service.code.service.OrderBookService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Rebuilds engine state on startup without touching JPA. Books are loaded from the latest snapshots and
+ * brought forward by replaying the order states journaled after them; anything journaled after the persisted
+ * checkpoint is written to the database in JDBC batches. The id generator is then seeded past every id seen.
+ * <p>
+ * A standby runs the two halves apart: {@link #restoreBooks} on startup, after which it keeps the books current
+ * with {@link #apply}, and {@link #catchUp} when it is promoted.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class JournalRecovery {
+
+    private static final int RECOVERY_BATCH_SIZE = 10_000;
+
+    private final EventJournal journal;
+    private final SnapshotStore snapshotStore;
+    private final PersistedCheckpoint checkpoint;
+    private final OrderBookService orderBookService;
+    private final EngineStateRepository engineStateRepository;
+    private final IdGenerator idGenerator;
+
+    private Map<String, Long> snapshotPositions = Map.of();
+
+    /**
+     * Recovers books and database and returns the journal position everything is persisted up to.
+     */
+    public long recover() throws IOException {
+        return recover(true, true);
+    }
+
+    /**
+     * Recovers the books only and returns the journal position they are current to.
+     */
+    public long restoreBooks() throws IOException {
+        return recover(true, false);
+    }
+
+    /**
+     * Writes whatever was journaled after the persisted checkpoint to the database and seeds the id generator,
+     * leaving the books as they are. Returns the journal position everything is persisted up to.
+     */
+    public long catchUp() throws IOException {
+        return recover(false, true);
+    }
+
+    /**
+     * Applies an order state journaled at {@code position} unless the snapshot its book was restored from
+     * already covers it.
+     */
+    public void apply(long position, Order order) {
+        if (position > snapshotPositions.getOrDefault(order.getSymbol(), -1L)) {
+            apply(order);
+        }
+    }
+
+    /**
+     * Takes the price of a trade journaled at {@code position} as its symbol's last price, which decides whether
+     * new stop orders fire on arrival, unless the snapshot its book was restored from already covers it.
+     */
+    public void apply(long position, Trade trade) {
+        if (position > snapshotPositions.getOrDefault(trade.getSymbol(), -1L)) {
+            orderBookService.getStops(trade.getSymbol()).restoreLastPrice(trade.getPriceTicks());
+        }
+    }
+
+    private long recover(boolean books, boolean database) throws IOException {
+        long start = System.nanoTime();
+        if (books) {
+            snapshotPositions = snapshotStore.load(orderBookService);
+        }
+        long persisted = database ? checkpoint.read() : Long.MAX_VALUE;
+
+        Map<Long, Order> orders = new LinkedHashMap<>();
+        List<Trade> trades = new ArrayList<>();
+        long[] maxIds = new long[2];
+        long end = journal.replay(0, new JournalListener() {
+            @Override
+            public void onCommand(long position, OrderCommand command) {
+                maxIds[0] = Math.max(maxIds[0], command.getOrderId());
+            }
+
+            @Override
+            public void onOrder(long position, Order order) {
+                if (position > persisted) {
+                    orders.put(order.getId(), order);
+                }
+                if (books) {
+                    apply(position, order);
+                }
+            }
+
+            @Override
+            public void onTrade(long position, Trade trade) {
+                if (position > persisted) {
+                    trades.add(trade);
+                }
+                maxIds[1] = Math.max(maxIds[1], trade.getId());
+                if (books) {
+                    apply(position, trade);
+                }
+            }
+        });
+
+        if (!database) {
+            int resting = orderBookService.getBooks().stream().mapToInt(OrderBook::size).sum();
+            log.info("Restored {} resting orders from {} snapshot books and the journal in {} ms", resting,
+                    snapshotPositions.size(), (System.nanoTime() - start) / 1_000_000);
+            return end;
+        }
+
+        List<Order> orderList = new ArrayList<>(orders.values());
+        for (int i = 0; i < orderList.size(); i += RECOVERY_BATCH_SIZE) {
+            engineStateRepository.write(
+                    orderList.subList(i, Math.min(i + RECOVERY_BATCH_SIZE, orderList.size())), List.of());
+        }
+        for (int i = 0; i < trades.size(); i += RECOVERY_BATCH_SIZE) {
+            engineStateRepository.write(
+                    List.of(), trades.subList(i, Math.min(i + RECOVERY_BATCH_SIZE, trades.size())));
+        }
+        checkpoint.write(Math.max(end, persisted));
+
+        idGenerator.seed(Math.max(engineStateRepository.maxOrderId(), maxIds[0]),
+                Math.max(engineStateRepository.maxTradeId(), maxIds[1]));
+        int resting = orderBookService.getBooks().stream().mapToInt(OrderBook::size).sum();
+        log.info("Recovered {} resting orders from {} snapshot books and wrote {} orders and {} trades from the "
+                        + "journal in {} ms", resting, books ? snapshotPositions.size() : 0, orders.size(),
+                trades.size(), (System.nanoTime() - start) / 1_000_000);
+        return Math.max(end, persisted);
+    }
+
+    /**
+     * Applies a journaled order state with the same priority rules as the engine: a reduction at the same
+     * price stays in place, any other change goes to the back of its level. A waiting stop goes to the back of
+     * its trigger level, and any later state of a stop means it left the trigger index.
+     */
+    private void apply(Order order) {
+        StopBook stops = orderBookService.getStops(order.getSymbol());
+        stops.remove(order.getId());
+        if (order.getKind().isStop()) {
+            if (order.isActive()) {
+                stops.add(new StopOrder(order.getId(), order.getType(), order.getKind(), order.getPriceTicks(),
+                        order.getStopPriceTicks(), order.getQuantity(), EpochClock.toNanos(order.getTimestamp())));
+            }
+            return;
+        }
+        OrderBook book = orderBookService.getBook(order.getSymbol());
+        RestingOrder resting = book.get(order.getId());
+        boolean rests = order.isActive() && order.getQuantity() > 0;
+        if (resting != null) {
+            if (rests && resting.getPrice() == order.getPriceTicks() && order.getQuantity() <= resting.getQuantity()) {
+                if (order.getQuantity() < resting.getQuantity()) {
+                    book.reduce(order.getId(), resting.getQuantity() - order.getQuantity());
+                }
+                return;
+            }
+            book.remove(order.getId());
+        }
+        if (rests) {
+            book.add(order.getId(), order.getType(), order.getKind(), order.getPriceTicks(), order.getQuantity(),
+                    EpochClock.toNanos(order.getTimestamp()));
+        }
+    }
+}
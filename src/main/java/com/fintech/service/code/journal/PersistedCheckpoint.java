@@ -0,0 +1,41 @@
+package com.fintech.service.code.journal;
+
+import com.fintech.service.code.config.EngineProperties;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Journal position up to which everything is known to be in the database. Written after each committed
+ * flush; losing the latest write only means replaying a little more into the database on recovery.
+ */
+@Component
+public class PersistedCheckpoint {
+
+    private final Path file;
+    private final Path temp;
+
+    public PersistedCheckpoint(EngineProperties properties) {
+        Path directory = Path.of(properties.getJournal().getDirectory());
+        this.file = directory.resolve("persisted.position");
+        this.temp = directory.resolve("persisted.position.tmp");
+    }
+
+    public long read() throws IOException {
+        return Files.exists(file) ? Long.parseLong(Files.readString(file).trim()) : 0;
+    }
+
+    public void write(long position) {
+        try {
+            Files.createDirectories(file.getParent());
+            Files.writeString(temp, Long.toString(position));
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,307 @@
+package com.fintech.service.code.journal;
+
+import com.fintech.service.code.config.EngineProperties;
+import com.fintech.service.code.engine.book.OrderBook;
+import com.fintech.service.code.engine.book.StopBook;
+import com.fintech.service.code.engine.book.StopOrder;
+import com.fintech.service.code.model.OrderKind;
+import com.fintech.service.code.model.OrderType;
+import com.fintech.service.code.service.OrderBookService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Binary snapshots of the books owned by each matching shard, so recovery only replays the journal written
+ * after them. A shard encodes its books on its own thread, which gives a consistent cut at a known journal
+ * position, and the file is written here on a background thread and swapped in atomically.
+ * <p>
+ * Orders are stored per side from the best level down and in time priority within a level, so loading them
+ * in file order rebuilds the same queues. Each book is followed by its symbol's last trade price and waiting
+ * stop orders in firing order; files from before stop orders have neither and still load. Orders carry their
+ * kind, and those of older files load as limit orders. A primary ships the
+ * files as they are to its standbys, which install them under the same names.
+ */
+@Slf4j
+@Component
+public class SnapshotStore {
+
+    private static final int MAGIC = 0x4F424B53;
+    private static final int VERSION = 3;
+    private static final int KINDLESS_VERSION = 2;
+    private static final int STOPLESS_VERSION = 1;
+    private static final int HEADER_BYTES = Integer.BYTES * 2 + Long.BYTES;
+    private static final int ORDER_BYTES = Long.BYTES + 2 + Long.BYTES + Integer.BYTES + Long.BYTES + Integer.BYTES;
+    private static final int STOP_BYTES = Long.BYTES + 2 + Long.BYTES * 2 + Integer.BYTES + Long.BYTES + Integer.BYTES;
+    private static final String PREFIX = "snapshot-";
+    private static final String SUFFIX = ".bin";
+
+    private final Path directory;
+    private final Map<Integer, Long> positions = new ConcurrentHashMap<>();
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "engine-snapshot-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public SnapshotStore(EngineProperties properties) {
+        this.directory = Path.of(properties.getJournal().getDirectory()).resolve("snapshots");
+    }
+
+    /**
+     * Encodes the given books with their stop orders. Must run on the thread that owns them.
+     */
+    public static ByteBuffer encode(Collection<OrderBook> books, OrderBookService orderBookService) {
+        int size = Integer.BYTES;
+        for (OrderBook book : books) {
+            StopBook stops = orderBookService.findStops(book.getSymbol());
+            size += Short.BYTES + book.getSymbol().getBytes(StandardCharsets.UTF_8).length + Integer.BYTES
+                    + book.size() * ORDER_BYTES + Long.BYTES + Integer.BYTES
+                    + (stops == null ? 0 : stops.size() * STOP_BYTES);
+        }
+        ByteBuffer out = ByteBuffer.allocateDirect(size);
+        out.putInt(books.size());
+        for (OrderBook book : books) {
+            byte[] symbol = book.getSymbol().getBytes(StandardCharsets.UTF_8);
+            out.putShort((short) symbol.length);
+            out.put(symbol);
+            out.putInt(book.size());
+            putSide(out, book, OrderType.BUY);
+            putSide(out, book, OrderType.SELL);
+            putStops(out, orderBookService.findStops(book.getSymbol()));
+        }
+        return out.flip();
+    }
+
+    /**
+     * Writes a shard snapshot taken at journal {@code position} in the background.
+     */
+    public void store(int shardId, long position, ByteBuffer data) {
+        writer.execute(() -> {
+            Path target = path(shardId);
+            Path temp = directory.resolve(PREFIX + shardId + ".tmp");
+            try {
+                Files.createDirectories(directory);
+                try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE,
+                        StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                    ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).putInt(MAGIC).putInt(VERSION)
+                            .putLong(position).flip();
+                    while (header.hasRemaining()) {
+                        out.write(header);
+                    }
+                    while (data.hasRemaining()) {
+                        out.write(data);
+                    }
+                    out.force(true);
+                }
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                positions.put(shardId, position);
+            } catch (IOException e) {
+                log.error("Failed to write book snapshot of shard {}", shardId, e);
+            }
+        });
+    }
+
+    /**
+     * Lowest journal position covered by the latest snapshot of every shard, or 0 while any shard has none.
+     */
+    public long floor(int shards) {
+        long floor = Long.MAX_VALUE;
+        for (int shard = 0; shard < shards; shard++) {
+            Long position = positions.get(shard);
+            if (position == null) {
+                return 0;
+            }
+            floor = Math.min(floor, position);
+        }
+        return floor;
+    }
+
+    /**
+     * Journal position of the latest snapshot of {@code shardId}, or -1 while it has none.
+     */
+    public long position(int shardId) {
+        return positions.getOrDefault(shardId, -1L);
+    }
+
+    /**
+     * Raw contents of the latest snapshot file of {@code shardId}, header included.
+     */
+    public byte[] read(int shardId) throws IOException {
+        return Files.readAllBytes(path(shardId));
+    }
+
+    /**
+     * Replaces the snapshot of {@code shardId} with a file produced by {@link #read} on another node and returns
+     * the journal position it was taken at.
+     */
+    public long install(int shardId, byte[] file) throws IOException {
+        ByteBuffer header = ByteBuffer.wrap(file);
+        if (file.length < HEADER_BYTES || header.getInt() != MAGIC || !readable(header.getInt())) {
+            throw new IOException("Unreadable book snapshot of shard " + shardId);
+        }
+        long position = header.getLong();
+        Path temp = directory.resolve(PREFIX + shardId + ".tmp");
+        Files.createDirectories(directory);
+        try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer data = ByteBuffer.wrap(file);
+            while (data.hasRemaining()) {
+                out.write(data);
+            }
+            out.force(true);
+        }
+        Files.move(temp, path(shardId), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        positions.put(shardId, position);
+        return position;
+    }
+
+    /**
+     * Loads the latest snapshots into the books and returns, per symbol, the journal position its book was
+     * taken at. When a symbol appears in several files the most recent one wins.
+     */
+    public Map<String, Long> load(OrderBookService orderBookService) throws IOException {
+        Map<String, Long> loaded = new HashMap<>();
+        if (!Files.isDirectory(directory)) {
+            return loaded;
+        }
+        List<Snapshot> snapshots = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : files.filter(p -> p.getFileName().toString().endsWith(SUFFIX)).toList()) {
+                Snapshot snapshot = open(file);
+                if (snapshot != null) {
+                    snapshots.add(snapshot);
+                }
+            }
+        }
+        snapshots.sort(Comparator.comparingLong(Snapshot::position).reversed());
+        for (Snapshot snapshot : snapshots) {
+            positions.put(snapshot.shardId(), snapshot.position());
+            ByteBuffer in = snapshot.data();
+            int bookCount = in.getInt();
+            for (int b = 0; b < bookCount; b++) {
+                byte[] symbolBytes = new byte[in.getShort()];
+                in.get(symbolBytes);
+                String symbol = new String(symbolBytes, StandardCharsets.UTF_8);
+                int orderCount = in.getInt();
+                boolean apply = !loaded.containsKey(symbol);
+                if (apply) {
+                    loaded.put(symbol, snapshot.position());
+                }
+                OrderBook book = apply ? orderBookService.getBook(symbol) : null;
+                for (int i = 0; i < orderCount; i++) {
+                    long orderId = in.getLong();
+                    OrderType side = OrderType.values()[in.get()];
+                    OrderKind kind = snapshot.version() == VERSION ? OrderKind.values()[in.get()] : OrderKind.LIMIT;
+                    long price = in.getLong();
+                    int quantity = in.getInt();
+                    long timestampNanos = in.getLong() * 1_000_000_000L + in.getInt();
+                    if (apply) {
+                        book.add(orderId, side, kind, price, quantity, timestampNanos);
+                    }
+                }
+                if (snapshot.version() != STOPLESS_VERSION) {
+                    loadStops(in, apply ? orderBookService.getStops(symbol) : null);
+                }
+            }
+        }
+        return loaded;
+    }
+
+    public void close() throws InterruptedException {
+        writer.shutdown();
+        writer.awaitTermination(30, TimeUnit.SECONDS);
+    }
+
+    private Path path(int shardId) {
+        return directory.resolve(PREFIX + shardId + SUFFIX);
+    }
+
+    private static void putSide(ByteBuffer out, OrderBook book, OrderType side) {
+        book.forEach(side, (orderId, orderSide, kind, price, quantity, timestampNanos) -> {
+            out.putLong(orderId);
+            out.put((byte) orderSide.ordinal());
+            out.put((byte) kind.ordinal());
+            out.putLong(price);
+            out.putInt(quantity);
+            out.putLong(Math.floorDiv(timestampNanos, 1_000_000_000L));
+            out.putInt((int) Math.floorMod(timestampNanos, 1_000_000_000L));
+        });
+    }
+
+    private static void putStops(ByteBuffer out, StopBook stops) {
+        out.putLong(stops == null ? OrderBook.NO_PRICE : stops.getLastPrice());
+        out.putInt(stops == null ? 0 : stops.size());
+        if (stops != null) {
+            stops.forEach(stop -> {
+                out.putLong(stop.getOrderId());
+                out.put((byte) stop.getSide().ordinal());
+                out.put((byte) stop.getKind().ordinal());
+                out.putLong(stop.getPrice());
+                out.putLong(stop.getStopPrice());
+                out.putInt(stop.getQuantity());
+                out.putLong(Math.floorDiv(stop.getTimestampNanos(), 1_000_000_000L));
+                out.putInt((int) Math.floorMod(stop.getTimestampNanos(), 1_000_000_000L));
+            });
+        }
+    }
+
+    /**
+     * Reads a book's stop section into {@code stops}, or skips it when {@code stops} is {@code null}.
+     */
+    private static void loadStops(ByteBuffer in, StopBook stops) {
+        long lastPrice = in.getLong();
+        int stopCount = in.getInt();
+        if (stops != null) {
+            stops.restoreLastPrice(lastPrice);
+        }
+        for (int i = 0; i < stopCount; i++) {
+            StopOrder stop = new StopOrder(in.getLong(), OrderType.values()[in.get()], OrderKind.values()[in.get()],
+                    in.getLong(), in.getLong(), in.getInt(), in.getLong() * 1_000_000_000L + in.getInt());
+            if (stops != null) {
+                stops.add(stop);
+            }
+        }
+    }
+
+    private static boolean readable(int version) {
+        return version == VERSION || version == KINDLESS_VERSION || version == STOPLESS_VERSION;
+    }
+
+    private static Snapshot open(Path file) throws IOException {
+        String name = file.getFileName().toString();
+        int shardId = Integer.parseInt(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+        try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer data = in.map(FileChannel.MapMode.READ_ONLY, 0, in.size());
+            int version = data.remaining() < HEADER_BYTES || data.getInt() != MAGIC ? -1 : data.getInt();
+            if (!readable(version)) {
+                log.warn("Ignoring unreadable book snapshot {}", file);
+                return null;
+            }
+            return new Snapshot(shardId, version, data.getLong(), data);
+        }
+    }
+
+    private record Snapshot(int shardId, int version, long position, ByteBuffer data) {
+    }
+}
@@ -0,0 +1,53 @@
+package com.fintech.service.code.marketdata;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * One STOMP subscription to a symbol's book topic. At most one message is in flight per subscription; deltas
+ * published meanwhile are merged into a single pending delta, so a slow consumer receives the latest state
+ * once it catches up instead of queueing every intermediate update.
+ */
+@Getter
+@RequiredArgsConstructor
+public class BookSubscriber {
+    private final String sessionId;
+    private final String subscriptionId;
+    private final String symbol;
+    private boolean inFlight;
+    private DepthDelta pending;
+
+    /**
+     * Returns the delta to send now, or {@code null} if a message is still in flight and the delta was
+     * conflated into the pending one.
+     */
+    public synchronized DepthDelta offer(DepthDelta delta) {
+        if (inFlight) {
+            pending = pending == null ? delta : pending.merge(delta);
+            return null;
+        }
+        inFlight = true;
+        return delta;
+    }
+
+    /**
+     * Called once the in-flight message was handed to the session. Returns the pending delta to send next,
+     * or {@code null} if the subscription is idle again.
+     */
+    public synchronized DepthDelta delivered() {
+        DepthDelta next = pending;
+        pending = null;
+        inFlight = next != null;
+        return next;
+    }
+
+    /**
+     * Called when the in-flight message could not be sent. The subscription goes idle with nothing pending, so
+     * the next delta is sent straight away; the client sees the gap in the sequence and the next snapshot
+     * brings it back in line.
+     */
+    public synchronized void failed() {
+        pending = null;
+        inFlight = false;
+    }
+}
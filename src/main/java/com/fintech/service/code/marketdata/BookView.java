@@ -0,0 +1,106 @@
+package com.fintech.service.code.marketdata;
+
+import com.fintech.service.code.engine.book.OrderBook;
+import lombok.Getter;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Immutable L2 picture of one symbol as of a publish slice: aggregated levels in parallel arrays, best price
+ * first. Built once per slice for symbols that changed and then shared by every reader, so polling the book
+ * takes no lock and never touches the live book or its mirror.
+ */
+public final class BookView {
+
+    @Getter
+    private final String symbol;
+    @Getter
+    private final long sequence;
+    @Getter
+    private final Instant publishedAt;
+    private final long[] bidPrices;
+    private final long[] bidQuantities;
+    private final long[] askPrices;
+    private final long[] askQuantities;
+
+    private BookView(String symbol, long sequence, Instant publishedAt, long[] bidPrices, long[] bidQuantities,
+                     long[] askPrices, long[] askQuantities) {
+        this.symbol = symbol;
+        this.sequence = sequence;
+        this.publishedAt = publishedAt;
+        this.bidPrices = bidPrices;
+        this.bidQuantities = bidQuantities;
+        this.askPrices = askPrices;
+        this.askQuantities = askQuantities;
+    }
+
+    static BookView of(String symbol, long sequence, Map<Long, Long> bids, Map<Long, Long> asks) {
+        long[] bidPrices = sortedPrices(bids);
+        long[] askPrices = sortedPrices(asks);
+        for (int low = 0, high = bidPrices.length - 1; low < high; low++, high--) {
+            long price = bidPrices[low];
+            bidPrices[low] = bidPrices[high];
+            bidPrices[high] = price;
+        }
+        return new BookView(symbol, sequence, Instant.now(), bidPrices, quantities(bidPrices, bids), askPrices,
+                quantities(askPrices, asks));
+    }
+
+    public int getBidLevels() {
+        return bidPrices.length;
+    }
+
+    public int getAskLevels() {
+        return askPrices.length;
+    }
+
+    /**
+     * Price in ticks of the bid level at {@code depth}, zero being the best.
+     */
+    public long getBidPrice(int depth) {
+        return bidPrices[depth];
+    }
+
+    public long getBidQuantity(int depth) {
+        return bidQuantities[depth];
+    }
+
+    public long getAskPrice(int depth) {
+        return askPrices[depth];
+    }
+
+    public long getAskQuantity(int depth) {
+        return askQuantities[depth];
+    }
+
+    /**
+     * Best bid in ticks, or {@link OrderBook#NO_PRICE} when there are no bids.
+     */
+    public long getBestBid() {
+        return bidPrices.length == 0 ? OrderBook.NO_PRICE : bidPrices[0];
+    }
+
+    public long getBestAsk() {
+        return askPrices.length == 0 ? OrderBook.NO_PRICE : askPrices[0];
+    }
+
+    private static long[] sortedPrices(Map<Long, Long> levels) {
+        long[] prices = new long[levels.size()];
+        int i = 0;
+        for (long price : levels.keySet()) {
+            prices[i++] = price;
+        }
+        Arrays.sort(prices);
+        return prices;
+    }
+
+    private static long[] quantities(long[] prices, Map<Long, Long> levels) {
+        long[] quantities = new long[prices.length];
+        for (int i = 0; i < prices.length; i++) {
+            quantities[i] = levels.get(prices[i]);
+        }
+        return quantities;
+    }
+}
@@ -0,0 +1,126 @@
+package com.fintech.service.code.marketdata;
+
+import com.fintech.service.code.engine.book.OrderBook;
+import com.fintech.service.code.model.Order;
+import com.fintech.service.code.model.OrderType;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * L2 mirror of one symbol's book, rebuilt on the publication thread from the order states in each execution
+ * so the matching thread never shares its book. Levels changed since the last {@link #drain()} are kept as
+ * their latest aggregated quantity, which conflates a burst of fills on one level into a single update.
+ * <p>
+ * Guarded by its own monitor: the publication thread applies orders while the publisher thread drains and
+ * fans out, and subscribers are registered under the same lock so a new subscriber's snapshot is always
+ * ordered before the next delta it receives.
+ */
+public class DepthBook {
+
+    private final String symbol;
+    private final Map<Long, RestingState> orders = new HashMap<>();
+    private final Map<Long, Long> bids = new HashMap<>();
+    private final Map<Long, Long> asks = new HashMap<>();
+    private Map<Long, Long> changedBids = new HashMap<>();
+    private Map<Long, Long> changedAsks = new HashMap<>();
+    private long sequence;
+    private final List<BookSubscriber> subscribers = new ArrayList<>();
+
+    public DepthBook(String symbol) {
+        this.symbol = symbol;
+    }
+
+    public String getSymbol() {
+        return symbol;
+    }
+
+    /**
+     * Seeds the mirror from a recovered book before matching starts, without producing a delta.
+     */
+    public synchronized void restore(OrderBook book) {
+        OrderBook.OrderVisitor restore = (orderId, side, kind, price, quantity, timestampNanos) -> {
+            orders.put(orderId, new RestingState(side, price, quantity));
+            adjust(side, price, quantity);
+        };
+        book.forEach(OrderType.BUY, restore);
+        book.forEach(OrderType.SELL, restore);
+        changedBids.clear();
+        changedAsks.clear();
+    }
+
+    /**
+     * Applies the state of an order after a command: it rests with its remaining quantity while active, and
+     * leaves the book otherwise. Handles fills, cancels, reductions and re-priced amends alike.
+     */
+    public synchronized void update(Order order) {
+        RestingState previous = orders.remove(order.getId());
+        if (previous != null) {
+            adjust(previous.side(), previous.price(), -previous.quantity());
+        }
+        if (order.isActive() && order.getQuantity() > 0) {
+            RestingState current = new RestingState(order.getType(), order.getPriceTicks(), order.getQuantity());
+            orders.put(order.getId(), current);
+            adjust(current.side(), current.price(), current.quantity());
+        }
+    }
+
+    /**
+     * Levels changed since the previous drain, or {@code null} if nothing changed.
+     */
+    public synchronized DepthDelta drain() {
+        if (changedBids.isEmpty() && changedAsks.isEmpty()) {
+            return null;
+        }
+        DepthDelta delta = new DepthDelta(symbol, ++sequence, false, changedBids, changedAsks);
+        changedBids = new HashMap<>();
+        changedAsks = new HashMap<>();
+        return delta;
+    }
+
+    /**
+     * Every current level, tagged with the sequence of the last drain. It may already include changes that
+     * the next delta carries again, which is harmless since deltas hold absolute quantities.
+     */
+    public synchronized DepthDelta snapshot() {
+        return new DepthDelta(symbol, sequence, true, new HashMap<>(bids), new HashMap<>(asks));
+    }
+
+    /**
+     * Immutable copy of every current level for readers, tagged with the sequence of the last drain.
+     */
+    public synchronized BookView view() {
+        return BookView.of(symbol, sequence, bids, asks);
+    }
+
+    public synchronized void subscribe(BookSubscriber subscriber) {
+        subscribers.add(subscriber);
+    }
+
+    public synchronized void unsubscribe(BookSubscriber subscriber) {
+        subscribers.remove(subscriber);
+    }
+
+    /**
+     * Only valid while holding this book's monitor.
+     */
+    public List<BookSubscriber> getSubscribers() {
+        return subscribers;
+    }
+
+    private void adjust(OrderType side, long price, long quantity) {
+        Map<Long, Long> levels = side == OrderType.BUY ? bids : asks;
+        long total = levels.getOrDefault(price, 0L) + quantity;
+        if (total == 0) {
+            levels.remove(price);
+        } else {
+            levels.put(price, total);
+        }
+        (side == OrderType.BUY ? changedBids : changedAsks).put(price, total);
+    }
+
+    private record RestingState(OrderType side, long price, long quantity) {
+    }
+}
@@ -0,0 +1,45 @@
+package com.fintech.service.code.marketdata;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * L2 levels of one symbol keyed by price in ticks, each with its absolute aggregated quantity. In an
+ * incremental delta a quantity of zero removes the level; a snapshot delta carries every level.
+ * <p>
+ * Because an entry replaces its level outright, a later delta merges into an earlier one key by key. That is
+ * what lets a slow subscriber skip intermediate states and still end up with the latest book.
+ */
+@Getter
+@AllArgsConstructor
+public class DepthDelta {
+    private final String symbol;
+    private final long sequence;
+    private final boolean snapshot;
+    private final Map<Long, Long> bids;
+    private final Map<Long, Long> asks;
+
+    public DepthDelta merge(DepthDelta next) {
+        if (next.snapshot) {
+            return next;
+        }
+        Map<Long, Long> mergedBids = new HashMap<>(bids);
+        Map<Long, Long> mergedAsks = new HashMap<>(asks);
+        mergeLevels(mergedBids, next.bids);
+        mergeLevels(mergedAsks, next.asks);
+        return new DepthDelta(symbol, next.sequence, snapshot, mergedBids, mergedAsks);
+    }
+
+    private void mergeLevels(Map<Long, Long> into, Map<Long, Long> changes) {
+        changes.forEach((price, quantity) -> {
+            if (snapshot && quantity == 0) {
+                into.remove(price);
+            } else {
+                into.put(price, quantity);
+            }
+        });
+    }
+}
@@ -0,0 +1,257 @@
+package com.fintech.service.code.marketdata;
+
+import com.fintech.service.code.config.EngineProperties;
+import com.fintech.service.code.dto.BookUpdateMessage;
+import com.fintech.service.code.dto.PriceLevelUpdate;
+import com.fintech.service.code.engine.PriceScale;
+import com.fintech.service.code.engine.book.OrderBook;
+import com.fintech.service.code.model.Order;
+import com.fintech.service.code.websocket.BinaryStreamHandler;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.MessagingException;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.support.AbstractSubscribableChannel;
+import org.springframework.messaging.support.ExecutorChannelInterceptor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+import org.springframework.web.socket.messaging.SessionUnsubscribeEvent;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * L2 market data on {@code /topic/book/{symbol}}. The publication stage feeds every execution into a
+ * per-symbol {@link DepthBook}; a publisher thread drains the changed levels once per time slice and sends
+ * them as one update per symbol, with a full snapshot every few slices and to each new subscriber.
+ * <p>
+ * Book messages bypass the simple broker and go straight to each subscriber's session on the client outbound
+ * channel. This class watches that channel to learn when a message was handed off, and holds back further
+ * updates for a subscription until then, conflating them per symbol.
+ * <p>
+ * Each slice also replaces the {@link BookView} of every symbol that changed, which is what REST readers are
+ * served: polling the book costs a map lookup, however often it happens. Clients on the binary protocol get
+ * the same slices from {@link BinaryStreamHandler}, encoded once per symbol.
+ */
+@Slf4j
+@Component
+public class MarketDataPublisher implements ExecutorChannelInterceptor {
+
+    public static final String DESTINATION_PREFIX = "/topic/book/";
+
+    private final EngineProperties properties;
+    private final PriceScale priceScale;
+    private final AbstractSubscribableChannel clientOutboundChannel;
+    private final SimpMessagingTemplate outboundTemplate;
+    private final BinaryStreamHandler binaryStream;
+
+    private final Map<String, DepthBook> books = new ConcurrentHashMap<>();
+    private final Map<String, BookView> views = new ConcurrentHashMap<>();
+    private final Map<String, Map<String, BookSubscriber>> sessions = new ConcurrentHashMap<>();
+    private ScheduledExecutorService scheduler;
+    private long slices;
+
+    public MarketDataPublisher(EngineProperties properties, PriceScale priceScale,
+                               @Qualifier("clientOutboundChannel") AbstractSubscribableChannel clientOutboundChannel,
+                               SimpMessagingTemplate messagingTemplate, BinaryStreamHandler binaryStream) {
+        this.properties = properties;
+        this.priceScale = priceScale;
+        this.clientOutboundChannel = clientOutboundChannel;
+        this.outboundTemplate = new SimpMessagingTemplate(clientOutboundChannel);
+        this.outboundTemplate.setMessageConverter(messagingTemplate.getMessageConverter());
+        this.binaryStream = binaryStream;
+    }
+
+    @PostConstruct
+    public void start() {
+        clientOutboundChannel.addInterceptor(this);
+        long interval = properties.getMarketData().getPublishInterval().toMillis();
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "market-data-publisher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleAtFixedRate(this::publish, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * Seeds the depth mirrors from the recovered books. Only call before the matching shards start.
+     */
+    public void recovered(Collection<OrderBook> recoveredBooks) {
+        for (OrderBook book : recoveredBooks) {
+            DepthBook depthBook = book(book.getSymbol());
+            depthBook.restore(book);
+            views.put(book.getSymbol(), depthBook.view());
+        }
+    }
+
+    /**
+     * Book of a symbol as of the last publish slice, or {@code null} if it never had an order.
+     */
+    public BookView view(String symbol) {
+        return views.get(symbol);
+    }
+
+    public Collection<BookView> views() {
+        return views.values();
+    }
+
+    /**
+     * Called on the publication thread with the state of every order a command touched. Stop orders are not
+     * in the depth until triggered, when they come back as limit or market orders.
+     */
+    public void onExecution(Order order, List<Order> restingOrders) {
+        DepthBook book = book(order.getSymbol());
+        if (!order.getKind().isStop()) {
+            book.update(order);
+        }
+        for (Order resting : restingOrders) {
+            book.update(resting);
+        }
+    }
+
+    @EventListener
+    public void onSubscribe(SessionSubscribeEvent event) {
+        SimpMessageHeaderAccessor headers = SimpMessageHeaderAccessor.wrap(event.getMessage());
+        String destination = headers.getDestination();
+        if (destination == null || !destination.startsWith(DESTINATION_PREFIX)) {
+            return;
+        }
+        BookSubscriber subscriber = new BookSubscriber(headers.getSessionId(), headers.getSubscriptionId(),
+                destination.substring(DESTINATION_PREFIX.length()));
+        sessions.computeIfAbsent(subscriber.getSessionId(), id -> new ConcurrentHashMap<>())
+                .put(subscriber.getSubscriptionId(), subscriber);
+        DepthBook book = book(subscriber.getSymbol());
+        synchronized (book) {
+            book.subscribe(subscriber);
+            offer(subscriber, book.snapshot());
+        }
+    }
+
+    @EventListener
+    public void onUnsubscribe(SessionUnsubscribeEvent event) {
+        SimpMessageHeaderAccessor headers = SimpMessageHeaderAccessor.wrap(event.getMessage());
+        Map<String, BookSubscriber> subscriptions = sessions.get(headers.getSessionId());
+        if (subscriptions != null) {
+            unsubscribe(subscriptions.remove(headers.getSubscriptionId()));
+        }
+    }
+
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent event) {
+        Map<String, BookSubscriber> subscriptions = sessions.remove(event.getSessionId());
+        if (subscriptions != null) {
+            subscriptions.values().forEach(this::unsubscribe);
+        }
+    }
+
+    @Override
+    public void afterMessageHandled(Message<?> message, MessageChannel channel, MessageHandler handler,
+                                    Exception ex) {
+        String destination = SimpMessageHeaderAccessor.getDestination(message.getHeaders());
+        if (destination == null || !destination.startsWith(DESTINATION_PREFIX)) {
+            return;
+        }
+        Map<String, BookSubscriber> subscriptions =
+                sessions.get(SimpMessageHeaderAccessor.getSessionId(message.getHeaders()));
+        BookSubscriber subscriber = subscriptions == null ? null
+                : subscriptions.get(SimpMessageHeaderAccessor.getSubscriptionId(message.getHeaders()));
+        if (subscriber != null) {
+            DepthDelta next = subscriber.delivered();
+            if (next != null) {
+                send(subscriber, next);
+            }
+        }
+    }
+
+    private void publish() {
+        boolean snapshotDue = ++slices % snapshotEvery() == 0;
+        for (DepthBook book : books.values()) {
+            synchronized (book) {
+                DepthDelta delta = book.drain();
+                if (delta != null) {
+                    views.put(delta.getSymbol(), book.view());
+                }
+                binaryStream.publishBook(book.getSymbol(), delta, book::snapshot);
+                if (snapshotDue && !book.getSubscribers().isEmpty()) {
+                    delta = book.snapshot();
+                }
+                if (delta != null) {
+                    for (BookSubscriber subscriber : book.getSubscribers()) {
+                        offer(subscriber, delta);
+                    }
+                }
+            }
+        }
+    }
+
+    private long snapshotEvery() {
+        EngineProperties.MarketData marketData = properties.getMarketData();
+        return Math.max(1, marketData.getSnapshotInterval().toMillis() / marketData.getPublishInterval().toMillis());
+    }
+
+    private void unsubscribe(BookSubscriber subscriber) {
+        if (subscriber != null) {
+            book(subscriber.getSymbol()).unsubscribe(subscriber);
+        }
+    }
+
+    private void offer(BookSubscriber subscriber, DepthDelta delta) {
+        DepthDelta now = subscriber.offer(delta);
+        if (now != null) {
+            send(subscriber, now);
+        }
+    }
+
+    private void send(BookSubscriber subscriber, DepthDelta delta) {
+        SimpMessageHeaderAccessor headers = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        headers.setSessionId(subscriber.getSessionId());
+        headers.setSubscriptionId(subscriber.getSubscriptionId());
+        headers.setLeaveMutable(true);
+        try {
+            outboundTemplate.convertAndSend(DESTINATION_PREFIX + delta.getSymbol(), toMessage(delta),
+                    headers.getMessageHeaders());
+        } catch (MessagingException e) {
+            subscriber.failed();
+            log.warn("Failed to send book update to session {}", subscriber.getSessionId(), e);
+        }
+    }
+
+    private BookUpdateMessage toMessage(DepthDelta delta) {
+        String symbol = delta.getSymbol();
+        return new BookUpdateMessage(symbol, delta.getSequence(), delta.isSnapshot(),
+                levels(symbol, delta.getBids(), Comparator.reverseOrder()),
+                levels(symbol, delta.getAsks(), Comparator.naturalOrder()));
+    }
+
+    private List<PriceLevelUpdate> levels(String symbol, Map<Long, Long> levels, Comparator<Long> bestFirst) {
+        return levels.entrySet().stream()
+                .sorted(Map.Entry.comparingByKey(bestFirst))
+                .map(level -> new PriceLevelUpdate(priceScale.toPrice(symbol, level.getKey()), level.getValue()))
+                .toList();
+    }
+
+    private DepthBook book(String symbol) {
+        return books.computeIfAbsent(symbol, DepthBook::new);
+    }
+}
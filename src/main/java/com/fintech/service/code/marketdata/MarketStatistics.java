@@ -0,0 +1,75 @@
+package com.fintech.service.code.marketdata;
+
+import com.fintech.service.code.config.EngineProperties;
+import com.fintech.service.code.engine.PriceScale;
+import com.fintech.service.code.engine.pipeline.ExecutionListener;
+import com.fintech.service.code.engine.pipeline.PublicationHandler;
+import com.fintech.service.code.model.Order;
+import com.fintech.service.code.model.Trade;
+import com.fintech.service.code.repository.TradeHistoryRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-symbol {@link SymbolStatistics} fed from the trade stream on the publication thread, so price queries
+ * are answered from memory. The most recent trades of every symbol are loaded from the database once on
+ * startup, after the pipeline has recovered, so the last price survives a restart.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@DependsOn("matchingPipeline")
+public class MarketStatistics implements ExecutionListener {
+
+    private final EngineProperties properties;
+    private final PublicationHandler publicationHandler;
+    private final TradeHistoryRepository tradeHistoryRepository;
+    private final PriceScale priceScale;
+
+    private final Map<String, SymbolStatistics> statistics = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void start() {
+        List<Trade> recent = tradeHistoryRepository.findLatestPerSymbol(
+                properties.getMarketData().getStatisticsTrades());
+        for (Trade trade : recent) {
+            record(trade.getSymbol(), priceScale.toTicks(trade.getSymbol(), trade.getPrice()), trade);
+        }
+        publicationHandler.addListener(this);
+        log.info("Seeded market statistics of {} symbols from {} trades", statistics.size(), recent.size());
+    }
+
+    @Override
+    public void onExecution(Order order, List<Trade> trades, List<Order> restingOrders) {
+        for (Trade trade : trades) {
+            record(trade.getSymbol(), trade.getPriceTicks(), trade);
+        }
+    }
+
+    /**
+     * Statistics of a symbol, empty until its first trade.
+     */
+    public Optional<SymbolStatistics> find(String symbol) {
+        return Optional.ofNullable(statistics.get(symbol));
+    }
+
+    private void record(String symbol, long priceTicks, Trade trade) {
+        statistics.computeIfAbsent(symbol, k -> create())
+                .record(priceTicks, trade.getQuantity(), trade.getTimestamp().toEpochMilli());
+    }
+
+    private SymbolStatistics create() {
+        EngineProperties.MarketData marketData = properties.getMarketData();
+        return new SymbolStatistics(marketData.getStatisticsTrades(),
+                marketData.getStatisticsWindow().toMillis(), marketData.getBarInterval().toMillis(),
+                marketData.getBars());
+    }
+}
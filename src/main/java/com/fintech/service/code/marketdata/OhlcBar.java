@@ -0,0 +1,7 @@
+package com.fintech.service.code.marketdata;
+
+/**
+ * One OHLC bar in ticks, starting at {@code startMillis}.
+ */
+public record OhlcBar(long startMillis, long open, long high, long low, long close, long volume) {
+}
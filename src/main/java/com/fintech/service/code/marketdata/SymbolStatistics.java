@@ -0,0 +1,216 @@
+package com.fintech.service.code.marketdata;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Running trade statistics of one symbol, all prices in ticks. Every trade updates the session figures, a
+ * fixed ring of the last {@code trades} trades, a time-window ring and the current OHLC bar, each in O(1)
+ * (amortized for the time window, whose ring doubles when a burst outgrows it). Rolling sums are adjusted as
+ * entries enter and leave the rings, so averages never iterate.
+ * <p>
+ * Written by the publication thread and read by request threads, hence the monitor on every method.
+ */
+public class SymbolStatistics {
+
+    public static final long NO_PRICE = Long.MIN_VALUE;
+
+    private long lastPrice = NO_PRICE;
+    private long high = NO_PRICE;
+    private long low = NO_PRICE;
+    private long volume;
+    private long tradeCount;
+
+    private final long[] recentPrices;
+    private final long[] recentQuantities;
+    private int recentNext;
+    private int recentCount;
+    private long recentPriceSum;
+    private long recentNotional;
+    private long recentQuantity;
+
+    private final long windowMillis;
+    private long[] windowTimes = new long[64];
+    private long[] windowPrices = new long[64];
+    private long[] windowQuantities = new long[64];
+    private int windowHead;
+    private int windowCount;
+    private long windowPriceSum;
+    private long windowNotional;
+    private long windowQuantity;
+
+    private final long barMillis;
+    private final long[] barStarts;
+    private final long[] barOpens;
+    private final long[] barHighs;
+    private final long[] barLows;
+    private final long[] barCloses;
+    private final long[] barVolumes;
+    private int barLatest = -1;
+    private int barCount;
+
+    public SymbolStatistics(int trades, long windowMillis, long barMillis, int bars) {
+        this.recentPrices = new long[trades];
+        this.recentQuantities = new long[trades];
+        this.windowMillis = windowMillis;
+        this.barMillis = barMillis;
+        this.barStarts = new long[bars];
+        this.barOpens = new long[bars];
+        this.barHighs = new long[bars];
+        this.barLows = new long[bars];
+        this.barCloses = new long[bars];
+        this.barVolumes = new long[bars];
+    }
+
+    public synchronized void record(long priceTicks, long quantity, long timestampMillis) {
+        lastPrice = priceTicks;
+        high = high == NO_PRICE ? priceTicks : Math.max(high, priceTicks);
+        low = low == NO_PRICE ? priceTicks : Math.min(low, priceTicks);
+        volume += quantity;
+        tradeCount++;
+        recordRecent(priceTicks, quantity);
+        recordWindow(priceTicks, quantity, timestampMillis);
+        recordBar(priceTicks, quantity, timestampMillis);
+    }
+
+    public synchronized long getLastPrice() {
+        return lastPrice;
+    }
+
+    public synchronized long getHigh() {
+        return high;
+    }
+
+    public synchronized long getLow() {
+        return low;
+    }
+
+    public synchronized long getVolume() {
+        return volume;
+    }
+
+    public synchronized long getTradeCount() {
+        return tradeCount;
+    }
+
+    /**
+     * Simple average price of the last trades in ticks, or {@code NaN} before the first trade.
+     */
+    public synchronized double getRecentAverage() {
+        return recentCount == 0 ? Double.NaN : (double) recentPriceSum / recentCount;
+    }
+
+    public synchronized double getRecentVwap() {
+        return recentQuantity == 0 ? Double.NaN : (double) recentNotional / recentQuantity;
+    }
+
+    public synchronized double getWindowAverage(long nowMillis) {
+        expire(nowMillis);
+        return windowCount == 0 ? Double.NaN : (double) windowPriceSum / windowCount;
+    }
+
+    public synchronized double getWindowVwap(long nowMillis) {
+        expire(nowMillis);
+        return windowQuantity == 0 ? Double.NaN : (double) windowNotional / windowQuantity;
+    }
+
+    public synchronized long getWindowVolume(long nowMillis) {
+        expire(nowMillis);
+        return windowQuantity;
+    }
+
+    /**
+     * Retained bars, oldest first. The last one is still open.
+     */
+    public synchronized List<OhlcBar> getBars() {
+        List<OhlcBar> bars = new ArrayList<>(barCount);
+        for (int i = barCount - 1; i >= 0; i--) {
+            int index = Math.floorMod(barLatest - i, barStarts.length);
+            bars.add(new OhlcBar(barStarts[index], barOpens[index], barHighs[index], barLows[index],
+                    barCloses[index], barVolumes[index]));
+        }
+        return bars;
+    }
+
+    private void recordRecent(long price, long quantity) {
+        if (recentCount == recentPrices.length) {
+            recentPriceSum -= recentPrices[recentNext];
+            recentNotional -= recentPrices[recentNext] * recentQuantities[recentNext];
+            recentQuantity -= recentQuantities[recentNext];
+        } else {
+            recentCount++;
+        }
+        recentPrices[recentNext] = price;
+        recentQuantities[recentNext] = quantity;
+        recentPriceSum += price;
+        recentNotional += price * quantity;
+        recentQuantity += quantity;
+        recentNext = (recentNext + 1) % recentPrices.length;
+    }
+
+    private void recordWindow(long price, long quantity, long timestampMillis) {
+        expire(timestampMillis);
+        if (windowCount == windowTimes.length) {
+            growWindow();
+        }
+        int tail = (windowHead + windowCount) & (windowTimes.length - 1);
+        windowTimes[tail] = timestampMillis;
+        windowPrices[tail] = price;
+        windowQuantities[tail] = quantity;
+        windowCount++;
+        windowPriceSum += price;
+        windowNotional += price * quantity;
+        windowQuantity += quantity;
+    }
+
+    private void expire(long nowMillis) {
+        long cutoff = nowMillis - windowMillis;
+        while (windowCount > 0 && windowTimes[windowHead] <= cutoff) {
+            windowPriceSum -= windowPrices[windowHead];
+            windowNotional -= windowPrices[windowHead] * windowQuantities[windowHead];
+            windowQuantity -= windowQuantities[windowHead];
+            windowHead = (windowHead + 1) & (windowTimes.length - 1);
+            windowCount--;
+        }
+    }
+
+    private void growWindow() {
+        int capacity = windowTimes.length;
+        long[] times = new long[capacity * 2];
+        long[] prices = new long[capacity * 2];
+        long[] quantities = new long[capacity * 2];
+        for (int i = 0; i < windowCount; i++) {
+            int index = (windowHead + i) & (capacity - 1);
+            times[i] = windowTimes[index];
+            prices[i] = windowPrices[index];
+            quantities[i] = windowQuantities[index];
+        }
+        windowTimes = times;
+        windowPrices = prices;
+        windowQuantities = quantities;
+        windowHead = 0;
+    }
+
+    private void recordBar(long price, long quantity, long timestampMillis) {
+        long start = timestampMillis - Math.floorMod(timestampMillis, barMillis);
+        if (barLatest >= 0 && barStarts[barLatest] == start) {
+            barHighs[barLatest] = Math.max(barHighs[barLatest], price);
+            barLows[barLatest] = Math.min(barLows[barLatest], price);
+            barCloses[barLatest] = price;
+            barVolumes[barLatest] += quantity;
+            return;
+        }
+        if (barLatest >= 0 && start < barStarts[barLatest]) {
+            // late trade for a bar that is already closed
+            return;
+        }
+        barLatest = (barLatest + 1) % barStarts.length;
+        barCount = Math.min(barCount + 1, barStarts.length);
+        barStarts[barLatest] = start;
+        barOpens[barLatest] = price;
+        barHighs[barLatest] = price;
+        barLows[barLatest] = price;
+        barCloses[barLatest] = price;
+        barVolumes[barLatest] = quantity;
+    }
+}
@@ -0,0 +1,90 @@
+package com.fintech.service.code.metrics;
+
+import com.fintech.service.code.config.EngineProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Nanosecond latency of every stage a command passes through, exported as {@code engine.stage.latency} with
+ * {@code stage} and {@code shard} tags and p50, p99, p99.9 and max over a rolling window.
+ * <p>
+ * Every timer is registered up front and picked by array index. Micrometer keeps the percentiles in
+ * HdrHistogram recorders that rotate with a compare-and-set, so recording a sample allocates nothing and
+ * takes no lock, and the timers stay on in production.
+ */
+@Service
+public class StageLatencyMetrics {
+
+    public enum Stage {
+        /**
+         * Gateway frame decoded into an order.
+         */
+        DECODE,
+        /**
+         * Submitted until the shard thread picks the command up.
+         */
+        QUEUE_WAIT,
+        /**
+         * Shard thread picked the command up until its result is ready for the output ring.
+         */
+        MATCH,
+        /**
+         * Result ready until forced to the journal and acknowledged.
+         */
+        JOURNAL,
+        /**
+         * Result ready until written to the database.
+         */
+        PERSISTENCE,
+        /**
+         * Result ready until pushed to WebSocket subscribers and execution listeners.
+         */
+        PUBLISH
+    }
+
+    private final Timer[][] timers;
+    private final Timer startupMatch;
+    private volatile boolean startup = true;
+
+    public StageLatencyMetrics(MeterRegistry meterRegistry, EngineProperties properties) {
+        Stage[] stages = Stage.values();
+        timers = new Timer[stages.length][properties.getShards()];
+        for (Stage stage : stages) {
+            for (int shard = 0; shard < properties.getShards(); shard++) {
+                timers[stage.ordinal()][shard] = Timer.builder("engine.stage.latency")
+                        .description("Latency of one stage of the matching pipeline")
+                        .tag("stage", stage.name().toLowerCase(Locale.ROOT))
+                        .tag("shard", String.valueOf(shard))
+                        .publishPercentiles(0.5, 0.99, 0.999)
+                        .register(meterRegistry);
+            }
+        }
+        startupMatch = Timer.builder("engine.startup.match.latency")
+                .description("Match stage latency of all shards over the first orders after startup")
+                .publishPercentiles(0.5, 0.99, 0.999)
+                .distributionStatisticBufferLength(1)
+                .distributionStatisticExpiry(Duration.ofDays(365))
+                .register(meterRegistry);
+    }
+
+    public void record(Stage stage, int shard, long nanos) {
+        timers[stage.ordinal()][shard].record(nanos, TimeUnit.NANOSECONDS);
+        if (startup && stage == Stage.MATCH) {
+            startupMatch.record(nanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Stops recording into the startup timer and returns what it holds: p50, p99 and p99.9 in that order.
+     */
+    public HistogramSnapshot endStartupWindow() {
+        startup = false;
+        return startupMatch.takeSnapshot();
+    }
+}
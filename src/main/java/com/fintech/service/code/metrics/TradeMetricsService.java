@@ -1,31 +1,26 @@
 package com.fintech.service.code.metrics;
 
+import io.micrometer.core.instrument.Counter;
 import io.micrometer.core.instrument.MeterRegistry;
-import io.micrometer.core.instrument.Timer;
 import org.springframework.stereotype.Service;
 
-import java.util.concurrent.TimeUnit;
-
+/**
+ * Trade counts. Matching latency is recorded per shard in nanoseconds by {@link StageLatencyMetrics}.
+ */
 @Service
 public class TradeMetricsService {
 
-    private final MeterRegistry meterRegistry;
-    private final Timer tradeLatencyTimer;
+    private final Counter tradeCounter;
 
     public TradeMetricsService(MeterRegistry meterRegistry) {
-        this.meterRegistry = meterRegistry;
-        this.tradeLatencyTimer = Timer.builder("order.match.latency")
-                .description("Order matching latency")
-                .register(meterRegistry);
-    }
-
-    public void recordTradeLatency(long durationMs) {
-        tradeLatencyTimer.record(durationMs, TimeUnit.MILLISECONDS);
+        this.tradeCounter = meterRegistry.counter("trades.executed.count");
     }
 
     public void incrementTradeCount() {
-        meterRegistry.counter("trades.executed.count").increment();
+        tradeCounter.increment();
     }
 
-
+    public void incrementTradeCount(int trades) {
+        tradeCounter.increment(trades);
+    }
 }
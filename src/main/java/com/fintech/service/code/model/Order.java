@@ -2,6 +2,7 @@ package com.fintech.service.code.model;
 
 import jakarta.persistence.*;
 import lombok.*;
+import java.math.BigDecimal;
 import java.time.Instant;
 
 @Entity
@@ -13,12 +14,22 @@ import java.time.Instant;
 @Builder
 public class Order {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
     private String symbol;
+    private Long accountId;
     @Enumerated(EnumType.STRING)
     private OrderType type;
-    private double price;
+    @Enumerated(EnumType.STRING)
+    @Builder.Default
+    private OrderKind kind = OrderKind.LIMIT;
+    @Column(precision = 19, scale = 8)
+    private BigDecimal price;
+    @Transient
+    private long priceTicks;
+    @Column(precision = 19, scale = 8)
+    private BigDecimal stopPrice;
+    @Transient
+    private long stopPriceTicks;
     private int quantity;
     private Instant timestamp;
     private boolean isActive;
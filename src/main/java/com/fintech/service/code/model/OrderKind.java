@@ -0,0 +1,65 @@
+package com.fintech.service.code.model;
+
+/**
+ * How an order executes and how long its remainder lives.
+ */
+public enum OrderKind {
+    /**
+     * Good-till-cancelled limit order: trades up to its price and rests the remainder.
+     */
+    LIMIT(true),
+    /**
+     * Trades at any price against whatever liquidity the book has; the remainder is cancelled.
+     */
+    MARKET(false),
+    /**
+     * Immediate-or-cancel limit order: trades up to its price; the remainder is cancelled.
+     */
+    IOC(false),
+    /**
+     * Fill-or-kill limit order: trades its whole quantity up to its price, or nothing at all.
+     */
+    FOK(false),
+    /**
+     * Limit order that only adds liquidity: rejected instead of trading if it would cross on arrival.
+     */
+    POST_ONLY(true),
+    /**
+     * Market order held back until a trade prints at or through its stop price: at or above it for a buy, at or
+     * below it for a sell.
+     */
+    STOP(false),
+    /**
+     * Limit order held back like a stop order, entering at its limit price once triggered.
+     */
+    STOP_LIMIT(false);
+
+    private final boolean rests;
+
+    OrderKind(boolean rests) {
+        this.rests = rests;
+    }
+
+    /**
+     * Whether an unfilled remainder rests in the book. Orders of other kinds never reach the book or the
+     * {@code orders} table, except stop orders, which wait in their symbol's trigger index instead.
+     */
+    public boolean rests() {
+        return rests;
+    }
+
+    public boolean isStop() {
+        return this == STOP || this == STOP_LIMIT;
+    }
+
+    /**
+     * Kind a stop order executes as once triggered; other kinds are returned as they are.
+     */
+    public OrderKind triggered() {
+        return switch (this) {
+            case STOP -> MARKET;
+            case STOP_LIMIT -> LIMIT;
+            default -> this;
+        };
+    }
+}
@@ -1,11 +1,17 @@
 package com.fintech.service.code.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.*;
+import java.math.BigDecimal;
 import java.time.Instant;
 
 @Entity
-@Table(name = "trades")
+@Table(name = "trades", indexes = {
+        @Index(name = "idx_trades_symbol_timestamp", columnList = "symbol, timestamp, id"),
+        @Index(name = "idx_trades_buy_order", columnList = "buy_order_id"),
+        @Index(name = "idx_trades_sell_order", columnList = "sell_order_id")
+})
 @Getter
 @Setter
 @NoArgsConstructor
@@ -13,10 +19,13 @@ import java.time.Instant;
 @Builder
 public class Trade {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
     private String symbol;
-    private double price;
+    @Column(precision = 19, scale = 8)
+    private BigDecimal price;
+    @Transient
+    @JsonIgnore
+    private long priceTicks;
     private int quantity;
     private Instant timestamp;
     private Long buyOrderId;
@@ -0,0 +1,73 @@
+package com.fintech.service.code.replication;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Stream protocol between a primary and its standbys, big-endian throughout. The standby opens with a hello
+ * and from then on only the primary sends frames, each starting with its type:
+ * <pre>
+ * HELLO      int magic, long fromPosition            standby to primary; -1 asks for a bootstrap
+ * SNAPSHOT   type, int shardId, int length, byte[length] snapshot file
+ * RECORD     type, long previousPosition, long position, int length, byte[length] journal record
+ * HEARTBEAT  type, long streamPosition, long persistedPosition
+ * ERROR      type, modified UTF-8 message
+ * </pre>
+ * Records are journal frames exactly as written on the primary, sent in order. {@code previousPosition} is the
+ * position after the record before, so a standby that has not applied exactly up to it has missed something.
+ * A heartbeat's {@code streamPosition} is the position after the last record sent.
+ */
+public final class ReplicationProtocol {
+
+    public static final int MAGIC = 0x4A524E4C;
+    public static final long BOOTSTRAP = -1;
+
+    public static final byte SNAPSHOT = 1;
+    public static final byte RECORD = 2;
+    public static final byte HEARTBEAT = 3;
+    public static final byte ERROR = 4;
+
+    private ReplicationProtocol() {
+    }
+
+    public static void writeHello(DataOutputStream out, long fromPosition) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeLong(fromPosition);
+        out.flush();
+    }
+
+    public static void writeSnapshot(DataOutputStream out, int shardId, byte[] file) throws IOException {
+        out.writeByte(SNAPSHOT);
+        out.writeInt(shardId);
+        out.writeInt(file.length);
+        out.write(file);
+    }
+
+    /**
+     * Writes a record frame, copying {@code record} through {@code scratch}, which must be large enough.
+     */
+    public static void writeRecord(DataOutputStream out, long previousPosition, long position, ByteBuffer record,
+                                   byte[] scratch) throws IOException {
+        int length = record.remaining();
+        record.get(scratch, 0, length);
+        out.writeByte(RECORD);
+        out.writeLong(previousPosition);
+        out.writeLong(position);
+        out.writeInt(length);
+        out.write(scratch, 0, length);
+    }
+
+    public static void writeHeartbeat(DataOutputStream out, long streamPosition, long persistedPosition)
+            throws IOException {
+        out.writeByte(HEARTBEAT);
+        out.writeLong(streamPosition);
+        out.writeLong(persistedPosition);
+    }
+
+    public static void writeError(DataOutputStream out, String message) throws IOException {
+        out.writeByte(ERROR);
+        out.writeUTF(message);
+        out.flush();
+    }
+}
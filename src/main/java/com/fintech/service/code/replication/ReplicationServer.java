@@ -0,0 +1,191 @@
+package com.fintech.service.code.replication;
+
+import com.fintech.service.code.config.EngineProperties;
+import com.fintech.service.code.engine.pipeline.PersistenceHandler;
+import com.fintech.service.code.journal.EventJournal;
+import com.fintech.service.code.journal.SnapshotStore;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Primary side of replication. Each connected standby gets a sender thread that reads the journal through its
+ * own cursor and streams every record as soon as the journal stage has forced it to disk, waking on each
+ * flush rather than polling. Book snapshots are shipped first and again whenever a shard writes a new one, and
+ * a heartbeat carries the persisted position so a promoted standby knows what the database already holds.
+ * <p>
+ * Segments a connected standby has not read yet are kept. A standby that asks for a position already
+ * released is refused and has to bootstrap again.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "engine.replication", name = "role", havingValue = "primary")
+public class ReplicationServer implements Runnable {
+
+    private static final int OUTBOX_BYTES = 64 * 1024;
+
+    private final EngineProperties properties;
+    private final EventJournal journal;
+    private final SnapshotStore snapshotStore;
+    private final PersistenceHandler persistenceHandler;
+    private final MeterRegistry meterRegistry;
+
+    private final Set<Sender> senders = ConcurrentHashMap.newKeySet();
+    private ServerSocket server;
+    private Thread thread;
+    private volatile boolean running;
+
+    @PostConstruct
+    public void start() throws IOException {
+        server = new ServerSocket(properties.getReplication().getPort());
+        journal.addFlushListener(this::wake);
+        journal.retain(this::retainedPosition);
+        Gauge.builder("engine.replication.standbys", senders, Set::size)
+                .description("Standbys connected to this primary")
+                .register(meterRegistry);
+        running = true;
+        thread = new Thread(this, "engine-replication");
+        thread.setDaemon(true);
+        thread.start();
+        log.info("Replication listening on port {}", server.getLocalPort());
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException, IOException {
+        running = false;
+        server.close();
+        thread.join();
+        for (Sender sender : senders) {
+            sender.socket.close();
+        }
+    }
+
+    public int getLocalPort() {
+        return server.getLocalPort();
+    }
+
+    @Override
+    public void run() {
+        while (running) {
+            try {
+                Socket socket = server.accept();
+                socket.setTcpNoDelay(true);
+                Thread sender = new Thread(new Sender(socket), "engine-replication-" + socket.getPort());
+                sender.setDaemon(true);
+                sender.start();
+            } catch (IOException e) {
+                if (running) {
+                    log.warn("Failed to accept a standby", e);
+                }
+            }
+        }
+    }
+
+    private void wake() {
+        for (Sender sender : senders) {
+            LockSupport.unpark(sender.thread);
+        }
+    }
+
+    private long retainedPosition() {
+        long position = Long.MAX_VALUE;
+        for (Sender sender : senders) {
+            position = Math.min(position, sender.position);
+        }
+        return position;
+    }
+
+    private final class Sender implements Runnable {
+        private final Socket socket;
+        private final Map<Integer, Long> shipped = new HashMap<>();
+        private final byte[] scratch = new byte[EventJournal.MAX_FRAME_BYTES];
+        private volatile Thread thread;
+        private volatile long position;
+
+        private Sender(Socket socket) {
+            this.socket = socket;
+        }
+
+        @Override
+        public void run() {
+            thread = Thread.currentThread();
+            String standby = String.valueOf(socket.getRemoteSocketAddress());
+            try (socket) {
+                DataInputStream in = new DataInputStream(socket.getInputStream());
+                DataOutputStream out = new DataOutputStream(
+                        new BufferedOutputStream(socket.getOutputStream(), OUTBOX_BYTES));
+                if (in.readInt() != ReplicationProtocol.MAGIC) {
+                    log.warn("Closing replication connection from {}: not a standby", standby);
+                    return;
+                }
+                long from = in.readLong();
+                long first = journal.firstPosition();
+                if (from != ReplicationProtocol.BOOTSTRAP && from < first) {
+                    ReplicationProtocol.writeError(out, "Journal position " + from + " has been released on the "
+                            + "primary, which starts at " + first + "; clear the standby's journal to bootstrap");
+                    return;
+                }
+                position = from == ReplicationProtocol.BOOTSTRAP ? first : from;
+                senders.add(this);
+                log.info("Standby {} connected, streaming from journal position {}", standby, position);
+                try (EventJournal.Cursor cursor = journal.cursor(position)) {
+                    stream(cursor, out);
+                }
+            } catch (IOException e) {
+                if (running) {
+                    log.warn("Replication to standby {} stopped: {}", standby, e.getMessage());
+                }
+            } finally {
+                senders.remove(this);
+            }
+        }
+
+        private void stream(EventJournal.Cursor cursor, DataOutputStream out) throws IOException {
+            long heartbeatNanos = properties.getReplication().getHeartbeatInterval().toNanos();
+            long heartbeatAt = System.nanoTime() - heartbeatNanos;
+            while (running) {
+                shipSnapshots(out);
+                int records = cursor.read(journal.getFlushedPosition(), (previous, next, record) ->
+                        ReplicationProtocol.writeRecord(out, previous, next, record, scratch));
+                position = cursor.position();
+                long now = System.nanoTime();
+                if (now - heartbeatAt >= heartbeatNanos) {
+                    ReplicationProtocol.writeHeartbeat(out, position, persistenceHandler.getPersistedPosition().get());
+                    heartbeatAt = now;
+                }
+                out.flush();
+                if (records == 0) {
+                    LockSupport.parkNanos(heartbeatNanos - (now - heartbeatAt));
+                }
+            }
+        }
+
+        private void shipSnapshots(DataOutputStream out) throws IOException {
+            for (int shard = 0; shard < properties.getShards(); shard++) {
+                long taken = snapshotStore.position(shard);
+                if (taken >= 0 && taken != shipped.getOrDefault(shard, -1L)) {
+                    ReplicationProtocol.writeSnapshot(out, shard, snapshotStore.read(shard));
+                    shipped.put(shard, taken);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,264 @@
+package com.fintech.service.code.replication;
+
+import com.fintech.service.code.config.EngineProperties;
+import com.fintech.service.code.engine.MatchingPipeline;
+import com.fintech.service.code.journal.EventJournal;
+import com.fintech.service.code.journal.JournalListener;
+import com.fintech.service.code.journal.JournalRecovery;
+import com.fintech.service.code.journal.PersistedCheckpoint;
+import com.fintech.service.code.journal.SnapshotStore;
+import com.fintech.service.code.model.Order;
+import com.fintech.service.code.model.Trade;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Standby side of replication. Follows a primary's journal over TCP, mirroring every record into its own
+ * journal at the same position and applying order states to its books, so they track the primary's without
+ * matching anything. The matching pipeline stays idle until {@link #promote}.
+ * <p>
+ * A fresh standby bootstraps from the primary's book snapshots and oldest journal segment; one with a journal
+ * resumes after its last record. A record that does not start where the previous one ended is a sequence gap:
+ * the standby drops the connection and asks again from its own position, which the primary serves from its
+ * journal. The primary's persisted position is kept in the local checkpoint, so promotion only writes to the
+ * database what the primary had not.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "engine.replication", name = "role", havingValue = "standby")
+public class StandbyReplica implements Runnable {
+
+    private static final int INBOX_BYTES = 64 * 1024;
+    private static final int MISSED_HEARTBEATS = 10;
+
+    private final EngineProperties properties;
+    private final EventJournal journal;
+    private final SnapshotStore snapshotStore;
+    private final PersistedCheckpoint checkpoint;
+    private final JournalRecovery journalRecovery;
+    private final MatchingPipeline matchingPipeline;
+    private final Counter applied;
+    private final Counter gaps;
+
+    private final Map<Integer, byte[]> pendingSnapshots = new LinkedHashMap<>();
+    private final byte[] scratch = new byte[EventJournal.MAX_FRAME_BYTES];
+    private final JournalListener books = new JournalListener() {
+        @Override
+        public void onOrder(long position, Order order) {
+            journalRecovery.apply(position, order);
+        }
+
+        @Override
+        public void onTrade(long position, Trade trade) {
+            journalRecovery.apply(position, trade);
+        }
+    };
+    private Thread thread;
+    private volatile Socket socket;
+    private volatile boolean running;
+    @Getter
+    private volatile boolean connected;
+    @Getter
+    private volatile long position;
+    private boolean bootstrapping;
+    private boolean unflushed;
+    private long persisted = -1;
+
+    public StandbyReplica(EngineProperties properties, EventJournal journal, SnapshotStore snapshotStore,
+                          PersistedCheckpoint checkpoint, JournalRecovery journalRecovery,
+                          MatchingPipeline matchingPipeline, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.journal = journal;
+        this.snapshotStore = snapshotStore;
+        this.checkpoint = checkpoint;
+        this.journalRecovery = journalRecovery;
+        this.matchingPipeline = matchingPipeline;
+        this.applied = Counter.builder("engine.replication.records")
+                .description("Journal records received from the primary and applied")
+                .register(meterRegistry);
+        this.gaps = Counter.builder("engine.replication.gaps")
+                .description("Sequence gaps detected in the replication stream")
+                .register(meterRegistry);
+        Gauge.builder("engine.replication.connected", this, replica -> replica.connected ? 1 : 0)
+                .description("Whether the standby is following its primary")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        bootstrapping = journal.isEmpty();
+        if (!bootstrapping) {
+            position = journalRecovery.restoreBooks();
+        }
+        running = true;
+        thread = new Thread(this, "engine-standby");
+        thread.setDaemon(true);
+        thread.start();
+        log.info("Standing by for primary {}:{}, {}", properties.getReplication().getPrimaryHost(),
+                properties.getReplication().getPort(),
+                bootstrapping ? "bootstrapping" : "resuming from journal position " + position);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException, IOException {
+        if (!running) {
+            return;
+        }
+        running = false;
+        Socket current = socket;
+        if (current != null) {
+            current.close();
+        }
+        LockSupport.unpark(thread);
+        thread.join();
+        journal.close();
+    }
+
+    /**
+     * Stops following the primary and starts matching from the replicated books. The primary must be down or
+     * fenced off first, or both would accept orders.
+     */
+    public synchronized void promote() throws IOException, InterruptedException {
+        if (!running) {
+            throw new IllegalStateException("Standby has already been promoted");
+        }
+        long start = System.nanoTime();
+        stop();
+        if (bootstrapping) {
+            finishBootstrap();
+        }
+        matchingPipeline.promote();
+        log.info("Promoted to primary at journal position {} in {} ms", position,
+                (System.nanoTime() - start) / 1_000_000);
+    }
+
+    @Override
+    public void run() {
+        EngineProperties.Replication replication = properties.getReplication();
+        while (running) {
+            try (Socket connection = new Socket()) {
+                socket = connection;
+                if (!running) {
+                    return;
+                }
+                connection.setTcpNoDelay(true);
+                connection.setSoTimeout((int) replication.getHeartbeatInterval().toMillis() * MISSED_HEARTBEATS);
+                connection.connect(new InetSocketAddress(replication.getPrimaryHost(), replication.getPort()),
+                        (int) replication.getReconnectDelay().toMillis());
+                follow(connection);
+            } catch (IOException e) {
+                if (running) {
+                    log.warn("Not following primary {}:{}: {}", replication.getPrimaryHost(), replication.getPort(),
+                            e.getMessage());
+                }
+            } finally {
+                connected = false;
+                socket = null;
+            }
+            if (running) {
+                LockSupport.parkNanos(replication.getReconnectDelay().toNanos());
+            }
+        }
+    }
+
+    private void follow(Socket connection) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(connection.getInputStream(), INBOX_BYTES));
+        ReplicationProtocol.writeHello(new DataOutputStream(connection.getOutputStream()),
+                bootstrapping ? ReplicationProtocol.BOOTSTRAP : position);
+        connected = true;
+        while (running) {
+            byte type = in.readByte();
+            switch (type) {
+                case ReplicationProtocol.SNAPSHOT -> snapshot(in);
+                case ReplicationProtocol.RECORD -> record(in);
+                case ReplicationProtocol.HEARTBEAT -> heartbeat(in.readLong(), in.readLong());
+                case ReplicationProtocol.ERROR -> throw new IOException("Refused by primary: " + in.readUTF());
+                default -> throw new IOException("Unknown replication frame type " + type);
+            }
+            if (unflushed && in.available() == 0) {
+                journal.flush();
+                unflushed = false;
+            }
+        }
+    }
+
+    private void snapshot(DataInputStream in) throws IOException {
+        int shardId = in.readInt();
+        byte[] file = new byte[in.readInt()];
+        in.readFully(file);
+        if (bootstrapping) {
+            pendingSnapshots.put(shardId, file);
+        } else {
+            snapshotStore.install(shardId, file);
+        }
+    }
+
+    private void record(DataInputStream in) throws IOException {
+        long previous = in.readLong();
+        long next = in.readLong();
+        int length = in.readInt();
+        if (length > scratch.length) {
+            throw new IOException("Replicated record of " + length + " bytes is too long");
+        }
+        in.readFully(scratch, 0, length);
+        if (bootstrapping) {
+            finishBootstrap();
+            position = previous;
+        }
+        checkSequence(previous);
+        ByteBuffer record = ByteBuffer.wrap(scratch, 0, length);
+        journal.mirror(next, record.duplicate());
+        EventJournal.decode(next, record, books);
+        position = next;
+        unflushed = true;
+        applied.increment();
+    }
+
+    private void heartbeat(long streamPosition, long persistedPosition) throws IOException {
+        if (bootstrapping) {
+            finishBootstrap();
+            position = streamPosition;
+        }
+        checkSequence(streamPosition);
+        if (persistedPosition != persisted) {
+            checkpoint.write(persistedPosition);
+            persisted = persistedPosition;
+            journal.release(Math.min(persisted, snapshotStore.floor(properties.getShards())));
+        }
+    }
+
+    private void checkSequence(long streamPosition) throws IOException {
+        if (streamPosition != position) {
+            gaps.increment();
+            throw new IOException("Sequence gap: primary is at " + streamPosition + ", standby at " + position
+                    + "; catching up from the primary's journal");
+        }
+    }
+
+    private void finishBootstrap() throws IOException {
+        for (Map.Entry<Integer, byte[]> snapshot : pendingSnapshots.entrySet()) {
+            snapshotStore.install(snapshot.getKey(), snapshot.getValue());
+        }
+        pendingSnapshots.clear();
+        journalRecovery.restoreBooks();
+        bootstrapping = false;
+    }
+}
@@ -0,0 +1,137 @@
+package com.fintech.service.code.repository;
+
+import com.fintech.service.code.engine.PriceScale;
+import com.fintech.service.code.model.Order;
+import com.fintech.service.code.model.OrderKind;
+import com.fintech.service.code.model.OrderType;
+import com.fintech.service.code.model.Trade;
+import jakarta.transaction.Transactional;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Batched writes of engine state. Ids are assigned by the engine, so rows are upserted in JDBC batches
+ * instead of going through IDENTITY inserts one at a time.
+ */
+@Repository
+public class EngineStateRepository {
+
+    private static final String UPSERT_ORDER = "INSERT INTO orders (id, symbol, type, price, quantity, timestamp, is_active, kind, stop_price, account_id) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?) " +
+            "ON CONFLICT (id) DO UPDATE SET price = EXCLUDED.price, quantity = EXCLUDED.quantity, is_active = EXCLUDED.is_active, " +
+            "kind = EXCLUDED.kind, account_id = COALESCE(EXCLUDED.account_id, orders.account_id)";
+
+    private static final String INSERT_TRADE = "INSERT INTO trades (id, symbol, price, quantity, timestamp, buy_order_id, sell_order_id) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?) ON CONFLICT (id) DO NOTHING";
+
+    private static final String OPEN_ACCOUNT_ORDERS = "SELECT id, symbol, account_id, type, kind, price, stop_price, " +
+            "quantity FROM orders WHERE is_active AND account_id IS NOT NULL";
+
+    private static final String ACCOUNT_POSITIONS = "SELECT o.account_id, t.symbol, " +
+            "SUM(CASE WHEN t.buy_order_id = o.id THEN t.quantity ELSE -t.quantity END) AS position " +
+            "FROM trades t JOIN orders o ON o.id = t.buy_order_id OR o.id = t.sell_order_id " +
+            "WHERE o.account_id IS NOT NULL GROUP BY o.account_id, t.symbol";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PriceScale priceScale;
+    private final String upsertOrderSql;
+    private final String insertTradeSql;
+
+    @Autowired
+    public EngineStateRepository(JdbcTemplate jdbcTemplate, PriceScale priceScale) {
+        this(jdbcTemplate, priceScale, UPSERT_ORDER, INSERT_TRADE);
+    }
+
+    /**
+     * For databases without PostgreSQL's {@code ON CONFLICT}; the statements take the same parameters.
+     */
+    protected EngineStateRepository(JdbcTemplate jdbcTemplate, PriceScale priceScale, String upsertOrderSql,
+                                    String insertTradeSql) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.priceScale = priceScale;
+        this.upsertOrderSql = upsertOrderSql;
+        this.insertTradeSql = insertTradeSql;
+    }
+
+    @Transactional
+    public void write(Collection<Order> orders, List<Trade> trades) {
+        jdbcTemplate.batchUpdate(upsertOrderSql, orders, orders.size(), (ps, order) -> {
+            ps.setLong(1, order.getId());
+            ps.setString(2, order.getSymbol());
+            ps.setString(3, order.getType().name());
+            ps.setBigDecimal(4, priceScale.toPrice(order.getSymbol(), order.getPriceTicks()));
+            ps.setInt(5, order.getQuantity());
+            ps.setTimestamp(6, Timestamp.from(order.getTimestamp()));
+            ps.setBoolean(7, order.isActive());
+            ps.setString(8, order.getKind().name());
+            ps.setBigDecimal(9, order.getStopPriceTicks() == 0 ? null
+                    : priceScale.toPrice(order.getSymbol(), order.getStopPriceTicks()));
+            ps.setObject(10, order.getAccountId(), Types.BIGINT);
+        });
+        jdbcTemplate.batchUpdate(insertTradeSql, trades, trades.size(), (ps, trade) -> {
+            ps.setLong(1, trade.getId());
+            ps.setString(2, trade.getSymbol());
+            ps.setBigDecimal(3, priceScale.toPrice(trade.getSymbol(), trade.getPriceTicks()));
+            ps.setInt(4, trade.getQuantity());
+            ps.setTimestamp(5, Timestamp.from(trade.getTimestamp()));
+            ps.setLong(6, trade.getBuyOrderId());
+            ps.setLong(7, trade.getSellOrderId());
+        });
+    }
+
+    /**
+     * Active orders placed for an account, with their prices converted back to ticks.
+     */
+    public List<Order> findOpenAccountOrders() {
+        return jdbcTemplate.query(OPEN_ACCOUNT_ORDERS, (rs, row) -> {
+            String symbol = rs.getString("symbol");
+            String kind = rs.getString("kind");
+            return Order.builder()
+                    .id(rs.getLong("id"))
+                    .symbol(symbol)
+                    .accountId(rs.getLong("account_id"))
+                    .type(OrderType.valueOf(rs.getString("type")))
+                    .kind(kind == null ? OrderKind.LIMIT : OrderKind.valueOf(kind))
+                    .priceTicks(toTicks(symbol, rs.getBigDecimal("price")))
+                    .stopPriceTicks(toTicks(symbol, rs.getBigDecimal("stop_price")))
+                    .quantity(rs.getInt("quantity"))
+                    .isActive(true)
+                    .build();
+        });
+    }
+
+    /**
+     * Net traded quantity of every account in every symbol it traded, bought minus sold.
+     */
+    public void forEachAccountPosition(PositionVisitor visitor) {
+        jdbcTemplate.query(ACCOUNT_POSITIONS, (RowCallbackHandler) rs ->
+                visitor.visit(rs.getLong("account_id"), rs.getString("symbol"), rs.getLong("position")));
+    }
+
+    public long maxOrderId() {
+        return jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM orders", Long.class);
+    }
+
+    public long maxTradeId() {
+        return jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM trades", Long.class);
+    }
+
+    /**
+     * Ticks of a stored price; market and stop orders are stored with no or a zero price.
+     */
+    private long toTicks(String symbol, BigDecimal price) {
+        return price == null || price.signum() == 0 ? 0 : priceScale.toTicks(symbol, price);
+    }
+
+    public interface PositionVisitor {
+        void visit(long accountId, String symbol, long position);
+    }
+}
@@ -9,4 +9,3 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
 
 
 }
-
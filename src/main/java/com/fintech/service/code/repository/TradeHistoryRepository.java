@@ -0,0 +1,71 @@
+package com.fintech.service.code.repository;
+
+import com.fintech.service.code.model.Trade;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Read side of the trade history. Ranges are paged by keyset on {@code (timestamp, id)} rather than by offset,
+ * so every page is one index range scan on {@code idx_trades_symbol_timestamp} however deep into the history
+ * it starts. Trades reach the table through the write-behind stage, so the newest few milliseconds may not
+ * be visible yet.
+ */
+@Repository
+@RequiredArgsConstructor
+public class TradeHistoryRepository {
+
+    private static final String SELECT_TRADES =
+            "SELECT id, symbol, price, quantity, timestamp, buy_order_id, sell_order_id FROM trades ";
+
+    private static final String FIND_BY_SYMBOL = SELECT_TRADES +
+            "WHERE symbol = ? AND (timestamp, id) > (?, ?) AND timestamp < ? ORDER BY timestamp, id LIMIT ?";
+
+    private static final String FIND_BY_ORDER = SELECT_TRADES +
+            "WHERE buy_order_id = ? OR sell_order_id = ? ORDER BY timestamp, id";
+
+    private static final String FIND_LATEST_PER_SYMBOL =
+            "SELECT id, symbol, price, quantity, timestamp, buy_order_id, sell_order_id FROM (" +
+            "SELECT t.*, ROW_NUMBER() OVER (PARTITION BY symbol ORDER BY id DESC) AS recency FROM trades t) latest " +
+            "WHERE recency <= ? ORDER BY id";
+
+    private static final RowMapper<Trade> TRADE = (rs, rowNum) -> Trade.builder()
+            .id(rs.getLong("id"))
+            .symbol(rs.getString("symbol"))
+            .price(rs.getBigDecimal("price"))
+            .quantity(rs.getInt("quantity"))
+            .timestamp(rs.getTimestamp("timestamp").toInstant())
+            .buyOrderId(rs.getLong("buy_order_id"))
+            .sellOrderId(rs.getLong("sell_order_id"))
+            .build();
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Up to {@code limit} trades of a symbol ordered by time then id, strictly after the trade at
+     * {@code (afterTimestamp, afterId)} and before {@code to}.
+     */
+    public List<Trade> findBySymbol(String symbol, Instant afterTimestamp, long afterId, Instant to, int limit) {
+        return jdbcTemplate.query(FIND_BY_SYMBOL, TRADE, symbol, Timestamp.from(afterTimestamp), afterId,
+                Timestamp.from(to), limit);
+    }
+
+    /**
+     * Every fill of an order on either side, oldest first.
+     */
+    public List<Trade> findByOrder(long orderId) {
+        return jdbcTemplate.query(FIND_BY_ORDER, TRADE, orderId, orderId);
+    }
+
+    /**
+     * The last {@code perSymbol} trades of every symbol, oldest first.
+     */
+    public List<Trade> findLatestPerSymbol(int perSymbol) {
+        return jdbcTemplate.query(FIND_LATEST_PER_SYMBOL, TRADE, perSymbol);
+    }
+}
@@ -0,0 +1,166 @@
+package com.fintech.service.code.service;
+
+import com.fintech.service.code.config.EngineProperties;
+import com.fintech.service.code.engine.MatchingPipeline;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Service;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Decides at intake whether a command may enter the engine, so a burst is turned away with a reason instead
+ * of parking request threads on a full shard ring. A command is rejected when
+ * <ul>
+ *     <li>its symbol already has {@code max-in-flight-per-symbol} commands submitted and not yet completed,
+ *     which keeps one hot symbol from filling the ring it shares with others;</li>
+ *     <li>the owning shard's ring is past {@code shard-queue-high-water};</li>
+ *     <li>the client has used up its token bucket, refilled at its configured rate.</li>
+ * </ul>
+ * Buckets that have refilled completely are dropped every {@value #SWEEP_INTERVAL_SECONDS} s, since a new one
+ * starts out the same, so clients that come and go do not accumulate. In-flight counts per symbol, tracked
+ * clients and rejections per reason are exported as metrics.
+ */
+@Service
+public class AdmissionControl {
+
+    private static final long SWEEP_INTERVAL_SECONDS = 10;
+    private static final long SWEEP_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(SWEEP_INTERVAL_SECONDS);
+
+    public enum Reason {
+        SYMBOL_QUEUE_FULL,
+        SHARD_QUEUE_FULL,
+        RATE_LIMITED
+    }
+
+    private final EngineProperties.Admission properties;
+    private final MatchingPipeline matchingPipeline;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, AtomicInteger> inFlight = new ConcurrentHashMap<>();
+    private final Map<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+    private final Map<Reason, Counter> rejections = new EnumMap<>(Reason.class);
+    private final AtomicLong sweptAt = new AtomicLong(System.nanoTime());
+
+    public AdmissionControl(EngineProperties properties, MatchingPipeline matchingPipeline,
+                            MeterRegistry meterRegistry) {
+        this.properties = properties.getAdmission();
+        this.matchingPipeline = matchingPipeline;
+        this.meterRegistry = meterRegistry;
+        for (Reason reason : Reason.values()) {
+            rejections.put(reason, Counter.builder("engine.admission.rejected")
+                    .description("Commands rejected at intake")
+                    .tag("reason", reason.name().toLowerCase(Locale.ROOT))
+                    .register(meterRegistry));
+        }
+        Gauge.builder("engine.admission.clients", buckets, Map::size)
+                .description("Clients holding a token bucket")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Admits one command for {@code symbol}, which then counts as in flight until {@link #release} or the
+     * future passed to {@link #track} completes.
+     *
+     * @throws OrderRejectedException if any limit is reached
+     * @throws IllegalStateException if the engine is a standby
+     */
+    public void admit(String clientId, String symbol) {
+        double queueFill = matchingPipeline.queueFill(symbol);
+        AtomicInteger queued = inFlight.computeIfAbsent(symbol, this::registerInFlight);
+        if (queued.incrementAndGet() > properties.getMaxInFlightPerSymbol()) {
+            queued.decrementAndGet();
+            throw reject(Reason.SYMBOL_QUEUE_FULL, "Too many orders queued for " + symbol);
+        }
+        if (queueFill >= properties.getShardQueueHighWater()) {
+            queued.decrementAndGet();
+            throw reject(Reason.SHARD_QUEUE_FULL, "Matching queue for " + symbol + " is full");
+        }
+        long now = System.nanoTime();
+        long swept = sweptAt.get();
+        if (now - swept >= SWEEP_INTERVAL_NANOS && sweptAt.compareAndSet(swept, now)) {
+            evictIdleClients(now);
+        }
+        if (!bucket(clientId, now).tryAcquire(now)) {
+            queued.decrementAndGet();
+            throw reject(Reason.RATE_LIMITED, "Rate limit exceeded for client " + clientId);
+        }
+    }
+
+    public void release(String symbol) {
+        inFlight.get(symbol).decrementAndGet();
+    }
+
+    /**
+     * Releases an admitted command once its result completes, however it completes.
+     */
+    public <T> CompletableFuture<T> track(String symbol, CompletableFuture<T> result) {
+        result.whenComplete((report, error) -> release(symbol));
+        return result;
+    }
+
+    /**
+     * Drops the buckets that are full again at {@code now}.
+     */
+    void evictIdleClients(long now) {
+        buckets.values().removeIf(bucket -> bucket.isFull(now));
+    }
+
+    private OrderRejectedException reject(Reason reason, String message) {
+        rejections.get(reason).increment();
+        return new OrderRejectedException(reason, message);
+    }
+
+    private AtomicInteger registerInFlight(String symbol) {
+        AtomicInteger queued = new AtomicInteger();
+        Gauge.builder("engine.admission.in.flight", queued, AtomicInteger::get)
+                .description("Commands admitted for the symbol and not yet completed")
+                .tag("symbol", symbol)
+                .register(meterRegistry);
+        return queued;
+    }
+
+    private TokenBucket bucket(String clientId, long now) {
+        return buckets.computeIfAbsent(clientId, id -> new TokenBucket(
+                properties.getClientRates().getOrDefault(id, properties.getDefaultClientRate()),
+                Math.max(1, properties.getClientBurst()), now));
+    }
+
+    private static final class TokenBucket {
+        private final double tokensPerNano;
+        private final double capacity;
+        private double tokens;
+        private long refilledAt;
+
+        private TokenBucket(double perSecond, double capacity, long now) {
+            this.tokensPerNano = perSecond / 1e9;
+            this.capacity = capacity;
+            this.tokens = capacity;
+            this.refilledAt = now;
+        }
+
+        synchronized boolean tryAcquire(long now) {
+            if (tokensPerNano <= 0) {
+                return true;
+            }
+            tokens = Math.min(capacity, tokens + (now - refilledAt) * tokensPerNano);
+            refilledAt = now;
+            if (tokens < 1) {
+                return false;
+            }
+            tokens--;
+            return true;
+        }
+
+        synchronized boolean isFull(long now) {
+            return tokensPerNano <= 0 || tokens + (now - refilledAt) * tokensPerNano >= capacity;
+        }
+    }
+}
@@ -1,44 +1,128 @@
 package com.fintech.service.code.service;
 
+import com.fintech.service.code.config.EngineProperties;
+import com.fintech.service.code.engine.EpochClock;
+import com.fintech.service.code.engine.book.HeapOrderBook;
+import com.fintech.service.code.engine.book.OffHeapOrderBook;
+import com.fintech.service.code.engine.book.OrderBook;
+import com.fintech.service.code.engine.book.OrderLocator;
+import com.fintech.service.code.engine.book.StopBook;
 import com.fintech.service.code.model.Order;
+import com.fintech.service.code.model.OrderKind;
 import com.fintech.service.code.model.OrderType;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Scope;
 import org.springframework.stereotype.Service;
 
-import java.util.*;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalLong;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.PriorityBlockingQueue;
 
 @Slf4j
 @Service
 @Scope("singleton")
 public class OrderBookService {
 
-    private final Map<String, PriorityBlockingQueue<Order>> buyOrders = new ConcurrentHashMap<>();
-    private final Map<String, PriorityBlockingQueue<Order>> sellOrders = new ConcurrentHashMap<>();
+    private final Map<String, OrderBook> books = new ConcurrentHashMap<>();
+    private final Map<String, StopBook> stops = new ConcurrentHashMap<>();
+    private final OrderLocator orderLocator = new OrderLocator();
+    private final EngineProperties.BookStorage storage;
+
+    public OrderBookService() {
+        this(EngineProperties.BookStorage.HEAP);
+    }
+
+    @Autowired
+    public OrderBookService(EngineProperties properties) {
+        this(properties.getBookStorage());
+    }
+
+    public OrderBookService(EngineProperties.BookStorage storage) {
+        this.storage = storage;
+    }
 
     public void addOrder(Order order) {
-        log.info("Adding Order to Book: {}", order);
-        log.info("Hash of orderBookService instance: " + this.hashCode());
-        PriorityBlockingQueue<Order> queue = getQueue(order.getSymbol(), order.getType());
-        queue.offer(order);
-    }
-    public PriorityBlockingQueue<Order> getQueue(String symbol, OrderType type) {
-        if (type == OrderType.BUY) {
-            return buyOrders.computeIfAbsent(symbol, k -> new PriorityBlockingQueue<>(100,
-                    Comparator.<Order>comparingDouble(Order::getPrice).reversed()
-                            .thenComparing(Order::getTimestamp)));
-        } else {
-            return sellOrders.computeIfAbsent(symbol, k -> new PriorityBlockingQueue<>(100,
-                    Comparator.<Order>comparingDouble(Order::getPrice)
-                            .thenComparing(Order::getTimestamp)));
+        addOrder(order.getSymbol(), order.getId(), order.getType(), order.getKind(), order.getPriceTicks(),
+                order.getQuantity(), EpochClock.toNanos(order.getTimestamp()));
+    }
+
+    public void addOrder(String symbol, long orderId, OrderType side, OrderKind kind, long priceTicks, int quantity,
+                         long timestampNanos) {
+        getBook(symbol).add(orderId, side, kind, priceTicks, quantity, timestampNanos);
+    }
+
+    public OrderBook getBook(String symbol) {
+        OrderBook book = books.get(symbol);
+        return book != null ? book : books.computeIfAbsent(symbol, this::newBook);
+    }
+
+    /**
+     * Whether the engine has a book for {@code symbol}, that is, has had an order for it. Safe on any thread.
+     */
+    public boolean hasBook(String symbol) {
+        return books.containsKey(symbol);
+    }
+
+    public Collection<OrderBook> getBooks() {
+        return books.values();
+    }
+
+    /**
+     * Stop orders of {@code symbol} waiting for their trigger price. Owned by the same thread as its book, which
+     * is created alongside so snapshots of the books cover every symbol with stops.
+     */
+    public StopBook getStops(String symbol) {
+        StopBook stopBook = stops.get(symbol);
+        if (stopBook != null) {
+            return stopBook;
         }
+        getBook(symbol);
+        return stops.computeIfAbsent(symbol, s -> new StopBook(s, orderLocator));
+    }
+
+    /**
+     * Price of the latest trade in {@code symbol}, or {@link OrderBook#NO_PRICE} before the first. Read on the
+     * thread that owns the symbol.
+     */
+    public long getLastPrice(String symbol) {
+        StopBook stopBook = stops.get(symbol);
+        return stopBook == null ? OrderBook.NO_PRICE : stopBook.getLastPrice();
+    }
+
+    /**
+     * Stop orders of {@code symbol}, or {@code null} if the engine has not matched anything for it yet.
+     */
+    public StopBook findStops(String symbol) {
+        return stops.get(symbol);
+    }
+
+    /**
+     * Symbol of a resting or waiting stop order, used to route cancels and amends to the thread that owns its book.
+     */
+    public Optional<String> locate(long orderId) {
+        return orderLocator.find(orderId);
+    }
+
+    public OptionalLong getBestBid(String symbol) {
+        OrderBook book = books.get(symbol);
+        return book == null ? OptionalLong.empty() : bestPrice(book.getBestPrice(OrderType.BUY));
     }
-    public PriorityBlockingQueue<Order> getBuyOrders(String symbol) {
-        return buyOrders.getOrDefault(symbol, new PriorityBlockingQueue<>());
+
+    public OptionalLong getBestAsk(String symbol) {
+        OrderBook book = books.get(symbol);
+        return book == null ? OptionalLong.empty() : bestPrice(book.getBestPrice(OrderType.SELL));
     }
-    public PriorityBlockingQueue<Order> getSellOrders(String symbol) {
-        return sellOrders.getOrDefault(symbol, new PriorityBlockingQueue<>());
+
+    private static OptionalLong bestPrice(long priceTicks) {
+        return priceTicks == OrderBook.NO_PRICE ? OptionalLong.empty() : OptionalLong.of(priceTicks);
+    }
+
+    private OrderBook newBook(String symbol) {
+        return storage == EngineProperties.BookStorage.OFF_HEAP
+                ? new OffHeapOrderBook(symbol, orderLocator)
+                : new HeapOrderBook(symbol, orderLocator);
     }
 }
@@ -0,0 +1,17 @@
+package com.fintech.service.code.service;
+
+import lombok.Getter;
+
+/**
+ * An order turned away at intake before reaching the engine; the client may retry later.
+ */
+@Getter
+public class OrderRejectedException extends RuntimeException {
+
+    private final AdmissionControl.Reason reason;
+
+    public OrderRejectedException(AdmissionControl.Reason reason, String message) {
+        super(message);
+        this.reason = reason;
+    }
+}
@@ -1,42 +1,187 @@
 package com.fintech.service.code.service;
 
+import com.fintech.service.code.dto.AmendOrderRequest;
+import com.fintech.service.code.dto.BatchOrderResult;
 import com.fintech.service.code.dto.OrderRequest;
-import com.fintech.service.code.engine.MatchingEngine;
+import com.fintech.service.code.dto.TradeResponse;
+import com.fintech.service.code.engine.ExecutionReport;
+import com.fintech.service.code.engine.IdGenerator;
+import com.fintech.service.code.engine.MatchingPipeline;
+import com.fintech.service.code.engine.OrderNotFoundException;
+import com.fintech.service.code.engine.PriceScale;
+import com.fintech.service.code.engine.risk.RiskRejectedException;
 import com.fintech.service.code.model.Order;
+import com.fintech.service.code.model.OrderKind;
 import com.fintech.service.code.model.Trade;
-import com.fintech.service.code.repository.OrderRepository;
-import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 @Service
 @RequiredArgsConstructor
 public class OrderService {
 
-    private final OrderRepository orderRepository;
-    private final MatchingEngine matchingEngine;
+    private final IdGenerator idGenerator;
+    private final MatchingPipeline matchingPipeline;
     private final OrderBookService orderBookService;
+    private final PriceScale priceScale;
+    private final AdmissionControl admissionControl;
 
-    @Transactional
-    public List<Trade> placeOrder(OrderRequest request) {
-        Order order = Order.builder()
+    /**
+     * @throws OrderRejectedException if the order is turned away at intake
+     * @throws RiskRejectedException if the order breaches a pre-trade risk limit
+     */
+    public List<Trade> placeOrder(String clientId, OrderRequest request) {
+        Order order = toOrder(request);
+        admissionControl.admit(clientId, order.getSymbol());
+        CompletableFuture<ExecutionReport> result;
+        try {
+            result = matchingPipeline.submit(order);
+        } catch (RuntimeException e) {
+            admissionControl.release(order.getSymbol());
+            throw e;
+        }
+        return await(admissionControl.track(order.getSymbol(), result)).getOrderTrades();
+    }
+
+    /**
+     * Places orders as one batch: each shard receives its orders in a single ring claim, and the journal and
+     * write-behind stages flush them together. Results come back in request order; an invalid or failed order
+     * gets an error result without affecting the others, as does an order turned away at intake.
+     */
+    public List<BatchOrderResult> placeOrders(String clientId, List<OrderRequest> requests) {
+        List<Order> orders = new ArrayList<>(requests.size());
+        String[] errors = new String[requests.size()];
+        for (int i = 0; i < requests.size(); i++) {
+            try {
+                Order order = toOrder(requests.get(i));
+                admissionControl.admit(clientId, order.getSymbol());
+                orders.add(order);
+            } catch (IllegalArgumentException | OrderRejectedException e) {
+                errors[i] = e.getMessage();
+            }
+        }
+        List<CompletableFuture<ExecutionReport>> submitted;
+        try {
+            submitted = matchingPipeline.submit(orders);
+        } catch (RuntimeException e) {
+            orders.forEach(order -> admissionControl.release(order.getSymbol()));
+            throw e;
+        }
+        for (int i = 0; i < orders.size(); i++) {
+            admissionControl.track(orders.get(i).getSymbol(), submitted.get(i));
+        }
+
+        List<BatchOrderResult> results = new ArrayList<>(requests.size());
+        int next = 0;
+        for (String error : errors) {
+            if (error != null) {
+                results.add(BatchOrderResult.rejected(error));
+                continue;
+            }
+            try {
+                results.add(toResult(await(submitted.get(next++))));
+            } catch (RuntimeException e) {
+                results.add(BatchOrderResult.rejected(e.getMessage()));
+            }
+        }
+        return results;
+    }
+
+    public Order cancelOrder(long orderId) {
+        String symbol = orderBookService.locate(orderId).orElseThrow(() -> new OrderNotFoundException(orderId));
+        return await(matchingPipeline.cancel(symbol, orderId)).getOrder();
+    }
+
+    /**
+     * Amends pass admission control like new orders, since a reprice can trade; cancels never do.
+     *
+     * @throws RiskRejectedException if the amended order breaches a pre-trade risk limit
+     */
+    public Order amendOrder(String clientId, long orderId, AmendOrderRequest request) {
+        if (request.getPrice() == null && request.getQuantity() == null) {
+            throw new IllegalArgumentException("Amend must change price or quantity");
+        }
+        if (request.getQuantity() != null && request.getQuantity() <= 0) {
+            throw new IllegalArgumentException("Quantity must be positive");
+        }
+        String symbol = orderBookService.locate(orderId).orElseThrow(() -> new OrderNotFoundException(orderId));
+        Long priceTicks = request.getPrice() == null ? null : priceScale.toTicks(symbol, request.getPrice());
+        admissionControl.admit(clientId, symbol);
+        CompletableFuture<ExecutionReport> result;
+        try {
+            result = matchingPipeline.amend(symbol, orderId, priceTicks, request.getQuantity());
+        } catch (RuntimeException e) {
+            admissionControl.release(symbol);
+            throw e;
+        }
+        return await(admissionControl.track(symbol, result)).getOrder();
+    }
+
+    /**
+     * @throws IllegalArgumentException if the request lacks a symbol or side, has no positive quantity, or has
+     * a price its kind needs missing or off the tick grid
+     */
+    private Order toOrder(OrderRequest request) {
+        if (request.getSymbol() == null || request.getSymbol().isBlank()) {
+            throw new IllegalArgumentException("Orders need a symbol");
+        }
+        if (request.getType() == null) {
+            throw new IllegalArgumentException("Orders need a side, BUY or SELL");
+        }
+        if (request.getQuantity() <= 0) {
+            throw new IllegalArgumentException("Quantity must be positive");
+        }
+        OrderKind kind = request.getKind() == null ? OrderKind.LIMIT : request.getKind();
+        boolean priced = kind != OrderKind.MARKET && kind != OrderKind.STOP;
+        long priceTicks = priced ? priceScale.toTicks(request.getSymbol(), request.getPrice()) : 0;
+        long stopPriceTicks = 0;
+        if (kind.isStop()) {
+            if (request.getStopPrice() == null) {
+                throw new IllegalArgumentException("Stop orders need a stop price");
+            }
+            stopPriceTicks = priceScale.toTicks(request.getSymbol(), request.getStopPrice());
+        }
+        return Order.builder()
+                .id(idGenerator.nextOrderId())
                 .symbol(request.getSymbol())
+                .accountId(request.getAccountId())
                 .type(request.getType())
-                .price(request.getPrice())
+                .kind(kind)
+                .priceTicks(priceTicks)
+                .stopPriceTicks(stopPriceTicks)
                 .quantity(request.getQuantity())
                 .timestamp(Instant.now())
                 .isActive(true)
                 .build();
-        order = orderRepository.save(order);
-
-        List<Trade> trades = matchingEngine.match(order);
+    }
 
-        orderRepository.save(order);
+    private BatchOrderResult toResult(ExecutionReport report) {
+        Order order = report.getOrder();
+        List<Trade> orderTrades = report.getOrderTrades();
+        List<TradeResponse> trades = new ArrayList<>(orderTrades.size());
+        for (Trade trade : orderTrades) {
+            trades.add(new TradeResponse(trade.getId(), trade.getSymbol(),
+                    priceScale.toPrice(trade.getSymbol(), trade.getPriceTicks()), trade.getQuantity()));
+        }
+        return new BatchOrderResult(order.getId(), order.getSymbol(), order.getQuantity(), order.isActive(), trades,
+                null);
+    }
 
-        return trades;
+    private static ExecutionReport await(CompletableFuture<ExecutionReport> result) {
+        try {
+            return result.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
     }
 
 }
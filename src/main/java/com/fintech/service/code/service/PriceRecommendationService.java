@@ -1,36 +1,37 @@
 package com.fintech.service.code.service;
 
 import com.fintech.service.code.dto.PriceRecommendationResponse;
-import com.fintech.service.code.model.Order;
-import com.fintech.service.code.model.OrderType;
+import com.fintech.service.code.engine.PriceScale;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
-import java.util.Comparator;
 import java.util.Optional;
+import java.util.OptionalLong;
 
 @Service
 @RequiredArgsConstructor
 public class PriceRecommendationService {
 
+    private static final BigDecimal WIDE_SPREAD = new BigDecimal("0.05");
+
     private final OrderBookService orderBookService;
     private final TradeService tradeService;
+    private final PriceScale priceScale;
 
     public PriceRecommendationResponse recommendSellPrice(String symbol) {
-        var bestBuy = orderBookService.getBuyOrders(symbol)
-                .stream()
-                .max(Comparator.comparingDouble(Order::getPrice));
+        var bestBuy = toPrice(symbol, orderBookService.getBestBid(symbol));
 
         var lastPrice = tradeService.getLastTradedPrice(symbol);
 
-        double recommendedPrice = 0.0;
+        BigDecimal recommendedPrice;
         String message;
 
         if (bestBuy.isPresent()) {
-            recommendedPrice = Math.max(bestBuy.get().getPrice() + 0.01, lastPrice != null ? lastPrice : 0.0);
+            BigDecimal reference = lastPrice != null ? lastPrice : BigDecimal.ZERO;
+            recommendedPrice = bestBuy.get().add(priceScale.tickSize(symbol)).max(reference);
             message = String.format("Recommended sell price is based on the highest buy order in the market (%.2f) and recent trade price (%.2f).",
-                    bestBuy.get().getPrice(), lastPrice != null ? lastPrice : 0.0);
+                    bestBuy.get(), reference);
         } else if (lastPrice != null) {
             recommendedPrice = lastPrice;
             message = String.format("No active buy orders. Using recent trade price (%.2f) as reference.", lastPrice);
@@ -43,19 +44,15 @@ public class PriceRecommendationService {
     }
 
     public PriceRecommendationResponse recommendBuyerAction(String symbol) {
-        var bestBuy = orderBookService.getBuyOrders(symbol)
-                .stream()
-                .max(Comparator.comparingDouble(Order::getPrice));
-        var bestSell = orderBookService.getSellOrders(symbol)
-                .stream()
-                .min(Comparator.comparingDouble(Order::getPrice));
+        var bestBuy = toPrice(symbol, orderBookService.getBestBid(symbol));
+        var bestSell = toPrice(symbol, orderBookService.getBestAsk(symbol));
 
         if (bestBuy.isEmpty() && bestSell.isPresent()) {
             return new PriceRecommendationResponse(
                     symbol,
                     "BUY",
-                    "No active buy orders. Best sell available at " + bestSell.get().getPrice(),
-                    bestSell.get().getPrice()
+                    "No active buy orders. Best sell available at " + bestSell.get(),
+                    bestSell.get()
             );
         }
 
@@ -78,18 +75,23 @@ public class PriceRecommendationService {
         }
 
 
-        double spread = bestSell.get().getPrice() - bestBuy.get().getPrice();
+        BigDecimal spread = bestSell.get().subtract(bestBuy.get());
         String message;
-        String action;
 
-        if (spread > 0.05) {
+        if (spread.compareTo(WIDE_SPREAD) > 0) {
             message = String.format("The spread between best sell (%.2f) and best buy (%.2f) is %.2f. Consider waiting or placing a competitive limit order.",
-                    bestSell.get().getPrice(), bestBuy.get().getPrice(), spread);
+                    bestSell.get(), bestBuy.get(), spread);
         } else {
             message = String.format("Low spread (%.2f) between best sell (%.2f) and best buy (%.2f). It may be a good time to buy.",
-                    spread, bestSell.get().getPrice(), bestBuy.get().getPrice());
+                    spread, bestSell.get(), bestBuy.get());
         }
-        return new PriceRecommendationResponse(symbol, "BUY", message, bestSell.get().getPrice());
+        return new PriceRecommendationResponse(symbol, "BUY", message, bestSell.get());
+    }
+
+    private Optional<BigDecimal> toPrice(String symbol, OptionalLong priceTicks) {
+        return priceTicks.isPresent()
+                ? Optional.of(priceScale.toPrice(symbol, priceTicks.getAsLong()))
+                : Optional.empty();
     }
 
 }
@@ -1,43 +1,123 @@
 package com.fintech.service.code.service;
 
+import com.fintech.service.code.dto.MarketStatisticsResponse;
+import com.fintech.service.code.dto.TradeHistoryResponse;
+import com.fintech.service.code.dto.TradePageResponse;
+import com.fintech.service.code.engine.PriceScale;
+import com.fintech.service.code.marketdata.MarketStatistics;
+import com.fintech.service.code.marketdata.OhlcBar;
+import com.fintech.service.code.marketdata.SymbolStatistics;
 import com.fintech.service.code.model.Trade;
-import com.fintech.service.code.repository.TradeRepository;
+import com.fintech.service.code.repository.TradeHistoryRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
 import java.time.Instant;
+import java.util.Base64;
+import java.util.List;
 
 @Service
 @RequiredArgsConstructor
 public class TradeService {
 
-    private final TradeRepository tradeRepository;
+    public static final int MAX_PAGE_SIZE = 1000;
 
-    public Trade recordTrade(String symbol, double price, int quantity, Long buyOrderId, Long sellOrderId) {
-        Trade trade = Trade.builder()
-                .symbol(symbol)
-                .price(price)
-                .quantity(quantity)
-                .buyOrderId(buyOrderId)
-                .sellOrderId(sellOrderId)
-                .timestamp(Instant.now())
-                .build();
-        return tradeRepository.save(trade);
-    }
+    private final MarketStatistics marketStatistics;
+    private final PriceScale priceScale;
+    private final TradeHistoryRepository tradeHistoryRepository;
 
-    public Double getLastTradedPrice(String symbol) {
-        return tradeRepository.findTopBySymbolOrderByTimestampDesc(symbol)
-                .map(Trade::getPrice)
+    public BigDecimal getLastTradedPrice(String symbol) {
+        return marketStatistics.find(symbol)
+                .map(statistics -> toPrice(symbol, statistics.getLastPrice()))
                 .orElse(null);
     }
 
-    public Double getAveragePrice(String symbol, int lastN) {
-        var trades = tradeRepository.findTopNBySymbolOrderByTimestampDesc(symbol, lastN);
-        return trades.stream()
-                .mapToDouble(Trade::getPrice)
-                .average()
-                .orElse(0.0);
+    public MarketStatisticsResponse getStatistics(String symbol) {
+        SymbolStatistics statistics = marketStatistics.find(symbol).orElse(null);
+        if (statistics == null) {
+            return new MarketStatisticsResponse(symbol, null, null, null, 0, 0, null, null, null, null, 0,
+                    List.of());
+        }
+        long now = System.currentTimeMillis();
+        return new MarketStatisticsResponse(symbol,
+                toPrice(symbol, statistics.getLastPrice()),
+                toPrice(symbol, statistics.getHigh()),
+                toPrice(symbol, statistics.getLow()),
+                statistics.getVolume(),
+                statistics.getTradeCount(),
+                toPrice(symbol, statistics.getRecentAverage()),
+                toPrice(symbol, statistics.getRecentVwap()),
+                toPrice(symbol, statistics.getWindowAverage(now)),
+                toPrice(symbol, statistics.getWindowVwap(now)),
+                statistics.getWindowVolume(now),
+                statistics.getBars().stream().map(bar -> toResponse(symbol, bar)).toList());
+    }
+
+    /**
+     * One page of a symbol's trades in {@code [from, to)}, oldest first. Without a cursor the page starts at
+     * {@code from}; with one it continues right after the last trade of the previous page.
+     */
+    public TradePageResponse getTrades(String symbol, Instant from, Instant to, String cursor, int limit) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        TradeKey after = cursor == null ? new TradeKey(from, Long.MIN_VALUE) : TradeKey.decode(cursor);
+        List<Trade> trades = tradeHistoryRepository.findBySymbol(symbol, after.timestamp(), after.id(), to, limit);
+        String nextCursor = null;
+        if (trades.size() == limit) {
+            Trade last = trades.get(trades.size() - 1);
+            nextCursor = new TradeKey(last.getTimestamp(), last.getId()).encode();
+        }
+        return new TradePageResponse(trades.stream().map(TradeService::toResponse).toList(), nextCursor);
+    }
+
+    public List<TradeHistoryResponse> getFills(long orderId) {
+        return tradeHistoryRepository.findByOrder(orderId).stream().map(TradeService::toResponse).toList();
+    }
+
+    private static TradeHistoryResponse toResponse(Trade trade) {
+        return new TradeHistoryResponse(trade.getId(), trade.getSymbol(), trade.getPrice(), trade.getQuantity(),
+                trade.getTimestamp(), trade.getBuyOrderId(), trade.getSellOrderId());
     }
 
+    private MarketStatisticsResponse.BarResponse toResponse(String symbol, OhlcBar bar) {
+        return new MarketStatisticsResponse.BarResponse(bar.startMillis(), toPrice(symbol, bar.open()),
+                toPrice(symbol, bar.high()), toPrice(symbol, bar.low()), toPrice(symbol, bar.close()), bar.volume());
+    }
 
+    private BigDecimal toPrice(String symbol, long priceTicks) {
+        return priceTicks == SymbolStatistics.NO_PRICE ? null : priceScale.toPrice(symbol, priceTicks);
+    }
+
+    private BigDecimal toPrice(String symbol, double priceTicks) {
+        if (Double.isNaN(priceTicks)) {
+            return null;
+        }
+        return new BigDecimal(priceTicks, MathContext.DECIMAL64).multiply(priceScale.tickSize(symbol))
+                .setScale(priceScale.tickSize(symbol).scale() + 4, RoundingMode.HALF_EVEN);
+    }
+
+    /**
+     * Keyset position in the trade history, handed to clients as an opaque cursor.
+     */
+    private record TradeKey(Instant timestamp, long id) {
+
+        String encode() {
+            byte[] key = (timestamp + "," + id).getBytes(StandardCharsets.UTF_8);
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(key);
+        }
+
+        static TradeKey decode(String cursor) {
+            try {
+                String[] key = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split(",");
+                return new TradeKey(Instant.parse(key[0]), Long.parseLong(key[1]));
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Invalid cursor", e);
+            }
+        }
+    }
 }
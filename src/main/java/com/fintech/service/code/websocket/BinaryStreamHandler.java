@@ -0,0 +1,368 @@
+package com.fintech.service.code.websocket;
+
+import com.fintech.service.code.gateway.GatewayProtocol;
+import com.fintech.service.code.marketdata.DepthDelta;
+import com.fintech.service.code.model.Trade;
+import com.fintech.service.code.service.OrderBookService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
+import org.springframework.web.socket.handler.WebSocketHandlerDecorator;
+import org.springframework.web.socket.messaging.StompSubProtocolHandler;
+import org.springframework.web.socket.messaging.SubProtocolHandler;
+import org.springframework.web.socket.messaging.SubProtocolWebSocketHandler;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Serves {@link BinaryStreamProtocol} to WebSocket clients that negotiate it on {@code /ws}; clients that do
+ * not keep talking STOMP. Sessions are owned by the STOMP endpoint's handler, which routes the ones on this
+ * protocol here, so they share its handshake, send limits and session housekeeping.
+ * <p>
+ * Frames are encoded once per symbol and stream and the same bytes go to every subscriber. Trades are
+ * collected over a publication batch and flushed as one frame per symbol; book deltas go out once per market
+ * data slice. A book subscriber whose previous frame is still being written skips deltas and is resynced with
+ * a snapshot on the next slice, so a slow client costs neither memory nor extra encoding.
+ * <p>
+ * Only symbols the engine has a book for can be subscribed to; a session asking for any other is closed, so
+ * made-up names cannot use up the symbol ids.
+ */
+@Slf4j
+@Component
+public class BinaryStreamHandler implements SubProtocolHandler, SmartInitializingSingleton {
+
+    /**
+     * Most trades per frame, which keeps frames within a few tens of KiB whatever the batch size.
+     */
+    private static final int MAX_TRADES_PER_FRAME = 1024;
+
+    private final WebSocketHandler subProtocolWebSocketHandler;
+    private final OrderBookService orderBookService;
+    private final Map<String, Integer> symbolIds = new ConcurrentHashMap<>();
+    private final AtomicInteger nextSymbolId = new AtomicInteger();
+    private final Map<String, TradeTopic> tradeTopics = new ConcurrentHashMap<>();
+    private final Map<String, BookTopic> bookTopics = new ConcurrentHashMap<>();
+    private final List<TradeTopic> pendingTrades = new ArrayList<>();
+
+    public BinaryStreamHandler(@Qualifier("subProtocolWebSocketHandler") WebSocketHandler subProtocolWebSocketHandler,
+                               OrderBookService orderBookService) {
+        this.subProtocolWebSocketHandler = subProtocolWebSocketHandler;
+        this.orderBookService = orderBookService;
+    }
+
+    /**
+     * Registers this protocol next to STOMP, which stays the default for clients that negotiate none.
+     */
+    @Override
+    public void afterSingletonsInstantiated() {
+        SubProtocolWebSocketHandler handler =
+                (SubProtocolWebSocketHandler) WebSocketHandlerDecorator.unwrap(subProtocolWebSocketHandler);
+        handler.getProtocolHandlers().stream()
+                .filter(StompSubProtocolHandler.class::isInstance)
+                .findFirst()
+                .ifPresent(handler::setDefaultProtocolHandler);
+        handler.addProtocolHandler(this);
+    }
+
+    @Override
+    public List<String> getSupportedProtocols() {
+        return List.of(BinaryStreamProtocol.NAME);
+    }
+
+    @Override
+    public void handleMessageFromClient(WebSocketSession session, WebSocketMessage<?> message,
+                                        MessageChannel outputChannel) throws Exception {
+        if (!(message instanceof BinaryMessage binary)) {
+            session.close(CloseStatus.NOT_ACCEPTABLE.withReason("Binary messages only"));
+            return;
+        }
+        ByteBuffer in = binary.getPayload();
+        byte type;
+        byte stream;
+        String symbol;
+        try {
+            type = in.get();
+            stream = in.get();
+            symbol = GatewayProtocol.getSymbol(in);
+        } catch (BufferUnderflowException e) {
+            session.close(CloseStatus.BAD_DATA.withReason("Truncated message"));
+            return;
+        }
+        if (type == BinaryStreamProtocol.SUBSCRIBE) {
+            subscribe(session, stream, symbol);
+        } else if (type == BinaryStreamProtocol.UNSUBSCRIBE) {
+            unsubscribe(session, stream, symbol);
+        } else {
+            session.close(CloseStatus.BAD_DATA.withReason("Unknown message type " + type));
+        }
+    }
+
+    /**
+     * Nothing is routed to these sessions through the broker; every frame is sent directly.
+     */
+    @Override
+    public void handleMessageToClient(WebSocketSession session, Message<?> message) {
+    }
+
+    @Override
+    public String resolveSessionId(Message<?> message) {
+        return null;
+    }
+
+    @Override
+    public void afterSessionStarted(WebSocketSession session, MessageChannel outputChannel) {
+    }
+
+    @Override
+    public void afterSessionEnded(WebSocketSession session, CloseStatus closeStatus, MessageChannel outputChannel) {
+        tradeTopics.values().forEach(topic -> topic.sessions.remove(session));
+        bookTopics.values().forEach(topic -> topic.remove(session));
+    }
+
+    /**
+     * Queues a trade for the next {@link #flushTrades()}. Called on the publication thread.
+     */
+    public void onTrade(Trade trade) {
+        TradeTopic topic = tradeTopics.get(trade.getSymbol());
+        if (topic == null || topic.sessions.isEmpty()) {
+            return;
+        }
+        if (topic.pending.isEmpty()) {
+            pendingTrades.add(topic);
+        }
+        topic.pending.add(trade);
+    }
+
+    /**
+     * Sends the queued trades as one frame per symbol. Called on the publication thread at the end of a batch.
+     */
+    public void flushTrades() {
+        for (TradeTopic topic : pendingTrades) {
+            List<Trade> trades = topic.pending;
+            for (int from = 0; from < trades.size(); from += MAX_TRADES_PER_FRAME) {
+                int to = Math.min(trades.size(), from + MAX_TRADES_PER_FRAME);
+                ByteBuffer frame = BinaryStreamProtocol.encodeTrades(topic.symbolId, trades, from, to);
+                for (WebSocketSession session : topic.sessions) {
+                    send(session, frame);
+                }
+            }
+            trades.clear();
+        }
+        pendingTrades.clear();
+    }
+
+    /**
+     * Sends a symbol's book changes of one slice, and a snapshot to every subscriber waiting for one. Called
+     * on the market data publisher thread while it holds the book, so {@code snapshot} includes {@code delta}.
+     * New subscribers get their first snapshot once the symbol has had an order.
+     *
+     * @param delta the levels that changed in the slice, or {@code null} if none did
+     */
+    public void publishBook(String symbol, DepthDelta delta, Supplier<DepthDelta> snapshot) {
+        BookTopic topic = bookTopics.get(symbol);
+        if (topic == null) {
+            return;
+        }
+        if (delta != null && !topic.sessions.isEmpty()) {
+            ByteBuffer frame = topic.encode(delta);
+            if (frame != null) {
+                for (WebSocketSession session : topic.sessions) {
+                    if (isWriting(session)) {
+                        topic.resync(session);
+                    } else {
+                        send(session, frame);
+                    }
+                }
+            }
+        }
+        List<WebSocketSession> waiting = topic.takeWaiting(session -> !isWriting(session));
+        if (!waiting.isEmpty()) {
+            ByteBuffer frame = topic.encode(snapshot.get());
+            for (WebSocketSession session : waiting) {
+                send(session, frame);
+            }
+        }
+    }
+
+    private void subscribe(WebSocketSession session, byte stream, String symbol) throws IOException {
+        if (stream != BinaryStreamProtocol.STREAM_TRADES && stream != BinaryStreamProtocol.STREAM_BOOK) {
+            session.close(CloseStatus.BAD_DATA.withReason("Unknown stream " + stream));
+            return;
+        }
+        if (!orderBookService.hasBook(symbol)) {
+            session.close(CloseStatus.BAD_DATA.withReason("Unknown symbol " + symbol));
+            return;
+        }
+        int symbolId = symbolId(symbol);
+        session.sendMessage(new BinaryMessage(BinaryStreamProtocol.encodeSymbol(symbolId, symbol)));
+        if (stream == BinaryStreamProtocol.STREAM_TRADES) {
+            tradeTopics.computeIfAbsent(symbol, s -> new TradeTopic(symbolId)).sessions.addIfAbsent(session);
+        } else {
+            bookTopics.computeIfAbsent(symbol, s -> new BookTopic(symbolId)).resync(session);
+        }
+    }
+
+    private void unsubscribe(WebSocketSession session, byte stream, String symbol) {
+        if (stream == BinaryStreamProtocol.STREAM_TRADES) {
+            TradeTopic topic = tradeTopics.get(symbol);
+            if (topic != null) {
+                topic.sessions.remove(session);
+            }
+        } else if (stream == BinaryStreamProtocol.STREAM_BOOK) {
+            BookTopic topic = bookTopics.get(symbol);
+            if (topic != null) {
+                topic.remove(session);
+            }
+        }
+    }
+
+    /**
+     * Ids are assigned on first subscription to a known symbol and kept for the life of the process, so frames
+     * encoded once are valid for every session.
+     */
+    private int symbolId(String symbol) {
+        return symbolIds.computeIfAbsent(symbol, s -> {
+            int id = nextSymbolId.getAndIncrement();
+            if (id >= BinaryStreamProtocol.MAX_SYMBOLS) {
+                throw new IllegalStateException("No symbol ids left for " + s);
+            }
+            return id;
+        });
+    }
+
+    private static boolean isWriting(WebSocketSession session) {
+        return session instanceof ConcurrentWebSocketSessionDecorator decorator && decorator.getBufferSize() > 0;
+    }
+
+    private static void send(WebSocketSession session, ByteBuffer frame) {
+        try {
+            session.sendMessage(new BinaryMessage(frame.duplicate()));
+        } catch (IOException | RuntimeException e) {
+            log.debug("Failed to send market data frame to session {}", session.getId(), e);
+        }
+    }
+
+    private static final class TradeTopic {
+        private final int symbolId;
+        private final CopyOnWriteArrayList<WebSocketSession> sessions = new CopyOnWriteArrayList<>();
+        /**
+         * Trades of the current publication batch; only touched on the publication thread.
+         */
+        private final List<Trade> pending = new ArrayList<>();
+
+        TradeTopic(int symbolId) {
+            this.symbolId = symbolId;
+        }
+    }
+
+    /**
+     * Book subscribers of one symbol, split into those following the deltas and those waiting for a
+     * snapshot, and the levels as last sent, which the next delta's quantity changes are taken against.
+     */
+    private static final class BookTopic {
+        private final int symbolId;
+        private final CopyOnWriteArrayList<WebSocketSession> sessions = new CopyOnWriteArrayList<>();
+        private final Set<WebSocketSession> waiting = ConcurrentHashMap.newKeySet();
+        private final Map<Long, Long> bids = new HashMap<>();
+        private final Map<Long, Long> asks = new HashMap<>();
+
+        BookTopic(int symbolId) {
+            this.symbolId = symbolId;
+        }
+
+        synchronized void resync(WebSocketSession session) {
+            sessions.remove(session);
+            waiting.add(session);
+        }
+
+        synchronized void remove(WebSocketSession session) {
+            sessions.remove(session);
+            waiting.remove(session);
+        }
+
+        /**
+         * Moves the waiting sessions that are {@code ready} to the followers; they must be sent the next
+         * snapshot.
+         */
+        synchronized List<WebSocketSession> takeWaiting(Predicate<WebSocketSession> ready) {
+            List<WebSocketSession> taken = new ArrayList<>();
+            for (WebSocketSession session : waiting) {
+                if (ready.test(session)) {
+                    taken.add(session);
+                }
+            }
+            taken.forEach(waiting::remove);
+            sessions.addAllAbsent(taken);
+            return taken;
+        }
+
+        /**
+         * Encodes a delta as changes to the levels last sent, or a snapshot as the whole book, and records the
+         * result as sent. Returns {@code null} for a delta that changed nothing.
+         */
+        ByteBuffer encode(DepthDelta delta) {
+            if (delta.isSnapshot()) {
+                bids.clear();
+                asks.clear();
+            }
+            List<Map.Entry<Long, Long>> bidLevels = sorted(delta.getBids(), Comparator.reverseOrder());
+            List<Map.Entry<Long, Long>> askLevels = sorted(delta.getAsks(), Comparator.naturalOrder());
+            long[] prices = new long[bidLevels.size() + askLevels.size()];
+            long[] changes = new long[prices.length];
+            int bidCount = apply(bidLevels, bids, prices, changes, 0);
+            int askCount = apply(askLevels, asks, prices, changes, bidCount);
+            if (!delta.isSnapshot() && bidCount + askCount == 0) {
+                return null;
+            }
+            return BinaryStreamProtocol.encodeBook(symbolId, delta.getSequence(), delta.isSnapshot(), prices,
+                    changes, bidCount, askCount);
+        }
+
+        private static List<Map.Entry<Long, Long>> sorted(Map<Long, Long> levels, Comparator<Long> bestFirst) {
+            return levels.entrySet().stream().sorted(Map.Entry.comparingByKey(bestFirst)).toList();
+        }
+
+        private static int apply(List<Map.Entry<Long, Long>> levels, Map<Long, Long> sent, long[] prices,
+                                 long[] changes, int offset) {
+            int count = 0;
+            for (Map.Entry<Long, Long> level : levels) {
+                long quantity = level.getValue();
+                long change = quantity - sent.getOrDefault(level.getKey(), 0L);
+                if (change == 0) {
+                    continue;
+                }
+                if (quantity == 0) {
+                    sent.remove(level.getKey());
+                } else {
+                    sent.put(level.getKey(), quantity);
+                }
+                prices[offset + count] = level.getKey();
+                changes[offset + count] = change;
+                count++;
+            }
+            return count;
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package com.fintech.service.code.websocket;
+
+import com.fintech.service.code.engine.EpochClock;
+import com.fintech.service.code.gateway.GatewayProtocol;
+import com.fintech.service.code.model.Trade;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+/**
+ * Binary market data sub-protocol, negotiated on the {@code /ws} WebSocket endpoint by offering
+ * {@value #NAME} in {@code Sec-WebSocket-Protocol}. Every WebSocket message is one big-endian message:
+ * <pre>
+ * client  SUBSCRIBE    type, byte stream, char[8] symbol
+ *         UNSUBSCRIBE  type, byte stream, char[8] symbol
+ * server  SYMBOL       type, short symbolId, char[8] symbol
+ *         TRADES       type, byte flags, short symbolId, int count,
+ *                      long tradeId, long priceTicks, long timestampNanos,
+ *                      count x (int tradeIdDelta, int priceDelta, int quantity, int timestampDelta)
+ *         BOOK         type, byte flags, short symbolId, int bidCount, int askCount, long sequence,
+ *                      long priceTicks, (bidCount + askCount) x (int priceDelta, int quantityChange)
+ * </pre>
+ * Each subscribe is answered with the symbol's id, which every later frame carries instead of the name. A
+ * TRADES frame batches the trades of one publication cycle; each field is the difference to the previous
+ * trade, starting from the values in the header. A BOOK frame lists bids then asks, best first, each price
+ * as the difference to the previous level of its side, both sides starting from the header price, and each
+ * quantity as the change to the level, which is removed when it reaches zero. A snapshot frame (flag
+ * {@link #SNAPSHOT}) replaces the whole book. Deltas follow with consecutive sequence numbers; a subscriber
+ * that falls behind gets a fresh snapshot instead of the deltas it missed.
+ * <p>
+ * Frames whose differences do not all fit an {@code int} set {@link #WIDE}: every delta and quantity field
+ * of their entries is then a {@code long}, trade quantities staying an {@code int}. Symbols are ASCII,
+ * right-padded with spaces, as in {@link GatewayProtocol}; prices are in ticks of the symbol's tick size.
+ */
+public final class BinaryStreamProtocol {
+
+    public static final String NAME = "v1.marketdata.binary";
+
+    public static final byte SUBSCRIBE = 1;
+    public static final byte UNSUBSCRIBE = 2;
+
+    public static final byte SYMBOL = 1;
+    public static final byte TRADES = 2;
+    public static final byte BOOK = 3;
+
+    public static final byte STREAM_TRADES = 0;
+    public static final byte STREAM_BOOK = 1;
+
+    public static final byte SNAPSHOT = 1;
+    public static final byte WIDE = 2;
+
+    public static final int SUBSCRIBE_BYTES = 1 + 1 + GatewayProtocol.SYMBOL_BYTES;
+    public static final int SYMBOL_MESSAGE_BYTES = 1 + Short.BYTES + GatewayProtocol.SYMBOL_BYTES;
+    public static final int TRADES_HEADER_BYTES = 1 + 1 + Short.BYTES + Integer.BYTES + 3 * Long.BYTES;
+    public static final int BOOK_HEADER_BYTES = 1 + 1 + Short.BYTES + 2 * Integer.BYTES + 2 * Long.BYTES;
+    public static final int MAX_SYMBOLS = 1 << 16;
+
+    private static final int TRADE_BYTES = 4 * Integer.BYTES;
+    private static final int WIDE_TRADE_BYTES = 3 * Long.BYTES + Integer.BYTES;
+    private static final int LEVEL_BYTES = 2 * Integer.BYTES;
+    private static final int WIDE_LEVEL_BYTES = 2 * Long.BYTES;
+
+    private BinaryStreamProtocol() {
+    }
+
+    public static void putSubscribe(ByteBuffer out, byte type, byte stream, String symbol) {
+        out.put(type);
+        out.put(stream);
+        GatewayProtocol.putSymbol(out, symbol);
+    }
+
+    public static ByteBuffer encodeSymbol(int symbolId, String symbol) {
+        ByteBuffer out = ByteBuffer.allocate(SYMBOL_MESSAGE_BYTES);
+        out.put(SYMBOL);
+        out.putShort((short) symbolId);
+        GatewayProtocol.putSymbol(out, symbol);
+        return out.flip();
+    }
+
+    /**
+     * Encodes trades {@code from} to {@code to} of one symbol, in the order they printed.
+     */
+    public static ByteBuffer encodeTrades(int symbolId, List<Trade> trades, int from, int to) {
+        Trade first = trades.get(from);
+        boolean wide = false;
+        long previousId = first.getId();
+        long previousPrice = first.getPriceTicks();
+        long previousTime = EpochClock.toNanos(first.getTimestamp());
+        for (int i = from + 1; i < to && !wide; i++) {
+            Trade trade = trades.get(i);
+            long time = EpochClock.toNanos(trade.getTimestamp());
+            wide = !fitsInt(trade.getId() - previousId) || !fitsInt(trade.getPriceTicks() - previousPrice)
+                    || !fitsInt(time - previousTime);
+            previousId = trade.getId();
+            previousPrice = trade.getPriceTicks();
+            previousTime = time;
+        }
+        int entryBytes = wide ? WIDE_TRADE_BYTES : TRADE_BYTES;
+        ByteBuffer out = ByteBuffer.allocate(TRADES_HEADER_BYTES + (to - from) * entryBytes);
+        out.put(TRADES);
+        out.put(wide ? WIDE : 0);
+        out.putShort((short) symbolId);
+        out.putInt(to - from);
+        previousId = first.getId();
+        previousPrice = first.getPriceTicks();
+        previousTime = EpochClock.toNanos(first.getTimestamp());
+        out.putLong(previousId);
+        out.putLong(previousPrice);
+        out.putLong(previousTime);
+        for (int i = from; i < to; i++) {
+            Trade trade = trades.get(i);
+            long time = EpochClock.toNanos(trade.getTimestamp());
+            if (wide) {
+                out.putLong(trade.getId() - previousId);
+                out.putLong(trade.getPriceTicks() - previousPrice);
+                out.putInt(trade.getQuantity());
+                out.putLong(time - previousTime);
+            } else {
+                out.putInt((int) (trade.getId() - previousId));
+                out.putInt((int) (trade.getPriceTicks() - previousPrice));
+                out.putInt(trade.getQuantity());
+                out.putInt((int) (time - previousTime));
+            }
+            previousId = trade.getId();
+            previousPrice = trade.getPriceTicks();
+            previousTime = time;
+        }
+        return out.flip();
+    }
+
+    /**
+     * Encodes book levels given as absolute prices and quantity changes, the first {@code bidCount} of them
+     * bids and the rest asks, each side best first.
+     */
+    public static ByteBuffer encodeBook(int symbolId, long sequence, boolean snapshot, long[] prices,
+                                        long[] changes, int bidCount, int askCount) {
+        int count = bidCount + askCount;
+        long base = count == 0 ? 0 : prices[0];
+        boolean wide = false;
+        for (int i = 0; i < count && !wide; i++) {
+            long previous = i == 0 || i == bidCount ? base : prices[i - 1];
+            wide = !fitsInt(prices[i] - previous) || !fitsInt(changes[i]);
+        }
+        int entryBytes = wide ? WIDE_LEVEL_BYTES : LEVEL_BYTES;
+        ByteBuffer out = ByteBuffer.allocate(BOOK_HEADER_BYTES + count * entryBytes);
+        out.put(BOOK);
+        out.put((byte) ((snapshot ? SNAPSHOT : 0) | (wide ? WIDE : 0)));
+        out.putShort((short) symbolId);
+        out.putInt(bidCount);
+        out.putInt(askCount);
+        out.putLong(sequence);
+        out.putLong(base);
+        for (int i = 0; i < count; i++) {
+            long previous = i == 0 || i == bidCount ? base : prices[i - 1];
+            if (wide) {
+                out.putLong(prices[i] - previous);
+                out.putLong(changes[i]);
+            } else {
+                out.putInt((int) (prices[i] - previous));
+                out.putInt((int) changes[i]);
+            }
+        }
+        return out.flip();
+    }
+
+    private static boolean fitsInt(long value) {
+        return value == (int) value;
+    }
+}
@@ -1,19 +1,32 @@
 package com.fintech.service.code.websocket;
 
+import com.fintech.service.code.dto.TradeUpdateMessage;
 import com.fintech.service.code.model.Trade;
 import lombok.RequiredArgsConstructor;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Controller;
 
+import java.math.BigDecimal;
+
 @Controller
 @RequiredArgsConstructor
 public class TradeWebSocketController {
 
     private final SimpMessagingTemplate messagingTemplate;
+    private final BinaryStreamHandler binaryStream;
 
-    public void sendTradeUpdate(Trade trade) {
-        messagingTemplate.convertAndSend("/topic/trades/" + trade.getSymbol(), trade);
+    public void sendTradeUpdate(Trade trade, BigDecimal price) {
+        messagingTemplate.convertAndSend("/topic/trades/" + trade.getSymbol(), new TradeUpdateMessage(trade.getId(),
+                trade.getSymbol(), price, trade.getQuantity(), trade.getTimestamp(), trade.getBuyOrderId(),
+                trade.getSellOrderId()));
+        binaryStream.onTrade(trade);
     }
 
-}
+    /**
+     * Ends a publication batch: binary subscribers get the batch's trades as one frame per symbol.
+     */
+    public void flush() {
+        binaryStream.flushTrades();
+    }
 
+}
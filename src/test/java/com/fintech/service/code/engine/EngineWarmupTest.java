@@ -0,0 +1,57 @@
+package com.fintech.service.code.engine;
+
+import com.fintech.service.code.config.EngineProperties;
+import com.fintech.service.code.metrics.StageLatencyMetrics;
+import com.fintech.service.code.repository.EngineStateRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+class EngineWarmupTest {
+
+    private final EngineProperties properties = new EngineProperties();
+    private final EngineStateRepository repository = mock(EngineStateRepository.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final StageLatencyMetrics stageLatency = new StageLatencyMetrics(meterRegistry, properties);
+    private final EngineWarmup warmup =
+            new EngineWarmup(properties, new PriceScale(properties), repository, stageLatency);
+
+    @Test
+    void runsTheSyntheticFlowOnScratchStateOnly() {
+        properties.getRisk().setMaxOrderQuantity(90);
+        properties.getRisk().setMaxOpenOrders(20);
+        properties.getRisk().setMaxPosition(500);
+
+        assertEquals(50_000, warmup.warmUp(50_000, Duration.ofMinutes(1)));
+
+        verifyNoInteractions(repository);
+        assertNull(meterRegistry.find("trades.executed.count").meter());
+        assertNull(meterRegistry.find("engine.risk.rejected").meter());
+    }
+
+    @Test
+    void stopsWhenTheTimeoutRunsOut() {
+        assertEquals(0, warmup.warmUp(50_000, Duration.ZERO));
+    }
+
+    @Test
+    void startupTimerKeepsOnlyTheFirstMatches() {
+        stageLatency.record(StageLatencyMetrics.Stage.MATCH, 0, 2_000);
+        stageLatency.record(StageLatencyMetrics.Stage.QUEUE_WAIT, 1, 5_000);
+        stageLatency.record(StageLatencyMetrics.Stage.MATCH, 1, 4_000);
+
+        assertEquals(2, stageLatency.endStartupWindow().count());
+        stageLatency.record(StageLatencyMetrics.Stage.MATCH, 0, 1_000_000);
+
+        assertEquals(2, meterRegistry.get("engine.startup.match.latency").timer().count());
+        assertEquals(4, meterRegistry.get("engine.startup.match.latency").timer().max(TimeUnit.MICROSECONDS));
+        assertEquals(2, meterRegistry.get("engine.stage.latency").tag("stage", "match").tag("shard", "0").timer()
+                .count());
+    }
+}
@@ -0,0 +1,141 @@
+package com.fintech.service.code.engine;
+
+import com.fintech.service.code.config.EngineProperties;
+import com.fintech.service.code.engine.pipeline.JournalHandler;
+import com.fintech.service.code.engine.pipeline.PersistenceHandler;
+import com.fintech.service.code.engine.pipeline.PublicationHandler;
+import com.fintech.service.code.engine.risk.PreTradeRisk;
+import com.fintech.service.code.journal.EventJournal;
+import com.fintech.service.code.journal.JournalRecovery;
+import com.fintech.service.code.journal.PersistedCheckpoint;
+import com.fintech.service.code.journal.SnapshotStore;
+import com.fintech.service.code.marketdata.MarketDataPublisher;
+import com.fintech.service.code.metrics.StageLatencyMetrics;
+import com.fintech.service.code.metrics.TradeMetricsService;
+import com.fintech.service.code.model.Order;
+import com.fintech.service.code.model.OrderType;
+import com.fintech.service.code.repository.EngineStateRepository;
+import com.fintech.service.code.service.OrderBookService;
+import com.fintech.service.code.websocket.TradeWebSocketController;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class MatchingPipelineTest {
+
+    @TempDir
+    Path directory;
+
+    private EngineProperties properties;
+    private OrderBookService books;
+    private SimpleMeterRegistry meterRegistry;
+    private MatchingPipeline pipeline;
+
+    @BeforeEach
+    void start() throws IOException {
+        properties = new EngineProperties();
+        properties.setShards(3);
+        properties.getJournal().setDirectory(directory.toString());
+        properties.getSymbolShards().put("PINNED", 2);
+        books = new OrderBookService();
+        meterRegistry = new SimpleMeterRegistry();
+        IdGenerator idGenerator = new IdGenerator();
+        EngineStateRepository repository = mock(EngineStateRepository.class);
+        EventJournal journal = new EventJournal(properties);
+        SnapshotStore snapshots = new SnapshotStore(properties);
+        PersistedCheckpoint checkpoint = new PersistedCheckpoint(properties);
+        StageLatencyMetrics stageLatency = new StageLatencyMetrics(meterRegistry, properties);
+        PersistenceHandler persistence = new PersistenceHandler(repository, checkpoint, properties, stageLatency);
+        PublicationHandler publication = new PublicationHandler(mock(TradeWebSocketController.class),
+                mock(MarketDataPublisher.class), new PriceScale(properties), stageLatency);
+        PreTradeRisk risk = new PreTradeRisk(properties, books, new PriceScale(properties), repository,
+                meterRegistry);
+        pipeline = new MatchingPipeline(properties,
+                new PriceTimeMatchingEngine(books, new TradeMetricsService(meterRegistry), idGenerator),
+                books, journal, new JournalRecovery(journal, snapshots, checkpoint, books, repository, idGenerator),
+                snapshots, new JournalHandler(journal, snapshots, persistence, properties, stageLatency), persistence,
+                publication, risk, meterRegistry, stageLatency);
+        pipeline.start();
+    }
+
+    @AfterEach
+    void stop() throws Exception {
+        pipeline.stop();
+    }
+
+    @Test
+    void pinnedSymbolsUseTheirConfiguredShard() {
+        assertEquals(2, pipeline.shardOf("PINNED"));
+    }
+
+    @Test
+    void movingASymbolUnderLoadKeepsEveryOrder() throws Exception {
+        int orders = 20_000;
+        List<CompletableFuture<ExecutionReport>> results = new ArrayList<>(orders);
+        Thread producer = new Thread(() -> {
+            for (int i = 0; i < orders; i++) {
+                results.add(pipeline.submit(Order.builder().id(i + 1L).symbol("ACME").type(OrderType.BUY)
+                        .priceTicks(9_000 + i % 100).quantity(1).timestamp(Instant.now()).isActive(true).build()));
+            }
+        });
+        producer.start();
+        for (int move = 0; move < 6; move++) {
+            pipeline.moveSymbol("ACME", move % 3);
+            assertEquals(move % 3, pipeline.shardOf("ACME"));
+        }
+        producer.join();
+
+        CompletableFuture.allOf(results.toArray(CompletableFuture[]::new)).get(30, TimeUnit.SECONDS);
+        assertEquals(orders, books.getBook("ACME").size());
+        double commands = 0;
+        for (int shard = 0; shard < 3; shard++) {
+            commands += meterRegistry.get("engine.shard.commands").tag("shard", String.valueOf(shard))
+                    .functionCounter().count();
+        }
+        assertTrue(commands >= orders);
+    }
+
+    @Test
+    void batchResultsFollowSubmissionOrderAcrossShards() throws Exception {
+        List<Order> batch = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            String symbol = i % 2 == 0 ? "ACME" : "PINNED";
+            OrderType side = i % 4 < 2 ? OrderType.SELL : OrderType.BUY;
+            batch.add(Order.builder().id(i + 1L).symbol(symbol).type(side).priceTicks(10_000).quantity(5)
+                    .timestamp(Instant.now()).isActive(true).build());
+        }
+
+        List<CompletableFuture<ExecutionReport>> results = pipeline.submit(batch);
+
+        CompletableFuture.allOf(results.toArray(CompletableFuture[]::new)).get(10, TimeUnit.SECONDS);
+        for (int i = 0; i < batch.size(); i++) {
+            ExecutionReport report = results.get(i).join();
+            assertEquals(i + 1L, report.getOrder().getId());
+            assertEquals(i % 4 < 2 ? 0 : 1, report.getTrades().size());
+        }
+        assertEquals(0, books.getBook("ACME").size());
+        assertEquals(0, books.getBook("PINNED").size());
+        long matched = meterRegistry.get("engine.stage.latency").tag("stage", "match").timers().stream()
+                .mapToLong(Timer::count).sum();
+        assertEquals(batch.size(), matched);
+    }
+
+    @Test
+    void movingToAnUnknownShardIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> pipeline.moveSymbol("ACME", 3));
+    }
+}
@@ -0,0 +1,39 @@
+package com.fintech.service.code.engine;
+
+import com.fintech.service.code.config.EngineProperties;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PriceScaleTest {
+
+    private final PriceScale priceScale = priceScale();
+
+    @Test
+    void equalDecimalPricesMapToTheSameTick() {
+        BigDecimal sum = new BigDecimal("0.1").add(new BigDecimal("0.2"));
+        assertEquals(priceScale.toTicks("ACME", new BigDecimal("0.3")), priceScale.toTicks("ACME", sum));
+        assertEquals(priceScale.toTicks("ACME", new BigDecimal("0.30")), priceScale.toTicks("ACME", sum));
+    }
+
+    @Test
+    void usesPerSymbolTickSize() {
+        assertEquals(10_050, priceScale.toTicks("ACME", new BigDecimal("100.50")));
+        assertEquals(201, priceScale.toTicks("BRK", new BigDecimal("100.50")));
+        assertEquals(0, new BigDecimal("100.50").compareTo(priceScale.toPrice("BRK", 201)));
+    }
+
+    @Test
+    void rejectsPricesOffTheTickGrid() {
+        assertThrows(IllegalArgumentException.class, () -> priceScale.toTicks("BRK", new BigDecimal("100.25")));
+        assertThrows(IllegalArgumentException.class, () -> priceScale.toTicks("ACME", BigDecimal.ZERO));
+    }
+
+    private static PriceScale priceScale() {
+        EngineProperties properties = new EngineProperties();
+        properties.getTickSizes().put("BRK", new BigDecimal("0.5"));
+        return new PriceScale(properties);
+    }
+}
@@ -0,0 +1,317 @@
+package com.fintech.service.code.engine;
+
+import com.fintech.service.code.metrics.TradeMetricsService;
+import com.fintech.service.code.model.Order;
+import com.fintech.service.code.model.OrderKind;
+import com.fintech.service.code.model.OrderType;
+import com.fintech.service.code.model.Trade;
+import com.fintech.service.code.service.OrderBookService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class PriceTimeMatchingEngineTest {
+
+    private final OrderBookService orderBookService = new OrderBookService();
+    private final PriceTimeMatchingEngine engine =
+            new PriceTimeMatchingEngine(orderBookService, new TradeMetricsService(new SimpleMeterRegistry()),
+                    new IdGenerator());
+    private long nextId = 1;
+
+    @Test
+    void matchesAgainstBestPriceThenTime() {
+        engine.match(order(OrderType.SELL, 10100, 10));
+        Order first = order(OrderType.SELL, 10000, 5);
+        engine.match(first);
+        engine.match(order(OrderType.SELL, 10000, 5));
+
+        List<Trade> trades = engine.match(order(OrderType.BUY, 10100, 12)).getTrades();
+
+        assertEquals(3, trades.size());
+        assertEquals(first.getId(), trades.get(0).getSellOrderId());
+        assertEquals(10000, trades.get(1).getPriceTicks());
+        assertEquals(10100, trades.get(2).getPriceTicks());
+        assertEquals(2, trades.get(2).getQuantity());
+        assertEquals(10100, orderBookService.getBestAsk("ACME").orElseThrow());
+    }
+
+    @Test
+    void cancelUnlinksRestingOrder() {
+        Order resting = order(OrderType.BUY, 9900, 10);
+        engine.match(resting);
+
+        ExecutionReport report = engine.cancel("ACME", resting.getId());
+
+        assertFalse(report.getOrder().isActive());
+        assertTrue(orderBookService.getBestBid("ACME").isEmpty());
+        assertTrue(orderBookService.locate(resting.getId()).isEmpty());
+        assertNull(engine.cancel("ACME", resting.getId()));
+    }
+
+    @Test
+    void quantityDownAmendKeepsPriorityPriceAmendLosesIt() {
+        Order a = order(OrderType.BUY, 9900, 10);
+        Order b = order(OrderType.BUY, 9900, 10);
+        engine.match(a);
+        engine.match(b);
+
+        engine.amend("ACME", a.getId(), null, 4);
+        assertEquals(a.getId(), engine.match(order(OrderType.SELL, 9900, 1)).getTrades().get(0).getBuyOrderId());
+
+        engine.amend("ACME", a.getId(), 9800L, null);
+        engine.amend("ACME", a.getId(), 9900L, null);
+        assertEquals(b.getId(), engine.match(order(OrderType.SELL, 9900, 1)).getTrades().get(0).getBuyOrderId());
+    }
+
+    @Test
+    void priceAmendThatCrossesTrades() {
+        engine.match(order(OrderType.SELL, 10000, 5));
+        Order bid = order(OrderType.BUY, 9900, 8);
+        engine.match(bid);
+
+        ExecutionReport report = engine.amend("ACME", bid.getId(), 10000L, null);
+
+        assertEquals(1, report.getTrades().size());
+        assertEquals(3, report.getOrder().getQuantity());
+        assertEquals(10000, orderBookService.getBestBid("ACME").orElseThrow());
+    }
+
+    @Test
+    void marketOrderSweepsAnyPriceAndNeverRests() {
+        engine.match(order(OrderType.SELL, 10000, 5));
+        engine.match(order(OrderType.SELL, 12000, 5));
+        Order market = order(OrderType.BUY, 0, 15);
+        market.setKind(OrderKind.MARKET);
+
+        ExecutionReport report = engine.match(market);
+
+        assertEquals(2, report.getTrades().size());
+        assertEquals(12000, report.getTrades().get(1).getPriceTicks());
+        assertEquals(5, report.getOrder().getQuantity());
+        assertFalse(report.getOrder().isActive());
+        assertTrue(orderBookService.getBestBid("ACME").isEmpty());
+        assertTrue(orderBookService.locate(market.getId()).isEmpty());
+    }
+
+    @Test
+    void immediateOrCancelRemainderIsCancelled() {
+        FillBuffer fills = new FillBuffer();
+        engine.match("ACME", 1, OrderType.SELL, OrderKind.LIMIT, 10000, 5, 0, fills);
+
+        engine.match("ACME", 2, OrderType.BUY, OrderKind.IOC, 10000, 8, 0, fills);
+
+        assertEquals(1, fills.size());
+        assertEquals(3, fills.getRemaining());
+        assertFalse(fills.isRested());
+        assertEquals(0, orderBookService.getBook("ACME").size());
+    }
+
+    @Test
+    void fillOrKillTradesOnlyWhenFullyCovered() {
+        FillBuffer fills = new FillBuffer();
+        engine.match("ACME", 1, OrderType.SELL, OrderKind.LIMIT, 10000, 5, 0, fills);
+        engine.match("ACME", 2, OrderType.SELL, OrderKind.LIMIT, 10100, 5, 0, fills);
+
+        engine.match("ACME", 3, OrderType.BUY, OrderKind.FOK, 10000, 8, 0, fills);
+        assertEquals(0, fills.size());
+        assertEquals(8, fills.getRemaining());
+        assertEquals(2, orderBookService.getBook("ACME").size());
+
+        engine.match("ACME", 4, OrderType.BUY, OrderKind.FOK, 10100, 8, 0, fills);
+        assertEquals(2, fills.size());
+        assertEquals(0, fills.getRemaining());
+        assertEquals(2, orderBookService.getBook("ACME").get(2).getQuantity());
+    }
+
+    @Test
+    void postOnlyIsRejectedWhenItWouldCross() {
+        FillBuffer fills = new FillBuffer();
+        engine.match("ACME", 1, OrderType.SELL, OrderKind.LIMIT, 10000, 5, 0, fills);
+
+        engine.match("ACME", 2, OrderType.BUY, OrderKind.POST_ONLY, 10000, 5, 0, fills);
+        assertEquals(0, fills.size());
+        assertFalse(fills.isRested());
+        assertNull(orderBookService.getBook("ACME").get(2));
+
+        engine.match("ACME", 3, OrderType.BUY, OrderKind.POST_ONLY, 9900, 5, 0, fills);
+        assertTrue(fills.isRested());
+        assertEquals(9900, orderBookService.getBestBid("ACME").orElseThrow());
+    }
+
+    @Test
+    void restingOrderStatesKeepTheirKind() {
+        Order bid = order(OrderType.BUY, 9900, 10);
+        bid.setKind(OrderKind.POST_ONLY);
+        engine.match(bid);
+
+        ExecutionReport filled = engine.match(order(OrderType.SELL, 9900, 4));
+        assertEquals(OrderKind.POST_ONLY, filled.getRestingOrders().get(0).getKind());
+
+        ExecutionReport reduced = engine.amend("ACME", bid.getId(), null, 3);
+        assertEquals(OrderKind.POST_ONLY, reduced.getOrder().getKind());
+
+        ExecutionReport repriced = engine.amend("ACME", bid.getId(), 9800L, null);
+        assertEquals(OrderKind.POST_ONLY, repriced.getOrder().getKind());
+        assertTrue(repriced.getOrder().isActive());
+
+        assertEquals(OrderKind.POST_ONLY, engine.cancel("ACME", bid.getId()).getOrder().getKind());
+    }
+
+    @Test
+    void primitiveMatchWritesFillsIntoBuffer() {
+        FillBuffer fills = new FillBuffer();
+        engine.match("ACME", 1, OrderType.SELL, OrderKind.LIMIT, 10000, 5, 100, fills);
+        engine.match("ACME", 2, OrderType.SELL, OrderKind.LIMIT, 10100, 5, 200, fills);
+
+        engine.match("ACME", 3, OrderType.BUY, OrderKind.LIMIT, 10100, 7, 300, fills);
+
+        assertEquals(2, fills.size());
+        assertEquals(1, fills.getRestingOrderId(0));
+        assertEquals(0, fills.getRestingRemaining(0));
+        assertEquals(10100, fills.getPrice(1));
+        assertEquals(2, fills.getQuantity(1));
+        assertEquals(3, fills.getRestingRemaining(1));
+        assertEquals(200, fills.getRestingTimestamp(1));
+        assertEquals(0, fills.getRemaining());
+        assertEquals(Instant.ofEpochSecond(0, 200), orderBookService.getBook("ACME").get(2).getTimestamp());
+    }
+
+    @Test
+    void injectedClockStampsFillsAndAmendReplacements() {
+        long[] now = {1_000};
+        OrderBookService books = new OrderBookService();
+        PriceTimeMatchingEngine replayed = new PriceTimeMatchingEngine(books,
+                new TradeMetricsService(new SimpleMeterRegistry()), new IdGenerator(), MatchEventLog.DISABLED,
+                () -> now[0]);
+        FillBuffer fills = new FillBuffer();
+        replayed.match("ACME", 1, OrderType.SELL, OrderKind.LIMIT, 10000, 5, 100, fills);
+        replayed.match("ACME", 2, OrderType.BUY, OrderKind.LIMIT, 9900, 5, 200, fills);
+
+        now[0] = 2_000;
+        replayed.match("ACME", 3, OrderType.BUY, OrderKind.LIMIT, 10000, 2, 300, fills);
+        assertEquals(2_000, fills.getTimestampNanos());
+
+        now[0] = 3_000;
+        replayed.amend("ACME", 2, 9950L, null);
+        assertEquals(Instant.ofEpochSecond(0, 3_000), books.getBook("ACME").get(2).getTimestamp());
+    }
+
+    @Test
+    void crossedStopsFireInPriceOrderAndCascadeWithinTheCommand() {
+        engine.match(order(OrderType.SELL, 10000, 1));
+        engine.match(order(OrderType.BUY, 10000, 1));
+        engine.match(order(OrderType.SELL, 10050, 2));
+        engine.match(order(OrderType.SELL, 10100, 10));
+        Order stopLimit = stop(OrderType.BUY, OrderKind.STOP_LIMIT, 10200, 10100, 5);
+        Order stop = stop(OrderType.BUY, OrderKind.STOP, 0, 10050, 3);
+        Order farStop = stop(OrderType.BUY, OrderKind.STOP, 0, 10300, 1);
+        ExecutionReport waiting = engine.match(stopLimit);
+        engine.match(stop);
+        engine.match(farStop);
+
+        assertTrue(waiting.getTrades().isEmpty());
+        assertTrue(waiting.getOrder().isActive());
+        assertEquals(3, orderBookService.getStops("ACME").size());
+
+        Order incoming = order(OrderType.BUY, 10050, 1);
+        ExecutionReport report = engine.match(incoming);
+
+        List<Trade> trades = report.getTrades();
+        assertEquals(4, trades.size());
+        assertEquals(incoming.getId(), trades.get(0).getBuyOrderId());
+        assertEquals(stop.getId(), trades.get(1).getBuyOrderId());
+        assertEquals(10050, trades.get(1).getPriceTicks());
+        assertEquals(stop.getId(), trades.get(2).getBuyOrderId());
+        assertEquals(10100, trades.get(2).getPriceTicks());
+        assertEquals(stopLimit.getId(), trades.get(3).getBuyOrderId());
+        assertEquals(5, trades.get(3).getQuantity());
+        assertEquals(List.of(trades.get(0)), report.getOrderTrades());
+
+        Order firedStop = report.getRestingOrders().stream().filter(o -> o.getId() == stop.getId()).findFirst()
+                .orElseThrow();
+        assertEquals(OrderKind.MARKET, firedStop.getKind());
+        assertFalse(firedStop.isActive());
+        assertEquals(1, orderBookService.getStops("ACME").size());
+        assertNotNull(orderBookService.getStops("ACME").get(farStop.getId()));
+        assertEquals(10100, orderBookService.getStops("ACME").getLastPrice());
+        assertEquals(3, orderBookService.getBook("ACME").get(trades.get(3).getSellOrderId()).getQuantity());
+    }
+
+    @Test
+    void stopAlreadyCrossedByLastTradeExecutesOnArrival() {
+        engine.match(order(OrderType.BUY, 10000, 1));
+        engine.match(order(OrderType.SELL, 10000, 1));
+        engine.match(order(OrderType.BUY, 9900, 5));
+
+        Order stopLimit = stop(OrderType.SELL, OrderKind.STOP_LIMIT, 9800, 10000, 8);
+        ExecutionReport report = engine.match(stopLimit);
+
+        assertEquals(OrderKind.LIMIT, report.getOrder().getKind());
+        assertEquals(5, report.getTrades().get(0).getQuantity());
+        assertEquals(3, report.getOrder().getQuantity());
+        assertEquals(9800, orderBookService.getBestAsk("ACME").orElseThrow());
+        assertEquals(0, orderBookService.getStops("ACME").size());
+    }
+
+    @Test
+    void waitingStopsCanBeAmendedAndCancelled() {
+        Order stopLimit = stop(OrderType.SELL, OrderKind.STOP_LIMIT, 9800, 9900, 8);
+        engine.match(stopLimit);
+        assertEquals("ACME", orderBookService.locate(stopLimit.getId()).orElseThrow());
+
+        ExecutionReport amended = engine.amend("ACME", stopLimit.getId(), 9700L, 4);
+        assertEquals(9700, amended.getOrder().getPriceTicks());
+        assertEquals(9900, amended.getOrder().getStopPriceTicks());
+        assertEquals(4, orderBookService.getStops("ACME").get(stopLimit.getId()).getQuantity());
+
+        ExecutionReport cancelled = engine.cancel("ACME", stopLimit.getId());
+        assertEquals(OrderKind.STOP_LIMIT, cancelled.getOrder().getKind());
+        assertFalse(cancelled.getOrder().isActive());
+        assertEquals(0, orderBookService.getStops("ACME").size());
+        assertTrue(orderBookService.locate(stopLimit.getId()).isEmpty());
+        assertNull(engine.cancel("ACME", stopLimit.getId()));
+    }
+
+    @Test
+    void steadyStateMatchingDoesNotAllocate() {
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assumeTrue(threads.isThreadAllocatedMemoryEnabled());
+        FillBuffer fills = new FillBuffer();
+        for (int i = 0; i < 100; i++) {
+            engine.match("ACME", nextId++, OrderType.BUY, OrderKind.LIMIT, 9000 + i, 100, 0, fills);
+        }
+        for (int i = 0; i < 50_000; i++) {
+            restAndMatch(fills);
+        }
+
+        long before = threads.getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < 10_000; i++) {
+            restAndMatch(fills);
+        }
+
+        assertEquals(0, threads.getCurrentThreadAllocatedBytes() - before);
+    }
+
+    private void restAndMatch(FillBuffer fills) {
+        long price = 10000 + (nextId & 7);
+        engine.match("ACME", nextId++, OrderType.SELL, OrderKind.LIMIT, price, 10, 0, fills);
+        engine.match("ACME", nextId++, OrderType.BUY, OrderKind.LIMIT, price, 10, 0, fills);
+    }
+
+    private Order stop(OrderType type, OrderKind kind, long price, long stopPrice, int quantity) {
+        return Order.builder().id(nextId++).symbol("ACME").type(type).kind(kind).priceTicks(price)
+                .stopPriceTicks(stopPrice).quantity(quantity).timestamp(Instant.now()).isActive(true).build();
+    }
+
+    private Order order(OrderType type, long price, int quantity) {
+        return Order.builder().id(nextId++).symbol("ACME").type(type).priceTicks(price).quantity(quantity)
+                .timestamp(Instant.now()).isActive(true).build();
+    }
+}
@@ -0,0 +1,121 @@
+package com.fintech.service.code.engine.book;
+
+import com.fintech.service.code.model.OrderKind;
+import com.fintech.service.code.model.OrderType;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BookSideTest {
+
+    private final Instant now = Instant.now();
+
+    @Test
+    void bestLevelFollowsPriceThenTimePriority() {
+        BookSide asks = new BookSide(OrderType.SELL);
+        asks.add(order(1, OrderType.SELL, 10100, 10));
+        asks.add(order(2, OrderType.SELL, 10000, 5));
+        asks.add(order(3, OrderType.SELL, 10000, 7));
+        asks.add(order(4, OrderType.SELL, 10200, 1));
+
+        assertEquals(3, asks.getLevelCount());
+        assertEquals(10000, asks.getBestPrice());
+        assertEquals(12, asks.getBestQuantity(10000));
+        assertEquals(0, asks.getBestQuantity(10100));
+        assertEquals(2, asks.bestLevel().getHead().getOrderId());
+        assertEquals(10100, asks.levelAt(1).getPrice());
+        assertEquals(10200, asks.levelAt(2).getPrice());
+    }
+
+    @Test
+    void liquidityStopsAtLimitPriceAndWantedQuantity() {
+        BookSide asks = new BookSide(OrderType.SELL);
+        asks.add(order(1, OrderType.SELL, 10000, 5));
+        asks.add(order(2, OrderType.SELL, 10100, 10));
+        asks.add(order(3, OrderType.SELL, 10200, 20));
+
+        assertEquals(0, asks.liquidity(9900, Long.MAX_VALUE));
+        assertEquals(15, asks.liquidity(10100, Long.MAX_VALUE));
+        assertEquals(5, asks.liquidity(10200, 5));
+        assertEquals(35, asks.liquidity(Long.MAX_VALUE, 16));
+    }
+
+    @Test
+    void fillRemovesExhaustedOrdersAndEmptyLevels() {
+        BookSide bids = new BookSide(OrderType.BUY);
+        RestingOrder first = order(1, OrderType.BUY, 9900, 5);
+        bids.add(first);
+        bids.add(order(2, OrderType.BUY, 9800, 5));
+
+        bids.fill(first, 2);
+        assertEquals(3, first.getQuantity());
+        assertEquals(3, bids.getBestQuantity(9900));
+
+        bids.fill(first, 3);
+        assertEquals(1, bids.getLevelCount());
+        assertEquals(9800, bids.getBestPrice());
+        assertEquals(5, bids.getBestQuantity(9800));
+        assertEquals(1, bids.getOrderCount());
+    }
+
+    @Test
+    void removeFromMiddleOfLevelKeepsFifoLinks() {
+        BookSide bids = new BookSide(OrderType.BUY);
+        RestingOrder a = order(1, OrderType.BUY, 9900, 1);
+        RestingOrder b = order(2, OrderType.BUY, 9900, 2);
+        RestingOrder c = order(3, OrderType.BUY, 9900, 3);
+        bids.add(a);
+        bids.add(b);
+        bids.add(c);
+
+        bids.remove(b);
+
+        PriceLevel level = bids.bestLevel();
+        assertSame(a, level.getHead());
+        assertSame(c, level.getHead().next);
+        assertSame(c, level.getTail());
+        assertEquals(4, level.getTotalQuantity());
+        assertEquals(2, level.getOrderCount());
+    }
+
+    @Test
+    void crossesComparesAgainstOppositeBest() {
+        BookSide asks = new BookSide(OrderType.SELL);
+        assertFalse(asks.crosses(100000));
+        asks.add(order(1, OrderType.SELL, 10000, 1));
+        assertTrue(asks.crosses(10000));
+        assertFalse(asks.crosses(9999));
+    }
+
+    @Test
+    void readersNeverPairTheBestPriceWithAnotherLevelsQuantity() throws InterruptedException {
+        BookSide bids = new BookSide(OrderType.BUY);
+        bids.add(order(1, OrderType.BUY, 9900, 5));
+        AtomicBoolean running = new AtomicBoolean(true);
+        Thread writer = new Thread(() -> {
+            RestingOrder top = order(2, OrderType.BUY, 10000, 7);
+            while (running.get()) {
+                bids.add(top);
+                bids.remove(top);
+            }
+        });
+        writer.start();
+        try {
+            for (int i = 0; i < 200_000; i++) {
+                long price = bids.getBestPrice();
+                long quantity = bids.getBestQuantity(price);
+                assertTrue(quantity == 0 || quantity == (price == 10000 ? 7 : 5), price + "x" + quantity);
+            }
+        } finally {
+            running.set(false);
+            writer.join();
+        }
+    }
+
+    private RestingOrder order(long id, OrderType side, long price, int quantity) {
+        return new RestingOrder(id, side, OrderKind.LIMIT, price, quantity, now.plusNanos(id));
+    }
+}
@@ -0,0 +1,96 @@
+package com.fintech.service.code.engine.book;
+
+import com.fintech.service.code.model.OrderKind;
+import com.fintech.service.code.model.OrderType;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OffHeapOrderBookTest {
+
+    @Test
+    void matchesBestPriceThenTimeAndRecyclesSlots() {
+        OffHeapOrderBook book = new OffHeapOrderBook("ACME");
+        book.add(1, OrderType.SELL, OrderKind.POST_ONLY, 10100, 10, 1);
+        book.add(2, OrderType.SELL, OrderKind.LIMIT, 10000, 5, 2);
+        book.add(3, OrderType.SELL, OrderKind.LIMIT, 10000, 5, 3);
+        List<String> fills = new ArrayList<>();
+
+        int remaining = book.match(OrderType.BUY, 10100, 12,
+                (price, quantity, restingId, restingKind, restingLeft, timestamp) ->
+                        fills.add(restingId + ":" + restingKind + ":" + quantity));
+
+        assertEquals(0, remaining);
+        assertEquals(List.of("2:LIMIT:5", "3:LIMIT:5", "1:POST_ONLY:2"), fills);
+        assertEquals(10100, book.getBestPrice(OrderType.SELL));
+        assertEquals(8, book.get(1).getQuantity());
+        assertEquals(OrderKind.POST_ONLY, book.get(1).getKind());
+        assertEquals(1, book.size());
+
+        book.add(4, OrderType.BUY, OrderKind.LIMIT, 9900, 7, 4);
+        assertTrue(book.remove(1));
+        assertFalse(book.remove(1));
+        assertEquals(OrderBook.NO_PRICE, book.getBestPrice(OrderType.SELL));
+        assertEquals(OrderSlots.SLOT_BYTES * (long) OrderSlots.CHUNK_SLOTS, book.getReservedBytes());
+    }
+
+    @Test
+    void behavesLikeTheHeapBookUnderRandomFlow() {
+        HeapOrderBook heap = new HeapOrderBook("ACME");
+        OffHeapOrderBook offHeap = new OffHeapOrderBook("ACME");
+        Random random = new Random(7);
+        List<Long> ids = new ArrayList<>();
+        for (long id = 1; id <= 20_000; id++) {
+            int action = random.nextInt(10);
+            if (action < 2 && !ids.isEmpty()) {
+                long target = ids.get(random.nextInt(ids.size()));
+                assertEquals(heap.remove(target), offHeap.remove(target));
+            } else if (action < 3 && !ids.isEmpty()) {
+                long target = ids.get(random.nextInt(ids.size()));
+                RestingOrder resting = heap.get(target);
+                if (resting != null && resting.getQuantity() > 1) {
+                    heap.reduce(target, 1);
+                    offHeap.reduce(target, 1);
+                }
+            } else {
+                OrderType side = random.nextBoolean() ? OrderType.BUY : OrderType.SELL;
+                long price = 10_000 + random.nextInt(40) - (side == OrderType.BUY ? 21 : 0);
+                int quantity = 1 + random.nextInt(20);
+                assertEquals(heap.liquidity(side, price, quantity), offHeap.liquidity(side, price, quantity));
+                List<String> heapFills = new ArrayList<>();
+                List<String> offHeapFills = new ArrayList<>();
+                int heapLeft = heap.match(side, price, quantity, recorder(heapFills));
+                int offHeapLeft = offHeap.match(side, price, quantity, recorder(offHeapFills));
+                assertEquals(heapFills, offHeapFills);
+                assertEquals(heapLeft, offHeapLeft);
+                if (heapLeft > 0) {
+                    OrderKind kind = id % 3 == 0 ? OrderKind.POST_ONLY : OrderKind.LIMIT;
+                    heap.add(id, side, kind, price, heapLeft, id);
+                    offHeap.add(id, side, kind, price, heapLeft, id);
+                    ids.add(id);
+                }
+            }
+        }
+        assertEquals(heap.size(), offHeap.size());
+        for (OrderType side : OrderType.values()) {
+            assertEquals(heap.getBestPrice(side), offHeap.getBestPrice(side));
+            assertEquals(contents(heap, side), contents(offHeap, side));
+        }
+    }
+
+    private static OrderBook.FillSink recorder(List<String> fills) {
+        return (price, quantity, restingId, restingKind, restingLeft, timestamp) ->
+                fills.add(restingId + restingKind.name() + "@" + price + "x" + quantity + "/" + restingLeft);
+    }
+
+    private static List<String> contents(OrderBook book, OrderType side) {
+        List<String> orders = new ArrayList<>();
+        book.forEach(side, (orderId, orderSide, kind, price, quantity, timestamp) ->
+                orders.add(orderId + kind.name() + "@" + price + "x" + quantity + "t" + timestamp));
+        return orders;
+    }
+}
@@ -0,0 +1,79 @@
+package com.fintech.service.code.engine.book;
+
+import com.fintech.service.code.model.OrderKind;
+import com.fintech.service.code.model.OrderType;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StopBookTest {
+
+    @Test
+    void tradeRangeFiresExactlyTheCrossedStopsInFiringOrder() {
+        StopBook stops = new StopBook("ACME");
+        stops.add(stop(1, OrderType.BUY, 10100));
+        stops.add(stop(2, OrderType.BUY, 10050));
+        stops.add(stop(3, OrderType.BUY, 10100));
+        stops.add(stop(4, OrderType.BUY, 10200));
+        stops.add(stop(5, OrderType.SELL, 9900));
+        stops.add(stop(6, OrderType.SELL, 9950));
+        stops.add(stop(7, OrderType.SELL, 9800));
+
+        List<StopOrder> triggered = new ArrayList<>();
+        stops.trade(9950, 10100, 10000, triggered);
+
+        assertEquals(List.of(2L, 1L, 3L, 6L), ids(triggered));
+        assertEquals(10000, stops.getLastPrice());
+        assertEquals(3, stops.size());
+        assertNull(stops.get(1));
+        assertNotNull(stops.get(4));
+
+        triggered.clear();
+        stops.trade(9800, 9800, 9800, triggered);
+        assertEquals(List.of(5L, 7L), ids(triggered));
+    }
+
+    @Test
+    void crossedComparesAgainstTheLastTrade() {
+        StopBook stops = new StopBook("ACME");
+        assertFalse(stops.crossed(OrderType.BUY, 1));
+
+        stops.trade(10000, 10000, 10000, new ArrayList<>());
+
+        assertTrue(stops.crossed(OrderType.BUY, 10000));
+        assertFalse(stops.crossed(OrderType.BUY, 10001));
+        assertTrue(stops.crossed(OrderType.SELL, 10000));
+        assertFalse(stops.crossed(OrderType.SELL, 9999));
+    }
+
+    @Test
+    void removeUnlinksFromLevelAndLocator() {
+        OrderLocator locator = new OrderLocator();
+        StopBook stops = new StopBook("ACME", locator);
+        stops.add(stop(1, OrderType.SELL, 9900));
+        stops.add(stop(2, OrderType.SELL, 9900));
+        assertEquals("ACME", locator.find(1).orElseThrow());
+
+        assertEquals(1, stops.remove(1).getOrderId());
+        assertNull(stops.remove(1));
+        assertTrue(locator.find(1).isEmpty());
+
+        List<StopOrder> visited = new ArrayList<>();
+        stops.forEach(visited::add);
+        assertEquals(List.of(2L), ids(visited));
+        stops.remove(2);
+        stops.trade(9000, 9000, 9000, visited);
+        assertEquals(1, visited.size());
+    }
+
+    private static StopOrder stop(long id, OrderType side, long stopPrice) {
+        return new StopOrder(id, side, OrderKind.STOP, 0, stopPrice, 1, id);
+    }
+
+    private static List<Long> ids(List<StopOrder> stops) {
+        return stops.stream().map(StopOrder::getOrderId).toList();
+    }
+}
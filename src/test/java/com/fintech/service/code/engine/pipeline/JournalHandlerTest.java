@@ -0,0 +1,103 @@
+package com.fintech.service.code.engine.pipeline;
+
+import com.fintech.service.code.config.EngineProperties;
+import com.fintech.service.code.engine.ExecutionReport;
+import com.fintech.service.code.journal.EventJournal;
+import com.fintech.service.code.journal.PersistedCheckpoint;
+import com.fintech.service.code.journal.SnapshotStore;
+import com.fintech.service.code.metrics.StageLatencyMetrics;
+import com.fintech.service.code.model.Order;
+import com.fintech.service.code.model.OrderType;
+import com.fintech.service.code.repository.EngineStateRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class JournalHandlerTest {
+
+    private final EngineProperties properties = new EngineProperties();
+    private final EventJournal journal = mock(EventJournal.class);
+    private final StageLatencyMetrics stageLatency = new StageLatencyMetrics(new SimpleMeterRegistry(), properties);
+    private final PersistenceHandler persistence = new PersistenceHandler(mock(EngineStateRepository.class),
+            mock(PersistedCheckpoint.class), properties, stageLatency);
+    private final JournalHandler handler =
+            new JournalHandler(journal, mock(SnapshotStore.class), persistence, properties, stageLatency);
+
+    @Test
+    void failedAppendMarksTheEventUnjournaledAndFailsEverythingAfterIt() {
+        AtomicInteger failures = new AtomicInteger();
+        handler.addFailureListener(failures::incrementAndGet);
+        when(journal.position()).thenReturn(100L);
+        doThrow(new UncheckedIOException(new IOException("disk full"))).when(journal)
+                .appendCommand(any(), any(), anyLong(), anyInt());
+        EngineEvent failed = event(1);
+        EngineEvent next = event(2);
+        next.setJournalPosition(50);
+
+        handler.onEvent(failed, 0, false);
+        handler.onEvent(next, 1, true);
+
+        assertEquals(EngineEvent.UNJOURNALED, failed.getJournalPosition());
+        assertEquals(EngineEvent.UNJOURNALED, next.getJournalPosition());
+        assertTrue(failed.getResult().isCompletedExceptionally());
+        assertTrue(next.getResult().isCompletedExceptionally());
+        assertEquals(1, failures.get());
+    }
+
+    @Test
+    void persistenceDoesNotCheckpointUnjournaledEvents() {
+        EngineEvent event = event(1);
+        event.setFailure(new IllegalStateException("journal failed"));
+        event.setJournalPosition(EngineEvent.UNJOURNALED);
+
+        persistence.onEvent(event, 0, true);
+        persistence.flushPending();
+
+        assertEquals(0, persistence.getPersistedPosition().get());
+    }
+
+    @Test
+    void flushIntervalStartsAtTheFirstPendingWrite() {
+        EngineStateRepository repository = mock(EngineStateRepository.class);
+        properties.getPersistence().setFlushInterval(Duration.ofMinutes(1));
+        PersistenceHandler persistence = new PersistenceHandler(repository, mock(PersistedCheckpoint.class),
+                properties, stageLatency);
+        EngineEvent snapshot = new EngineEvent();
+        snapshot.setSnapshot(ByteBuffer.allocate(0));
+        snapshot.setJournalPosition(10);
+
+        persistence.onEvent(snapshot, 0, false);
+        persistence.onEvent(event(1), 1, true);
+
+        verify(repository, never()).write(any(), any());
+    }
+
+    private static EngineEvent event(long orderId) {
+        EngineEvent event = new EngineEvent();
+        event.setCommandType(CommandType.NEW);
+        event.setOrder(Order.builder().id(orderId).symbol("ACME").type(OrderType.BUY).priceTicks(10_000)
+                .quantity(1).timestamp(Instant.now()).isActive(true).build());
+        event.setTrades(List.of());
+        event.setRestingOrders(List.of());
+        event.setResult(new CompletableFuture<ExecutionReport>());
+        return event;
+    }
+}
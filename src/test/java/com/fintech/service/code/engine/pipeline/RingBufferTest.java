@@ -0,0 +1,86 @@
+package com.fintech.service.code.engine.pipeline;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RingBufferTest {
+
+    static class LongEvent {
+        long value;
+    }
+
+    @Test
+    void tryNextReturnsMinusOneWhenFull() {
+        RingBuffer<LongEvent> ringBuffer = new RingBuffer<>(4, LongEvent::new);
+        ringBuffer.addGatingSequences(new AtomicLong(-1));
+        for (int i = 0; i < 4; i++) {
+            ringBuffer.publish(ringBuffer.tryNext());
+        }
+        assertEquals(-1, ringBuffer.tryNext());
+        assertEquals(4, ringBuffer.size());
+    }
+
+    @Test
+    void batchClaimTakesConsecutiveSequences() {
+        RingBuffer<LongEvent> ringBuffer = new RingBuffer<>(8, LongEvent::new);
+        ringBuffer.addGatingSequences(new AtomicLong(-1));
+        ringBuffer.publish(ringBuffer.next());
+
+        long high = ringBuffer.next(5);
+        assertEquals(5, high);
+        assertFalse(ringBuffer.isAvailable(1));
+        ringBuffer.publish(1, high);
+        assertEquals(high, ringBuffer.getHighestPublishedSequence(0, high));
+        assertEquals(7, ringBuffer.next(2));
+        assertEquals(-1, ringBuffer.tryNext());
+        assertThrows(IllegalArgumentException.class, () -> ringBuffer.next(9));
+    }
+
+    @Test
+    void dependentStageSeesEveryEventInOrderAfterUpstream() throws InterruptedException {
+        int producers = 4;
+        int perProducer = 50_000;
+        RingBuffer<LongEvent> ringBuffer = new RingBuffer<>(1024, LongEvent::new);
+        AtomicLong upstreamSum = new AtomicLong();
+        AtomicLong lastSeen = new AtomicLong(-1);
+        CountDownLatch done = new CountDownLatch(1);
+
+        EventProcessor<LongEvent> upstream = new EventProcessor<>(ringBuffer,
+                (event, sequence, endOfBatch) -> upstreamSum.addAndGet(event.value));
+        EventProcessor<LongEvent> downstream = new EventProcessor<>(ringBuffer, (event, sequence, endOfBatch) -> {
+            assertEquals(lastSeen.get() + 1, sequence);
+            lastSeen.set(sequence);
+            if (sequence == (long) producers * perProducer - 1) {
+                done.countDown();
+            }
+        }, upstream.getSequence());
+        ringBuffer.addGatingSequences(downstream.getSequence());
+        new Thread(upstream).start();
+        new Thread(downstream).start();
+
+        Thread[] threads = new Thread[producers];
+        for (int p = 0; p < producers; p++) {
+            threads[p] = new Thread(() -> {
+                for (int i = 0; i < perProducer; i++) {
+                    long sequence = ringBuffer.next();
+                    ringBuffer.get(sequence).value = 1;
+                    ringBuffer.publish(sequence);
+                }
+            });
+            threads[p].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        upstream.halt();
+        downstream.halt();
+        assertEquals((long) producers * perProducer, upstreamSum.get());
+    }
+}
@@ -0,0 +1,159 @@
+package com.fintech.service.code.engine.risk;
+
+import com.fintech.service.code.config.EngineProperties;
+import com.fintech.service.code.engine.ExecutionReport;
+import com.fintech.service.code.engine.IdGenerator;
+import com.fintech.service.code.engine.PriceScale;
+import com.fintech.service.code.engine.PriceTimeMatchingEngine;
+import com.fintech.service.code.metrics.TradeMetricsService;
+import com.fintech.service.code.model.Order;
+import com.fintech.service.code.model.OrderKind;
+import com.fintech.service.code.model.OrderType;
+import com.fintech.service.code.repository.EngineStateRepository;
+import com.fintech.service.code.service.OrderBookService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class PreTradeRiskTest {
+
+    private final EngineProperties properties = new EngineProperties();
+    private final OrderBookService orderBookService = new OrderBookService();
+    private final PriceTimeMatchingEngine engine =
+            new PriceTimeMatchingEngine(orderBookService, new TradeMetricsService(new SimpleMeterRegistry()),
+                    new IdGenerator());
+    private final EngineStateRepository repository = mock(EngineStateRepository.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private PreTradeRisk risk;
+    private long nextId = 1;
+
+    @Test
+    void rejectsOversizedOrdersAndPricesOutsideTheCollar() {
+        properties.getRisk().setMaxOrderQuantity(100);
+        properties.getRisk().setPriceCollar(0.1);
+        start();
+
+        run(order(null, OrderType.SELL, OrderKind.LIMIT, 10000, 1));
+        assertRejected(PreTradeRisk.Reason.ORDER_SIZE, order(null, OrderType.BUY, OrderKind.LIMIT, 10000, 101));
+        assertRejected(PreTradeRisk.Reason.ORDER_SIZE, order(null, OrderType.BUY, OrderKind.MARKET, 0, 101));
+        run(order(null, OrderType.BUY, OrderKind.LIMIT, 10000, 1));
+
+        assertRejected(PreTradeRisk.Reason.PRICE_COLLAR, order(null, OrderType.SELL, OrderKind.LIMIT, 11001, 1));
+        assertRejected(PreTradeRisk.Reason.PRICE_COLLAR, order(null, OrderType.BUY, OrderKind.LIMIT, 8999, 1));
+        Order resting = order(null, OrderType.SELL, OrderKind.LIMIT, 11000, 1);
+        run(resting);
+        assertThrows(RiskRejectedException.class, () -> risk.checkAmend("ACME", resting.getId(), 11100L, null));
+        risk.checkAmend("ACME", resting.getId(), 10500L, 100);
+        assertEquals(3, meterRegistry.get("engine.risk.rejected").tag("reason", "price_collar").counter().count());
+    }
+
+    @Test
+    void tracksOpenOrdersNotionalAndPositionsFromReports() {
+        start();
+        Order bid = order(7L, OrderType.BUY, OrderKind.LIMIT, 10000, 10);
+        run(bid);
+        assertEquals(1, risk.getOpenOrders(7));
+        assertEquals(new BigDecimal("1000.00000000"), risk.getOpenNotional(7));
+
+        ExecutionReport fill = run(order(8L, OrderType.SELL, OrderKind.LIMIT, 10000, 4));
+        assertEquals(7L, fill.getRestingOrders().get(0).getAccountId());
+        assertEquals(new BigDecimal("600.00000000"), risk.getOpenNotional(7));
+        assertEquals(4, risk.getPosition(7, "ACME"));
+        assertEquals(-4, risk.getPosition(8, "ACME"));
+        assertEquals(0, risk.getOpenOrders(8));
+
+        ExecutionReport amended = engine.amend("ACME", bid.getId(), 9900L, null);
+        risk.onExecution(amended);
+        assertEquals(7L, amended.getOrder().getAccountId());
+        assertEquals(new BigDecimal("594.00000000"), risk.getOpenNotional(7));
+
+        risk.onExecution(engine.cancel("ACME", bid.getId()));
+        assertEquals(0, risk.getOpenOrders(7));
+        assertEquals(new BigDecimal("0E-8"), risk.getOpenNotional(7));
+        assertEquals(4, risk.getPosition(7, "ACME"));
+    }
+
+    @Test
+    void rejectsOrdersBreachingAccountLimits() {
+        properties.getRisk().setMaxOpenOrders(2);
+        properties.getRisk().setMaxOpenNotional(new BigDecimal("500"));
+        properties.getRisk().setMaxPosition(5);
+        start();
+
+        run(order(1L, OrderType.BUY, OrderKind.LIMIT, 10000, 3));
+        assertRejected(PreTradeRisk.Reason.OPEN_NOTIONAL, order(1L, OrderType.BUY, OrderKind.LIMIT, 10000, 3));
+        Order stop = order(1L, OrderType.SELL, OrderKind.STOP, 0, 1);
+        stop.setStopPriceTicks(9000);
+        run(stop);
+        assertEquals(2, risk.getOpenOrders(1));
+        assertRejected(PreTradeRisk.Reason.OPEN_ORDERS, order(1L, OrderType.SELL, OrderKind.LIMIT, 10100, 1));
+        assertThrows(RiskRejectedException.class, () -> risk.checkAmend("ACME", stop.getId(), null, 100));
+
+        run(order(2L, OrderType.SELL, OrderKind.LIMIT, 10000, 3));
+        assertEquals(3, risk.getPosition(1, "ACME"));
+        assertRejected(PreTradeRisk.Reason.POSITION, order(1L, OrderType.BUY, OrderKind.IOC, 10000, 3));
+        risk.check(order(1L, OrderType.SELL, OrderKind.IOC, 10000, 8));
+        assertRejected(PreTradeRisk.Reason.POSITION, order(1L, OrderType.SELL, OrderKind.IOC, 10000, 9));
+        risk.check(order(3L, OrderType.BUY, OrderKind.IOC, 10000, 5));
+    }
+
+    @Test
+    void rejectsNotionalsThatOverflow() {
+        properties.getRisk().setMaxOpenNotional(new BigDecimal("500"));
+        start();
+
+        assertRejected(PreTradeRisk.Reason.OPEN_NOTIONAL,
+                order(1L, OrderType.BUY, OrderKind.LIMIT, Long.MAX_VALUE / 1_000, 1_000_000));
+        assertRejected(PreTradeRisk.Reason.OPEN_NOTIONAL,
+                order(1L, OrderType.SELL, OrderKind.LIMIT, 1L << 40, Integer.MAX_VALUE));
+        assertEquals(0, risk.getOpenOrders(1));
+    }
+
+    @Test
+    void recoveredSeedsCountersFromTheDatabase() {
+        Order open = order(5L, OrderType.SELL, OrderKind.LIMIT, 12000, 2);
+        when(repository.findOpenAccountOrders()).thenReturn(List.of(open));
+        doAnswer(invocation -> {
+            EngineStateRepository.PositionVisitor visitor = invocation.getArgument(0);
+            visitor.visit(5L, "ACME", -7);
+            return null;
+        }).when(repository).forEachAccountPosition(any());
+        start();
+
+        risk.recovered();
+
+        assertEquals(1, risk.getOpenOrders(5));
+        assertEquals(new BigDecimal("240.00000000"), risk.getOpenNotional(5));
+        assertEquals(-7, risk.getPosition(5, "ACME"));
+    }
+
+    private void start() {
+        risk = new PreTradeRisk(properties, orderBookService, new PriceScale(properties), repository, meterRegistry);
+    }
+
+    private ExecutionReport run(Order order) {
+        risk.check(order);
+        ExecutionReport report = engine.match(order);
+        risk.onExecution(report);
+        return report;
+    }
+
+    private void assertRejected(PreTradeRisk.Reason reason, Order order) {
+        RiskRejectedException e = assertThrows(RiskRejectedException.class, () -> risk.check(order));
+        assertEquals(reason, e.getReason());
+    }
+
+    private Order order(Long accountId, OrderType type, OrderKind kind, long priceTicks, int quantity) {
+        return Order.builder().id(nextId++).symbol("ACME").accountId(accountId).type(type).kind(kind)
+                .priceTicks(priceTicks).quantity(quantity).timestamp(Instant.now()).isActive(true).build();
+    }
+}
@@ -0,0 +1,139 @@
+package com.fintech.service.code.gateway;
+
+import com.fintech.service.code.config.EngineProperties;
+import com.fintech.service.code.engine.IdGenerator;
+import com.fintech.service.code.engine.MatchingPipeline;
+import com.fintech.service.code.engine.PriceScale;
+import com.fintech.service.code.engine.PriceTimeMatchingEngine;
+import com.fintech.service.code.engine.pipeline.JournalHandler;
+import com.fintech.service.code.engine.pipeline.PersistenceHandler;
+import com.fintech.service.code.engine.pipeline.PublicationHandler;
+import com.fintech.service.code.engine.risk.PreTradeRisk;
+import com.fintech.service.code.journal.EventJournal;
+import com.fintech.service.code.journal.JournalRecovery;
+import com.fintech.service.code.journal.PersistedCheckpoint;
+import com.fintech.service.code.journal.SnapshotStore;
+import com.fintech.service.code.marketdata.MarketDataPublisher;
+import com.fintech.service.code.metrics.StageLatencyMetrics;
+import com.fintech.service.code.metrics.TradeMetricsService;
+import com.fintech.service.code.repository.EngineStateRepository;
+import com.fintech.service.code.service.OrderBookService;
+import com.fintech.service.code.websocket.TradeWebSocketController;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class OrderEntryGatewayTest {
+
+    private static final int REPORT_FRAME = GatewayProtocol.LENGTH_BYTES + GatewayProtocol.EXECUTION_REPORT_BYTES;
+
+    @TempDir
+    Path directory;
+
+    private MatchingPipeline pipeline;
+    private OrderEntryGateway gateway;
+
+    @BeforeEach
+    void start() throws IOException {
+        EngineProperties properties = new EngineProperties();
+        properties.getJournal().setDirectory(directory.toString());
+        properties.getGateway().setPort(0);
+        OrderBookService books = new OrderBookService();
+        IdGenerator idGenerator = new IdGenerator();
+        EngineStateRepository repository = mock(EngineStateRepository.class);
+        EventJournal journal = new EventJournal(properties);
+        SnapshotStore snapshots = new SnapshotStore(properties);
+        PersistedCheckpoint checkpoint = new PersistedCheckpoint(properties);
+        StageLatencyMetrics stageLatency = new StageLatencyMetrics(new SimpleMeterRegistry(), properties);
+        PersistenceHandler persistence = new PersistenceHandler(repository, checkpoint, properties, stageLatency);
+        PublicationHandler publication = new PublicationHandler(mock(TradeWebSocketController.class),
+                mock(MarketDataPublisher.class), new PriceScale(properties), stageLatency);
+        PreTradeRisk risk = new PreTradeRisk(properties, books, new PriceScale(properties), repository,
+                new SimpleMeterRegistry());
+        pipeline = new MatchingPipeline(properties,
+                new PriceTimeMatchingEngine(books, new TradeMetricsService(new SimpleMeterRegistry()), idGenerator),
+                books, journal, new JournalRecovery(journal, snapshots, checkpoint, books, repository, idGenerator),
+                snapshots, new JournalHandler(journal, snapshots, persistence, properties, stageLatency), persistence,
+                publication, risk, new SimpleMeterRegistry(), stageLatency);
+        pipeline.start();
+        gateway = new OrderEntryGateway(properties, pipeline, books, idGenerator, publication, stageLatency);
+        gateway.start();
+    }
+
+    @AfterEach
+    void stop() throws Exception {
+        gateway.stop();
+        pipeline.stop();
+    }
+
+    @Test
+    void pipelinedOrdersAreAcknowledgedAndRestingOrdersGetFills() throws IOException {
+        try (SocketChannel client = SocketChannel.open(new InetSocketAddress("localhost", gateway.getLocalPort()))) {
+            ByteBuffer out = ByteBuffer.allocate(256);
+            GatewayProtocol.putNewOrder(out, 1, GatewayProtocol.SIDE_SELL, "ACME", 10_000, 5);
+            GatewayProtocol.putNewOrder(out, 2, GatewayProtocol.SIDE_BUY, "ACME", 10_000, 3);
+            GatewayProtocol.putNewOrder(out, 3, GatewayProtocol.SIDE_BUY, "ACME", 0, 3);
+            client.write(out.flip());
+
+            ByteBuffer in = ByteBuffer.allocate(REPORT_FRAME * 4);
+            while (in.position() < in.capacity()) {
+                client.read(in);
+            }
+            in.flip();
+
+            long restingOrderId = 0;
+            int sellerFilled = 0;
+            boolean buyerFilled = false;
+            boolean rejected = false;
+            for (int i = 0; i < 4; i++) {
+                in.position(i * REPORT_FRAME + GatewayProtocol.LENGTH_BYTES);
+                assertEquals(GatewayProtocol.EXECUTION_REPORT, in.get());
+                long clientOrderId = in.getLong();
+                long orderId = in.getLong();
+                byte status = in.get();
+                byte reason = in.get();
+                int filled = in.getInt();
+                int leaves = in.getInt();
+                if (clientOrderId == 1 && status == GatewayProtocol.STATUS_ACCEPTED) {
+                    restingOrderId = orderId;
+                    assertEquals(5, leaves);
+                } else if (clientOrderId == 1) {
+                    assertEquals(GatewayProtocol.STATUS_PARTIALLY_FILLED, status);
+                    assertEquals(2, leaves);
+                    sellerFilled = filled;
+                } else if (clientOrderId == 2) {
+                    buyerFilled = status == GatewayProtocol.STATUS_FILLED && filled == 3;
+                } else {
+                    rejected = status == GatewayProtocol.STATUS_REJECTED && reason == GatewayProtocol.REASON_INVALID;
+                }
+            }
+            assertNotEquals(0, restingOrderId);
+            assertEquals(3, sellerFilled);
+            assertTrue(buyerFilled);
+            assertTrue(rejected);
+        }
+    }
+
+    @Test
+    void frameHeaderWithWrongLengthClosesTheSessionBeforeTheBodyArrives() throws IOException {
+        try (SocketChannel client = SocketChannel.open(new InetSocketAddress("localhost", gateway.getLocalPort()))) {
+            ByteBuffer out = ByteBuffer.allocate(GatewayProtocol.LENGTH_BYTES + 1);
+            out.putShort((short) 0xFFFF);
+            out.put(GatewayProtocol.NEW_ORDER);
+            client.write(out.flip());
+
+            assertEquals(-1, client.read(ByteBuffer.allocate(REPORT_FRAME)));
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package com.fintech.service.code.journal;
+
+import com.fintech.service.code.config.EngineProperties;
+import com.fintech.service.code.engine.pipeline.CommandType;
+import com.fintech.service.code.engine.pipeline.OrderCommand;
+import com.fintech.service.code.model.Order;
+import com.fintech.service.code.model.OrderKind;
+import com.fintech.service.code.model.OrderType;
+import com.fintech.service.code.model.Trade;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EventJournalTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void replaysRecordsAndStopsAtTornTail() throws IOException {
+        EventJournal journal = new EventJournal(properties(1024 * 1024));
+        journal.open();
+        Instant now = Instant.now();
+        journal.appendCommand(CommandType.NEW, Order.builder().id(8L).symbol("ACME").type(OrderType.BUY)
+                .kind(OrderKind.IOC).priceTicks(10_050).quantity(2).timestamp(now).build(), 10_050, 2);
+        journal.appendOrder(Order.builder().id(7L).symbol("ACME").accountId(42L).type(OrderType.SELL)
+                .kind(OrderKind.POST_ONLY).priceTicks(10_050).quantity(3).timestamp(now).isActive(true).build());
+        journal.appendStop(Order.builder().id(9L).symbol("ACME").accountId(43L).type(OrderType.BUY)
+                .kind(OrderKind.STOP).stopPriceTicks(10_100).quantity(1).timestamp(now).isActive(true).build());
+        journal.appendTrade(Trade.builder().id(1L).symbol("ACME").priceTicks(10_050).quantity(2).timestamp(now)
+                .buyOrderId(8L).sellOrderId(7L).build());
+        long tradePosition = journal.position();
+        journal.flush();
+        journal.close();
+
+        Path segment = Files.list(directory).findFirst().orElseThrow();
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer checksumByte = ByteBuffer.allocate(1);
+            channel.read(checksumByte, tradePosition - 1);
+            checksumByte.put(0, (byte) ~checksumByte.get(0));
+            channel.write(checksumByte.rewind(), tradePosition - 1);
+        }
+
+        List<OrderCommand> commands = new ArrayList<>();
+        List<Order> orders = new ArrayList<>();
+        List<Trade> trades = new ArrayList<>();
+        long end = new EventJournal(properties(1024 * 1024)).replay(0, new JournalListener() {
+            @Override
+            public void onCommand(long position, OrderCommand command) {
+                commands.add(command);
+            }
+
+            @Override
+            public void onOrder(long position, Order order) {
+                orders.add(order);
+            }
+
+            @Override
+            public void onTrade(long position, Trade trade) {
+                trades.add(trade);
+            }
+        });
+
+        assertTrue(end < tradePosition);
+        assertEquals(1, commands.size());
+        assertEquals(OrderKind.IOC, commands.get(0).getOrder().getKind());
+        assertEquals(10_050, commands.get(0).getOrder().getPriceTicks());
+        assertEquals(2, orders.size());
+        assertEquals(42L, orders.get(0).getAccountId());
+        assertEquals(OrderKind.POST_ONLY, orders.get(0).getKind());
+        assertEquals(10_050, orders.get(0).getPriceTicks());
+        assertEquals(now, orders.get(0).getTimestamp());
+        assertTrue(orders.get(0).isActive());
+        assertEquals(43L, orders.get(1).getAccountId());
+        assertEquals(OrderKind.STOP, orders.get(1).getKind());
+        assertEquals(10_100, orders.get(1).getStopPriceTicks());
+        assertTrue(trades.isEmpty());
+    }
+
+    @Test
+    void rollsSegmentsAndReleasesThoseBeforeAPosition() throws IOException {
+        EventJournal journal = new EventJournal(properties(8192));
+        journal.open();
+        List<Long> positions = new ArrayList<>();
+        for (int i = 0; i < 400; i++) {
+            journal.appendTrade(Trade.builder().id((long) i).symbol("ACME").priceTicks(1).quantity(1)
+                    .timestamp(Instant.now()).buyOrderId(1L).sellOrderId(2L).build());
+            positions.add(journal.position());
+        }
+        journal.flush();
+        long segments = Files.list(directory).count();
+        assertTrue(segments > 2);
+
+        List<Long> replayed = new ArrayList<>();
+        long from = positions.get(199);
+        new EventJournal(properties(8192)).replay(from, new JournalListener() {
+            @Override
+            public void onTrade(long position, Trade trade) {
+                replayed.add(trade.getId());
+            }
+        });
+        assertEquals(200, replayed.size());
+        assertEquals(200L, replayed.get(0));
+
+        journal.release(from);
+
+        assertEquals(segments - EventJournal.segmentOf(from), Files.list(directory).count());
+        journal.close();
+    }
+
+    @Test
+    void cursorCopiesFlushedRecordsAcrossSegmentsIntoAnIdenticalMirror() throws IOException {
+        Path primary = directory.resolve("primary");
+        Path standby = directory.resolve("standby");
+        EventJournal journal = new EventJournal(properties(primary, 8192));
+        journal.open();
+        for (int i = 0; i < 300; i++) {
+            journal.appendTrade(Trade.builder().id((long) i).symbol("ACME").priceTicks(1).quantity(1)
+                    .timestamp(Instant.now()).buyOrderId(1L).sellOrderId(2L).build());
+        }
+        journal.flush();
+        EventJournal.Cursor cursor = journal.cursor(journal.firstPosition());
+        EventJournal mirror = new EventJournal(properties(standby, 8192));
+        long[] expected = {journal.firstPosition()};
+        int records = cursor.read(journal.getFlushedPosition(), (previous, next, record) -> {
+            assertEquals(expected[0], previous);
+            mirror.mirror(next, record);
+            expected[0] = next;
+        });
+        cursor.close();
+        mirror.close();
+        journal.close();
+
+        List<Path> segments = Files.list(primary).sorted().toList();
+        assertTrue(segments.size() > 2);
+        assertEquals(300 + segments.size(), records);
+        assertEquals(journal.getFlushedPosition(), cursor.position());
+        for (Path segment : segments) {
+            assertArrayEquals(Files.readAllBytes(segment), Files.readAllBytes(standby.resolve(segment.getFileName())));
+        }
+        assertEquals(cursor.position(), new EventJournal(properties(standby, 8192)).replay(0, new JournalListener() {
+        }));
+    }
+
+    @Test
+    void refusesSegmentsWithoutAFormatHeader() throws IOException {
+        EventJournal journal = new EventJournal(properties(1024 * 1024));
+        journal.open();
+        journal.appendTrade(Trade.builder().id(1L).symbol("ACME").priceTicks(1).quantity(1).timestamp(Instant.now())
+                .buyOrderId(1L).sellOrderId(2L).build());
+        journal.close();
+
+        Path segment = Files.list(directory).findFirst().orElseThrow();
+        byte[] bytes = Files.readAllBytes(segment);
+        int headerBytes = ByteBuffer.wrap(bytes).getInt() + 2 * Integer.BYTES;
+        byte[] legacy = new byte[bytes.length];
+        System.arraycopy(bytes, headerBytes, legacy, 0, bytes.length - headerBytes);
+        Files.write(segment, legacy);
+
+        assertThrows(IllegalStateException.class,
+                () -> new EventJournal(properties(1024 * 1024)).replay(0, new JournalListener() {
+                }));
+    }
+
+    private EngineProperties properties(long segmentSize) {
+        return properties(directory, segmentSize);
+    }
+
+    private EngineProperties properties(Path journalDirectory, long segmentSize) {
+        EngineProperties properties = new EngineProperties();
+        properties.getJournal().setDirectory(journalDirectory.toString());
+        properties.getJournal().setSegmentSize(segmentSize);
+        return properties;
+    }
+}
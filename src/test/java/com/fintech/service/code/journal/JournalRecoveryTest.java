@@ -0,0 +1,154 @@
+package com.fintech.service.code.journal;
+
+import com.fintech.service.code.config.EngineProperties;
+import com.fintech.service.code.engine.ExecutionReport;
+import com.fintech.service.code.engine.IdGenerator;
+import com.fintech.service.code.engine.PriceTimeMatchingEngine;
+import com.fintech.service.code.engine.book.OrderBook;
+import com.fintech.service.code.engine.book.StopBook;
+import com.fintech.service.code.engine.pipeline.CommandType;
+import com.fintech.service.code.metrics.TradeMetricsService;
+import com.fintech.service.code.model.Order;
+import com.fintech.service.code.model.OrderKind;
+import com.fintech.service.code.model.OrderType;
+import com.fintech.service.code.repository.EngineStateRepository;
+import com.fintech.service.code.service.OrderBookService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class JournalRecoveryTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void rebuildsBooksFromSnapshotAndJournalTail() throws Exception {
+        EngineProperties properties = new EngineProperties();
+        properties.getJournal().setDirectory(directory.toString());
+        properties.getJournal().setSegmentSize(64 * 1024);
+
+        OrderBookService books = new OrderBookService();
+        PriceTimeMatchingEngine engine = new PriceTimeMatchingEngine(books,
+                new TradeMetricsService(new SimpleMeterRegistry()), new IdGenerator());
+        EventJournal journal = new EventJournal(properties);
+        SnapshotStore snapshots = new SnapshotStore(properties);
+        journal.open();
+
+        Random random = new Random(42);
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 2_000; i++) {
+            if (i == 1_000) {
+                snapshots.store(0, journal.position(), SnapshotStore.encode(books.getBooks(), books));
+            }
+            ExecutionReport report;
+            if (i % 7 == 0 && !ids.isEmpty()) {
+                long id = ids.get(random.nextInt(ids.size()));
+                report = engine.amend("ACME", id, 9_990L + random.nextInt(20), null);
+            } else if (i % 5 == 0 && !ids.isEmpty()) {
+                report = engine.cancel("ACME", ids.remove(random.nextInt(ids.size())));
+            } else {
+                Order order = Order.builder().id((long) i + 1).symbol("ACME")
+                        .type(random.nextBoolean() ? OrderType.BUY : OrderType.SELL)
+                        .priceTicks(9_990 + random.nextInt(20)).quantity(1 + random.nextInt(10))
+                        .timestamp(Instant.now()).isActive(true).build();
+                report = engine.match(order);
+                ids.add(order.getId());
+            }
+            if (report != null) {
+                journal.appendCommand(CommandType.NEW, report.getOrder(), -1, -1);
+                journal.appendOrder(report.getOrder());
+                report.getRestingOrders().forEach(journal::appendOrder);
+                report.getTrades().forEach(journal::appendTrade);
+            }
+        }
+        journal.close();
+        snapshots.close();
+
+        OrderBookService recovered = new OrderBookService();
+        IdGenerator idGenerator = new IdGenerator();
+        new JournalRecovery(new EventJournal(properties), new SnapshotStore(properties),
+                new PersistedCheckpoint(properties), recovered, mock(EngineStateRepository.class), idGenerator)
+                .recover();
+
+        OrderBook expected = books.getBook("ACME");
+        OrderBook actual = recovered.getBook("ACME");
+        assertEquals(queue(expected, OrderType.BUY), queue(actual, OrderType.BUY));
+        assertEquals(queue(expected, OrderType.SELL), queue(actual, OrderType.SELL));
+        assertTrue(idGenerator.nextOrderId() > 2_000);
+    }
+
+    @Test
+    void restoresWaitingStopsAndLastPriceFromSnapshotAndJournal() throws Exception {
+        EngineProperties properties = new EngineProperties();
+        properties.getJournal().setDirectory(directory.toString());
+        properties.getJournal().setSegmentSize(64 * 1024);
+
+        OrderBookService books = new OrderBookService();
+        PriceTimeMatchingEngine engine = new PriceTimeMatchingEngine(books,
+                new TradeMetricsService(new SimpleMeterRegistry()), new IdGenerator());
+        EventJournal journal = new EventJournal(properties);
+        SnapshotStore snapshots = new SnapshotStore(properties);
+        journal.open();
+
+        journal(journal, engine.match(order(1, OrderType.SELL, OrderKind.LIMIT, 10000, 0)));
+        journal(journal, engine.match(order(2, OrderType.BUY, OrderKind.LIMIT, 10000, 0)));
+        journal(journal, engine.match(order(3, OrderType.BUY, OrderKind.STOP, 0, 10100)));
+        journal(journal, engine.match(order(4, OrderType.SELL, OrderKind.STOP_LIMIT, 9800, 9900)));
+        snapshots.store(0, journal.position(), SnapshotStore.encode(books.getBooks(), books));
+        journal(journal, engine.match(order(5, OrderType.BUY, OrderKind.STOP, 0, 10100)));
+        journal(journal, engine.cancel("ACME", 3));
+        journal(journal, engine.match(order(6, OrderType.SELL, OrderKind.LIMIT, 9950, 0)));
+        journal(journal, engine.match(order(7, OrderType.BUY, OrderKind.LIMIT, 9950, 0)));
+        journal.close();
+        snapshots.close();
+
+        OrderBookService recovered = new OrderBookService();
+        new JournalRecovery(new EventJournal(properties), new SnapshotStore(properties),
+                new PersistedCheckpoint(properties), recovered, mock(EngineStateRepository.class), new IdGenerator())
+                .recover();
+
+        StopBook stops = recovered.getStops("ACME");
+        assertEquals(9950, stops.getLastPrice());
+        assertEquals(2, stops.size());
+        assertNull(stops.get(3));
+        assertEquals(9800, stops.get(4).getPrice());
+        assertEquals(10100, stops.get(5).getStopPrice());
+    }
+
+    private static Order order(long id, OrderType type, OrderKind kind, long price, long stopPrice) {
+        return Order.builder().id(id).symbol("ACME").type(type).kind(kind).priceTicks(price)
+                .stopPriceTicks(stopPrice).quantity(1).timestamp(Instant.now()).isActive(true).build();
+    }
+
+    /**
+     * Journals a report the way the journal stage does.
+     */
+    private static void journal(EventJournal journal, ExecutionReport report) {
+        Order order = report.getOrder();
+        journal.appendCommand(CommandType.NEW, order, -1, -1);
+        if (order.getKind().isStop()) {
+            journal.appendStop(order);
+        } else {
+            journal.appendOrder(order);
+        }
+        report.getRestingOrders().forEach(journal::appendOrder);
+        report.getTrades().forEach(journal::appendTrade);
+    }
+
+    private static List<String> queue(OrderBook book, OrderType side) {
+        List<String> orders = new ArrayList<>();
+        book.forEach(side, (orderId, orderSide, kind, price, quantity, timestampNanos) ->
+                orders.add(orderId + "@" + price + "x" + quantity));
+        return orders;
+    }
+}
@@ -0,0 +1,116 @@
+package com.fintech.service.code.marketdata;
+
+import com.fintech.service.code.model.Order;
+import com.fintech.service.code.model.OrderType;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DepthBookTest {
+
+    private final Instant now = Instant.now();
+
+    @Test
+    void drainAggregatesLevelsChangedSinceLastDrain() {
+        DepthBook book = new DepthBook("ACME");
+        book.update(order(1, OrderType.BUY, 9900, 5, true));
+        book.update(order(2, OrderType.BUY, 9900, 7, true));
+        book.update(order(3, OrderType.SELL, 10100, 4, true));
+
+        DepthDelta first = book.drain();
+        assertEquals(1, first.getSequence());
+        assertFalse(first.isSnapshot());
+        assertEquals(Map.of(9900L, 12L), first.getBids());
+        assertEquals(Map.of(10100L, 4L), first.getAsks());
+        assertNull(book.drain());
+
+        book.update(order(3, OrderType.SELL, 10100, 1, true));
+        book.update(order(3, OrderType.SELL, 10100, 0, false));
+        DepthDelta second = book.drain();
+        assertEquals(2, second.getSequence());
+        assertEquals(Map.of(), second.getBids());
+        assertEquals(Map.of(10100L, 0L), second.getAsks());
+    }
+
+    @Test
+    void repricedOrderMovesBetweenLevels() {
+        DepthBook book = new DepthBook("ACME");
+        book.update(order(1, OrderType.BUY, 9900, 5, true));
+        book.drain();
+
+        book.update(order(1, OrderType.BUY, 9950, 5, true));
+
+        assertEquals(Map.of(9900L, 0L, 9950L, 5L), book.drain().getBids());
+        DepthDelta snapshot = book.snapshot();
+        assertTrue(snapshot.isSnapshot());
+        assertEquals(2, snapshot.getSequence());
+        assertEquals(Map.of(9950L, 5L), snapshot.getBids());
+    }
+
+    @Test
+    void busySubscriberReceivesConflatedDelta() {
+        DepthBook book = new DepthBook("ACME");
+        BookSubscriber subscriber = new BookSubscriber("session", "sub-0", "ACME");
+        assertNotNull(subscriber.offer(book.snapshot()));
+
+        book.update(order(1, OrderType.SELL, 10100, 4, true));
+        assertNull(subscriber.offer(book.drain()));
+        book.update(order(1, OrderType.SELL, 10100, 0, false));
+        book.update(order(2, OrderType.SELL, 10200, 3, true));
+        assertNull(subscriber.offer(book.drain()));
+
+        DepthDelta next = subscriber.delivered();
+        assertFalse(next.isSnapshot());
+        assertEquals(2, next.getSequence());
+        assertEquals(Map.of(10100L, 0L, 10200L, 3L), next.getAsks());
+        assertNull(subscriber.delivered());
+        assertNotNull(subscriber.offer(book.snapshot()));
+    }
+
+    @Test
+    void failedSendLeavesSubscriberIdle() {
+        DepthBook book = new DepthBook("ACME");
+        BookSubscriber subscriber = new BookSubscriber("session", "sub-0", "ACME");
+        assertNotNull(subscriber.offer(book.snapshot()));
+        book.update(order(1, OrderType.SELL, 10100, 4, true));
+        assertNull(subscriber.offer(book.drain()));
+
+        subscriber.failed();
+
+        book.update(order(2, OrderType.SELL, 10200, 3, true));
+        DepthDelta next = subscriber.offer(book.drain());
+        assertEquals(Map.of(10200L, 3L), next.getAsks());
+        assertNull(subscriber.delivered());
+    }
+
+    @Test
+    void viewListsLevelsBestFirstAndIgnoresLaterUpdates() {
+        DepthBook book = new DepthBook("ACME");
+        book.update(order(1, OrderType.BUY, 9800, 5, true));
+        book.update(order(2, OrderType.BUY, 9900, 7, true));
+        book.update(order(3, OrderType.SELL, 10200, 4, true));
+        book.update(order(4, OrderType.SELL, 10100, 6, true));
+        book.drain();
+
+        BookView view = book.view();
+        book.update(order(2, OrderType.BUY, 9900, 0, false));
+
+        assertEquals(1, view.getSequence());
+        assertEquals(2, view.getBidLevels());
+        assertEquals(9900, view.getBestBid());
+        assertEquals(7, view.getBidQuantity(0));
+        assertEquals(9800, view.getBidPrice(1));
+        assertEquals(10100, view.getBestAsk());
+        assertEquals(10200, view.getAskPrice(1));
+        assertEquals(4, view.getAskQuantity(1));
+        assertEquals(9800, book.view().getBestBid());
+    }
+
+    private Order order(long id, OrderType side, long priceTicks, int quantity, boolean active) {
+        return Order.builder().id(id).symbol("ACME").type(side).priceTicks(priceTicks).quantity(quantity)
+                .timestamp(now).isActive(active).build();
+    }
+}
@@ -0,0 +1,59 @@
+package com.fintech.service.code.marketdata;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SymbolStatisticsTest {
+
+    @Test
+    void sessionFiguresAndRollingLastTrades() {
+        SymbolStatistics statistics = new SymbolStatistics(2, 60_000, 60_000, 10);
+        assertEquals(SymbolStatistics.NO_PRICE, statistics.getLastPrice());
+        assertTrue(Double.isNaN(statistics.getRecentAverage()));
+
+        statistics.record(100, 10, 1_000);
+        statistics.record(110, 30, 2_000);
+        statistics.record(90, 10, 3_000);
+
+        assertEquals(90, statistics.getLastPrice());
+        assertEquals(110, statistics.getHigh());
+        assertEquals(90, statistics.getLow());
+        assertEquals(50, statistics.getVolume());
+        assertEquals(3, statistics.getTradeCount());
+        assertEquals(100.0, statistics.getRecentAverage());
+        assertEquals((110.0 * 30 + 90 * 10) / 40, statistics.getRecentVwap());
+    }
+
+    @Test
+    void timeWindowExpiresOldTradesAndSurvivesGrowth() {
+        SymbolStatistics statistics = new SymbolStatistics(10, 1_000, 60_000, 10);
+        for (int i = 0; i < 200; i++) {
+            statistics.record(100, 1, i);
+        }
+        assertEquals(200, statistics.getWindowVolume(199));
+        assertEquals(100.0, statistics.getWindowVwap(199));
+
+        statistics.record(200, 3, 1_500);
+        assertEquals(3, statistics.getWindowVolume(1_500));
+        assertEquals(200.0, statistics.getWindowAverage(2_000));
+        assertEquals(200.0, statistics.getWindowVwap(2_000));
+        assertEquals(0, statistics.getWindowVolume(2_500));
+        assertTrue(Double.isNaN(statistics.getWindowVwap(2_500)));
+    }
+
+    @Test
+    void barsRollOverAndKeepTheLatest() {
+        SymbolStatistics statistics = new SymbolStatistics(10, 60_000, 1_000, 2);
+        statistics.record(100, 1, 0);
+        statistics.record(120, 2, 500);
+        statistics.record(90, 3, 900);
+        statistics.record(95, 4, 1_200);
+        statistics.record(97, 5, 2_100);
+
+        List<OhlcBar> bars = statistics.getBars();
+        assertEquals(List.of(new OhlcBar(1_000, 95, 95, 95, 95, 4), new OhlcBar(2_000, 97, 97, 97, 97, 5)), bars);
+    }
+}
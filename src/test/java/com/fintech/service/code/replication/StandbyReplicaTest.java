@@ -0,0 +1,144 @@
+package com.fintech.service.code.replication;
+
+import com.fintech.service.code.config.EngineProperties;
+import com.fintech.service.code.engine.IdGenerator;
+import com.fintech.service.code.engine.MatchingPipeline;
+import com.fintech.service.code.engine.book.OrderBook;
+import com.fintech.service.code.engine.book.RestingOrder;
+import com.fintech.service.code.engine.pipeline.PersistenceHandler;
+import com.fintech.service.code.journal.EventJournal;
+import com.fintech.service.code.journal.JournalRecovery;
+import com.fintech.service.code.journal.PersistedCheckpoint;
+import com.fintech.service.code.journal.SnapshotStore;
+import com.fintech.service.code.model.Order;
+import com.fintech.service.code.model.OrderType;
+import com.fintech.service.code.repository.EngineStateRepository;
+import com.fintech.service.code.service.OrderBookService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class StandbyReplicaTest {
+
+    @TempDir
+    Path directory;
+
+    private final Random random = new Random(7);
+    private final OrderBookService primaryBooks = new OrderBookService();
+    private long nextId = 1;
+
+    @Test
+    void standbyBootstrapsFromSnapshotFollowsLiveRecordsAndPromotes() throws Exception {
+        EngineProperties primaryProperties = properties("primary", 0);
+        EventJournal primaryJournal = new EventJournal(primaryProperties);
+        SnapshotStore primarySnapshots = new SnapshotStore(primaryProperties);
+        PersistenceHandler persistence = mock(PersistenceHandler.class);
+        when(persistence.getPersistedPosition()).thenReturn(new AtomicLong(42));
+        primaryJournal.open();
+        ReplicationServer server = new ReplicationServer(primaryProperties, primaryJournal, primarySnapshots,
+                persistence, new SimpleMeterRegistry());
+        server.start();
+
+        trade(primaryJournal, 500);
+        primarySnapshots.store(0, primaryJournal.position(),
+                SnapshotStore.encode(primaryBooks.getBooks(), primaryBooks));
+        trade(primaryJournal, 500);
+        primarySnapshots.close();
+        primaryJournal.flush();
+
+        EngineProperties standbyProperties = properties("standby", server.getLocalPort());
+        EventJournal standbyJournal = new EventJournal(standbyProperties);
+        SnapshotStore standbySnapshots = new SnapshotStore(standbyProperties);
+        PersistedCheckpoint checkpoint = new PersistedCheckpoint(standbyProperties);
+        OrderBookService standbyBooks = new OrderBookService();
+        MatchingPipeline pipeline = mock(MatchingPipeline.class);
+        StandbyReplica replica = new StandbyReplica(standbyProperties, standbyJournal, standbySnapshots, checkpoint,
+                new JournalRecovery(standbyJournal, standbySnapshots, checkpoint, standbyBooks,
+                        mock(EngineStateRepository.class), new IdGenerator()),
+                pipeline, new SimpleMeterRegistry());
+        replica.start();
+        awaitPosition(replica, primaryJournal.getFlushedPosition());
+        assertSameBooks(standbyBooks);
+
+        trade(primaryJournal, 200);
+        primaryJournal.flush();
+        awaitPosition(replica, primaryJournal.getFlushedPosition());
+        assertSameBooks(standbyBooks);
+
+        replica.promote();
+        server.stop();
+        primaryJournal.close();
+
+        verify(pipeline).promote();
+        assertEquals(42, checkpoint.read());
+        assertThrows(IllegalStateException.class, replica::promote);
+    }
+
+    private void trade(EventJournal journal, int commands) {
+        for (int i = 0; i < commands; i++) {
+            OrderBook book = primaryBooks.getBook(random.nextBoolean() ? "ACME" : "GLOBEX");
+            if (book.size() > 0 && random.nextInt(3) == 0) {
+                long id = 1 + random.nextInt((int) nextId - 1);
+                RestingOrder resting = book.get(id);
+                if (resting != null) {
+                    book.remove(id);
+                    journal.appendOrder(Order.builder().id(id).symbol(book.getSymbol()).type(resting.getSide())
+                            .priceTicks(resting.getPrice()).quantity(0).timestamp(Instant.now()).isActive(false)
+                            .build());
+                }
+                continue;
+            }
+            Order order = Order.builder().id(nextId++).symbol(book.getSymbol())
+                    .type(random.nextBoolean() ? OrderType.BUY : OrderType.SELL)
+                    .priceTicks(9_990 + random.nextInt(20)).quantity(1 + random.nextInt(10))
+                    .timestamp(Instant.now()).isActive(true).build();
+            primaryBooks.addOrder(order);
+            journal.appendOrder(order);
+        }
+    }
+
+    private void assertSameBooks(OrderBookService standbyBooks) {
+        for (OrderBook book : primaryBooks.getBooks()) {
+            OrderBook replicated = standbyBooks.getBook(book.getSymbol());
+            assertEquals(book.size(), replicated.size());
+            for (OrderType side : OrderType.values()) {
+                book.forEach(side, (orderId, orderSide, kind, price, quantity, timestampNanos) -> {
+                    RestingOrder resting = replicated.get(orderId);
+                    assertNotNull(resting);
+                    assertEquals(kind, resting.getKind());
+                    assertEquals(price, resting.getPrice());
+                    assertEquals(quantity, resting.getQuantity());
+                });
+            }
+        }
+    }
+
+    private static void awaitPosition(StandbyReplica replica, long position) throws InterruptedException {
+        long deadline = System.nanoTime() + 10_000_000_000L;
+        while (replica.getPosition() != position) {
+            assertTrue(System.nanoTime() < deadline, "standby did not catch up");
+            Thread.sleep(5);
+        }
+    }
+
+    private EngineProperties properties(String node, int port) {
+        EngineProperties properties = new EngineProperties();
+        properties.setShards(1);
+        properties.getJournal().setDirectory(directory.resolve(node).toString());
+        properties.getJournal().setSegmentSize(64 * 1024);
+        properties.getReplication().setPort(port);
+        properties.getReplication().setReconnectDelay(Duration.ofMillis(50));
+        return properties;
+    }
+}
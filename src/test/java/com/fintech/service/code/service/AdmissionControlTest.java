@@ -0,0 +1,90 @@
+package com.fintech.service.code.service;
+
+import com.fintech.service.code.config.EngineProperties;
+import com.fintech.service.code.engine.ExecutionReport;
+import com.fintech.service.code.engine.MatchingPipeline;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class AdmissionControlTest {
+
+    private final EngineProperties properties = new EngineProperties();
+    private final MatchingPipeline matchingPipeline = mock(MatchingPipeline.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void symbolInFlightLimitRejectsUntilCommandsComplete() {
+        properties.getAdmission().setMaxInFlightPerSymbol(2);
+        AdmissionControl admission = new AdmissionControl(properties, matchingPipeline, meterRegistry);
+        CompletableFuture<ExecutionReport> first = new CompletableFuture<>();
+        admission.admit("a", "ACME");
+        admission.track("ACME", first);
+        admission.admit("a", "ACME");
+
+        OrderRejectedException rejected = assertThrows(OrderRejectedException.class,
+                () -> admission.admit("b", "ACME"));
+        assertEquals(AdmissionControl.Reason.SYMBOL_QUEUE_FULL, rejected.getReason());
+        admission.admit("b", "GLOBEX");
+
+        first.complete(null);
+        admission.admit("b", "ACME");
+        assertEquals(2, meterRegistry.get("engine.admission.in.flight").tag("symbol", "ACME").gauge().value());
+        assertEquals(1, meterRegistry.get("engine.admission.rejected").tag("reason", "symbol_queue_full")
+                .counter().count());
+    }
+
+    @Test
+    void fullShardRingRejects() {
+        when(matchingPipeline.queueFill("ACME")).thenReturn(0.95);
+        AdmissionControl admission = new AdmissionControl(properties, matchingPipeline, meterRegistry);
+
+        OrderRejectedException rejected = assertThrows(OrderRejectedException.class,
+                () -> admission.admit("a", "ACME"));
+
+        assertEquals(AdmissionControl.Reason.SHARD_QUEUE_FULL, rejected.getReason());
+        assertEquals(0, meterRegistry.get("engine.admission.in.flight").gauge().value());
+    }
+
+    @Test
+    void clientRateLimitAllowsBurstThenRejects() {
+        properties.getAdmission().setClientBurst(3);
+        properties.getAdmission().getClientRates().put("slow", 0.001);
+        AdmissionControl admission = new AdmissionControl(properties, matchingPipeline, meterRegistry);
+        for (int i = 0; i < 3; i++) {
+            admission.admit("slow", "ACME");
+        }
+
+        OrderRejectedException rejected = assertThrows(OrderRejectedException.class,
+                () -> admission.admit("slow", "ACME"));
+
+        assertEquals(AdmissionControl.Reason.RATE_LIMITED, rejected.getReason());
+        for (int i = 0; i < 10; i++) {
+            admission.admit("unlimited", "ACME");
+        }
+    }
+
+    @Test
+    void evictsOnlyBucketsThatHaveRefilled() {
+        properties.getAdmission().setClientBurst(2);
+        properties.getAdmission().getClientRates().put("10.0.0.1", 1.0);
+        properties.getAdmission().getClientRates().put("10.0.0.2", 0.001);
+        AdmissionControl admission = new AdmissionControl(properties, matchingPipeline, meterRegistry);
+        admission.admit("10.0.0.1", "ACME");
+        admission.admit("10.0.0.2", "ACME");
+        admission.admit("10.0.0.3", "ACME");
+        assertEquals(3, meterRegistry.get("engine.admission.clients").gauge().value());
+
+        admission.evictIdleClients(System.nanoTime() + TimeUnit.SECONDS.toNanos(2));
+
+        assertEquals(1, meterRegistry.get("engine.admission.clients").gauge().value());
+        admission.admit("10.0.0.2", "ACME");
+        assertThrows(OrderRejectedException.class, () -> admission.admit("10.0.0.2", "ACME"));
+    }
+}
@@ -0,0 +1,45 @@
+package com.fintech.service.code.service;
+
+import com.fintech.service.code.config.EngineProperties;
+import com.fintech.service.code.dto.BatchOrderResult;
+import com.fintech.service.code.dto.OrderRequest;
+import com.fintech.service.code.engine.IdGenerator;
+import com.fintech.service.code.engine.MatchingPipeline;
+import com.fintech.service.code.engine.PriceScale;
+import com.fintech.service.code.model.OrderType;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+class OrderServiceTest {
+
+    private final MatchingPipeline matchingPipeline = mock(MatchingPipeline.class);
+    private final AdmissionControl admissionControl = mock(AdmissionControl.class);
+    private final OrderService orderService = new OrderService(new IdGenerator(), matchingPipeline,
+            new OrderBookService(), new PriceScale(new EngineProperties()), admissionControl);
+
+    @Test
+    void malformedOrdersAreRejectedBeforeAdmission() {
+        assertThrows(IllegalArgumentException.class, () -> orderService.placeOrder("client",
+                order(null, OrderType.BUY, 1)));
+        assertThrows(IllegalArgumentException.class, () -> orderService.placeOrder("client",
+                order("ACME", null, 1)));
+        assertThrows(IllegalArgumentException.class, () -> orderService.placeOrder("client",
+                order("ACME", OrderType.SELL, 0)));
+
+        List<BatchOrderResult> results = orderService.placeOrders("client", List.of(order("ACME", OrderType.BUY, -5)));
+
+        assertEquals("Quantity must be positive", results.get(0).getError());
+        verifyNoInteractions(admissionControl);
+    }
+
+    private static OrderRequest order(String symbol, OrderType side, int quantity) {
+        return OrderRequest.builder().symbol(symbol).type(side).price(new BigDecimal("100")).quantity(quantity)
+                .build();
+    }
+}
@@ -0,0 +1,182 @@
+package com.fintech.service.code.websocket;
+
+import com.fintech.service.code.engine.EpochClock;
+import com.fintech.service.code.marketdata.DepthDelta;
+import com.fintech.service.code.model.Trade;
+import com.fintech.service.code.service.OrderBookService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
+
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class BinaryStreamHandlerTest {
+
+    private final OrderBookService orderBookService = new OrderBookService();
+    private final BinaryStreamHandler handler =
+            new BinaryStreamHandler(mock(WebSocketHandler.class), orderBookService);
+
+    @BeforeEach
+    void setUp() {
+        orderBookService.getBook("ACME");
+    }
+
+    @Test
+    void subscriptionsToUnknownSymbolsAreClosed() throws Exception {
+        WebSocketSession session = mock(WebSocketSession.class);
+
+        subscribe(session, BinaryStreamProtocol.STREAM_TRADES, "BOGUS");
+
+        verify(session).close(CloseStatus.BAD_DATA.withReason("Unknown symbol BOGUS"));
+        verify(session, never()).sendMessage(any());
+    }
+
+    @Test
+    void tradesOfABatchAreEncodedOnceAsDeltas() throws Exception {
+        WebSocketSession first = mock(WebSocketSession.class);
+        WebSocketSession second = mock(WebSocketSession.class);
+        subscribe(first, BinaryStreamProtocol.STREAM_TRADES, "ACME");
+        subscribe(second, BinaryStreamProtocol.STREAM_TRADES, "ACME");
+        Instant time = Instant.parse("2026-01-05T10:00:00Z");
+
+        handler.onTrade(trade(100, 10000, 5, time));
+        handler.onTrade(trade(101, 9990, 7, time.plusNanos(1500)));
+        handler.onTrade(trade(103, 10010, 1, time.plusSeconds(10)));
+        handler.onTrade(Trade.builder().id(104L).symbol("OTHER").priceTicks(1).quantity(1).timestamp(time).build());
+        handler.flushTrades();
+
+        List<ByteBuffer> firstFrames = sent(first);
+        List<ByteBuffer> secondFrames = sent(second);
+        assertEquals(2, firstFrames.size());
+        assertEquals(BinaryStreamProtocol.SYMBOL, firstFrames.get(0).get(0));
+        assertSame(firstFrames.get(1).array(), secondFrames.get(1).array());
+
+        ByteBuffer frame = firstFrames.get(1);
+        assertEquals(BinaryStreamProtocol.TRADES, frame.get());
+        assertEquals(BinaryStreamProtocol.WIDE, frame.get());
+        assertEquals(firstFrames.get(0).getShort(1), frame.getShort());
+        assertEquals(3, frame.getInt());
+        long id = frame.getLong();
+        long price = frame.getLong();
+        long nanos = frame.getLong();
+        List<long[]> trades = new ArrayList<>();
+        while (frame.hasRemaining()) {
+            id += frame.getLong();
+            price += frame.getLong();
+            int quantity = frame.getInt();
+            nanos += frame.getLong();
+            trades.add(new long[]{id, price, quantity, nanos});
+        }
+        long start = EpochClock.toNanos(time);
+        assertArrayEquals(new long[]{100, 10000, 5, start}, trades.get(0));
+        assertArrayEquals(new long[]{101, 9990, 7, start + 1500}, trades.get(1));
+        assertArrayEquals(new long[]{103, 10010, 1, start + 10_000_000_000L}, trades.get(2));
+    }
+
+    @Test
+    void narrowTradeFramesUseFourByteEntries() {
+        Instant time = Instant.parse("2026-01-05T10:00:00Z");
+        ByteBuffer frame = BinaryStreamProtocol.encodeTrades(7, List.of(trade(1, 100, 2, time),
+                trade(2, 99, 3, time.plusNanos(10))), 0, 2);
+
+        assertEquals(BinaryStreamProtocol.TRADES_HEADER_BYTES + 2 * 4 * Integer.BYTES, frame.remaining());
+        assertEquals(0, frame.get(1));
+        frame.position(BinaryStreamProtocol.TRADES_HEADER_BYTES + 4 * Integer.BYTES);
+        assertEquals(1, frame.getInt());
+        assertEquals(-1, frame.getInt());
+        assertEquals(3, frame.getInt());
+        assertEquals(10, frame.getInt());
+    }
+
+    @Test
+    void bookSubscribersGetASnapshotThenLevelChanges() throws Exception {
+        WebSocketSession session = mock(WebSocketSession.class);
+        subscribe(session, BinaryStreamProtocol.STREAM_BOOK, "ACME");
+        DepthDelta snapshot = new DepthDelta("ACME", 4, true, Map.of(9990L, 10L, 10000L, 5L), Map.of(10010L, 8L));
+
+        handler.publishBook("ACME", null, () -> snapshot);
+        handler.publishBook("ACME", new DepthDelta("ACME", 5, false, Map.of(10000L, 0L, 9980L, 0L),
+                Map.of(10010L, 3L, 10020L, 4L)), () -> fail("no snapshot due"));
+
+        List<ByteBuffer> frames = sent(session);
+        assertEquals(3, frames.size());
+        assertEquals(List.of(new Level(10000, 5), new Level(9990, 10), new Level(10010, 8)),
+                book(frames.get(1), true, 4, 2));
+        assertEquals(List.of(new Level(10000, -5), new Level(10010, -5), new Level(10020, 4)),
+                book(frames.get(2), false, 5, 1));
+    }
+
+    @Test
+    void slowBookSubscriberSkipsDeltasAndIsResynced() throws Exception {
+        ConcurrentWebSocketSessionDecorator session = mock(ConcurrentWebSocketSessionDecorator.class);
+        subscribe(session, BinaryStreamProtocol.STREAM_BOOK, "ACME");
+        handler.publishBook("ACME", null, () -> new DepthDelta("ACME", 1, true, Map.of(100L, 1L), Map.of()));
+
+        when(session.getBufferSize()).thenReturn(512);
+        handler.publishBook("ACME", new DepthDelta("ACME", 2, false, Map.of(100L, 2L), Map.of()),
+                () -> fail("still writing"));
+        when(session.getBufferSize()).thenReturn(0);
+        handler.publishBook("ACME", new DepthDelta("ACME", 3, false, Map.of(100L, 3L), Map.of()),
+                () -> new DepthDelta("ACME", 3, true, Map.of(100L, 3L), Map.of()));
+
+        List<ByteBuffer> frames = sent(session);
+        assertEquals(3, frames.size());
+        assertEquals(List.of(new Level(100, 3)), book(frames.get(2), true, 3, 1));
+    }
+
+    private void subscribe(WebSocketSession session, byte stream, String symbol) throws Exception {
+        ByteBuffer message = ByteBuffer.allocate(BinaryStreamProtocol.SUBSCRIBE_BYTES);
+        BinaryStreamProtocol.putSubscribe(message, BinaryStreamProtocol.SUBSCRIBE, stream, symbol);
+        handler.handleMessageFromClient(session, new BinaryMessage(message.flip()), null);
+    }
+
+    private static List<ByteBuffer> sent(WebSocketSession session) throws Exception {
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<WebSocketMessage<?>> captor = ArgumentCaptor.forClass(WebSocketMessage.class);
+        verify(session, atLeastOnce()).sendMessage(captor.capture());
+        return captor.getAllValues().stream().map(message -> (ByteBuffer) message.getPayload()).toList();
+    }
+
+    private static List<Level> book(ByteBuffer frame, boolean snapshot, long sequence, int bidCount) {
+        assertEquals(BinaryStreamProtocol.BOOK, frame.get());
+        assertEquals(snapshot ? BinaryStreamProtocol.SNAPSHOT : 0, frame.get());
+        frame.getShort();
+        assertEquals(bidCount, frame.getInt());
+        int count = bidCount + frame.getInt();
+        assertEquals(sequence, frame.getLong());
+        long base = frame.getLong();
+        long price = base;
+        List<Level> levels = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            price = (i == bidCount ? base : price) + frame.getInt();
+            levels.add(new Level(price, frame.getInt()));
+        }
+        return levels;
+    }
+
+    private static Trade trade(long id, long priceTicks, int quantity, Instant timestamp) {
+        return Trade.builder().id(id).symbol("ACME").priceTicks(priceTicks).quantity(quantity).timestamp(timestamp)
+                .build();
+    }
+
+    private record Level(long price, long change) {
+    }
+}